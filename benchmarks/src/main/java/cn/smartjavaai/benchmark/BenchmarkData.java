@@ -0,0 +1,79 @@
+package cn.smartjavaai.benchmark;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.Random;
+
+/**
+ * 合成基准数据
+ * @author dwj
+ */
+final class BenchmarkData {
+
+    private BenchmarkData() {
+    }
+
+    /**
+     * 随机单位向量
+     */
+    static float[] randomVector(Random random, int dimension) {
+        float[] vector = new float[dimension];
+        double norm = 0;
+        for (int i = 0; i < dimension; i++) {
+            vector[i] = (float) random.nextGaussian();
+            norm += vector[i] * vector[i];
+        }
+        float inv = (float) (1.0 / Math.sqrt(norm));
+        for (int i = 0; i < dimension; i++) {
+            vector[i] *= inv;
+        }
+        return vector;
+    }
+
+    /**
+     * 随机检测框，坐标格式 [x1, y1, x2, y2]，框围绕若干中心聚集以产生重叠
+     */
+    static float[] randomBoxes(Random random, int count, int imageSize) {
+        float[] boxes = new float[count * 4];
+        int clusters = Math.max(1, count / 50);
+        float[] centers = new float[clusters * 2];
+        for (int i = 0; i < centers.length; i++) {
+            centers[i] = random.nextFloat() * imageSize;
+        }
+        for (int i = 0; i < count; i++) {
+            int c = random.nextInt(clusters);
+            float cx = centers[c * 2] + (float) random.nextGaussian() * 8;
+            float cy = centers[c * 2 + 1] + (float) random.nextGaussian() * 8;
+            float w = 20 + random.nextFloat() * 60;
+            float h = 20 + random.nextFloat() * 60;
+            boxes[i * 4] = cx - w / 2;
+            boxes[i * 4 + 1] = cy - h / 2;
+            boxes[i * 4 + 2] = cx + w / 2;
+            boxes[i * 4 + 3] = cy + h / 2;
+        }
+        return boxes;
+    }
+
+    static float[] randomScores(Random random, int count) {
+        float[] scores = new float[count];
+        for (int i = 0; i < count; i++) {
+            scores[i] = random.nextFloat();
+        }
+        return scores;
+    }
+
+    /**
+     * 带随机色块的合成图片
+     */
+    static BufferedImage syntheticImage(int width, int height, int type) {
+        BufferedImage image = new BufferedImage(width, height, type);
+        Graphics2D g = image.createGraphics();
+        Random random = new Random(7);
+        for (int i = 0; i < 64; i++) {
+            g.setColor(new Color(random.nextInt(0xFFFFFF)));
+            g.fillRect(random.nextInt(width), random.nextInt(height), 20 + random.nextInt(200), 20 + random.nextInt(200));
+        }
+        g.dispose();
+        return image;
+    }
+}
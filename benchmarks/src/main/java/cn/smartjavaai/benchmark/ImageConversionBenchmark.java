@@ -0,0 +1,71 @@
+package cn.smartjavaai.benchmark;
+
+import cn.smartjavaai.common.utils.BufferedImageUtils;
+import cn.smartjavaai.common.utils.OpenCVUtils;
+import nu.pattern.OpenCV;
+import org.opencv.core.Mat;
+import org.openjdk.jmh.annotations.*;
+
+import java.awt.image.BufferedImage;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 图像格式转换基准
+ * @author dwj
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ImageConversionBenchmark {
+
+    /**
+     * 5 = TYPE_3BYTE_BGR，2 = TYPE_INT_ARGB
+     */
+    @Param({"5", "2"})
+    public int imageType;
+
+    private BufferedImage image;
+
+    private Mat mat;
+
+    @Setup
+    public void setup() {
+        OpenCV.loadLocally();
+        image = BenchmarkData.syntheticImage(1280, 720, imageType);
+        mat = OpenCVUtils.image2Mat(image);
+    }
+
+    @TearDown
+    public void tearDown() {
+        mat.release();
+    }
+
+    @Benchmark
+    public Mat image2Mat() {
+        Mat result = OpenCVUtils.image2Mat(image);
+        result.release();
+        return result;
+    }
+
+    @Benchmark
+    public BufferedImage mat2Image() {
+        // mat2Image 会原地转换颜色通道，使用副本
+        Mat copy = mat.clone();
+        BufferedImage result = OpenCVUtils.mat2Image(copy);
+        copy.release();
+        return result;
+    }
+
+    @Benchmark
+    public BufferedImage bgrMat2Image() {
+        return OpenCVUtils.bgrMat2Image(mat);
+    }
+
+    @Benchmark
+    public byte[] getMatrixBGR() {
+        return BufferedImageUtils.getMatrixBGR(image);
+    }
+}
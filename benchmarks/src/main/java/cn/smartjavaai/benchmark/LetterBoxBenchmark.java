@@ -0,0 +1,54 @@
+package cn.smartjavaai.benchmark;
+
+import ai.djl.ndarray.NDArray;
+import ai.djl.ndarray.NDManager;
+import ai.djl.ndarray.types.DataType;
+import ai.djl.ndarray.types.Shape;
+import cn.smartjavaai.common.utils.LetterBoxUtils;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * LetterBox 预处理基准
+ * @author dwj
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class LetterBoxBenchmark {
+
+    @Param({"1280x720", "1920x1080"})
+    public String imageSize;
+
+    private NDManager manager;
+
+    private NDArray image;
+
+    @Setup
+    public void setup() {
+        String[] size = imageSize.split("x");
+        manager = NDManager.newBaseManager();
+        image = manager.randomUniform(0, 255, new Shape(Long.parseLong(size[1]), Long.parseLong(size[0]), 3))
+                .toType(DataType.FLOAT32, false);
+    }
+
+    @TearDown
+    public void tearDown() {
+        manager.close();
+    }
+
+    @Benchmark
+    public Object letterbox() {
+        try (NDManager subManager = manager.newSubManager()) {
+            // 中间结果随临时管理器一起释放
+            image.tempAttach(subManager);
+            LetterBoxUtils.ResizeResult result = LetterBoxUtils.letterbox(subManager, image, 640, 640, 114f,
+                    LetterBoxUtils.PaddingPosition.CENTER);
+            return result.image.getShape();
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package cn.smartjavaai.benchmark;
+
+import ai.djl.ndarray.NDArray;
+import ai.djl.ndarray.NDManager;
+import ai.djl.ndarray.types.Shape;
+import cn.smartjavaai.common.utils.NMSUtils;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * NMS 基准：原始类型实现与 NDArray 入口对比
+ * @author dwj
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class NMSBenchmark {
+
+    @Param({"100", "1000", "8400"})
+    public int boxCount;
+
+    private float[] boxes;
+
+    private float[] scores;
+
+    private int[] classIds;
+
+    private NDManager manager;
+
+    private NDArray boxArray;
+
+    private NDArray scoreArray;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(42);
+        boxes = BenchmarkData.randomBoxes(random, boxCount, 640);
+        scores = BenchmarkData.randomScores(random, boxCount);
+        classIds = new int[boxCount];
+        for (int i = 0; i < boxCount; i++) {
+            classIds[i] = random.nextInt(80);
+        }
+        manager = NDManager.newBaseManager();
+        boxArray = manager.create(boxes, new Shape(boxCount, 4));
+        scoreArray = manager.create(scores);
+    }
+
+    @TearDown
+    public void tearDown() {
+        manager.close();
+    }
+
+    @Benchmark
+    public int[] primitiveNms() {
+        return NMSUtils.nms(boxes, scores, boxCount, 0.45f);
+    }
+
+    @Benchmark
+    public int[] primitiveBatchedNms() {
+        return NMSUtils.batchedNms(boxes, scores, classIds, boxCount, 0.45f, 300);
+    }
+
+    @Benchmark
+    public int[] ndArrayNms() {
+        return NMSUtils.nms(boxArray, scoreArray, 0.45f);
+    }
+}
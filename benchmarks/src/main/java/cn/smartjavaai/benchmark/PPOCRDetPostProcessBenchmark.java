@@ -0,0 +1,108 @@
+package cn.smartjavaai.benchmark;
+
+import ai.djl.modality.cv.BufferedImageFactory;
+import ai.djl.modality.cv.Image;
+import ai.djl.ndarray.NDArray;
+import ai.djl.ndarray.NDList;
+import ai.djl.ndarray.NDManager;
+import ai.djl.ndarray.index.NDIndex;
+import ai.djl.ndarray.types.Shape;
+import ai.djl.translate.TranslatorContext;
+import cn.smartjavaai.ocr.model.common.detect.translator.PPOCRDetTranslator;
+import nu.pattern.OpenCV;
+import org.openjdk.jmh.annotations.*;
+
+import java.awt.image.BufferedImage;
+import java.lang.reflect.Proxy;
+import java.util.Collections;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * PP-OCR 文本检测后处理基准（合成概率图，包含若干文本行）
+ * @author dwj
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class PPOCRDetPostProcessBenchmark {
+
+    @Param({"20", "200"})
+    public int textLines;
+
+    private NDManager manager;
+
+    private PPOCRDetTranslator translator;
+
+    private TranslatorContext context;
+
+    private NDArray probabilityMap;
+
+    @Setup
+    public void setup() {
+        OpenCV.loadLocally();
+        manager = NDManager.newBaseManager();
+        context = translatorContext(manager);
+        translator = new PPOCRDetTranslator(Collections.emptyMap());
+        // 执行一次前处理以初始化缩放比例
+        Image image = new BufferedImageFactory().fromImage(
+                BenchmarkData.syntheticImage(1280, 960, BufferedImage.TYPE_3BYTE_BGR));
+        translator.processInput(context, image);
+
+        int height = 960;
+        int width = 960;
+        probabilityMap = manager.zeros(new Shape(1, 1, height, width));
+        Random random = new Random(42);
+        for (int i = 0; i < textLines; i++) {
+            int lineHeight = 12 + random.nextInt(16);
+            int lineWidth = 40 + random.nextInt(400);
+            int y = random.nextInt(height - lineHeight);
+            int x = random.nextInt(width - lineWidth);
+            probabilityMap.set(new NDIndex("0, 0, {}:{}, {}:{}", y, y + lineHeight, x, x + lineWidth), 0.9f);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        manager.close();
+    }
+
+    @Benchmark
+    public int processOutput() {
+        try (NDManager subManager = manager.newSubManager()) {
+            // 中间结果随临时管理器一起释放
+            probabilityMap.tempAttach(subManager);
+            TranslatorContext ctx = translatorContext(subManager);
+            NDList boxes = translator.processOutput(ctx, new NDList(probabilityMap));
+            int count = boxes.size();
+            boxes.close();
+            return count;
+        }
+    }
+
+    /**
+     * 仅提供 NDManager 及附件存取的 TranslatorContext
+     */
+    private static TranslatorContext translatorContext(NDManager manager) {
+        ConcurrentHashMap<String, Object> attachments = new ConcurrentHashMap<>();
+        return (TranslatorContext) Proxy.newProxyInstance(TranslatorContext.class.getClassLoader(),
+                new Class<?>[]{TranslatorContext.class}, (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "getNDManager":
+                        case "getPredictorManager":
+                            return manager;
+                        case "setAttachment":
+                            attachments.put((String) args[0], args[1]);
+                            return null;
+                        case "getAttachment":
+                            return attachments.get((String) args[0]);
+                        default:
+                            return null;
+                    }
+                });
+    }
+}
@@ -0,0 +1,97 @@
+package cn.smartjavaai.benchmark;
+
+import cn.smartjavaai.common.entity.face.FaceSearchResult;
+import cn.smartjavaai.common.enums.SimilarityType;
+import cn.smartjavaai.face.entity.FaceSearchParams;
+import cn.smartjavaai.face.enums.VectorIndexType;
+import cn.smartjavaai.face.vector.config.SQLiteConfig;
+import cn.smartjavaai.face.vector.core.SQLiteClient;
+import cn.smartjavaai.face.vector.entity.FaceVector;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * SQLite 人脸库检索基准（合成特征库）
+ * @author dwj
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SQLiteSearchBenchmark {
+
+    private static final int DIMENSION = 512;
+
+    @Param({"10000", "50000"})
+    public int gallerySize;
+
+    @Param({"FLAT", "HNSW", "SQ8"})
+    public VectorIndexType indexType;
+
+    private File dbDir;
+
+    private SQLiteClient client;
+
+    private float[][] queries;
+
+    private FaceSearchParams searchParams;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        dbDir = Files.createTempDirectory("smartjavaai-bench").toFile();
+        SQLiteConfig config = new SQLiteConfig();
+        config.setDbPath(new File(dbDir, "face.db").getAbsolutePath());
+        config.setSimilarityType(SimilarityType.COSINE);
+        config.setIndexType(indexType);
+        client = new SQLiteClient(config);
+        client.initialize();
+        Random random = new Random(42);
+        List<FaceVector> batch = new ArrayList<>(1000);
+        for (int i = 0; i < gallerySize; i++) {
+            batch.add(new FaceVector("face-" + i, BenchmarkData.randomVector(random, DIMENSION), "{\"name\":\"" + i + "\"}"));
+            if (batch.size() == 1000) {
+                client.insertBatch(batch);
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            client.insertBatch(batch);
+        }
+        queries = new float[64][];
+        for (int i = 0; i < queries.length; i++) {
+            queries[i] = BenchmarkData.randomVector(random, DIMENSION);
+        }
+        searchParams = new FaceSearchParams(10, 0f, false);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        client.close();
+        File[] files = dbDir.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        dbDir.delete();
+    }
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        int next;
+    }
+
+    @Benchmark
+    public List<FaceSearchResult> search(Cursor cursor) {
+        float[] query = queries[cursor.next++ & (queries.length - 1)];
+        return client.search(query, searchParams);
+    }
+}
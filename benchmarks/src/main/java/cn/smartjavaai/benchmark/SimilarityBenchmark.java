@@ -0,0 +1,43 @@
+package cn.smartjavaai.benchmark;
+
+import cn.smartjavaai.common.enums.SimilarityType;
+import cn.smartjavaai.common.utils.SimilarityUtil;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 相似度计算基准
+ * @author dwj
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class SimilarityBenchmark {
+
+    @Param({"128", "512", "1024"})
+    public int dimension;
+
+    @Param({"IP", "COSINE", "L2"})
+    public SimilarityType similarityType;
+
+    private float[] query;
+
+    private float[] feature;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(42);
+        query = BenchmarkData.randomVector(random, dimension);
+        feature = BenchmarkData.randomVector(random, dimension);
+    }
+
+    @Benchmark
+    public float calculate() {
+        return SimilarityUtil.calculate(query, feature, similarityType, true);
+    }
+}
@@ -0,0 +1,40 @@
+package cn.smartjavaai.benchmark;
+
+import ai.djl.modality.cv.Image;
+import cn.smartjavaai.common.cv.SmartImageFactory;
+import org.openjdk.jmh.annotations.*;
+
+import java.awt.image.BufferedImage;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * SmartImageFactory 并发基准（32线程）
+ * @author dwj
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(32)
+@State(Scope.Benchmark)
+public class SmartImageFactoryBenchmark {
+
+    private BufferedImage image;
+
+    @Setup
+    public void setup() {
+        SmartImageFactory.setEngine(SmartImageFactory.Engine.BUFFEREDIMAGE);
+        image = BenchmarkData.syntheticImage(64, 64, BufferedImage.TYPE_3BYTE_BGR);
+    }
+
+    @Benchmark
+    public SmartImageFactory getInstance() {
+        return SmartImageFactory.getInstance();
+    }
+
+    @Benchmark
+    public Image fromBufferedImage() {
+        return SmartImageFactory.getInstance().fromBufferedImage(image);
+    }
+}
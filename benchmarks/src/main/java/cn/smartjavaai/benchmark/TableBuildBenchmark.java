@@ -0,0 +1,88 @@
+package cn.smartjavaai.benchmark;
+
+import cn.smartjavaai.common.entity.Point;
+import cn.smartjavaai.ocr.entity.OcrBox;
+import cn.smartjavaai.ocr.entity.OcrInfo;
+import cn.smartjavaai.ocr.entity.OcrItem;
+import cn.smartjavaai.ocr.entity.TableStructureResult;
+import cn.smartjavaai.ocr.model.common.detect.OcrCommonDetModel;
+import cn.smartjavaai.ocr.model.common.recognize.OcrCommonRecModel;
+import cn.smartjavaai.ocr.model.table.TableRecognizer;
+import cn.smartjavaai.ocr.model.table.TableStructureModel;
+import org.openjdk.jmh.annotations.*;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 表格单元格与文本框匹配基准（合成网格表格）
+ * @author dwj
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class TableBuildBenchmark {
+
+    /**
+     * 行数 x 列数
+     */
+    @Param({"10x5", "50x10"})
+    public String grid;
+
+    private TableRecognizer recognizer;
+
+    private TableStructureResult structureResult;
+
+    private OcrInfo ocrInfo;
+
+    @Setup
+    public void setup() {
+        // buildTable 不调用模型，使用空实现满足构建校验
+        recognizer = TableRecognizer.builder()
+                .withStructureModel(noopModel(TableStructureModel.class))
+                .withTextDetModel(noopModel(OcrCommonDetModel.class))
+                .withTextRecModel(noopModel(OcrCommonRecModel.class))
+                .build();
+        String[] size = grid.split("x");
+        int rows = Integer.parseInt(size[0]);
+        int cols = Integer.parseInt(size[1]);
+        Random random = new Random(42);
+        List<OcrItem> cells = new ArrayList<>(rows * cols);
+        List<OcrItem> texts = new ArrayList<>(rows * cols);
+        int cellW = 120;
+        int cellH = 30;
+        for (int r = 0; r < rows; r++) {
+            for (int c = 0; c < cols; c++) {
+                int x = c * cellW;
+                int y = r * cellH;
+                cells.add(new OcrItem(box(x, y, x + cellW, y + cellH), ""));
+                int tx = x + 4 + random.nextInt(10);
+                int ty = y + 4 + random.nextInt(4);
+                texts.add(new OcrItem(box(tx, ty, tx + 40 + random.nextInt(60), ty + 18), "r" + r + "c" + c));
+            }
+        }
+        structureResult = new TableStructureResult(cells, new ArrayList<>());
+        ocrInfo = new OcrInfo();
+        ocrInfo.setOcrItemList(texts);
+    }
+
+    @Benchmark
+    public List<String> buildTable() {
+        return recognizer.buildTable(structureResult, ocrInfo);
+    }
+
+    private static OcrBox box(int x1, int y1, int x2, int y2) {
+        return new OcrBox(new Point(x1, y1), new Point(x2, y1), new Point(x2, y2), new Point(x1, y2));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T noopModel(Class<T> type) {
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (proxy, method, args) -> null);
+    }
+}
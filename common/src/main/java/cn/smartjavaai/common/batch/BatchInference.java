@@ -0,0 +1,204 @@
+package cn.smartjavaai.common.batch;
+
+import ai.djl.inference.Predictor;
+import ai.djl.modality.cv.Image;
+import ai.djl.translate.TranslateException;
+import cn.smartjavaai.common.config.ModelConfig;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.pool2.impl.GenericObjectPool;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+
+/**
+ * 批量推理
+ * 一批输入按 maxBatchSize 分块，每块借出一个 Predictor 执行一次 batchPredict。
+ * 注意 DJL 的 batchPredict 整批共用一个 TranslatorContext：检测类 Translator 在 processInput 中写入的
+ * width/height/scale 等附件会被后一张图片覆盖，processOutput 对所有图片都使用最后一张的参数。
+ * 因此这类模型需传入分组键（如 {@link #imageSize()}），只有分组键相同（尺寸相同、缩放参数相同）的输入才合并为一批；
+ * 输入尺寸固定的模型可使用 {@link LetterboxBatchInference} 先统一缩放，使不同尺寸的图片也能合并为一批。
+ * 启用动态批处理时直接提交给 {@link DynamicBatcher}；模型不支持动态batch（如导出时固定batch=1）时退化为逐张推理
+ * @author dwj
+ */
+@Slf4j
+public class BatchInference<I, O> {
+
+    /**
+     * 各推理引擎报告batch维度/形状不匹配时的错误信息关键字
+     */
+    private static final String[] SHAPE_ERROR_KEYWORDS = {
+            "dimension", "shape", "size of tensor", "batch size", "batchsize"
+    };
+
+    private final String name;
+
+    private final GenericObjectPool<Predictor<I, O>> predictorPool;
+
+    private final DynamicBatcher<I, O> batcher;
+
+    private final int maxBatchSize;
+
+    /**
+     * 分组键，为null时任意输入都可合并
+     */
+    private final Function<I, ?> batchKey;
+
+    private volatile boolean batchUnsupported = false;
+
+    /**
+     * @param name 名称，用于日志
+     * @param predictorPool 预测器池
+     * @param batcher 动态批处理器，未启用时为null
+     * @param config 模型配置
+     */
+    public BatchInference(String name, GenericObjectPool<Predictor<I, O>> predictorPool, DynamicBatcher<I, O> batcher, ModelConfig config) {
+        this(name, predictorPool, batcher, config, null);
+    }
+
+    /**
+     * @param name 名称，用于日志
+     * @param predictorPool 预测器池
+     * @param batcher 动态批处理器，未启用时为null
+     * @param config 模型配置
+     * @param batchKey 分组键，只有分组键相同的输入才合并为一批；为null时不分组
+     */
+    public BatchInference(String name, GenericObjectPool<Predictor<I, O>> predictorPool, DynamicBatcher<I, O> batcher,
+                          ModelConfig config, Function<I, ?> batchKey) {
+        this.name = name;
+        this.predictorPool = predictorPool;
+        this.batcher = batcher;
+        this.maxBatchSize = config == null ? 16 : Math.max(1, config.getMaxBatchSize());
+        this.batchKey = batchKey;
+    }
+
+    /**
+     * 按图片尺寸分组：尺寸相同的图片缩放参数相同，可以共用一个 TranslatorContext
+     */
+    public static <T extends Image> Function<T, Object> imageSize() {
+        return image -> ((long) image.getWidth() << 32) | (image.getHeight() & 0xFFFFFFFFL);
+    }
+
+    /**
+     * 批量推理
+     * @param inputs 输入
+     * @return 结果，顺序与输入一致
+     * @throws Exception 推理异常
+     */
+    public List<O> predict(List<I> inputs) throws Exception {
+        if (inputs == null || inputs.isEmpty()) {
+            return Collections.emptyList();
+        }
+        if (batcher != null) {
+            List<CompletableFuture<O>> futures = new ArrayList<>(inputs.size());
+            for (I input : inputs) {
+                futures.add(batcher.submit(input));
+            }
+            List<O> results = new ArrayList<>(inputs.size());
+            for (CompletableFuture<O> future : futures) {
+                results.add(future.get());
+            }
+            return results;
+        }
+        Predictor<I, O> predictor = null;
+        try {
+            predictor = predictorPool.borrowObject();
+            if (batchKey == null) {
+                return predictChunks(predictor, inputs);
+            }
+            // 按分组键分组，每组分块推理后按原始顺序写回
+            Map<Object, List<Integer>> groups = new LinkedHashMap<>();
+            for (int i = 0; i < inputs.size(); i++) {
+                groups.computeIfAbsent(batchKey.apply(inputs.get(i)), key -> new ArrayList<>()).add(i);
+            }
+            if (groups.size() == 1) {
+                return predictChunks(predictor, inputs);
+            }
+            List<O> results = new ArrayList<>(Collections.<O>nCopies(inputs.size(), null));
+            for (List<Integer> indices : groups.values()) {
+                List<I> group = new ArrayList<>(indices.size());
+                for (Integer index : indices) {
+                    group.add(inputs.get(index));
+                }
+                List<O> outputs = predictChunks(predictor, group);
+                for (int i = 0; i < indices.size(); i++) {
+                    results.set(indices.get(i), outputs.get(i));
+                }
+            }
+            return results;
+        } finally {
+            if (predictor != null) {
+                try {
+                    predictorPool.returnObject(predictor); //归还
+                } catch (Exception e) {
+                    log.warn("归还Predictor失败", e);
+                    try {
+                        predictor.close(); // 归还失败才销毁
+                    } catch (Exception ex) {
+                        log.error("关闭Predictor失败", ex);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * 判断异常是否由输入的batch维度/形状不被模型接受引起（如ONNX导出时固定batch=1）
+     * @param e 异常
+     * @return 是否为形状错误
+     */
+    public static boolean isBatchShapeError(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause() == cause ? null : cause.getCause()) {
+            String message = cause.getMessage();
+            if (message == null) {
+                continue;
+            }
+            String lower = message.toLowerCase(Locale.ROOT);
+            for (String keyword : SHAPE_ERROR_KEYWORDS) {
+                if (lower.contains(keyword)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private List<O> predictChunks(Predictor<I, O> predictor, List<I> inputs) throws TranslateException {
+        if (inputs.size() <= maxBatchSize) {
+            return predict(predictor, inputs);
+        }
+        List<O> results = new ArrayList<>(inputs.size());
+        for (int start = 0; start < inputs.size(); start += maxBatchSize) {
+            int end = Math.min(inputs.size(), start + maxBatchSize);
+            results.addAll(predict(predictor, inputs.subList(start, end)));
+        }
+        return results;
+    }
+
+    private List<O> predict(Predictor<I, O> predictor, List<I> inputs) throws TranslateException {
+        if (inputs.size() > 1 && !batchUnsupported) {
+            try {
+                return predictor.batchPredict(inputs);
+            } catch (TranslateException | RuntimeException e) {
+                if (isBatchShapeError(e)) {
+                    // 导出时固定了batch维度，之后不再尝试批量推理
+                    batchUnsupported = true;
+                    log.warn("{}模型不支持批量推理（batch维度固定），之后改为逐张推理", name, e);
+                } else {
+                    log.warn("{}模型批量推理失败，本批改为逐张推理", name, e);
+                }
+            }
+        }
+        List<O> results = new ArrayList<>(inputs.size());
+        for (I input : inputs) {
+            results.add(predictor.predict(input));
+        }
+        return results;
+    }
+
+}
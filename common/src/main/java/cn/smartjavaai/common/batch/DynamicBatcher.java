@@ -0,0 +1,388 @@
+package cn.smartjavaai.common.batch;
+
+import ai.djl.inference.Predictor;
+import cn.smartjavaai.common.config.ModelConfig;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.pool2.impl.GenericObjectPool;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.function.Function;
+
+/**
+ * 跨请求动态批处理器
+ * 多个线程各自提交单个输入，批处理器将并发到达的输入按分组键（如图片尺寸）分别凑批（达到 maxBatchSize 或等待超过 maxWaitMicros），
+ * 从预测器池借出一个 Predictor 执行一次 batchPredict（或交给自定义的 {@link BatchExecutor}），再分别完成每个调用方的 Future。
+ * DJL 的 batchPredict 整批共用一个 TranslatorContext，检测类 Translator 记录的缩放参数只对同尺寸输入成立，
+ * 因此不同分组键的输入不会合并到同一批。要求模型的 Translator 支持批处理（如 Batchifier.STACK 且输入会被缩放到固定尺寸）
+ * @author dwj
+ */
+@Slf4j
+public class DynamicBatcher<I, O> implements AutoCloseable {
+
+    private final BatchExecutor<I, O> executor;
+
+    private final int maxBatchSize;
+
+    private final long maxWaitNanos;
+
+    /**
+     * 分组键，为null时任意输入都可合并
+     */
+    private final Function<I, ?> batchKey;
+
+    private static final Object NO_KEY = new Object();
+
+    private final BlockingQueue<Request<I, O>> queue = new LinkedBlockingQueue<>();
+
+    /**
+     * 同时执行的批次数，不超过预测器池大小
+     */
+    private final Semaphore inflight;
+
+    private final ExecutorService workers;
+
+    private final Thread collector;
+
+    private volatile boolean running = true;
+
+    /**
+     * 提交与关闭互斥，保证关闭后不会再有请求进入队列
+     */
+    private final Object submitLock = new Object();
+
+    /**
+     * @param name 名称，用于线程命名
+     * @param predictorPool 预测器池
+     * @param maxBatchSize 单批最大数量
+     * @param maxWaitMicros 凑批最长等待时间（微秒）
+     */
+    public DynamicBatcher(String name, GenericObjectPool<Predictor<I, O>> predictorPool, int maxBatchSize, long maxWaitMicros) {
+        this(name, predictorPool, maxBatchSize, maxWaitMicros, null);
+    }
+
+    /**
+     * @param name 名称，用于线程命名
+     * @param predictorPool 预测器池
+     * @param maxBatchSize 单批最大数量
+     * @param maxWaitMicros 凑批最长等待时间（微秒）
+     * @param batchKey 分组键，只有分组键相同的输入才合并为一批；为null时不分组
+     */
+    public DynamicBatcher(String name, GenericObjectPool<Predictor<I, O>> predictorPool, int maxBatchSize, long maxWaitMicros,
+                          Function<I, ?> batchKey) {
+        this(name, predictorPool.getMaxTotal(), maxBatchSize, maxWaitMicros, batchKey, inputs -> batchPredict(predictorPool, inputs));
+    }
+
+    /**
+     * @param name 名称，用于线程命名
+     * @param concurrency 同时执行的批次数（通常为预测器池大小），不大于0时取CPU核心数
+     * @param maxBatchSize 单批最大数量
+     * @param maxWaitMicros 凑批最长等待时间（微秒）
+     * @param batchKey 分组键，只有分组键相同的输入才合并为一批；为null时不分组
+     * @param executor 批次执行器
+     */
+    public DynamicBatcher(String name, int concurrency, int maxBatchSize, long maxWaitMicros,
+                          Function<I, ?> batchKey, BatchExecutor<I, O> executor) {
+        this.executor = executor;
+        this.maxBatchSize = Math.max(1, maxBatchSize);
+        this.maxWaitNanos = TimeUnit.MICROSECONDS.toNanos(Math.max(0, maxWaitMicros));
+        this.batchKey = batchKey;
+        if (concurrency <= 0) {
+            concurrency = Runtime.getRuntime().availableProcessors();
+        }
+        this.inflight = new Semaphore(concurrency);
+        this.workers = Executors.newFixedThreadPool(concurrency, runnable -> {
+            Thread t = new Thread(runnable, "smartjavaai-batch-" + name + "-worker");
+            t.setDaemon(true); // 守护线程
+            return t;
+        });
+        this.collector = new Thread(this::collectLoop, "smartjavaai-batch-" + name);
+        this.collector.setDaemon(true);
+        this.collector.start();
+    }
+
+    /**
+     * 根据模型配置创建批处理器，未启用动态批处理时返回null
+     * @param name 名称
+     * @param predictorPool 预测器池
+     * @param config 模型配置
+     * @return 批处理器或null
+     */
+    public static <I, O> DynamicBatcher<I, O> create(String name, GenericObjectPool<Predictor<I, O>> predictorPool, ModelConfig config) {
+        return create(name, predictorPool, config, null);
+    }
+
+    /**
+     * 根据模型配置创建按分组键凑批的批处理器，未启用动态批处理时返回null
+     * @param name 名称
+     * @param predictorPool 预测器池
+     * @param config 模型配置
+     * @param batchKey 分组键（如 {@link BatchInference#imageSize()}），为null时不分组
+     * @return 批处理器或null
+     */
+    public static <I, O> DynamicBatcher<I, O> create(String name, GenericObjectPool<Predictor<I, O>> predictorPool, ModelConfig config,
+                                                     Function<I, ?> batchKey) {
+        if (config == null || !config.isDynamicBatchEnabled()) {
+            return null;
+        }
+        log.debug("启用动态批处理: {}, maxBatchSize: {}, maxWaitMicros: {}",
+                name, config.getDynamicBatchMaxSize(), config.getDynamicBatchMaxWaitMicros());
+        return new DynamicBatcher<>(name, predictorPool, config.getDynamicBatchMaxSize(), config.getDynamicBatchMaxWaitMicros(), batchKey);
+    }
+
+    /**
+     * 根据模型配置创建使用自定义批次执行器的批处理器（如输入为List的批量Predictor），未启用动态批处理时返回null
+     * @param name 名称
+     * @param concurrency 同时执行的批次数
+     * @param config 模型配置
+     * @param executor 批次执行器
+     * @return 批处理器或null
+     */
+    public static <I, O> DynamicBatcher<I, O> create(String name, int concurrency, ModelConfig config, BatchExecutor<I, O> executor) {
+        if (config == null || !config.isDynamicBatchEnabled()) {
+            return null;
+        }
+        log.debug("启用动态批处理: {}, maxBatchSize: {}, maxWaitMicros: {}",
+                name, config.getDynamicBatchMaxSize(), config.getDynamicBatchMaxWaitMicros());
+        return new DynamicBatcher<>(name, concurrency, config.getDynamicBatchMaxSize(), config.getDynamicBatchMaxWaitMicros(), null, executor);
+    }
+
+    /**
+     * 模型未接入动态批处理时提示配置不生效
+     * @param name 名称
+     * @param config 模型配置
+     */
+    public static void warnUnsupported(String name, ModelConfig config) {
+        if (config != null && config.isDynamicBatchEnabled()) {
+            log.warn("{}模型不支持动态批处理，dynamicBatchEnabled配置不生效", name);
+        }
+    }
+
+    /**
+     * 提交单个输入
+     * @param input 输入
+     * @return 结果Future
+     */
+    public CompletableFuture<O> submit(I input) {
+        CompletableFuture<O> future = new CompletableFuture<>();
+        Object key;
+        try {
+            key = batchKey == null ? NO_KEY : batchKey.apply(input);
+        } catch (RuntimeException e) {
+            future.completeExceptionally(e);
+            return future;
+        }
+        synchronized (submitLock) {
+            if (!running) {
+                future.completeExceptionally(new IllegalStateException("批处理器已关闭"));
+                return future;
+            }
+            queue.add(new Request<>(input, key, future));
+        }
+        return future;
+    }
+
+    /**
+     * 提交单个输入并等待结果
+     * @param input 输入
+     * @return 结果
+     * @throws Exception 推理异常
+     */
+    public O predict(I input) throws Exception {
+        try {
+            return submit(input).get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof Exception) {
+                throw (Exception) cause;
+            }
+            throw e;
+        }
+    }
+
+    private void collectLoop() {
+        // 按分组键凑批中的请求，按首个请求到达顺序排列，首个分组的截止时间最早
+        Map<Object, Group<I, O>> groups = new LinkedHashMap<>();
+        // 已凑满、等待执行的批次
+        Deque<List<Request<I, O>>> full = new ArrayDeque<>();
+        List<Request<I, O>> drained = new ArrayList<>();
+        List<Request<I, O>> batch = null;
+        try {
+            while (running) {
+                batch = null;
+                // 所有预测器都忙时不凑批，让请求在队列中累积成更大的批次
+                inflight.acquire();
+                while (batch == null) {
+                    batch = full.poll();
+                    if (batch != null) {
+                        break;
+                    }
+                    Request<I, O> next;
+                    if (groups.isEmpty()) {
+                        next = queue.take();
+                    } else {
+                        Group<I, O> oldest = groups.values().iterator().next();
+                        long remaining = oldest.deadline - System.nanoTime();
+                        if (remaining <= 0) {
+                            groups.remove(oldest.key);
+                            batch = oldest.requests;
+                            break;
+                        }
+                        next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    }
+                    if (next != null) {
+                        drained.add(next);
+                        queue.drainTo(drained);
+                        for (Request<I, O> request : drained) {
+                            enqueue(groups, full, request);
+                        }
+                        drained.clear();
+                    }
+                }
+                List<Request<I, O>> ready = batch;
+                try {
+                    workers.execute(() -> runBatch(ready));
+                } catch (RejectedExecutionException e) {
+                    // 仅在关闭后发生
+                    inflight.release();
+                    failAll(ready, new IllegalStateException("批处理器已关闭", e));
+                }
+                batch = null;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            // 无论以何种方式退出，未执行的请求都要结束，避免调用方永久等待
+            IllegalStateException closed = new IllegalStateException("批处理器已关闭");
+            if (batch != null) {
+                failAll(batch, closed);
+            }
+            failAll(drained, closed);
+            for (List<Request<I, O>> pending : full) {
+                failAll(pending, closed);
+            }
+            for (Group<I, O> group : groups.values()) {
+                failAll(group.requests, closed);
+            }
+            List<Request<I, O>> queued = new ArrayList<>();
+            queue.drainTo(queued);
+            failAll(queued, closed);
+        }
+    }
+
+    private void enqueue(Map<Object, Group<I, O>> groups, Deque<List<Request<I, O>>> full, Request<I, O> request) {
+        Group<I, O> group = groups.get(request.key);
+        if (group == null) {
+            group = new Group<>(request.key, System.nanoTime() + maxWaitNanos, maxBatchSize);
+            groups.put(request.key, group);
+        }
+        group.requests.add(request);
+        if (group.requests.size() >= maxBatchSize) {
+            groups.remove(request.key);
+            full.add(group.requests);
+        }
+    }
+
+    private void runBatch(List<Request<I, O>> batch) {
+        try {
+            List<I> inputs = new ArrayList<>(batch.size());
+            for (Request<I, O> request : batch) {
+                inputs.add(request.input);
+            }
+            List<O> outputs = executor.execute(inputs);
+            for (int i = 0; i < batch.size(); i++) {
+                batch.get(i).future.complete(outputs.get(i));
+            }
+        } catch (Throwable e) {
+            failAll(batch, e);
+        } finally {
+            inflight.release();
+        }
+    }
+
+    /**
+     * 从预测器池借出一个 Predictor 执行一次 batchPredict
+     */
+    private static <I, O> List<O> batchPredict(GenericObjectPool<Predictor<I, O>> predictorPool, List<I> inputs) throws Exception {
+        Predictor<I, O> predictor = null;
+        try {
+            predictor = predictorPool.borrowObject();
+            return predictor.batchPredict(inputs);
+        } finally {
+            if (predictor != null) {
+                try {
+                    predictorPool.returnObject(predictor); //归还
+                } catch (Exception e) {
+                    log.warn("归还Predictor失败", e);
+                    try {
+                        predictor.close(); // 归还失败才销毁
+                    } catch (Exception ex) {
+                        log.error("关闭Predictor失败", ex);
+                    }
+                }
+            }
+        }
+    }
+
+    private void failAll(List<Request<I, O>> batch, Throwable e) {
+        for (Request<I, O> request : batch) {
+            request.future.completeExceptionally(e);
+        }
+    }
+
+    @Override
+    public void close() {
+        synchronized (submitLock) {
+            running = false;
+        }
+        collector.interrupt();
+        workers.shutdown();
+        List<Request<I, O>> pending = new ArrayList<>();
+        queue.drainTo(pending);
+        failAll(pending, new IllegalStateException("批处理器已关闭"));
+    }
+
+    /**
+     * 批次执行器：对整批输入执行一次推理，结果顺序与输入一致
+     */
+    @FunctionalInterface
+    public interface BatchExecutor<I, O> {
+
+        List<O> execute(List<I> inputs) throws Exception;
+    }
+
+    private static class Request<I, O> {
+
+        private final I input;
+
+        private final Object key;
+
+        private final CompletableFuture<O> future;
+
+        Request(I input, Object key, CompletableFuture<O> future) {
+            this.input = input;
+            this.key = key;
+            this.future = future;
+        }
+    }
+
+    private static class Group<I, O> {
+
+        private final Object key;
+
+        private final long deadline;
+
+        private final List<Request<I, O>> requests;
+
+        Group(Object key, long deadline, int capacity) {
+            this.key = key;
+            this.deadline = deadline;
+            this.requests = new ArrayList<>(capacity);
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package cn.smartjavaai.common.batch;
+
+import ai.djl.inference.Predictor;
+import ai.djl.modality.cv.Image;
+import cn.smartjavaai.common.config.ModelConfig;
+import cn.smartjavaai.common.utils.LetterBoxUtils;
+import org.apache.commons.pool2.impl.GenericObjectPool;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.BiFunction;
+
+/**
+ * 按比例缩放后的批量推理
+ * 每张图片先按比例缩放并填充到模型输入尺寸，尺寸一致后 Translator 的缩放参数对整批相同，
+ * 不同尺寸的图片也能合并为一次 batchPredict；各图片的缩放比例和填充量保存在调用方，
+ * 推理后由 restorer 将结果还原到各自原图坐标
+ * @author dwj
+ */
+public class LetterboxBatchInference<O> extends BatchInference<Image, O> {
+
+    private final int width;
+
+    private final int height;
+
+    /**
+     * 将缩放图上的结果还原到原图
+     */
+    private final BiFunction<O, LetterBoxUtils.LetterboxImage, O> restorer;
+
+    /**
+     * @param name 名称，用于日志
+     * @param predictorPool 预测器池
+     * @param batcher 动态批处理器（无需分组键），未启用时为null
+     * @param config 模型配置
+     * @param width 模型输入宽度
+     * @param height 模型输入高度
+     * @param restorer 结果还原
+     */
+    public LetterboxBatchInference(String name, GenericObjectPool<Predictor<Image, O>> predictorPool, DynamicBatcher<Image, O> batcher,
+                                   ModelConfig config, int width, int height, BiFunction<O, LetterBoxUtils.LetterboxImage, O> restorer) {
+        super(name, predictorPool, batcher, config);
+        this.width = width;
+        this.height = height;
+        this.restorer = restorer;
+    }
+
+    @Override
+    public List<O> predict(List<Image> inputs) throws Exception {
+        if (inputs == null || inputs.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<LetterBoxUtils.LetterboxImage> letterboxes = new ArrayList<>(inputs.size());
+        try {
+            List<Image> images = new ArrayList<>(inputs.size());
+            for (Image input : inputs) {
+                LetterBoxUtils.LetterboxImage letterbox = LetterBoxUtils.letterbox(input, width, height);
+                letterboxes.add(letterbox);
+                images.add(letterbox.getImage());
+            }
+            List<O> outputs = super.predict(images);
+            List<O> results = new ArrayList<>(outputs.size());
+            for (int i = 0; i < outputs.size(); i++) {
+                results.add(restorer.apply(outputs.get(i), letterboxes.get(i)));
+            }
+            return results;
+        } finally {
+            for (LetterBoxUtils.LetterboxImage letterbox : letterboxes) {
+                letterbox.release();
+            }
+        }
+    }
+
+}
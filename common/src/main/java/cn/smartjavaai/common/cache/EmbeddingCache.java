@@ -0,0 +1,312 @@
+package cn.smartjavaai.common.cache;
+
+import cn.smartjavaai.common.config.Config;
+import cn.smartjavaai.common.config.ModelConfig;
+import cn.smartjavaai.common.entity.R;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * 特征向量缓存
+ * 以（模型+预处理配置，图片编码字节的内容哈希）为键缓存特征提取结果，重复提交相同图片时跳过检测、对齐及推理。
+ * 内存层为分段LRU；可选磁盘层为 {@link Config#getCachePath()} 下的内存映射文件，重启后仍可命中
+ * @author dwj
+ */
+@Slf4j
+public class EmbeddingCache implements AutoCloseable {
+
+    /**
+     * 缓存文件目录（位于全局缓存路径下）
+     */
+    public static final String CACHE_DIR = "embedding_cache";
+
+    private static final int SEGMENT_COUNT = 16;
+
+    /**
+     * 同一缓存文件只映射一次，多个模型实例共享
+     */
+    private static final ConcurrentHashMap<String, MappedEmbeddingStore> DISK_STORES = new ConcurrentHashMap<>();
+
+    private final Segment[] segments;
+
+    private final MappedEmbeddingStore diskStore;
+
+    private final LongAdder hitCount = new LongAdder();
+
+    private final LongAdder diskHitCount = new LongAdder();
+
+    private final LongAdder missCount = new LongAdder();
+
+    /**
+     * @param capacity 内存缓存容量（条数）
+     * @param diskStore 磁盘缓存，可为null
+     */
+    public EmbeddingCache(int capacity, MappedEmbeddingStore diskStore) {
+        int segmentCapacity = Math.max(1, (Math.max(1, capacity) + SEGMENT_COUNT - 1) / SEGMENT_COUNT);
+        this.segments = new Segment[SEGMENT_COUNT];
+        for (int i = 0; i < SEGMENT_COUNT; i++) {
+            segments[i] = new Segment(segmentCapacity);
+        }
+        this.diskStore = diskStore;
+    }
+
+    /**
+     * 根据模型配置创建缓存，未启用时返回null
+     * @param name 缓存名称，同时作为磁盘缓存文件名
+     * @param config 模型配置
+     * @return 缓存或null
+     */
+    public static EmbeddingCache create(String name, ModelConfig config) {
+        if (config == null || !config.isEmbeddingCacheEnabled()) {
+            return null;
+        }
+        MappedEmbeddingStore diskStore = null;
+        if (config.isEmbeddingCacheDiskEnabled()) {
+            File file = new File(Config.getCachePath() + File.separator + CACHE_DIR, name + ".cache");
+            long maxBytes = config.getEmbeddingCacheDiskMaxBytes();
+            diskStore = DISK_STORES.computeIfAbsent(file.getAbsolutePath(), path -> new MappedEmbeddingStore(file, maxBytes));
+        }
+        log.debug("启用特征缓存: {}, 内存容量: {}, 磁盘缓存: {}", name, config.getEmbeddingCacheSize(),
+                diskStore == null ? "关闭" : diskStore.getFile().getAbsolutePath());
+        return new EmbeddingCache(config.getEmbeddingCacheSize(), diskStore);
+    }
+
+    /**
+     * 生成缓存键
+     * @param namespace 模型及预处理配置标识，不同配置提取的特征互不复用
+     * @param content 图片编码字节（如jpg/png文件内容）
+     * @return 缓存键
+     */
+    public static Key key(String namespace, byte[] content) {
+        long seed = hash64(namespace.getBytes(StandardCharsets.UTF_8), 0L, 0x9E3779B97F4A7C15L)[0];
+        long[] hash = hash64(content, seed, seed ^ 0xC2B2AE3D27D4EB4FL);
+        return new Key(hash[0], hash[1]);
+    }
+
+    /**
+     * 查询缓存，依次查询内存、磁盘
+     * @param key 缓存键
+     * @return 特征副本，未命中返回null
+     */
+    public float[] get(Key key) {
+        float[] embedding = segmentFor(key).get(key);
+        if (embedding != null) {
+            hitCount.increment();
+            return embedding.clone();
+        }
+        if (diskStore != null) {
+            embedding = diskStore.get(key);
+            if (embedding != null) {
+                hitCount.increment();
+                diskHitCount.increment();
+                segmentFor(key).put(key, embedding);
+                return embedding.clone();
+            }
+        }
+        missCount.increment();
+        return null;
+    }
+
+    /**
+     * 写入缓存
+     * @param key 缓存键
+     * @param embedding 特征
+     */
+    public void put(Key key, float[] embedding) {
+        if (embedding == null || embedding.length == 0) {
+            return;
+        }
+        float[] copy = embedding.clone();
+        segmentFor(key).put(key, copy);
+        if (diskStore != null) {
+            diskStore.put(key, copy);
+        }
+    }
+
+    /**
+     * 查询缓存，未命中时调用 loader 提取特征，仅缓存成功的结果
+     * @param key 缓存键
+     * @param loader 特征提取
+     * @return 特征提取结果
+     */
+    public R<float[]> get(Key key, Supplier<R<float[]>> loader) {
+        float[] embedding = get(key);
+        if (embedding != null) {
+            return R.ok(embedding);
+        }
+        R<float[]> result = loader.get();
+        if (result != null && result.isSuccess()) {
+            put(key, result.getData());
+        }
+        return result;
+    }
+
+    /**
+     * 命中次数（含磁盘命中）
+     */
+    public long getHitCount() {
+        return hitCount.sum();
+    }
+
+    /**
+     * 磁盘命中次数
+     */
+    public long getDiskHitCount() {
+        return diskHitCount.sum();
+    }
+
+    /**
+     * 未命中次数
+     */
+    public long getMissCount() {
+        return missCount.sum();
+    }
+
+    /**
+     * 命中率
+     */
+    public double getHitRate() {
+        long hits = getHitCount();
+        long total = hits + getMissCount();
+        return total == 0 ? 0 : (double) hits / total;
+    }
+
+    /**
+     * 清空内存缓存（磁盘缓存保留）
+     */
+    public void clear() {
+        for (Segment segment : segments) {
+            segment.clear();
+        }
+    }
+
+    @Override
+    public void close() {
+        clear();
+        if (diskStore != null) {
+            diskStore.flush();
+        }
+        log.debug("特征缓存统计: 命中 {}（磁盘 {}）, 未命中 {}", getHitCount(), getDiskHitCount(), getMissCount());
+    }
+
+    private Segment segmentFor(Key key) {
+        return segments[(int) (key.lo >>> 60) & (SEGMENT_COUNT - 1)];
+    }
+
+    /**
+     * MurmurHash64A，一次遍历同时计算两路（不同种子及乘数）哈希，组成128位内容哈希
+     */
+    private static long[] hash64(byte[] data, long seed1, long seed2) {
+        final long m = 0xC6A4A7935BD1E995L;
+        final long m2 = 0x9FB21C651E98DF25L;
+        final int r = 47;
+        int length = data.length;
+        long h1 = seed1 ^ (length * m);
+        long h2 = seed2 ^ (length * m);
+        ByteBuffer buffer = ByteBuffer.wrap(data).order(ByteOrder.LITTLE_ENDIAN);
+        int bound = length & ~7;
+        for (int i = 0; i < bound; i += 8) {
+            long k = buffer.getLong(i);
+            k *= m;
+            k ^= k >>> r;
+            k *= m;
+            h1 ^= k;
+            h1 *= m;
+            h2 ^= Long.rotateLeft(k, 29);
+            h2 *= m2;
+        }
+        if (bound < length) {
+            long tail = 0;
+            for (int i = length - 1; i >= bound; i--) {
+                tail = (tail << 8) | (data[i] & 0xFF);
+            }
+            h1 ^= tail;
+            h1 *= m;
+            h2 ^= Long.rotateLeft(tail, 29);
+            h2 *= m2;
+        }
+        h1 ^= h1 >>> r;
+        h1 *= m;
+        h1 ^= h1 >>> r;
+        h2 ^= h2 >>> r;
+        h2 *= m2;
+        h2 ^= h2 >>> r;
+        return new long[]{h1, h2};
+    }
+
+    /**
+     * 缓存键（128位哈希）
+     */
+    public static final class Key {
+
+        final long hi;
+
+        final long lo;
+
+        Key(long hi, long lo) {
+            this.hi = hi;
+            this.lo = lo;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key key = (Key) o;
+            return hi == key.hi && lo == key.lo;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(hi, lo);
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%016x%016x", hi, lo);
+        }
+    }
+
+    /**
+     * LRU分段
+     */
+    private static final class Segment {
+
+        private final LinkedHashMap<Key, float[]> map;
+
+        Segment(int capacity) {
+            this.map = new LinkedHashMap<Key, float[]>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Key, float[]> eldest) {
+                    return size() > capacity;
+                }
+            };
+        }
+
+        synchronized float[] get(Key key) {
+            return map.get(key);
+        }
+
+        synchronized void put(Key key, float[] embedding) {
+            map.put(key, embedding);
+        }
+
+        synchronized void clear() {
+            map.clear();
+        }
+    }
+}
@@ -0,0 +1,187 @@
+package cn.smartjavaai.common.cache;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 特征缓存磁盘层：追加写入的内存映射文件
+ * 文件头记录写入位置，记录格式为 [hi(8) lo(8) 维度(4) float*维度]；打开时顺序扫描重建内存中的键→偏移索引。
+ * 文件写满后不再写入新记录（已有记录仍可命中），需扩容时删除文件或调大容量
+ * @author dwj
+ */
+@Slf4j
+public class MappedEmbeddingStore {
+
+    private static final int MAGIC = 0x534A4543;
+
+    private static final int VERSION = 1;
+
+    private static final int HEADER_SIZE = 64;
+
+    /**
+     * 写入位置在文件头中的偏移
+     */
+    private static final int POSITION_OFFSET = 8;
+
+    private static final int RECORD_HEADER_SIZE = 20;
+
+    private final File file;
+
+    private final MappedByteBuffer buffer;
+
+    private final int capacity;
+
+    private final Map<EmbeddingCache.Key, Integer> offsets = new HashMap<>();
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private int position;
+
+    private boolean fullWarned;
+
+    /**
+     * @param file 缓存文件
+     * @param maxBytes 文件最大字节数
+     */
+    public MappedEmbeddingStore(File file, long maxBytes) {
+        this.file = file;
+        this.capacity = (int) Math.max(HEADER_SIZE + RECORD_HEADER_SIZE, Math.min(maxBytes, Integer.MAX_VALUE));
+        File parent = file.getParentFile();
+        if (parent != null && !parent.exists() && !parent.mkdirs()) {
+            throw new IllegalStateException("创建特征缓存目录失败: " + parent.getAbsolutePath());
+        }
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw");
+             FileChannel channel = raf.getChannel()) {
+            // 映射在通道关闭后仍然有效
+            this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+        } catch (IOException e) {
+            throw new IllegalStateException("特征缓存文件映射失败: " + file.getAbsolutePath(), e);
+        }
+        recover();
+    }
+
+    /**
+     * 校验文件头并重建索引，遇到不完整的记录时截断
+     */
+    private void recover() {
+        if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+            buffer.putInt(0, MAGIC);
+            buffer.putInt(4, VERSION);
+            position = HEADER_SIZE;
+            buffer.putInt(POSITION_OFFSET, position);
+            return;
+        }
+        int end = buffer.getInt(POSITION_OFFSET);
+        if (end < HEADER_SIZE || end > capacity) {
+            end = HEADER_SIZE;
+        }
+        int offset = HEADER_SIZE;
+        while (offset + RECORD_HEADER_SIZE <= end) {
+            int dimension = buffer.getInt(offset + 16);
+            int next = offset + RECORD_HEADER_SIZE + dimension * 4;
+            if (dimension <= 0 || next > end) {
+                break;
+            }
+            offsets.put(new EmbeddingCache.Key(buffer.getLong(offset), buffer.getLong(offset + 8)), offset);
+            offset = next;
+        }
+        position = offset;
+        buffer.putInt(POSITION_OFFSET, position);
+        log.debug("特征缓存文件加载完成: {}, 记录数: {}", file.getAbsolutePath(), offsets.size());
+    }
+
+    /**
+     * 读取特征
+     * @param key 缓存键
+     * @return 特征，不存在时返回null
+     */
+    public float[] get(EmbeddingCache.Key key) {
+        lock.readLock().lock();
+        try {
+            Integer offset = offsets.get(key);
+            if (offset == null) {
+                return null;
+            }
+            int dimension = buffer.getInt(offset + 16);
+            float[] embedding = new float[dimension];
+            int base = offset + RECORD_HEADER_SIZE;
+            for (int i = 0; i < dimension; i++) {
+                embedding[i] = buffer.getFloat(base + i * 4);
+            }
+            return embedding;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 追加特征，已存在或空间不足时忽略
+     * @param key 缓存键
+     * @param embedding 特征
+     */
+    public void put(EmbeddingCache.Key key, float[] embedding) {
+        lock.writeLock().lock();
+        try {
+            if (offsets.containsKey(key)) {
+                return;
+            }
+            int next = position + RECORD_HEADER_SIZE + embedding.length * 4;
+            if (next > capacity || next < 0) {
+                if (!fullWarned) {
+                    fullWarned = true;
+                    log.warn("特征缓存文件已满，不再写入新记录: {}", file.getAbsolutePath());
+                }
+                return;
+            }
+            buffer.putLong(position, key.hi);
+            buffer.putLong(position + 8, key.lo);
+            buffer.putInt(position + 16, embedding.length);
+            int base = position + RECORD_HEADER_SIZE;
+            for (int i = 0; i < embedding.length; i++) {
+                buffer.putFloat(base + i * 4, embedding[i]);
+            }
+            offsets.put(key, position);
+            position = next;
+            // 记录写完后再更新写入位置，异常退出时最多丢失最后一条
+            buffer.putInt(POSITION_OFFSET, position);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 记录数
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return offsets.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 刷盘
+     */
+    public void flush() {
+        lock.writeLock().lock();
+        try {
+            buffer.force();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public File getFile() {
+        return file;
+    }
+}
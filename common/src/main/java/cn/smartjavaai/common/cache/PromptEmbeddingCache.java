@@ -0,0 +1,225 @@
+package cn.smartjavaai.common.cache;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * 文本提示特征缓存
+ * 每个模型实例持有一个缓存，以规范化文本为键缓存文本编码器的输出（L2归一化后存储），模型关闭时清空。
+ * 通过 {@link #register} 注册的词表常驻内存，其余文本按LRU淘汰；同一组标签组成连续存储的标签矩阵，
+ * 每帧只需运行图像编码器，再与标签矩阵做点积即可得到各标签的余弦相似度
+ * @author dwj
+ */
+@Slf4j
+public class PromptEmbeddingCache {
+
+    private final String namespace;
+
+    private final int capacity;
+
+    /**
+     * 注册的词表，不淘汰
+     */
+    private final ConcurrentHashMap<String, float[]> vocabulary = new ConcurrentHashMap<>();
+
+    private final LinkedHashMap<String, float[]> recent;
+
+    /**
+     * 最近一次使用的标签矩阵（固定词表场景下每帧命中）
+     */
+    private volatile LabelMatrix lastMatrix;
+
+    /**
+     * @param namespace 模型标识（模型类型+模型路径），用于日志
+     * @param capacity 非词表文本的缓存容量（条数）
+     */
+    public PromptEmbeddingCache(String namespace, int capacity) {
+        this.namespace = namespace;
+        this.capacity = Math.max(0, capacity);
+        this.recent = new LinkedHashMap<String, float[]>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, float[]> eldest) {
+                return size() > PromptEmbeddingCache.this.capacity;
+            }
+        };
+    }
+
+    /**
+     * 规范化文本：去除首尾空白并合并连续空白
+     */
+    public static String normalize(String text) {
+        return text == null ? "" : text.trim().replaceAll("\\s+", " ");
+    }
+
+    /**
+     * 注册词表，预先计算并常驻内存
+     * @param texts 文本
+     * @param encoder 文本编码器
+     */
+    public void register(String[] texts, Function<String, float[]> encoder) {
+        for (String text : texts) {
+            String key = normalize(text);
+            if (vocabulary.containsKey(key)) {
+                continue;
+            }
+            float[] embedding;
+            synchronized (recent) {
+                embedding = recent.remove(key);
+            }
+            vocabulary.put(key, embedding != null ? embedding : encode(key, encoder));
+        }
+        log.debug("注册文本词表: {}, 词表大小: {}", namespace, vocabulary.size());
+    }
+
+    /**
+     * 获取文本的归一化特征，未命中时调用编码器
+     * @param text 文本
+     * @param encoder 文本编码器
+     * @return 归一化特征（只读）
+     */
+    public float[] get(String text, Function<String, float[]> encoder) {
+        String key = normalize(text);
+        float[] embedding = vocabulary.get(key);
+        if (embedding != null) {
+            return embedding;
+        }
+        synchronized (recent) {
+            embedding = recent.get(key);
+        }
+        if (embedding == null) {
+            embedding = encode(key, encoder);
+            if (capacity > 0) {
+                synchronized (recent) {
+                    recent.put(key, embedding);
+                }
+            }
+        }
+        return embedding;
+    }
+
+    /**
+     * 获取标签矩阵
+     * @param labels 标签
+     * @param encoder 文本编码器
+     * @return 标签矩阵
+     */
+    public LabelMatrix matrix(String[] labels, Function<String, float[]> encoder) {
+        LabelMatrix matrix = lastMatrix;
+        if (matrix != null && Arrays.equals(matrix.labels, labels)) {
+            return matrix;
+        }
+        float[][] embeddings = new float[labels.length][];
+        for (int i = 0; i < labels.length; i++) {
+            embeddings[i] = get(labels[i], encoder);
+        }
+        matrix = new LabelMatrix(labels.clone(), embeddings);
+        lastMatrix = matrix;
+        return matrix;
+    }
+
+    /**
+     * 已缓存的文本数
+     */
+    public int size() {
+        synchronized (recent) {
+            return vocabulary.size() + recent.size();
+        }
+    }
+
+    /**
+     * 清空缓存（包括注册的词表）
+     */
+    public void clear() {
+        vocabulary.clear();
+        synchronized (recent) {
+            recent.clear();
+        }
+        lastMatrix = null;
+    }
+
+    private static float[] encode(String text, Function<String, float[]> encoder) {
+        float[] embedding = encoder.apply(text);
+        if (embedding == null || embedding.length == 0) {
+            throw new IllegalStateException("文本特征为空: " + text);
+        }
+        return l2Normalize(embedding.clone());
+    }
+
+    static float[] l2Normalize(float[] vector) {
+        double sum = 0;
+        for (float v : vector) {
+            sum += v * v;
+        }
+        if (sum > 0) {
+            float inv = (float) (1.0 / Math.sqrt(sum));
+            for (int i = 0; i < vector.length; i++) {
+                vector[i] *= inv;
+            }
+        }
+        return vector;
+    }
+
+    /**
+     * 标签矩阵：各标签的归一化特征按行连续存储
+     */
+    public static class LabelMatrix {
+
+        private final String[] labels;
+
+        private final float[] data;
+
+        private final int dimension;
+
+        LabelMatrix(String[] labels, float[][] embeddings) {
+            this.labels = labels;
+            this.dimension = embeddings.length == 0 ? 0 : embeddings[0].length;
+            this.data = new float[labels.length * dimension];
+            for (int i = 0; i < embeddings.length; i++) {
+                if (embeddings[i].length != dimension) {
+                    throw new IllegalArgumentException("文本特征维度不一致");
+                }
+                System.arraycopy(embeddings[i], 0, data, i * dimension, dimension);
+            }
+        }
+
+        public List<String> getLabels() {
+            return Collections.unmodifiableList(Arrays.asList(labels));
+        }
+
+        public int size() {
+            return labels.length;
+        }
+
+        /**
+         * 计算图片特征与每个标签的余弦相似度
+         * @param imageEmbedding 图片特征（无需归一化）
+         * @return 相似度，顺序与标签一致
+         */
+        public float[] cosine(float[] imageEmbedding) {
+            if (labels.length == 0) {
+                return new float[0];
+            }
+            if (imageEmbedding.length != dimension) {
+                throw new IllegalArgumentException("图片特征维度与文本特征不一致");
+            }
+            float[] query = l2Normalize(imageEmbedding.clone());
+            float[] scores = new float[labels.length];
+            for (int i = 0; i < labels.length; i++) {
+                int offset = i * dimension;
+                float dot = 0f;
+                for (int d = 0; d < dimension; d++) {
+                    dot += data[offset + d] * query[d];
+                }
+                scores[i] = dot;
+            }
+            return scores;
+        }
+    }
+}
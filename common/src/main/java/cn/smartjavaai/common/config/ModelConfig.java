@@ -34,6 +34,47 @@ public class ModelConfig {
      */
     private int predictorPoolSize;
 
+    /**
+     * 是否启用跨请求动态批处理（需模型Translator支持批处理）
+     * 目前支持目标检测（DetectorModel）、图像分类、人脸检测及CLIP，其他模型忽略该配置并打印警告
+     */
+    private boolean dynamicBatchEnabled = false;
+
+    /**
+     * 动态批处理单批最大数量
+     */
+    private int dynamicBatchMaxSize = 16;
+
+    /**
+     * 动态批处理凑批最长等待时间（微秒）
+     */
+    private long dynamicBatchMaxWaitMicros = 2000;
+
+    /**
+     * 批量接口单次前向推理的最大图片数，超出时分多次推理
+     */
+    private int maxBatchSize = 16;
+
+    /**
+     * 是否启用特征缓存（按图片内容哈希缓存特征提取结果）
+     */
+    private boolean embeddingCacheEnabled = false;
+
+    /**
+     * 特征缓存内存容量（条数）
+     */
+    private int embeddingCacheSize = 10000;
+
+    /**
+     * 是否启用特征缓存磁盘层（缓存路径下的内存映射文件，重启后仍可命中）
+     */
+    private boolean embeddingCacheDiskEnabled = false;
+
+    /**
+     * 特征缓存磁盘文件最大字节数
+     */
+    private long embeddingCacheDiskMaxBytes = 256L * 1024 * 1024;
+
     /**
      * 个性化配置（按模型类型动态解析）
      */
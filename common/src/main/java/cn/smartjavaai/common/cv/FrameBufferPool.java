@@ -0,0 +1,124 @@
+package cn.smartjavaai.common.cv;
+
+import org.bytedeco.javacv.Frame;
+import org.bytedeco.javacv.OpenCVFrameConverter;
+import org.opencv.core.Mat;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 视频帧缓冲池
+ * 解码帧只复制一次到池中复用的 Mat（按尺寸及类型分组），包装为引用计数的 {@link PooledFrame}，
+ * 推理与回调共享只读访问，最后一个使用方释放后 Mat 回到池中
+ * @author dwj
+ */
+public class FrameBufferPool implements AutoCloseable {
+
+    /**
+     * 默认每种尺寸最多缓存的空闲 Mat 数
+     */
+    public static final int DEFAULT_MAX_IDLE = 8;
+
+    /**
+     * Frame 转换器不是线程安全的，按线程复用
+     */
+    private static final ThreadLocal<OpenCVFrameConverter.ToOrgOpenCvCoreMat> CONVERTER =
+            ThreadLocal.withInitial(OpenCVFrameConverter.ToOrgOpenCvCoreMat::new);
+
+    private final int maxIdlePerShape;
+
+    private final Map<Long, ArrayDeque<Mat>> idle = new HashMap<>();
+
+    private boolean closed;
+
+    public FrameBufferPool() {
+        this(DEFAULT_MAX_IDLE);
+    }
+
+    /**
+     * @param maxIdlePerShape 每种尺寸最多缓存的空闲 Mat 数
+     */
+    public FrameBufferPool(int maxIdlePerShape) {
+        this.maxIdlePerShape = Math.max(1, maxIdlePerShape);
+    }
+
+    /**
+     * 将解码帧复制到池中的 Mat
+     * 抓帧器会复用 Frame 的内存，跨线程使用的帧必须复制
+     * @param frame 解码帧
+     * @return 引用计数为1的帧，非视频帧返回null
+     */
+    public PooledFrame acquire(Frame frame) {
+        Mat view = CONVERTER.get().convert(frame);
+        if (view == null) {
+            return null;
+        }
+        Mat buffer = take(view.rows(), view.cols(), view.type());
+        view.copyTo(buffer);
+        return new PooledFrame(this, buffer);
+    }
+
+    /**
+     * 不复制直接引用解码帧内存，只能在下一次抓帧前同步使用
+     * @param frame 解码帧
+     * @return 帧，释放时不回收内存；非视频帧返回null
+     */
+    public static PooledFrame view(Frame frame) {
+        Mat view = CONVERTER.get().convert(frame);
+        return view == null ? null : new PooledFrame(null, view);
+    }
+
+    private synchronized Mat take(int rows, int cols, int type) {
+        ArrayDeque<Mat> mats = idle.get(shapeKey(rows, cols, type));
+        Mat mat = mats == null ? null : mats.pollFirst();
+        return mat != null && !mat.empty() ? mat : new Mat(rows, cols, type);
+    }
+
+    /**
+     * 回收 Mat，空闲数已满或缓冲池已关闭时直接释放
+     * 已被使用方释放（违反只读约定）的空 Mat 不再入池，避免以 0x0 尺寸缓存
+     */
+    synchronized void recycle(Mat mat) {
+        if (mat.empty()) {
+            mat.release();
+            return;
+        }
+        if (!closed) {
+            ArrayDeque<Mat> mats = idle.computeIfAbsent(shapeKey(mat.rows(), mat.cols(), mat.type()), key -> new ArrayDeque<>());
+            if (mats.size() < maxIdlePerShape) {
+                mats.addFirst(mat);
+                return;
+            }
+        }
+        mat.release();
+    }
+
+    /**
+     * 空闲 Mat 数量
+     */
+    public synchronized int getIdleCount() {
+        int count = 0;
+        for (ArrayDeque<Mat> mats : idle.values()) {
+            count += mats.size();
+        }
+        return count;
+    }
+
+    private static long shapeKey(int rows, int cols, int type) {
+        return ((long) rows << 40) | ((long) cols << 16) | (type & 0xFFFF);
+    }
+
+    /**
+     * 释放空闲 Mat，仍在使用的帧释放时直接销毁
+     */
+    @Override
+    public synchronized void close() {
+        closed = true;
+        for (ArrayDeque<Mat> mats : idle.values()) {
+            mats.forEach(Mat::release);
+        }
+        idle.clear();
+    }
+}
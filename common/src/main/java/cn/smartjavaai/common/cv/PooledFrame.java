@@ -0,0 +1,108 @@
+package cn.smartjavaai.common.cv;
+
+import ai.djl.modality.cv.Image;
+import cn.smartjavaai.common.utils.ImageUtils;
+import org.opencv.core.Mat;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 引用计数的视频帧
+ * 多个使用方共享同一份只读 Mat：交给其他线程前调用 {@link #retain()}，使用完毕调用 {@link #release()}，
+ * 引用计数归零时 Mat 回到 {@link FrameBufferPool}。使用方不得修改或释放 Mat 及 {@link #getImage()} 返回的图片，
+ * 需要绘制或长期保存时使用 {@link #copyImage()}
+ * @author dwj
+ */
+public class PooledFrame implements AutoCloseable {
+
+    private final FrameBufferPool pool;
+
+    private final Mat mat;
+
+    private final AtomicInteger refCount = new AtomicInteger(1);
+
+    private final long timestamp = System.currentTimeMillis();
+
+    private volatile Image image;
+
+    PooledFrame(FrameBufferPool pool, Mat mat) {
+        this.pool = pool;
+        this.mat = mat;
+    }
+
+    /**
+     * 帧数据（BGR）
+     */
+    public Mat getMat() {
+        return mat;
+    }
+
+    /**
+     * 包装为 Image（首次调用时创建，OpenCV 引擎下不复制像素）
+     */
+    public Image getImage() {
+        Image result = image;
+        if (result == null) {
+            synchronized (this) {
+                result = image;
+                if (result == null) {
+                    result = SmartImageFactory.getInstance().fromMat(mat);
+                    image = result;
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 复制一份可修改、可长期持有的图片（与缓冲池无关，使用完毕后由调用方释放）
+     * @return 图片副本
+     */
+    public Image copyImage() {
+        if (refCount.get() <= 0) {
+            throw new IllegalStateException("帧已释放");
+        }
+        return ImageUtils.copy(getImage());
+    }
+
+    /**
+     * 帧创建时间（毫秒）
+     */
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    /**
+     * 增加引用
+     * @return 当前帧
+     */
+    public PooledFrame retain() {
+        int count;
+        do {
+            count = refCount.get();
+            if (count <= 0) {
+                throw new IllegalStateException("帧已释放");
+            }
+        } while (!refCount.compareAndSet(count, count + 1));
+        return this;
+    }
+
+    /**
+     * 释放引用，最后一个引用释放时回收 Mat
+     */
+    public void release() {
+        int count = refCount.decrementAndGet();
+        if (count == 0) {
+            if (pool != null) {
+                pool.recycle(mat);
+            }
+        } else if (count < 0) {
+            throw new IllegalStateException("帧重复释放");
+        }
+    }
+
+    @Override
+    public void close() {
+        release();
+    }
+}
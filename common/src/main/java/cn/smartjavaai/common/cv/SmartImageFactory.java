@@ -42,57 +42,76 @@ public class SmartImageFactory {
     }
 
     private static volatile Engine currentEngine = Engine.BUFFEREDIMAGE;
+
+    /**
+     * 当前引擎对应的不可变工厂实例，通过 volatile 安全发布，getInstance 无锁读取
+     */
     private static volatile SmartImageFactory instance;
 
+    private final Engine engine;
+
+    private final ImageFactory delegate;
+
+    private SmartImageFactory(Engine engine) {
+        this.engine = engine;
+        this.delegate = engine == Engine.OPENCV ? new OpenCVImageFactory() : new BufferedImageFactory();
+    }
+
     public static synchronized void setEngine(Engine engine) {
-        if (engine == null || engine == currentEngine) {
+        if (engine == null || (engine == currentEngine && instance != null)) {
             return;
         }
         currentEngine = engine;
         // 只在切换时注册全局
-        switch (currentEngine) {
-            case OPENCV:
-                ImageFactory.setImageFactory(new OpenCVImageFactory());
-                break;
-            case BUFFEREDIMAGE:
-            default:
-                ImageFactory.setImageFactory(new BufferedImageFactory());
+        SmartImageFactory factory = new SmartImageFactory(engine);
+        ImageFactory.setImageFactory(factory.delegate);
+        instance = factory;
+    }
+
+    public static SmartImageFactory getInstance() {
+        SmartImageFactory factory = instance;
+        if (factory != null) {
+            return factory;
         }
+        return initInstance();
     }
 
-    public static synchronized SmartImageFactory getInstance() {
+    /**
+     * 首次访问时初始化全局 Engine
+     */
+    private static synchronized SmartImageFactory initInstance() {
         if (instance == null) {
-            instance = new SmartImageFactory();
-            // 初始化全局 Engine
-            switch (currentEngine) {
-                case OPENCV:
-                    ImageFactory.setImageFactory(new OpenCVImageFactory());
-                    break;
-                case BUFFEREDIMAGE:
-                default:
-                    ImageFactory.setImageFactory(new BufferedImageFactory());
-            }
+            SmartImageFactory factory = new SmartImageFactory(currentEngine);
+            ImageFactory.setImageFactory(factory.delegate);
+            instance = factory;
         }
         return instance;
     }
 
+    /**
+     * 当前实例使用的引擎
+     */
+    public Engine getEngine() {
+        return engine;
+    }
+
 
     public Image fromBufferedImage(BufferedImage sourceImage){
         if (sourceImage == null) {
             throw new IllegalArgumentException("BufferedImage 不能为空");
         }
         Image image = null;
-        switch (currentEngine) {
+        switch (engine) {
             case BUFFEREDIMAGE:
-                image = ImageFactory.getInstance().fromImage(sourceImage);
+                image = delegate.fromImage(sourceImage);
                 break;
             case OPENCV:
-                // 先转 Mat
+                // 先转 Mat（TYPE_3BYTE_BGR 直接拷贝像素，无需颜色转换）
                 Mat mat = OpenCVUtils.image2Mat(sourceImage);
-                image = ImageFactory.getInstance().fromImage(mat);
+                image = delegate.fromImage(mat);
                 break;
             default:
-                throw new IllegalStateException("未知 Engine: " + currentEngine);
+                throw new IllegalStateException("未知 Engine: " + engine);
         }
         return image;
     }
@@ -102,35 +121,36 @@ public class SmartImageFactory {
             throw new IllegalArgumentException("mat 不能为空");
         }
         Image image = null;
-        switch (currentEngine) {
+        switch (engine) {
             case OPENCV:
-                image = ImageFactory.getInstance().fromImage(mat);
+                image = delegate.fromImage(mat);
                 break;
             case BUFFEREDIMAGE:
-                // 先转 Mat
-                BufferedImage sourceImage = OpenCVUtils.mat2Image(mat);
-                image = ImageFactory.getInstance().fromImage(sourceImage);
+                // 先转 BufferedImage（BGR Mat 直接拷贝到 TYPE_3BYTE_BGR，不修改原 Mat）
+                BufferedImage sourceImage = mat.type() == CvType.CV_8UC3
+                        ? OpenCVUtils.bgrMat2Image(mat) : OpenCVUtils.mat2Image(mat);
+                image = delegate.fromImage(sourceImage);
                 break;
             default:
-                throw new IllegalStateException("未知 Engine: " + currentEngine);
+                throw new IllegalStateException("未知 Engine: " + engine);
         }
         return image;
     }
 
     public Image fromBase64(String base64Image) throws IOException {
-        return ImageFactory.getInstance().fromUrl(base64Image);
+        return delegate.fromUrl(base64Image);
     }
 
     public Image fromBytes(byte[] imageData) throws IOException {
-        return ImageFactory.getInstance().fromInputStream(new ByteArrayInputStream(imageData));
+        return delegate.fromInputStream(new ByteArrayInputStream(imageData));
     }
 
     public Image fromFile(File file) throws IOException {
-        return ImageFactory.getInstance().fromFile(file.toPath());
+        return delegate.fromFile(file.toPath());
     }
 
     public Image fromFile(Path path) throws IOException {
-        return ImageFactory.getInstance().fromFile(path);
+        return delegate.fromFile(path);
     }
 
     public Image fromFile(String filePath) throws IOException {
@@ -141,11 +161,11 @@ public class SmartImageFactory {
     }
 
     public Image fromPixels(int[] pixels, int width, int height){
-        return ImageFactory.getInstance().fromPixels(pixels, width, height);
+        return delegate.fromPixels(pixels, width, height);
     }
 
     public Image fromInputStream(InputStream inputStream) throws IOException {
-        return ImageFactory.getInstance().fromInputStream(inputStream);
+        return delegate.fromInputStream(inputStream);
     }
 
     public Image fromUrl(URL url) throws IOException {
@@ -153,7 +173,7 @@ public class SmartImageFactory {
             throw new IllegalArgumentException("URL 不能为空");
         }
         try (InputStream inputStream = url.openStream()) {
-            return ImageFactory.getInstance().fromInputStream(inputStream);
+            return delegate.fromInputStream(inputStream);
         }
     }
 
@@ -19,6 +19,11 @@ public class InstanceSegInfo {
      */
     private float[][] mask;
 
+    /**
+     * 行程编码遮罩（与 mask 二选一）
+     */
+    private RleMask rleMask;
+
     public InstanceSegInfo() {
     }
 
@@ -26,4 +31,27 @@ public class InstanceSegInfo {
         this.className = className;
         this.mask = mask;
     }
+
+    public InstanceSegInfo(String className, RleMask rleMask) {
+        this.className = className;
+        this.rleMask = rleMask;
+    }
+
+    /**
+     * 遮罩，只有行程编码遮罩时首次调用展开为二维数组并缓存（之后常驻内存），只需面积、交并比、轮廓时请使用 {@link #getRleMask()}
+     */
+    public float[][] getMask() {
+        if (mask == null && rleMask != null) {
+            mask = rleMask.toDenseArray();
+        }
+        return mask;
+    }
+
+    /**
+     * 设置行程编码遮罩，同时清除由旧遮罩展开的二维数组
+     */
+    public void setRleMask(RleMask rleMask) {
+        this.rleMask = rleMask;
+        this.mask = null;
+    }
 }
@@ -0,0 +1,421 @@
+package cn.smartjavaai.common.entity;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 行程编码（RLE）遮罩
+ * 遮罩网格覆盖整张图片，只编码有前景的行：每行的前景像素记录为若干 [start, end) 区间（网格列坐标）。
+ * 面积、交并比、轮廓直接在区间上计算，只有调用 {@link #toDenseArray()} 时才展开为二维数组
+ * @author dwj
+ */
+public class RleMask implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * 遮罩网格宽度
+     */
+    private final int gridWidth;
+
+    /**
+     * 遮罩网格高度
+     */
+    private final int gridHeight;
+
+    /**
+     * 第一行前景所在的网格行
+     */
+    private final int top;
+
+    /**
+     * 编码的行数
+     */
+    private final int rows;
+
+    /**
+     * 第 i 行的区间为 runs[2 * rowOffsets[i]] ~ runs[2 * rowOffsets[i + 1]]，长度为 rows + 1
+     */
+    private final int[] rowOffsets;
+
+    /**
+     * 区间起止列 [start, end) 依次排列
+     */
+    private final int[] runs;
+
+    /**
+     * 前景像素数缓存，-1 表示尚未计算（随对象一起序列化，反序列化后仍有效）
+     */
+    private long area = -1;
+
+    private RleMask(int gridWidth, int gridHeight, int top, int rows, int[] rowOffsets, int[] runs) {
+        this.gridWidth = gridWidth;
+        this.gridHeight = gridHeight;
+        this.top = top;
+        this.rows = rows;
+        this.rowOffsets = rowOffsets;
+        this.runs = runs;
+    }
+
+    /**
+     * 从连续存储的遮罩网格编码，只扫描 ROI 内的像素
+     * @param data 遮罩数据（行优先）
+     * @param offset 遮罩在 data 中的起始位置
+     * @param gridWidth 网格宽度
+     * @param gridHeight 网格高度
+     * @param left ROI 左边界（包含）
+     * @param top ROI 上边界（包含）
+     * @param right ROI 右边界（不包含）
+     * @param bottom ROI 下边界（不包含）
+     * @param threshold 大于该值视为前景
+     * @return 遮罩
+     */
+    public static RleMask encode(float[] data, int offset, int gridWidth, int gridHeight,
+                                 int left, int top, int right, int bottom, float threshold) {
+        left = clamp(left, 0, gridWidth);
+        right = clamp(right, left, gridWidth);
+        top = clamp(top, 0, gridHeight);
+        bottom = clamp(bottom, top, gridHeight);
+        RunBuilder builder = new RunBuilder(gridWidth, gridHeight);
+        for (int y = top; y < bottom; y++) {
+            int rowStart = offset + y * gridWidth;
+            int x = left;
+            while (x < right) {
+                while (x < right && data[rowStart + x] <= threshold) {
+                    x++;
+                }
+                int start = x;
+                while (x < right && data[rowStart + x] > threshold) {
+                    x++;
+                }
+                if (x > start) {
+                    builder.add(y, start, x);
+                }
+            }
+        }
+        return builder.build();
+    }
+
+    /**
+     * 从二维遮罩编码
+     * @param mask 遮罩 [height][width]
+     * @param threshold 大于该值视为前景
+     * @return 遮罩
+     */
+    public static RleMask fromDense(float[][] mask, float threshold) {
+        int height = mask.length;
+        int width = height > 0 ? mask[0].length : 0;
+        RunBuilder builder = new RunBuilder(width, height);
+        for (int y = 0; y < height; y++) {
+            float[] row = mask[y];
+            int x = 0;
+            while (x < width) {
+                while (x < width && row[x] <= threshold) {
+                    x++;
+                }
+                int start = x;
+                while (x < width && row[x] > threshold) {
+                    x++;
+                }
+                if (x > start) {
+                    builder.add(y, start, x);
+                }
+            }
+        }
+        return builder.build();
+    }
+
+    /**
+     * 将类别遮罩一次扫描编码为每个类别的遮罩
+     * @param categoryMask 类别遮罩 [height][width]，值为类别下标
+     * @param numClasses 类别数
+     * @return 下标为类别的遮罩数组，未出现的类别为空遮罩
+     */
+    public static RleMask[] encodeCategories(int[][] categoryMask, int numClasses) {
+        int height = categoryMask.length;
+        int width = height > 0 ? categoryMask[0].length : 0;
+        RunBuilder[] builders = new RunBuilder[numClasses];
+        for (int i = 0; i < numClasses; i++) {
+            builders[i] = new RunBuilder(width, height);
+        }
+        for (int y = 0; y < height; y++) {
+            int[] row = categoryMask[y];
+            int x = 0;
+            while (x < width) {
+                int category = row[x];
+                int start = x;
+                while (x < width && row[x] == category) {
+                    x++;
+                }
+                if (category >= 0 && category < numClasses) {
+                    builders[category].add(y, start, x);
+                }
+            }
+        }
+        RleMask[] masks = new RleMask[numClasses];
+        for (int i = 0; i < numClasses; i++) {
+            masks[i] = builders[i].build();
+        }
+        return masks;
+    }
+
+    public int getGridWidth() {
+        return gridWidth;
+    }
+
+    public int getGridHeight() {
+        return gridHeight;
+    }
+
+    /**
+     * 区间数量
+     */
+    public int getRunCount() {
+        return runs.length / 2;
+    }
+
+    /**
+     * 是否没有前景像素
+     */
+    public boolean isEmpty() {
+        return rows == 0;
+    }
+
+    /**
+     * 前景像素数
+     */
+    public long area() {
+        long result = area;
+        if (result < 0) {
+            result = 0;
+            for (int i = 0; i < runs.length; i += 2) {
+                result += runs[i + 1] - runs[i];
+            }
+            area = result;
+        }
+        return result;
+    }
+
+    /**
+     * 前景外接矩形（网格坐标）
+     * @return 外接矩形，空遮罩返回null
+     */
+    public DetectionRectangle boundingRect() {
+        if (rows == 0) {
+            return null;
+        }
+        int minX = Integer.MAX_VALUE;
+        int maxX = Integer.MIN_VALUE;
+        for (int i = 0; i < rows; i++) {
+            int from = rowOffsets[i];
+            int to = rowOffsets[i + 1];
+            if (from < to) {
+                minX = Math.min(minX, runs[2 * from]);
+                maxX = Math.max(maxX, runs[2 * to - 1]);
+            }
+        }
+        return new DetectionRectangle(minX, top, maxX - minX, rows);
+    }
+
+    /**
+     * 指定网格坐标是否为前景
+     */
+    public boolean contains(int x, int y) {
+        int row = y - top;
+        if (row < 0 || row >= rows) {
+            return false;
+        }
+        int low = rowOffsets[row];
+        int high = rowOffsets[row + 1] - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (x < runs[2 * mid]) {
+                high = mid - 1;
+            } else if (x >= runs[2 * mid + 1]) {
+                low = mid + 1;
+            } else {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 与另一遮罩的交集像素数
+     * @param other 遮罩（网格尺寸需一致）
+     */
+    public long intersection(RleMask other) {
+        if (gridWidth != other.gridWidth || gridHeight != other.gridHeight) {
+            throw new IllegalArgumentException("遮罩网格尺寸不一致");
+        }
+        int from = Math.max(top, other.top);
+        int to = Math.min(top + rows, other.top + other.rows);
+        long result = 0;
+        for (int y = from; y < to; y++) {
+            int a = y - top;
+            int b = y - other.top;
+            result += overlap(runs, rowOffsets[a], rowOffsets[a + 1], other.runs, other.rowOffsets[b], other.rowOffsets[b + 1]);
+        }
+        return result;
+    }
+
+    /**
+     * 与另一遮罩的交并比
+     * @param other 遮罩（网格尺寸需一致）
+     */
+    public float iou(RleMask other) {
+        long inter = intersection(other);
+        long union = area() + other.area() - inter;
+        return union <= 0 ? 0f : (float) inter / union;
+    }
+
+    /**
+     * 周长：前景与背景（含网格边界）相邻的像素边数（4邻域）
+     */
+    public long perimeter() {
+        long result = 0;
+        for (int i = 0; i < rows; i++) {
+            int from = rowOffsets[i];
+            int to = rowOffsets[i + 1];
+            long length = 0;
+            for (int r = from; r < to; r++) {
+                length += runs[2 * r + 1] - runs[2 * r];
+            }
+            // 左右各一条边
+            result += 2L * (to - from);
+            long above = i > 0 ? overlap(runs, from, to, runs, rowOffsets[i - 1], rowOffsets[i]) : 0;
+            long below = i + 1 < rows ? overlap(runs, from, to, runs, rowOffsets[i + 1], rowOffsets[i + 2]) : 0;
+            result += (length - above) + (length - below);
+        }
+        return result;
+    }
+
+    /**
+     * 外轮廓（按行扫描）：自上而下取每行最左端的上下两点，再自下而上取每行最右端，构成闭合多边形。
+     * 行内的空洞和水平方向的凹陷不体现在轮廓中
+     * @param scaleX 网格到输出坐标的横向缩放
+     * @param scaleY 网格到输出坐标的纵向缩放
+     * @return 轮廓点，空遮罩返回空列表
+     */
+    public List<Point> contour(float scaleX, float scaleY) {
+        List<Point> left = new ArrayList<>(rows * 2);
+        List<Point> right = new ArrayList<>(rows * 2);
+        for (int i = 0; i < rows; i++) {
+            int from = rowOffsets[i];
+            int to = rowOffsets[i + 1];
+            if (from < to) {
+                int y = top + i;
+                left.add(new Point(runs[2 * from] * scaleX, y * scaleY));
+                left.add(new Point(runs[2 * from] * scaleX, (y + 1) * scaleY));
+                right.add(new Point(runs[2 * to - 1] * scaleX, y * scaleY));
+                right.add(new Point(runs[2 * to - 1] * scaleX, (y + 1) * scaleY));
+            }
+        }
+        List<Point> points = new ArrayList<>(left.size() + right.size());
+        points.addAll(left);
+        for (int i = right.size() - 1; i >= 0; i--) {
+            points.add(right.get(i));
+        }
+        return points;
+    }
+
+    /**
+     * 展开为二维数组，前景为1，每次调用都会新建数组
+     * @return 遮罩 [gridHeight][gridWidth]
+     */
+    public float[][] toDenseArray() {
+        float[][] dense = new float[gridHeight][gridWidth];
+        for (int i = 0; i < rows; i++) {
+            float[] row = dense[top + i];
+            for (int r = rowOffsets[i]; r < rowOffsets[i + 1]; r++) {
+                Arrays.fill(row, runs[2 * r], runs[2 * r + 1], 1f);
+            }
+        }
+        return dense;
+    }
+
+    /**
+     * 两行区间的重叠像素数
+     */
+    private static long overlap(int[] a, int aFrom, int aTo, int[] b, int bFrom, int bTo) {
+        long result = 0;
+        int i = aFrom;
+        int j = bFrom;
+        while (i < aTo && j < bTo) {
+            int start = Math.max(a[2 * i], b[2 * j]);
+            int end = Math.min(a[2 * i + 1], b[2 * j + 1]);
+            if (end > start) {
+                result += end - start;
+            }
+            if (a[2 * i + 1] < b[2 * j + 1]) {
+                i++;
+            } else {
+                j++;
+            }
+        }
+        return result;
+    }
+
+    private static int clamp(int value, int min, int max) {
+        return Math.max(min, Math.min(max, value));
+    }
+
+    /**
+     * 按行顺序追加区间
+     */
+    private static class RunBuilder {
+
+        private final int gridWidth;
+
+        private final int gridHeight;
+
+        private int[] runs = new int[16];
+
+        private int runCount;
+
+        private int[] runRows = new int[8];
+
+        private int firstRow = -1;
+
+        private int lastRow = -1;
+
+        RunBuilder(int gridWidth, int gridHeight) {
+            this.gridWidth = gridWidth;
+            this.gridHeight = gridHeight;
+        }
+
+        void add(int row, int start, int end) {
+            if (runCount * 2 + 2 > runs.length) {
+                runs = Arrays.copyOf(runs, runs.length * 2);
+            }
+            if (runCount + 1 > runRows.length) {
+                runRows = Arrays.copyOf(runRows, runRows.length * 2);
+            }
+            runs[runCount * 2] = start;
+            runs[runCount * 2 + 1] = end;
+            runRows[runCount] = row;
+            runCount++;
+            if (firstRow < 0) {
+                firstRow = row;
+            }
+            lastRow = row;
+        }
+
+        RleMask build() {
+            if (runCount == 0) {
+                return new RleMask(gridWidth, gridHeight, 0, 0, new int[]{0}, new int[0]);
+            }
+            int rows = lastRow - firstRow + 1;
+            int[] rowOffsets = new int[rows + 1];
+            for (int i = 0; i < runCount; i++) {
+                rowOffsets[runRows[i] - firstRow + 1]++;
+            }
+            for (int i = 0; i < rows; i++) {
+                rowOffsets[i + 1] += rowOffsets[i];
+            }
+            return new RleMask(gridWidth, gridHeight, firstRow, rows, rowOffsets, Arrays.copyOf(runs, runCount * 2));
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package cn.smartjavaai.common.index;
+
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 分块并行扫描工具
+ * 调用线程与工作线程通过共享计数器领取块，每个线程维护自己的有界小顶堆，最后合并；
+ * 调用线程本身也参与扫描，因此即使线程池繁忙任务未被执行，检索也能完成；
+ * 任一块扫描抛出异常时，检索抛出第一个异常而不是返回部分结果
+ * @author dwj
+ */
+public class BlockScanner {
+
+    private static volatile ExecutorService searchExecutor;
+
+    private BlockScanner() {
+    }
+
+    /**
+     * 块扫描任务
+     */
+    @FunctionalInterface
+    public interface BlockTask {
+
+        /**
+         * 扫描指定块，将候选写入堆
+         * @param blockIndex 块序号
+         * @param heap 当前线程的TopK堆
+         */
+        void scan(int blockIndex, TopKHeap heap);
+    }
+
+    /**
+     * 扫描全部块并返回合并后的TopK堆
+     * @param blockCount 块数量
+     * @param parallelism 最大并行线程数（含调用线程）
+     * @param topK 堆容量
+     * @param task 块扫描任务
+     * @return TopK堆
+     */
+    public static TopKHeap scan(int blockCount, int parallelism, int topK, BlockTask task) {
+        int workers = Math.min(parallelism, blockCount);
+        if (workers <= 1) {
+            TopKHeap heap = new TopKHeap(topK);
+            for (int b = 0; b < blockCount; b++) {
+                task.scan(b, heap);
+            }
+            return heap;
+        }
+        AtomicInteger nextBlock = new AtomicInteger();
+        CountDownLatch finished = new CountDownLatch(blockCount);
+        ConcurrentLinkedQueue<TopKHeap> heaps = new ConcurrentLinkedQueue<>();
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        Runnable worker = () -> {
+            TopKHeap local = new TopKHeap(topK);
+            // 先登记再扫描：堆的写入在 countDown 之前，await 返回后对调用线程可见
+            heaps.add(local);
+            int b;
+            while ((b = nextBlock.getAndIncrement()) < blockCount) {
+                try {
+                    // 已有块失败时只领取不扫描，尽快结束
+                    if (failure.get() == null) {
+                        task.scan(b, local);
+                    }
+                } catch (Throwable e) {
+                    failure.compareAndSet(null, e);
+                } finally {
+                    finished.countDown();
+                }
+            }
+        };
+        ExecutorService executor = getSearchExecutor();
+        for (int i = 1; i < workers; i++) {
+            try {
+                executor.execute(worker);
+            } catch (RejectedExecutionException e) {
+                break;
+            }
+        }
+        worker.run();
+        try {
+            finished.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("检索被中断", e);
+        }
+        // 任一块扫描失败时抛出第一个异常，不返回不完整的TopK
+        Throwable error = failure.get();
+        if (error instanceof RuntimeException) {
+            throw (RuntimeException) error;
+        }
+        if (error instanceof Error) {
+            throw (Error) error;
+        }
+        if (error != null) {
+            throw new IllegalStateException("检索失败", error);
+        }
+        TopKHeap merged = new TopKHeap(topK);
+        for (TopKHeap local : heaps) {
+            merged.merge(local);
+        }
+        return merged;
+    }
+
+    private static ExecutorService getSearchExecutor() {
+        if (searchExecutor == null) {
+            synchronized (BlockScanner.class) {
+                if (searchExecutor == null) {
+                    int cores = Runtime.getRuntime().availableProcessors();
+                    AtomicInteger threadNumber = new AtomicInteger(1);
+                    searchExecutor = new ThreadPoolExecutor(cores, cores, 60L, TimeUnit.SECONDS,
+                            new LinkedBlockingQueue<>(cores * 16),
+                            runnable -> {
+                                Thread t = new Thread(runnable, "index-search-" + threadNumber.getAndIncrement());
+                                t.setDaemon(true); // 守护线程
+                                return t;
+                            },
+                            new ThreadPoolExecutor.AbortPolicy());
+                }
+            }
+        }
+        return searchExecutor;
+    }
+}
@@ -0,0 +1,137 @@
+package cn.smartjavaai.common.index;
+
+/**
+ * 有界小顶堆，用于在检索时保留相似度最高的K个结果
+ * 使用原始类型数组存储（相似度 + 行号），避免装箱和对象分配
+ * @author dwj
+ */
+public class TopKHeap {
+
+    private final float[] scores;
+
+    private final int[] rows;
+
+    private final int capacity;
+
+    private int size;
+
+    public TopKHeap(int capacity) {
+        this.capacity = Math.max(1, capacity);
+        this.scores = new float[this.capacity];
+        this.rows = new int[this.capacity];
+    }
+
+    /**
+     * 尝试加入一个候选
+     * @param score 相似度
+     * @param row 行号
+     */
+    public void offer(float score, int row) {
+        if (size < capacity) {
+            scores[size] = score;
+            rows[size] = row;
+            siftUp(size++);
+        } else if (score > scores[0]) {
+            scores[0] = score;
+            rows[0] = row;
+            siftDown(0);
+        }
+    }
+
+    /**
+     * 当前堆中最低分，堆未满时返回负无穷
+     */
+    public float minScore() {
+        return size < capacity ? Float.NEGATIVE_INFINITY : scores[0];
+    }
+
+    /**
+     * 合并另一个堆
+     * @param other
+     */
+    public void merge(TopKHeap other) {
+        for (int i = 0; i < other.size; i++) {
+            offer(other.scores[i], other.rows[i]);
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * 按相似度降序导出行号（会清空堆）
+     * @return 行号数组
+     */
+    public int[] drainRows() {
+        int n = size;
+        int[] sortedRows = new int[n];
+        for (int i = n - 1; i >= 0; i--) {
+            sortedRows[i] = rows[0];
+            pop();
+        }
+        return sortedRows;
+    }
+
+    /**
+     * 按相似度降序导出相似度及行号（会清空堆）
+     * @param sortedScores 输出相似度，长度不小于size
+     * @param sortedRows 输出行号，长度不小于size
+     * @return 结果数量
+     */
+    public int drain(float[] sortedScores, int[] sortedRows) {
+        int n = size;
+        for (int i = n - 1; i >= 0; i--) {
+            sortedScores[i] = scores[0];
+            sortedRows[i] = rows[0];
+            pop();
+        }
+        return n;
+    }
+
+    private void pop() {
+        size--;
+        if (size > 0) {
+            scores[0] = scores[size];
+            rows[0] = rows[size];
+            siftDown(0);
+        }
+    }
+
+    private void siftUp(int i) {
+        float score = scores[i];
+        int row = rows[i];
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (scores[parent] <= score) {
+                break;
+            }
+            scores[i] = scores[parent];
+            rows[i] = rows[parent];
+            i = parent;
+        }
+        scores[i] = score;
+        rows[i] = row;
+    }
+
+    private void siftDown(int i) {
+        float score = scores[i];
+        int row = rows[i];
+        int half = size >>> 1;
+        while (i < half) {
+            int child = 2 * i + 1;
+            int right = child + 1;
+            if (right < size && scores[right] < scores[child]) {
+                child = right;
+            }
+            if (score <= scores[child]) {
+                break;
+            }
+            scores[i] = scores[child];
+            rows[i] = rows[child];
+            i = child;
+        }
+        scores[i] = score;
+        rows[i] = row;
+    }
+}
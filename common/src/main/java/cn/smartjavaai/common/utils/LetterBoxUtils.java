@@ -1,5 +1,8 @@
 package cn.smartjavaai.common.utils;
 
+import ai.djl.modality.cv.Image;
+import ai.djl.modality.cv.output.BoundingBox;
+import ai.djl.modality.cv.output.DetectedObjects;
 import ai.djl.modality.cv.output.Landmark;
 import ai.djl.modality.cv.output.Point;
 import ai.djl.modality.cv.output.Rectangle;
@@ -9,7 +12,14 @@ import ai.djl.ndarray.NDManager;
 import ai.djl.ndarray.index.NDIndex;
 import ai.djl.ndarray.types.DataType;
 import ai.djl.ndarray.types.Shape;
+import cn.smartjavaai.common.cv.SmartImageFactory;
+import org.opencv.core.Core;
+import org.opencv.core.Mat;
+import org.opencv.core.Scalar;
+import org.opencv.core.Size;
+import org.opencv.imgproc.Imgproc;
 
+import java.awt.image.BufferedImage;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
@@ -31,6 +41,80 @@ public class LetterBoxUtils {
         public int top;
     }
 
+    /**
+     * 按比例缩放并居中填充后的图片，记录还原到原图坐标所需的参数
+     */
+    public static class LetterboxImage {
+
+        private final Image image;
+        private final float scale;
+        private final int left;
+        private final int top;
+        private final int origWidth;
+        private final int origHeight;
+        /**
+         * image 是否为新建图片（需要调用方释放）
+         */
+        private final boolean created;
+
+        LetterboxImage(Image image, float scale, int left, int top, int origWidth, int origHeight, boolean created) {
+            this.image = image;
+            this.scale = scale;
+            this.left = left;
+            this.top = top;
+            this.origWidth = origWidth;
+            this.origHeight = origHeight;
+            this.created = created;
+        }
+
+        public Image getImage() {
+            return image;
+        }
+
+        public float getScale() {
+            return scale;
+        }
+
+        public int getLeft() {
+            return left;
+        }
+
+        public int getTop() {
+            return top;
+        }
+
+        public int getOrigWidth() {
+            return origWidth;
+        }
+
+        public int getOrigHeight() {
+            return origHeight;
+        }
+
+        /**
+         * 缩放图上的 x 像素坐标还原到原图
+         */
+        public double restoreX(double x) {
+            return (x - left) / scale;
+        }
+
+        /**
+         * 缩放图上的 y 像素坐标还原到原图
+         */
+        public double restoreY(double y) {
+            return (y - top) / scale;
+        }
+
+        /**
+         * 释放缩放时新建的图片，原图不受影响
+         */
+        public void release() {
+            if (created) {
+                ImageUtils.releaseOpenCVMat(image);
+            }
+        }
+    }
+
     public static ResizeResult letterboxWithMeta(NDArray paddingImg, float r, int left, int top) {
         // ... letterbox 逻辑不变
         ResizeResult result = new ResizeResult();
@@ -91,6 +175,88 @@ public class LetterBoxUtils {
     }
 
 
+    /**
+     * 图片按比例缩放到目标尺寸，剩余空间居中填充 114 灰色（与 YOLO 预处理一致）
+     * 尺寸已等于目标尺寸时直接返回原图
+     *
+     * @param image   原图
+     * @param targetW 目标宽度
+     * @param targetH 目标高度
+     * @return 缩放结果
+     */
+    public static LetterboxImage letterbox(Image image, int targetW, int targetH) {
+        int origW = image.getWidth();
+        int origH = image.getHeight();
+        if (origW == targetW && origH == targetH) {
+            return new LetterboxImage(image, 1f, 0, 0, origW, origH, false);
+        }
+        int[] newSize = getResizeSize(origW, origH, targetW, targetH);
+        float r = Math.min(targetW / (float) origW, targetH / (float) origH);
+        int left = (targetW - newSize[0]) / 2;
+        int top = (targetH - newSize[1]) / 2;
+
+        boolean srcCreated = image.getWrappedImage() instanceof BufferedImage;
+        Mat src = ImageUtils.toMat(image);
+        Mat resized = new Mat();
+        Mat padded = new Mat();
+        try {
+            Imgproc.resize(src, resized, new Size(newSize[0], newSize[1]));
+            Core.copyMakeBorder(resized, padded, top, targetH - newSize[1] - top,
+                    left, targetW - newSize[0] - left, Core.BORDER_CONSTANT, new Scalar(114, 114, 114));
+        } finally {
+            resized.release();
+            if (srcCreated) {
+                src.release();
+            }
+        }
+        Image result = SmartImageFactory.getInstance().fromMat(padded);
+        //BufferedImage 引擎会拷贝像素，Mat 可直接释放
+        if (result.getWrappedImage() != padded) {
+            padded.release();
+        }
+        return new LetterboxImage(result, r, left, top, origW, origH, true);
+    }
+
+    /**
+     * 将缩放图上的检测结果还原到原图
+     * Rectangle 为相对缩放图的归一化坐标，Landmark 关键点为缩放图像素坐标
+     *
+     * @param detectedObjects 缩放图上的检测结果
+     * @param letterbox       缩放参数
+     * @return 原图上的检测结果（归一化坐标）
+     */
+    public static DetectedObjects restore(DetectedObjects detectedObjects, LetterboxImage letterbox) {
+        if (detectedObjects == null || letterbox.getScale() == 1f && letterbox.getLeft() == 0 && letterbox.getTop() == 0) {
+            return detectedObjects;
+        }
+        Image image = letterbox.getImage();
+        int inputW = image.getWidth();
+        int inputH = image.getHeight();
+        List<String> classNames = new ArrayList<>();
+        List<Double> probabilities = new ArrayList<>();
+        List<BoundingBox> boxes = new ArrayList<>();
+        for (DetectedObjects.DetectedObject item : detectedObjects.<DetectedObjects.DetectedObject>items()) {
+            classNames.add(item.getClassName());
+            probabilities.add(item.getProbability());
+            BoundingBox box = item.getBoundingBox();
+            Rectangle bounds = box.getBounds();
+            double x = letterbox.restoreX(bounds.getX() * inputW) / letterbox.getOrigWidth();
+            double y = letterbox.restoreY(bounds.getY() * inputH) / letterbox.getOrigHeight();
+            double w = bounds.getWidth() * inputW / letterbox.getScale() / letterbox.getOrigWidth();
+            double h = bounds.getHeight() * inputH / letterbox.getScale() / letterbox.getOrigHeight();
+            if (box instanceof Landmark) {
+                List<Point> points = new ArrayList<>();
+                for (Point point : box.getPath()) {
+                    points.add(new Point(letterbox.restoreX(point.getX()), letterbox.restoreY(point.getY())));
+                }
+                boxes.add(new Landmark(x, y, w, h, points));
+            } else {
+                boxes.add(new Rectangle(x, y, w, h));
+            }
+        }
+        return new DetectedObjects(classNames, probabilities, boxes);
+    }
+
     /**
      * 恢复缩放后的 box
      * @param boxes
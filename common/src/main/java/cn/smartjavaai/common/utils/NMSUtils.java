@@ -1,13 +1,10 @@
 package cn.smartjavaai.common.utils;
 
 import ai.djl.ndarray.NDArray;
-import ai.djl.ndarray.NDArrays;
-import ai.djl.ndarray.NDList;
 import ai.djl.ndarray.NDManager;
 import ai.djl.ndarray.types.DataType;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.util.Arrays;
 
 /**
  * @author dwj
@@ -27,45 +24,9 @@ public class NMSUtils {
         if (boxes.isEmpty()) {
             return new int[0];
         }
-
-        NDArray x1 = boxes.get(":, 0");
-        NDArray y1 = boxes.get(":, 1");
-        NDArray x2 = boxes.get(":, 2");
-        NDArray y2 = boxes.get(":, 3");
-
-        NDArray areas = x2.sub(x1).add(1).mul(y2.sub(y1).add(1));
-
-        // 按照置信度降序排序
-        NDArray order = scores.argSort().flip(0);
-
-        List<Integer> keep = new ArrayList<>();
-
-        while (order.size() > 0) {
-            int idx = (int)order.getLong(0);
-            keep.add(idx);
-
-            if (order.size() == 1) break;
-
-            NDArray currentBox = boxes.get(idx);
-            NDArray others = boxes.get(order);
-
-            NDArray xx1 = x1.get(order).maximum(x1.get(idx));
-            NDArray yy1 = y1.get(order).maximum(y1.get(idx));
-            NDArray xx2 = x2.get(order).minimum(x2.get(idx));
-            NDArray yy2 = y2.get(order).minimum(y2.get(idx));
-
-            NDArray w = xx2.sub(xx1).add(1).maximum(0);
-            NDArray h = yy2.sub(yy1).add(1).maximum(0);
-            NDArray inter = w.mul(h);
-
-            NDArray remAreas = areas.get(order);
-            NDArray union = remAreas.add(areas.get(idx)).sub(inter);
-            NDArray iou = inter.div(union);
-
-            NDArray mask = iou.lte(iouThreshold);
-            order = order.get(mask);
-        }
-        return keep.stream().mapToInt(i -> i).toArray();
+        int count = Math.toIntExact(boxes.getShape().get(0));
+        return nmsCore(toFloatArray(boxes), toFloatArray(scores), null, count, iouThreshold,
+                Integer.MAX_VALUE, 1f, false);
     }
 
 
@@ -81,97 +42,227 @@ public class NMSUtils {
      *
      */
     public static NDArray batchedNms(NDArray boxes, NDArray scores, NDArray idxs, float iouThreshold, NDManager manager) {
-
-//        System.out.println("---------------boxes:" + Arrays.toString(boxes.toFloatArray()));
-
-        List<NDArray> keepList = new ArrayList<>();
-
-        // 获取唯一 batch id
-        NDArray uniqueIdxs = idxs.unique().get(0);
-
-        for (long batchId : uniqueIdxs.toLongArray()) {
-            // 找出当前 batch 的框
-            NDArray mask = idxs.eq(batchId);
-            NDArray batchBoxes = boxes.get(mask);
-            NDArray batchScores = scores.get(mask);
-
-            // 执行单 batch NMS
-            int[] keepIndices = mtcnnNms(batchBoxes, batchScores, iouThreshold);
-
-            if (keepIndices.length > 0) {
-                // 将局部索引映射回全局索引
-                NDArray globalIndices = manager.arange(boxes.getShape().get(0))
-                        .get(mask)
-                        .toType(DataType.INT64, false)
-                        .get(manager.create(keepIndices));
-
-                keepList.add(globalIndices);
-            }
-        }
-
-        if (keepList.isEmpty()) {
+        if (boxes.isEmpty()) {
             return manager.create(new long[0]);
         }
-        return NDArrays.concat(new NDList(keepList));
+        int count = Math.toIntExact(boxes.getShape().get(0));
+        long[] batchIds = idxs.toType(DataType.INT64, false).toLongArray();
+        int[] classIds = new int[count];
+        for (int i = 0; i < count; i++) {
+            classIds[i] = (int) batchIds[i];
+        }
+        // 与 mtcnnNms 一致：交集 / 较小框面积
+        int[] keep = nmsCore(toFloatArray(boxes), toFloatArray(scores), classIds, count, iouThreshold,
+                Integer.MAX_VALUE, 1f, true);
+        long[] keepIndices = new long[keep.length];
+        for (int i = 0; i < keep.length; i++) {
+            keepIndices[i] = keep[i];
+        }
+        return manager.create(keepIndices);
     }
 
 
+    /**
+     * MTCNN 使用的 NMS：重叠度为交集 / 较小框面积
+     *
+     * @param boxes   NDArray 形状为 (N, 4)，格式为 [x1, y1, x2, y2]
+     * @param scores  NDArray 形状为 (N,) 或 (N,1)，每个 box 的置信度
+     * @param iouThreshold 重叠度阈值
+     * @return 保留框的索引列表（按置信度降序）
+     */
     public static int[] mtcnnNms(NDArray boxes, NDArray scores, float iouThreshold) {
         if (boxes.isEmpty()) {
             return new int[0];
         }
+        int count = Math.toIntExact(boxes.getShape().get(0));
+        return nmsCore(toFloatArray(boxes), toFloatArray(scores), null, count, iouThreshold,
+                Integer.MAX_VALUE, 1f, true);
+    }
 
-        NDArray x1 = boxes.get(":, 0");
-        NDArray y1 = boxes.get(":, 1");
-        NDArray x2 = boxes.get(":, 2");
-        NDArray y2 = boxes.get(":, 3");
-
-        // 面积
-        NDArray areas = x2.sub(x1).add(1).mul(y2.sub(y1).add(1));
-
-        // scores 降序索引
-        NDArray order = scores.argSort();
-        //System.out.println("order：" + order.getShape());
-        //System.out.println("order：" + Arrays.toString(order.toLongArray()));
-
-        List<Integer> keep = new ArrayList<>();
-
-        while (order.size() > 0) {
-            int i = (int) order.getLong(-1);
-            keep.add(i);
-
-            if (order.size() == 1) break; // 没框了就退出
-
-            // 剩余框
-            NDArray idx = order.get("0:-1");
-
-            NDArray xx1 = x1.get(i).maximum(x1.get(idx));
-            NDArray yy1 = y1.get(i).maximum(y1.get(idx));
-            NDArray xx2 = x2.get(i).minimum(x2.get(idx));
-            NDArray yy2 = y2.get(i).minimum(y2.get(idx));
+    /**
+     * 通用 NMS，基于原始类型数组，不创建 NDArray
+     *
+     * @param boxes  按行存放的框坐标 [x1, y1, x2, y2]，长度不小于 count * 4
+     * @param scores 每个框的置信度
+     * @param count  框数量
+     * @param iouThreshold IOU 阈值，超过该阈值则认为有重叠
+     * @return 保留框的索引列表（按置信度降序）
+     */
+    public static int[] nms(float[] boxes, float[] scores, int count, float iouThreshold) {
+        return nmsCore(boxes, scores, null, count, iouThreshold, Integer.MAX_VALUE, 0f, false);
+    }
 
-            NDArray w = xx2.sub(xx1).add(1).maximum(0);
-            NDArray h = yy2.sub(yy1).add(1).maximum(0);
-            NDArray inter = w.mul(h);
+    /**
+     * 按类别执行 NMS，仅同类别的框之间相互抑制
+     *
+     * @param boxes    按行存放的框坐标 [x1, y1, x2, y2]，长度不小于 count * 4
+     * @param scores   每个框的置信度
+     * @param classIds 每个框的类别，为null时不区分类别
+     * @param count    框数量
+     * @param iouThreshold IOU 阈值
+     * @param maxKeep  最多保留数量，达到后提前结束
+     * @return 保留框的索引列表（按置信度降序）
+     */
+    public static int[] batchedNms(float[] boxes, float[] scores, int[] classIds, int count, float iouThreshold, int maxKeep) {
+        return nmsCore(boxes, scores, classIds, count, iouThreshold, maxKeep, 0f, false);
+    }
 
-            NDArray union = areas.get(i).minimum(areas.get(idx));
-            NDArray iou = inter.div(union);
+    /**
+     * MTCNN 使用的 NMS，基于原始类型数组：重叠度为交集 / 较小框面积（与 {@link #mtcnnNms(NDArray, NDArray, float)} 一致）
+     *
+     * @param boxes  按行存放的框坐标 [x1, y1, x2, y2]，长度不小于 count * 4
+     * @param scores 每个框的置信度
+     * @param count  框数量
+     * @param iouThreshold 重叠度阈值
+     * @return 保留框的索引列表（按置信度降序）
+     */
+    public static int[] mtcnnNms(float[] boxes, float[] scores, int count, float iouThreshold) {
+        return nmsCore(boxes, scores, null, count, iouThreshold, Integer.MAX_VALUE, 1f, true);
+    }
 
-//            System.out.println("Max IoU: " + iou.max().getFloat());
-//            System.out.println("Min IoU: " + iou.min().getFloat());
-//            System.out.println("Mean IoU: " + iou.mean().getFloat());
+    /**
+     * 旋转框 NMS，重叠度使用 probiou（协方差矩阵近似）
+     *
+     * @param rotatedBoxes 按行存放的旋转框 [cx, cy, w, h, angle]，长度不小于 count * 5
+     * @param scores       每个框的置信度
+     * @param classIds     每个框的类别，为null时不区分类别
+     * @param count        框数量
+     * @param iouThreshold IOU 阈值
+     * @return 保留框的索引列表（按置信度降序）
+     */
+    public static int[] rotatedNms(float[] rotatedBoxes, float[] scores, int[] classIds, int count, double iouThreshold) {
+        if (count <= 0) {
+            return new int[0];
+        }
+        int[] order = argSortDesc(scores, count);
+        // 预先计算每个框的协方差矩阵 [a, b, c]
+        double[] cov = new double[count * 3];
+        for (int i = 0; i < count; i++) {
+            double a = (double) rotatedBoxes[i * 5 + 2] * rotatedBoxes[i * 5 + 2] / 12.0;
+            double b = (double) rotatedBoxes[i * 5 + 3] * rotatedBoxes[i * 5 + 3] / 12.0;
+            double cos = Math.cos(rotatedBoxes[i * 5 + 4]);
+            double sin = Math.sin(rotatedBoxes[i * 5 + 4]);
+            cov[i * 3] = a * cos * cos + b * sin * sin;
+            cov[i * 3 + 1] = a * sin * sin + b * cos * cos;
+            cov[i * 3 + 2] = (a - b) * sin * cos;
+        }
+        boolean[] suppressed = new boolean[count];
+        int[] keep = new int[count];
+        int kept = 0;
+        for (int oi = 0; oi < count; oi++) {
+            int i = order[oi];
+            if (suppressed[i]) {
+                continue;
+            }
+            keep[kept++] = i;
+            for (int oj = oi + 1; oj < count; oj++) {
+                int j = order[oj];
+                if (suppressed[j] || (classIds != null && classIds[i] != classIds[j])) {
+                    continue;
+                }
+                if (probiou(rotatedBoxes, cov, i, j, 1e-7) > iouThreshold - 1e-7) {
+                    suppressed[j] = true;
+                }
+            }
+        }
+        return Arrays.copyOf(keep, kept);
+    }
 
-//            System.out.println("Before: " + order.size());
-            // 保留 IoU <= 阈值的框
-            NDArray mask = iou.lte(iouThreshold);
-//            System.out.println("Mask size: " + mask.size() + " True count: " + mask.sum());
+    /**
+     * 按置信度降序排序，返回索引
+     *
+     * @param scores 置信度
+     * @param count  数量
+     * @return 排序后的索引
+     */
+    public static int[] argSortDesc(float[] scores, int count) {
+        long[] keys = new long[count];
+        for (int i = 0; i < count; i++) {
+            // 转换为可按有符号整数比较的形式（保持浮点数大小顺序），高32位为分数，低32位为索引
+            int bits = Float.floatToIntBits(scores[i]);
+            bits ^= (bits >> 31) & 0x7fffffff;
+            keys[i] = ((long) bits << 32) | (i & 0xffffffffL);
+        }
+        Arrays.sort(keys);
+        int[] order = new int[count];
+        for (int k = 0; k < count; k++) {
+            order[k] = (int) keys[count - 1 - k];
+        }
+        return order;
+    }
 
-            // 更新 order
-            order = idx.get(mask);
-//            System.out.println("After: " + order.size());
+    /**
+     * @param areaOffset 计算宽高时的偏移（像素坐标约定为1，连续坐标为0）
+     * @param minUnion 是否以较小框面积作为分母（IoMin）
+     */
+    private static int[] nmsCore(float[] boxes, float[] scores, int[] classIds, int count, float iouThreshold,
+                                 int maxKeep, float areaOffset, boolean minUnion) {
+        if (count <= 0 || maxKeep <= 0) {
+            return new int[0];
+        }
+        int[] order = argSortDesc(scores, count);
+        float[] areas = new float[count];
+        for (int i = 0; i < count; i++) {
+            int b = i * 4;
+            areas[i] = (boxes[b + 2] - boxes[b] + areaOffset) * (boxes[b + 3] - boxes[b + 1] + areaOffset);
         }
+        boolean[] suppressed = new boolean[count];
+        int[] keep = new int[Math.min(count, maxKeep)];
+        int kept = 0;
+        for (int oi = 0; oi < count; oi++) {
+            int i = order[oi];
+            if (suppressed[i]) {
+                continue;
+            }
+            keep[kept++] = i;
+            if (kept == keep.length) {
+                break;
+            }
+            int bi = i * 4;
+            float ix1 = boxes[bi], iy1 = boxes[bi + 1], ix2 = boxes[bi + 2], iy2 = boxes[bi + 3];
+            float iArea = areas[i];
+            for (int oj = oi + 1; oj < count; oj++) {
+                int j = order[oj];
+                if (suppressed[j] || (classIds != null && classIds[i] != classIds[j])) {
+                    continue;
+                }
+                int bj = j * 4;
+                float w = Math.min(ix2, boxes[bj + 2]) - Math.max(ix1, boxes[bj]) + areaOffset;
+                if (w <= 0) {
+                    continue;
+                }
+                float h = Math.min(iy2, boxes[bj + 3]) - Math.max(iy1, boxes[bj + 1]) + areaOffset;
+                if (h <= 0) {
+                    continue;
+                }
+                float inter = w * h;
+                float union = minUnion ? Math.min(iArea, areas[j]) : iArea + areas[j] - inter;
+                if (!(inter / union <= iouThreshold)) {
+                    suppressed[j] = true;
+                }
+            }
+        }
+        return kept == keep.length ? keep : Arrays.copyOf(keep, kept);
+    }
+
+    private static double probiou(float[] rotatedBoxes, double[] cov, int i, int j, double eps) {
+        double a1 = cov[i * 3], b1 = cov[i * 3 + 1], c1 = cov[i * 3 + 2];
+        double a2 = cov[j * 3], b2 = cov[j * 3 + 1], c2 = cov[j * 3 + 2];
+        double dx = rotatedBoxes[i * 5] - rotatedBoxes[j * 5];
+        double dy = rotatedBoxes[i * 5 + 1] - rotatedBoxes[j * 5 + 1];
+        double a = a1 + a2, b = b1 + b2, c = c1 + c2;
+        double denominator = a * b - c * c;
+        double t1 = (a * dy * dy + b * dx * dx) / (denominator + eps);
+        double t2 = (c * -dx * dy) / (denominator + eps);
+        double t3 = Math.log(denominator / (4 * Math.sqrt(a1 * b1 - c1 * c1) * Math.sqrt(a2 * b2 - c2 * c2) + eps) + eps);
+        double bd = 0.25 * t1 + 0.5 * t2 + 0.5 * t3;
+        bd = Math.max(Math.min(bd, 100.0), eps);
+        double hd = Math.sqrt(1.0 - Math.exp(-bd) + eps);
+        return 1 - hd;
+    }
 
-        return keep.stream().mapToInt(Integer::intValue).toArray();
+    private static float[] toFloatArray(NDArray array) {
+        return array.toType(DataType.FLOAT32, false).toFloatArray();
     }
 
 }
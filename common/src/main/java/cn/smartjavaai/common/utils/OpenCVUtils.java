@@ -121,6 +121,20 @@ public class OpenCVUtils {
         return ret;
     }
 
+    /**
+     * BGR Mat（CV_8UC3）转 TYPE_3BYTE_BGR BufferedImage
+     * 两者像素内存布局一致，直接拷贝到 BufferedImage 的数据缓冲区，不修改原 Mat
+     *
+     * @param mat
+     * @return
+     */
+    public static BufferedImage bgrMat2Image(Mat mat) {
+        BufferedImage ret = new BufferedImage(mat.width(), mat.height(), BufferedImage.TYPE_3BYTE_BGR);
+        byte[] data = ((DataBufferByte) ret.getRaster().getDataBuffer()).getData();
+        mat.get(0, 0, data);
+        return ret;
+    }
+
     /**
      * BufferedImage to Mat
      *
@@ -131,6 +145,16 @@ public class OpenCVUtils {
         int width = img.getWidth();
         int height = img.getHeight();
 
+        // 已是 TYPE_3BYTE_BGR 且非子图时，像素内存布局与 CV_8UC3 一致，直接拷贝
+        if (img.getType() == BufferedImage.TYPE_3BYTE_BGR && img.getRaster().getParent() == null) {
+            byte[] data = ((DataBufferByte) img.getRaster().getDataBuffer()).getData();
+            if (data.length == width * height * 3) {
+                Mat mat = new Mat(height, width, CvType.CV_8UC3);
+                mat.put(0, 0, data);
+                return mat;
+            }
+        }
+
         // 强制转换为 TYPE_3BYTE_BGR，自动去除透明通道
         BufferedImage convertedImg = new BufferedImage(width, height, BufferedImage.TYPE_3BYTE_BGR);
         Graphics2D g2d = convertedImg.createGraphics();
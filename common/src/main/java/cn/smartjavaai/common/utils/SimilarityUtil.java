@@ -72,6 +72,42 @@ public class SimilarityUtil {
         return normalize ? (cosine + 1.0f) / 2.0f : cosine;
     }
 
+    /**
+     * 计算查询向量与连续特征矩阵中某一行的相似度
+     * 计算方式与 {@link #calculate(float[], float[], SimilarityType, boolean)} 一致，
+     * 供内存向量索引按行扫描使用，避免为每一行创建数组
+     * @param query 查询向量
+     * @param queryNorm 查询向量模长（仅COSINE使用）
+     * @param matrix 按行连续存放的特征矩阵
+     * @param offset 行起始偏移
+     * @param rowNorm 行向量模长（仅COSINE使用）
+     * @param similarityType 计算类型 (IP, L2, COSINE)
+     * @param normalizeScore 是否归一化结果到 [0,1]
+     * @return 相似度
+     */
+    public static float calculate(float[] query, float queryNorm, float[] matrix, int offset, float rowNorm,
+                                  SimilarityType similarityType, boolean normalizeScore) {
+        switch (similarityType) {
+            case IP: {
+                float dot = dotProduct(query, matrix, offset, query.length);
+                return normalizeScore ? (dot + 1.0f) / 2.0f : dot;
+            }
+            case L2: {
+                float dist = euclideanDistance(query, matrix, offset, query.length);
+                return normalizeScore ? 1.0f / (1.0f + dist) : dist;
+            }
+            case COSINE: {
+                if (queryNorm <= 0 || rowNorm <= 0) {
+                    return 0.0f;
+                }
+                float cosine = dotProduct(query, matrix, offset, query.length) / (queryNorm * rowNorm);
+                return normalizeScore ? (cosine + 1.0f) / 2.0f : cosine;
+            }
+            default:
+                throw new IllegalArgumentException("不支持的相似度计算类型: " + similarityType);
+        }
+    }
+
     // ================ 基础向量操作 ================
 
     /**
@@ -97,6 +133,50 @@ public class SimilarityUtil {
         return (float) Math.sqrt(sumSquaredDiff);
     }
 
+    /**
+     * 计算点积（v2 从 offset 开始，长度为 length）
+     * 使用4路独立累加器展开循环，减少累加依赖链，便于JIT流水线执行
+     */
+    public static float dotProduct(float[] v1, float[] v2, int offset, int length) {
+        float s0 = 0.0f, s1 = 0.0f, s2 = 0.0f, s3 = 0.0f;
+        int i = 0;
+        int bound = length & ~3;
+        for (; i < bound; i += 4) {
+            s0 += v1[i] * v2[offset + i];
+            s1 += v1[i + 1] * v2[offset + i + 1];
+            s2 += v1[i + 2] * v2[offset + i + 2];
+            s3 += v1[i + 3] * v2[offset + i + 3];
+        }
+        for (; i < length; i++) {
+            s0 += v1[i] * v2[offset + i];
+        }
+        return (s0 + s1) + (s2 + s3);
+    }
+
+    /**
+     * 计算欧氏距离（v2 从 offset 开始，长度为 length）
+     */
+    public static float euclideanDistance(float[] v1, float[] v2, int offset, int length) {
+        float s0 = 0.0f, s1 = 0.0f, s2 = 0.0f, s3 = 0.0f;
+        int i = 0;
+        int bound = length & ~3;
+        for (; i < bound; i += 4) {
+            float d0 = v1[i] - v2[offset + i];
+            float d1 = v1[i + 1] - v2[offset + i + 1];
+            float d2 = v1[i + 2] - v2[offset + i + 2];
+            float d3 = v1[i + 3] - v2[offset + i + 3];
+            s0 += d0 * d0;
+            s1 += d1 * d1;
+            s2 += d2 * d2;
+            s3 += d3 * d3;
+        }
+        for (; i < length; i++) {
+            float d = v1[i] - v2[offset + i];
+            s0 += d * d;
+        }
+        return (float) Math.sqrt((s0 + s1) + (s2 + s3));
+    }
+
     /**
      * 计算向量模长
      */
@@ -0,0 +1,127 @@
+package cn.smartjavaai.common.batch;
+
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.*;
+
+import static org.testng.Assert.*;
+
+/**
+ * DynamicBatcher 测试：凑批、按分组键分批、异常传递，以及关闭时所有请求都会结束
+ * @author dwj
+ */
+public class DynamicBatcherTest {
+
+    @Test
+    public void testBatchesConcurrentRequests() throws Exception {
+        List<Integer> batchSizes = Collections.synchronizedList(new ArrayList<>());
+        DynamicBatcher<Integer, Integer> batcher = new DynamicBatcher<>("test", 1, 4, 200_000, null, inputs -> {
+            batchSizes.add(inputs.size());
+            return doubled(inputs);
+        });
+        try {
+            List<CompletableFuture<Integer>> futures = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                futures.add(batcher.submit(i));
+            }
+            for (int i = 0; i < 8; i++) {
+                assertEquals(futures.get(i).get(5, TimeUnit.SECONDS).intValue(), i * 2);
+            }
+            assertEquals(batchSizes.size(), 2, batchSizes.toString());
+            for (int size : batchSizes) {
+                assertEquals(size, 4);
+            }
+        } finally {
+            batcher.close();
+        }
+    }
+
+    @Test
+    public void testBatchKeyGroupsInputs() throws Exception {
+        List<List<Integer>> batches = Collections.synchronizedList(new ArrayList<>());
+        DynamicBatcher<Integer, Integer> batcher = new DynamicBatcher<>("test", 2, 16, 20_000, input -> input % 2, inputs -> {
+            batches.add(new ArrayList<>(inputs));
+            return doubled(inputs);
+        });
+        try {
+            List<CompletableFuture<Integer>> futures = new ArrayList<>();
+            for (int i = 0; i < 20; i++) {
+                futures.add(batcher.submit(i));
+            }
+            for (int i = 0; i < 20; i++) {
+                assertEquals(futures.get(i).get(5, TimeUnit.SECONDS).intValue(), i * 2);
+            }
+            for (List<Integer> batch : batches) {
+                for (int input : batch) {
+                    assertEquals(input % 2, batch.get(0) % 2, batches.toString());
+                }
+            }
+        } finally {
+            batcher.close();
+        }
+    }
+
+    @Test
+    public void testExecutorFailureFailsBatch() throws Exception {
+        DynamicBatcher<Integer, Integer> batcher = new DynamicBatcher<>("test", 1, 4, 1_000, null, inputs -> {
+            throw new IllegalArgumentException("推理失败");
+        });
+        try {
+            IllegalArgumentException e = expectThrows(IllegalArgumentException.class, () -> batcher.predict(1));
+            assertEquals(e.getMessage(), "推理失败");
+        } finally {
+            batcher.close();
+        }
+    }
+
+    @Test
+    public void testCloseCompletesPendingRequests() throws Exception {
+        for (int round = 0; round < 100; round++) {
+            CountDownLatch gate = new CountDownLatch(1);
+            DynamicBatcher<Integer, Integer> batcher = new DynamicBatcher<>("test", 2, 4, 100_000, null, inputs -> {
+                gate.await();
+                return doubled(inputs);
+            });
+            List<CompletableFuture<Integer>> futures = new CopyOnWriteArrayList<>();
+            Thread producer = new Thread(() -> {
+                for (int i = 0; i < 50; i++) {
+                    futures.add(batcher.submit(i));
+                }
+            });
+            producer.start();
+            Thread.sleep(round % 3);
+            batcher.close();
+            producer.join();
+            gate.countDown();
+            for (CompletableFuture<Integer> future : futures) {
+                try {
+                    future.get(5, TimeUnit.SECONDS);
+                } catch (ExecutionException e) {
+                    assertTrue(e.getCause() instanceof IllegalStateException, String.valueOf(e.getCause()));
+                } catch (TimeoutException e) {
+                    fail("关闭后请求未结束, round " + round);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testSubmitAfterClose() throws Exception {
+        DynamicBatcher<Integer, Integer> batcher = new DynamicBatcher<>("test", 1, 4, 1_000, null, DynamicBatcherTest::doubled);
+        assertEquals(batcher.predict(21).intValue(), 42);
+        batcher.close();
+        expectThrows(IllegalStateException.class, () -> batcher.predict(1));
+        assertTrue(batcher.submit(2).isCompletedExceptionally());
+    }
+
+    private static List<Integer> doubled(List<Integer> inputs) {
+        List<Integer> outputs = new ArrayList<>(inputs.size());
+        for (Integer input : inputs) {
+            outputs.add(input * 2);
+        }
+        return outputs;
+    }
+}
@@ -0,0 +1,173 @@
+package cn.smartjavaai.common.entity;
+
+import org.testng.annotations.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.Random;
+
+import static org.testng.Assert.*;
+
+/**
+ * RleMask 测试：编码、面积、交并比与二维遮罩逐像素计算结果一致，序列化后保持不变
+ * @author dwj
+ */
+public class RleMaskTest {
+
+    private static final int WIDTH = 37;
+
+    private static final int HEIGHT = 29;
+
+    @Test
+    public void testEncodeMatchesDense() {
+        Random random = new Random(7);
+        for (int i = 0; i < 50; i++) {
+            float[][] dense = randomMask(random);
+            RleMask mask = RleMask.fromDense(dense, 0.5f);
+            assertEquals(mask.getGridWidth(), WIDTH);
+            assertEquals(mask.getGridHeight(), HEIGHT);
+            assertDenseEquals(mask.toDenseArray(), dense);
+            assertEquals(mask.area(), denseArea(dense));
+            for (int y = 0; y < HEIGHT; y++) {
+                for (int x = 0; x < WIDTH; x++) {
+                    assertEquals(mask.contains(x, y), dense[y][x] > 0.5f, "(" + x + "," + y + ")");
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testEncodeRoi() {
+        Random random = new Random(11);
+        float[][] dense = randomMask(random);
+        float[] data = new float[5 + WIDTH * HEIGHT];
+        for (int y = 0; y < HEIGHT; y++) {
+            System.arraycopy(dense[y], 0, data, 5 + y * WIDTH, WIDTH);
+        }
+        RleMask mask = RleMask.encode(data, 5, WIDTH, HEIGHT, 4, 3, 20, 15, 0.5f);
+        float[][] expected = new float[HEIGHT][WIDTH];
+        for (int y = 3; y < 15; y++) {
+            for (int x = 4; x < 20; x++) {
+                expected[y][x] = dense[y][x] > 0.5f ? 1f : 0f;
+            }
+        }
+        assertDenseEquals(mask.toDenseArray(), expected);
+        assertEquals(mask.area(), denseArea(expected));
+    }
+
+    @Test
+    public void testIouMatchesDense() {
+        Random random = new Random(13);
+        for (int i = 0; i < 50; i++) {
+            float[][] a = randomMask(random);
+            float[][] b = randomMask(random);
+            long inter = 0;
+            long union = 0;
+            for (int y = 0; y < HEIGHT; y++) {
+                for (int x = 0; x < WIDTH; x++) {
+                    boolean pa = a[y][x] > 0.5f;
+                    boolean pb = b[y][x] > 0.5f;
+                    inter += pa && pb ? 1 : 0;
+                    union += pa || pb ? 1 : 0;
+                }
+            }
+            RleMask maskA = RleMask.fromDense(a, 0.5f);
+            RleMask maskB = RleMask.fromDense(b, 0.5f);
+            assertEquals(maskA.intersection(maskB), inter);
+            assertEquals(maskA.iou(maskB), union == 0 ? 0f : (float) inter / union, 1e-6f);
+            assertEquals(maskA.iou(maskA), maskA.isEmpty() ? 0f : 1f, 1e-6f);
+        }
+    }
+
+    @Test
+    public void testEmptyMask() {
+        RleMask mask = RleMask.fromDense(new float[HEIGHT][WIDTH], 0.5f);
+        assertTrue(mask.isEmpty());
+        assertEquals(mask.area(), 0L);
+        assertNull(mask.boundingRect());
+        assertTrue(mask.contour(1f, 1f).isEmpty());
+        assertEquals(mask.iou(mask), 0f, 0f);
+    }
+
+    @Test
+    public void testEncodeCategories() {
+        int[][] categories = new int[HEIGHT][WIDTH];
+        Random random = new Random(17);
+        for (int y = 0; y < HEIGHT; y++) {
+            for (int x = 0; x < WIDTH; x++) {
+                categories[y][x] = random.nextInt(3);
+            }
+        }
+        RleMask[] masks = RleMask.encodeCategories(categories, 4);
+        long total = 0;
+        for (int c = 0; c < masks.length; c++) {
+            for (int y = 0; y < HEIGHT; y++) {
+                for (int x = 0; x < WIDTH; x++) {
+                    assertEquals(masks[c].contains(x, y), categories[y][x] == c);
+                }
+            }
+            total += masks[c].area();
+        }
+        assertTrue(masks[3].isEmpty());
+        assertEquals(total, (long) WIDTH * HEIGHT);
+    }
+
+    @Test
+    public void testSerializationRoundTrip() throws Exception {
+        float[][] dense = randomMask(new Random(19));
+        RleMask mask = RleMask.fromDense(dense, 0.5f);
+        long area = mask.area();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(mask);
+        }
+        RleMask copy;
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            copy = (RleMask) in.readObject();
+        }
+        assertEquals(copy.area(), area);
+        assertEquals(copy.getRunCount(), mask.getRunCount());
+        assertDenseEquals(copy.toDenseArray(), dense);
+        assertEquals(copy.iou(mask), 1f, 1e-6f);
+    }
+
+    /**
+     * 随机生成带有连续前景段的遮罩，首尾若干行留空
+     */
+    private static float[][] randomMask(Random random) {
+        float[][] mask = new float[HEIGHT][WIDTH];
+        int top = random.nextInt(5);
+        int bottom = HEIGHT - random.nextInt(5);
+        for (int y = top; y < bottom; y++) {
+            boolean foreground = random.nextBoolean();
+            for (int x = 0; x < WIDTH; x++) {
+                if (random.nextInt(4) == 0) {
+                    foreground = !foreground;
+                }
+                mask[y][x] = foreground ? 0.5f + random.nextFloat() * 0.5f + 1e-3f : random.nextFloat() * 0.5f;
+            }
+        }
+        return mask;
+    }
+
+    private static long denseArea(float[][] mask) {
+        long area = 0;
+        for (float[] row : mask) {
+            for (float value : row) {
+                area += value > 0.5f ? 1 : 0;
+            }
+        }
+        return area;
+    }
+
+    private static void assertDenseEquals(float[][] actual, float[][] mask) {
+        assertEquals(actual.length, mask.length);
+        for (int y = 0; y < mask.length; y++) {
+            for (int x = 0; x < mask[y].length; x++) {
+                assertEquals(actual[y][x], mask[y][x] > 0.5f ? 1f : 0f, 0f, "(" + x + "," + y + ")");
+            }
+        }
+    }
+}
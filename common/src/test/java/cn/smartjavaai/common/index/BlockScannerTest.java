@@ -0,0 +1,66 @@
+package cn.smartjavaai.common.index;
+
+import org.testng.annotations.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.testng.Assert.*;
+
+/**
+ * BlockScanner 测试：并行扫描结果与顺序扫描一致，块扫描异常向调用方抛出
+ * @author dwj
+ */
+public class BlockScannerTest {
+
+    private static final int BLOCK_ROWS = 64;
+
+    @Test
+    public void testParallelScanMatchesSequential() {
+        Random random = new Random(2);
+        float[] scores = new float[BLOCK_ROWS * 50 + 17];
+        for (int i = 0; i < scores.length; i++) {
+            scores[i] = random.nextFloat();
+        }
+        int blockCount = (scores.length + BLOCK_ROWS - 1) / BLOCK_ROWS;
+        int[] expected = BlockScanner.scan(blockCount, 1, 25, (b, heap) -> scanBlock(scores, b, heap)).drainRows();
+        assertEquals(expected.length, 25);
+        float[] sorted = scores.clone();
+        Arrays.sort(sorted);
+        assertEquals(scores[expected[0]], sorted[sorted.length - 1], 0f);
+        for (int parallelism : new int[]{2, 4, 16, 100}) {
+            for (int round = 0; round < 20; round++) {
+                int[] rows = BlockScanner.scan(blockCount, parallelism, 25, (b, heap) -> scanBlock(scores, b, heap)).drainRows();
+                assertEquals(rows, expected, "parallelism " + parallelism);
+            }
+        }
+    }
+
+    @Test
+    public void testEmpty() {
+        assertEquals(BlockScanner.scan(0, 4, 10, (b, heap) -> fail("不应扫描")).size(), 0);
+    }
+
+    @Test
+    public void testFailurePropagates() {
+        for (int parallelism : new int[]{1, 4}) {
+            IllegalArgumentException e = expectThrows(IllegalArgumentException.class, () ->
+                    BlockScanner.scan(32, parallelism, 10, (b, heap) -> {
+                        if (b == 7) {
+                            throw new IllegalArgumentException("块扫描失败");
+                        }
+                        heap.offer(b, b);
+                    }));
+            assertEquals(e.getMessage(), "块扫描失败");
+        }
+    }
+
+    private static void scanBlock(float[] scores, int blockIndex, TopKHeap heap) {
+        int end = Math.min(scores.length, (blockIndex + 1) * BLOCK_ROWS);
+        for (int row = blockIndex * BLOCK_ROWS; row < end; row++) {
+            if (scores[row] > heap.minScore()) {
+                heap.offer(scores[row], row);
+            }
+        }
+    }
+}
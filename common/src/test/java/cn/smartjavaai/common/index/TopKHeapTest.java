@@ -0,0 +1,75 @@
+package cn.smartjavaai.common.index;
+
+import org.testng.annotations.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.testng.Assert.*;
+
+/**
+ * TopKHeap 测试：保留并按降序导出相似度最高的K个结果
+ * @author dwj
+ */
+public class TopKHeapTest {
+
+    @Test
+    public void testKeepsTopK() {
+        Random random = new Random(1);
+        for (int round = 0; round < 100; round++) {
+            int count = random.nextInt(200);
+            int k = 1 + random.nextInt(20);
+            float[] scores = new float[count];
+            TopKHeap heap = new TopKHeap(k);
+            for (int i = 0; i < count; i++) {
+                scores[i] = random.nextFloat() * 2 - 1;
+                heap.offer(scores[i], i);
+            }
+            int n = Math.min(k, count);
+            assertEquals(heap.size(), n);
+            float[] sorted = scores.clone();
+            Arrays.sort(sorted);
+            assertEquals(heap.minScore(), count >= k ? sorted[count - k] : Float.NEGATIVE_INFINITY, 0f);
+            float[] topScores = new float[n];
+            int[] topRows = new int[n];
+            assertEquals(heap.drain(topScores, topRows), n);
+            assertEquals(heap.size(), 0);
+            for (int i = 0; i < n; i++) {
+                assertEquals(topScores[i], sorted[count - 1 - i], 0f);
+                assertEquals(scores[topRows[i]], topScores[i], 0f);
+            }
+        }
+    }
+
+    @Test
+    public void testDrainRows() {
+        TopKHeap heap = new TopKHeap(3);
+        float[] scores = {0.1f, 0.9f, 0.5f, 0.7f, 0.3f};
+        for (int i = 0; i < scores.length; i++) {
+            heap.offer(scores[i], i);
+        }
+        assertEquals(heap.drainRows(), new int[]{1, 3, 2});
+        assertEquals(heap.size(), 0);
+    }
+
+    @Test
+    public void testMerge() {
+        TopKHeap a = new TopKHeap(4);
+        TopKHeap b = new TopKHeap(4);
+        for (int i = 0; i < 10; i++) {
+            (i % 2 == 0 ? a : b).offer(i, i);
+        }
+        TopKHeap merged = new TopKHeap(4);
+        merged.merge(a);
+        merged.merge(b);
+        assertEquals(merged.drainRows(), new int[]{9, 8, 7, 6});
+    }
+
+    @Test
+    public void testCapacityAtLeastOne() {
+        TopKHeap heap = new TopKHeap(0);
+        heap.offer(0.2f, 0);
+        heap.offer(0.8f, 1);
+        assertEquals(heap.drainRows(), new int[]{1});
+    }
+}
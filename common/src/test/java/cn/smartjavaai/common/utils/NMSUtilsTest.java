@@ -0,0 +1,165 @@
+package cn.smartjavaai.common.utils;
+
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.testng.Assert.*;
+
+/**
+ * NMSUtils 测试：基于原始类型数组的 NMS 与逐对比较的参考实现结果一致
+ * @author dwj
+ */
+public class NMSUtilsTest {
+
+    @Test
+    public void testArgSortDesc() {
+        float[] scores = {0.3f, -1.5f, 0.9f, 0f, -0f, 0.3f, Float.MAX_VALUE, -Float.MAX_VALUE};
+        int[] order = NMSUtils.argSortDesc(scores, scores.length);
+        assertEquals(order.length, scores.length);
+        for (int i = 1; i < order.length; i++) {
+            assertTrue(scores[order[i - 1]] >= scores[order[i]], Arrays.toString(order));
+        }
+        assertEquals(order[0], 6);
+        assertEquals(order[order.length - 1], 7);
+    }
+
+    @Test
+    public void testNmsMatchesReference() {
+        Random random = new Random(3);
+        for (int round = 0; round < 100; round++) {
+            int count = 1 + random.nextInt(60);
+            float[] boxes = randomBoxes(random, count);
+            float[] scores = distinctScores(random, count);
+            float threshold = 0.3f + random.nextFloat() * 0.4f;
+            assertEquals(NMSUtils.nms(boxes, scores, count, threshold),
+                    referenceNms(boxes, scores, null, count, threshold, 0f, false));
+            assertEquals(NMSUtils.mtcnnNms(boxes, scores, count, threshold),
+                    referenceNms(boxes, scores, null, count, threshold, 1f, true));
+        }
+    }
+
+    @Test
+    public void testBatchedNmsSuppressesWithinClass() {
+        Random random = new Random(5);
+        for (int round = 0; round < 100; round++) {
+            int count = 1 + random.nextInt(60);
+            float[] boxes = randomBoxes(random, count);
+            float[] scores = distinctScores(random, count);
+            int[] classIds = new int[count];
+            for (int i = 0; i < count; i++) {
+                classIds[i] = random.nextInt(3);
+            }
+            int[] expected = referenceNms(boxes, scores, classIds, count, 0.5f, 0f, false);
+            assertEquals(NMSUtils.batchedNms(boxes, scores, classIds, count, 0.5f, Integer.MAX_VALUE), expected);
+            int maxKeep = 1 + random.nextInt(5);
+            assertEquals(NMSUtils.batchedNms(boxes, scores, classIds, count, 0.5f, maxKeep),
+                    Arrays.copyOf(expected, Math.min(maxKeep, expected.length)));
+        }
+    }
+
+    @Test
+    public void testOverlappingBoxes() {
+        float[] boxes = {
+                0, 0, 10, 10,
+                1, 1, 11, 11,
+                20, 20, 30, 30,
+                0, 0, 4, 4
+        };
+        float[] scores = {0.9f, 0.8f, 0.7f, 0.6f};
+        // IoU(0,1) = 81 / 119，IoU(0,3) = 16 / 100
+        assertEquals(NMSUtils.nms(boxes, scores, 4, 0.5f), new int[]{0, 2, 3});
+        assertEquals(NMSUtils.nms(boxes, scores, 4, 0.7f), new int[]{0, 1, 2, 3});
+        // 交集 / 较小框面积（像素坐标加1）：第1、3个框与第0个框的重叠度分别为 100 / 121、25 / 25
+        assertEquals(NMSUtils.mtcnnNms(boxes, scores, 4, 0.5f), new int[]{0, 2});
+        assertEquals(NMSUtils.batchedNms(boxes, scores, new int[]{0, 1, 0, 0}, 4, 0.5f, Integer.MAX_VALUE),
+                new int[]{0, 1, 2, 3});
+        assertEquals(NMSUtils.nms(boxes, scores, 0, 0.5f).length, 0);
+    }
+
+    @Test
+    public void testRotatedNms() {
+        float[] boxes = {
+                50, 50, 40, 20, 0.3f,
+                50, 50, 40, 20, 0.3f,
+                51, 50, 40, 20, 0.35f,
+                200, 200, 40, 20, 0.3f,
+                50, 50, 40, 20, 0.3f
+        };
+        float[] scores = {0.5f, 0.9f, 0.8f, 0.7f, 0.6f};
+        assertEquals(NMSUtils.rotatedNms(boxes, scores, null, 5, 0.5), new int[]{1, 3});
+        assertEquals(NMSUtils.rotatedNms(boxes, scores, new int[]{0, 0, 0, 0, 1}, 5, 0.5), new int[]{1, 3, 4});
+        assertEquals(NMSUtils.rotatedNms(boxes, scores, null, 0, 0.5).length, 0);
+    }
+
+    /**
+     * 参考实现：按置信度降序逐个保留，与已保留框重叠度超过阈值的框被抑制
+     */
+    private static int[] referenceNms(float[] boxes, float[] scores, int[] classIds, int count,
+                                      float threshold, float areaOffset, boolean minUnion) {
+        Integer[] order = new Integer[count];
+        for (int i = 0; i < count; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> Float.compare(scores[b], scores[a]));
+        List<Integer> keep = new ArrayList<>();
+        for (int i : order) {
+            boolean suppressed = false;
+            for (int k : keep) {
+                if (classIds != null && classIds[i] != classIds[k]) {
+                    continue;
+                }
+                if (overlap(boxes, k, i, areaOffset, minUnion) > threshold) {
+                    suppressed = true;
+                    break;
+                }
+            }
+            if (!suppressed) {
+                keep.add(i);
+            }
+        }
+        return keep.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    /**
+     * @param areaOffset 计算宽高时的偏移（MTCNN 按像素坐标加1）
+     */
+    private static float overlap(float[] boxes, int a, int b, float areaOffset, boolean minUnion) {
+        float w = Math.min(boxes[a * 4 + 2], boxes[b * 4 + 2]) - Math.max(boxes[a * 4], boxes[b * 4]) + areaOffset;
+        float h = Math.min(boxes[a * 4 + 3], boxes[b * 4 + 3]) - Math.max(boxes[a * 4 + 1], boxes[b * 4 + 1]) + areaOffset;
+        if (w <= 0 || h <= 0) {
+            return 0f;
+        }
+        float areaA = (boxes[a * 4 + 2] - boxes[a * 4] + areaOffset) * (boxes[a * 4 + 3] - boxes[a * 4 + 1] + areaOffset);
+        float areaB = (boxes[b * 4 + 2] - boxes[b * 4] + areaOffset) * (boxes[b * 4 + 3] - boxes[b * 4 + 1] + areaOffset);
+        float inter = w * h;
+        return inter / (minUnion ? Math.min(areaA, areaB) : areaA + areaB - inter);
+    }
+
+    private static float[] randomBoxes(Random random, int count) {
+        float[] boxes = new float[count * 4];
+        for (int i = 0; i < count; i++) {
+            float x = random.nextFloat() * 100;
+            float y = random.nextFloat() * 100;
+            boxes[i * 4] = x;
+            boxes[i * 4 + 1] = y;
+            boxes[i * 4 + 2] = x + 5 + random.nextFloat() * 40;
+            boxes[i * 4 + 3] = y + 5 + random.nextFloat() * 40;
+        }
+        return boxes;
+    }
+
+    /**
+     * 不重复的置信度，避免同分时排序不确定
+     */
+    private static float[] distinctScores(Random random, int count) {
+        float[] scores = new float[count];
+        for (int i = 0; i < count; i++) {
+            scores[i] = (random.nextInt(1000) * count + i) / (1000f * count);
+        }
+        return scores;
+    }
+}
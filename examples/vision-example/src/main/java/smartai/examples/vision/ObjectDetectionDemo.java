@@ -229,13 +229,13 @@ public class ObjectDetectionDemo {
                     public void onObjectDetected(List<DetectionInfo> detectionInfoList, Image image) {
                         log.info("时间：" + LocalDateTimeUtil.now().toString());
                         log.info("检测结果：{}", JsonUtils.toJson(detectionInfoList));
+                        //image与检测共享帧缓冲，只读且回调结束后失效，绘制前先复制
+                        Image drawImage = ImageUtils.copy(image);
                         //绘制检测结果
-                        ImageUtils.drawRectAndText(image, detectionInfoList);
+                        ImageUtils.drawRectAndText(drawImage, detectionInfoList);
                         //保存图片
-                        ImageUtils.save(image, "test"+ UUID.fastUUID().toString() +".png","/Users/wenjie/Downloads");
-                        if (image != null){
-                            ImageUtils.releaseOpenCVMat(image);
-                        }
+                        ImageUtils.save(drawImage, "test"+ UUID.fastUUID().toString() +".png","/Users/wenjie/Downloads");
+                        ImageUtils.releaseOpenCVMat(drawImage);
                     }
 
                     @Override
@@ -280,13 +280,13 @@ public class ObjectDetectionDemo {
                     public void onObjectDetected(List<DetectionInfo> detectionInfoList, Image image) {
                         log.info("时间：" + LocalDateTimeUtil.now().toString());
                         log.info("检测结果：{}", JsonUtils.toJson(detectionInfoList));
+                        //image与检测共享帧缓冲，只读且回调结束后失效，绘制前先复制
+                        Image drawImage = ImageUtils.copy(image);
                         //绘制检测结果
-                        ImageUtils.drawRectAndText(image, detectionInfoList);
+                        ImageUtils.drawRectAndText(drawImage, detectionInfoList);
                         //保存图片
-                        ImageUtils.save(image, "test"+ UUID.fastUUID().toString() +".png","/Users/wenjie/Downloads");
-                        if (image != null){
-                            ImageUtils.releaseOpenCVMat(image);
-                        }
+                        ImageUtils.save(drawImage, "test"+ UUID.fastUUID().toString() +".png","/Users/wenjie/Downloads");
+                        ImageUtils.releaseOpenCVMat(drawImage);
                     }
 
                     @Override
@@ -329,13 +329,13 @@ public class ObjectDetectionDemo {
                     public void onObjectDetected(List<DetectionInfo> detectionInfoList, Image image) {
                         log.info("时间：" + LocalDateTimeUtil.now().toString());
                         log.info("检测结果：{}", JsonUtils.toJson(detectionInfoList));
+                        //image与检测共享帧缓冲，只读且回调结束后失效，绘制前先复制
+                        Image drawImage = ImageUtils.copy(image);
                         //绘制检测结果
-                        ImageUtils.drawRectAndText(image, detectionInfoList);
+                        ImageUtils.drawRectAndText(drawImage, detectionInfoList);
                         //保存图片
-                        ImageUtils.save(image, "test"+ UUID.fastUUID().toString() +".png","/Users/wenjie/Downloads");
-                        if (image != null){
-                            ImageUtils.releaseOpenCVMat(image);
-                        }
+                        ImageUtils.save(drawImage, "test"+ UUID.fastUUID().toString() +".png","/Users/wenjie/Downloads");
+                        ImageUtils.releaseOpenCVMat(drawImage);
                     }
 
                     @Override
@@ -0,0 +1,43 @@
+package cn.smartjavaai.face.config;
+
+import cn.smartjavaai.face.entity.FaceSearchParams;
+import lombok.Data;
+
+/**
+ * 人脸跟踪配置
+ * @author dwj
+ */
+@Data
+public class FaceTrackerConfig {
+
+    /**
+     * 检测框与跟踪框关联的最小IoU
+     */
+    private float iouThreshold = 0.3f;
+
+    /**
+     * 跟踪目标连续丢失的最大帧数，超过后删除
+     */
+    private int maxAge = 30;
+
+    /**
+     * 跟踪目标连续命中多少帧后才执行识别（过滤误检）
+     */
+    private int minHits = 1;
+
+    /**
+     * 重新识别间隔（毫秒），小于等于0时不按时间重新识别
+     */
+    private long reverifyIntervalMillis = 3000;
+
+    /**
+     * 人脸质量相对上次识别时提升的比例超过该值时重新识别，小于等于0时不按质量重新识别
+     */
+    private float qualityGain = 0.2f;
+
+    /**
+     * 人脸查询参数，为null时只提取特征不查询人脸库
+     */
+    private FaceSearchParams searchParams;
+
+}
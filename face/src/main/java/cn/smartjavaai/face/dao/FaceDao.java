@@ -9,6 +9,8 @@ import org.apache.commons.beanutils.BeanUtils;
 import org.apache.commons.collections4.CollectionUtils;
 
 import java.lang.reflect.InvocationTargetException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.*;
@@ -35,17 +37,30 @@ public class FaceDao {
      * @return FaceDao实例
      */
     public static FaceDao getInstance(String dbFilePath) {
-        return INSTANCES.computeIfAbsent(dbFilePath, path -> new FaceDao(path));
+        return getInstance(dbFilePath, null, null);
+    }
+
+    /**
+     * 获取FaceDao实例（单例模式）
+     * @param dbFilePath 数据库文件路径
+     * @param journalMode 日志模式（如 WAL）
+     * @param synchronous 同步级别（如 NORMAL）
+     * @return FaceDao实例
+     */
+    public static FaceDao getInstance(String dbFilePath, String journalMode, String synchronous) {
+        return INSTANCES.computeIfAbsent(dbFilePath, path -> new FaceDao(path, journalMode, synchronous));
     }
 
     /**
      * 私有构造函数
      * @param dbFilePath 数据库文件路径
+     * @param journalMode 日志模式
+     * @param synchronous 同步级别
      */
-    private FaceDao(String dbFilePath) {
+    private FaceDao(String dbFilePath, String journalMode, String synchronous) {
         this.dbFilePath = dbFilePath;
         try {
-            SqliteHelper sqliteHelper = SqliteHelper.getInstance(dbFilePath);
+            SqliteHelper sqliteHelper = SqliteHelper.getInstance(dbFilePath, journalMode, synchronous);
             //自动创建数据库+表
             sqliteHelper.initializeDatabase(FACE_TABLE_NAME, SCHEMA_RESOURCE);
         } catch (SQLException e) {
@@ -70,6 +85,26 @@ public class FaceDao {
         sqliteHelper.executeInsertOrUpdate(FACE_TABLE_NAME, params);
     }
 
+    /**
+     * 批量插入或更新人脸向量（单连接、预编译语句批量执行，按 batchSize 分事务提交）
+     * @param faceVectors 人脸向量列表
+     * @param batchSize 每个事务的行数
+     * @return 写入行数
+     * @throws SQLException SQL异常
+     * @throws ClassNotFoundException 类未找到异常
+     */
+    public int insertOrUpdateBatch(List<FaceVector> faceVectors, int batchSize) throws SQLException, ClassNotFoundException {
+        if (CollectionUtils.isEmpty(faceVectors)) {
+            return 0;
+        }
+        List<Object[]> rows = new ArrayList<>(faceVectors.size());
+        for (FaceVector faceVector : faceVectors) {
+            rows.add(new Object[]{faceVector.getId(), VectorUtils.toByteArray(faceVector.getVector()), faceVector.getMetadata()});
+        }
+        SqliteHelper sqliteHelper = SqliteHelper.getInstance(dbFilePath);
+        return sqliteHelper.executeBatchInsertOrUpdate(FACE_TABLE_NAME, Arrays.asList("id", "vector", "metadata"), rows, batchSize);
+    }
+
     /**
      * 使用index查询key
      * @param id 人脸ID
@@ -179,6 +214,61 @@ public class FaceDao {
         });
     }
 
+    /**
+     * 按rowid游标顺序扫描人脸（keyset分页，每批耗时与偏移量无关）
+     * 行数据直接交给回调处理，不构造 FaceVector 对象
+     * @param afterRowid 起始rowid（不包含），首次传0
+     * @param limit 本批最大行数
+     * @param handler 行处理回调
+     * @return 本批最后一行的rowid，没有数据时返回 afterRowid
+     * @throws SQLException SQL异常
+     * @throws ClassNotFoundException 类未找到异常
+     */
+    public long scanFaces(long afterRowid, int limit, FaceRowHandler handler) throws SQLException, ClassNotFoundException {
+        String sql = "select rowid,\"id\",\"vector\",\"metadata\" from " + FACE_TABLE_NAME +
+                " where rowid > ? order by rowid limit ?";
+        SqliteHelper sqliteHelper = SqliteHelper.getInstance(dbFilePath);
+        long lastRowid = afterRowid;
+        try (Connection conn = sqliteHelper.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setLong(1, afterRowid);
+            stmt.setInt(2, limit);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    lastRowid = rs.getLong(1);
+                    handler.handle(rs.getString(2), rs.getBytes(3), rs.getString(4));
+                }
+            }
+        }
+        return lastRowid;
+    }
+
+    /**
+     * 查询人脸总数
+     * @return 人脸数量
+     * @throws SQLException SQL异常
+     * @throws ClassNotFoundException 类未找到异常
+     */
+    public long count() throws SQLException, ClassNotFoundException {
+        SqliteHelper sqliteHelper = SqliteHelper.getInstance(dbFilePath);
+        String count = sqliteHelper.executeQuery("select count(*) from " + FACE_TABLE_NAME);
+        return count == null ? 0 : Long.parseLong(count);
+    }
+
+    /**
+     * 人脸行数据处理回调
+     */
+    @FunctionalInterface
+    public interface FaceRowHandler {
+
+        /**
+         * @param id 人脸ID
+         * @param vector 特征向量原始字节
+         * @param metadata 元数据
+         */
+        void handle(String id, byte[] vector, String metadata);
+    }
+
     /**
      * 关闭所有实例
      */
@@ -0,0 +1,42 @@
+package cn.smartjavaai.face.entity;
+
+import cn.smartjavaai.common.entity.DetectionInfo;
+import lombok.Data;
+
+/**
+ * 人脸跟踪结果
+ * @author dwj
+ */
+@Data
+public class TrackedFace {
+
+    /**
+     * 跟踪ID，同一跟踪器内同一目标在各帧中保持不变
+     */
+    private long trackId;
+
+    /**
+     * 当前帧检测信息（faceInfo 中包含特征及查询结果，未重新识别时为缓存结果）
+     */
+    private DetectionInfo detectionInfo;
+
+    /**
+     * 当前帧是否执行了识别
+     */
+    private boolean recognized;
+
+    /**
+     * 当前帧人脸质量（检测得分 × 人脸框边长几何平均）
+     */
+    private float quality;
+
+    public TrackedFace() {
+    }
+
+    public TrackedFace(long trackId, DetectionInfo detectionInfo, boolean recognized, float quality) {
+        this.trackId = trackId;
+        this.detectionInfo = detectionInfo;
+        this.recognized = recognized;
+        this.quality = quality;
+    }
+}
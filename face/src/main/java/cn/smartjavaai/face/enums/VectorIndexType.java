@@ -0,0 +1,24 @@
+package cn.smartjavaai.face.enums;
+
+/**
+ * 本地人脸库内存索引类型
+ * @author dwj
+ */
+public enum VectorIndexType {
+
+    /**
+     * 精确检索：连续特征矩阵暴力扫描
+     */
+    FLAT,
+
+    /**
+     * 近似检索：HNSW 分层图索引，适用于百万级以上人脸库
+     */
+    HNSW,
+
+    /**
+     * int8 标量量化：内存仅保存量化编码（约为 FLAT 的 1/4），候选集从数据库读取原始向量精确重排
+     */
+    SQ8
+
+}
@@ -10,12 +10,16 @@ import ai.djl.repository.zoo.Criteria;
 import ai.djl.repository.zoo.ModelNotFoundException;
 import ai.djl.repository.zoo.ZooModel;
 import ai.djl.translate.TranslateException;
+import cn.smartjavaai.common.batch.BatchInference;
+import cn.smartjavaai.common.batch.DynamicBatcher;
+import cn.smartjavaai.common.batch.LetterboxBatchInference;
 import cn.smartjavaai.common.cv.SmartImageFactory;
 import cn.smartjavaai.common.entity.DetectionResponse;
 import cn.smartjavaai.common.entity.R;
 import cn.smartjavaai.common.pool.PredictorFactory;
 import cn.smartjavaai.common.utils.*;
 import cn.smartjavaai.face.config.FaceDetConfig;
+import cn.smartjavaai.face.enums.FaceDetModelEnum;
 import cn.smartjavaai.face.exception.FaceException;
 import cn.smartjavaai.face.factory.ExpressionModelFactory;
 import cn.smartjavaai.face.factory.FaceDetModelFactory;
@@ -36,6 +40,9 @@ import java.io.InputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.Objects;
 
 /**
@@ -47,6 +54,13 @@ public class CommonFaceDetModel implements FaceDetModel{
 
     private GenericObjectPool<Predictor<Image, DetectedObjects>> predictorPool;
 
+    /**
+     * 动态批处理器，未启用时为null
+     */
+    private DynamicBatcher<Image, DetectedObjects> batcher;
+
+    private BatchInference<Image, DetectedObjects> batchInference;
+
     private ZooModel<Image, DetectedObjects> model;
 
     private FaceDetConfig config;
@@ -92,6 +106,19 @@ public class CommonFaceDetModel implements FaceDetModel{
                 predictorPoolSize = Runtime.getRuntime().availableProcessors(); // 默认等于CPU核心数
             }
             predictorPool.setMaxTotal(predictorPoolSize);
+            FaceDetModelEnum modelEnum = config.getModelEnum();
+            if (modelEnum.getInputWidth() > 0 && modelEnum.getInputHeight() > 0) {
+                // 输入尺寸固定：先统一缩放，不同尺寸的图片也能合并为一批（YOLOv5 人脸模型输入为正方形）
+                int inputHeight = modelEnum == FaceDetModelEnum.YOLOV5_FACE_640 || modelEnum == FaceDetModelEnum.YOLOV5_FACE_320
+                        ? modelEnum.getInputWidth() : modelEnum.getInputHeight();
+                this.batcher = DynamicBatcher.create("face-det", predictorPool, config);
+                this.batchInference = new LetterboxBatchInference<>("人脸检测", predictorPool, batcher, config,
+                        modelEnum.getInputWidth(), inputHeight, LetterBoxUtils::restore);
+            } else {
+                // 原图尺寸输入的模型（RetinaFace、UltraLight）只能合并尺寸相同的图片
+                this.batcher = DynamicBatcher.create("face-det", predictorPool, config, BatchInference.imageSize());
+                this.batchInference = new BatchInference<>("人脸检测", predictorPool, batcher, config, BatchInference.imageSize());
+            }
             log.debug("当前设备: " + model.getNDManager().getDevice());
             log.debug("当前引擎: " + Engine.getInstance().getEngineName());
             log.debug("模型推理器线程池最大数量: " + predictorPoolSize);
@@ -283,6 +310,9 @@ public class CommonFaceDetModel implements FaceDetModel{
     public DetectedObjects detectCore(Image image){
         Predictor<Image, DetectedObjects> predictor = null;
         try {
+            if (batcher != null) {
+                return batchInference.predict(Collections.singletonList(image)).get(0);
+            }
             predictor = predictorPool.borrowObject();
             return predictor.predict(image);
         } catch (Exception e) {
@@ -304,6 +334,36 @@ public class CommonFaceDetModel implements FaceDetModel{
     }
 
 
+    @Override
+    public R<List<DetectionResponse>> batchDetect(List<Image> images) {
+        if(images == null){
+            return R.fail(R.Status.PARAM_ERROR);
+        }
+        List<DetectedObjects> results = batchDetectCore(images);
+        List<DetectionResponse> responses = new ArrayList<>(results.size());
+        for (int i = 0; i < results.size(); i++) {
+            responses.add(FaceUtils.convertToDetectionResponse(results.get(i), images.get(i)));
+        }
+        return R.ok(responses);
+    }
+
+    /**
+     * 批量人脸检测
+     * 输入尺寸固定的模型：每张图片先按比例缩放并填充到模型输入尺寸，整批合并为一次前向推理，结果按各自缩放比例还原到原图坐标；
+     * 以原图尺寸推理的模型（RETINA_FACE、ULTRA_LIGHT_FAST_GENERIC_FACE）：只有尺寸相同的图片合并为一次前向推理，不同尺寸分组执行
+     * @param images 图片列表（尺寸可以不同）
+     * @return 结果，顺序与输入一致
+     */
+    @Override
+    public List<DetectedObjects> batchDetectCore(List<Image> images) {
+        try {
+            return batchInference.predict(images);
+        } catch (Exception e) {
+            throw new FaceException("人脸检测错误", e);
+        }
+    }
+
+
     @Override
     public GenericObjectPool<Predictor<Image, DetectedObjects>> getPool() {
         return predictorPool;
@@ -311,6 +371,11 @@ public class CommonFaceDetModel implements FaceDetModel{
 
     private boolean fromFactory = false;
 
+    @Override
+    public FaceDetConfig getConfig() {
+        return config;
+    }
+
     @Override
     public void setFromFactory(boolean fromFactory) {
         this.fromFactory = fromFactory;
@@ -325,6 +390,9 @@ public class CommonFaceDetModel implements FaceDetModel{
         if (fromFactory) {
             FaceDetModelFactory.removeFromCache(config.getModelEnum());
         }
+        if (batcher != null) {
+            batcher.close();
+        }
         try {
             if (predictorPool != null) {
                 predictorPool.close();
@@ -11,6 +11,7 @@ import org.apache.commons.pool2.impl.GenericObjectPool;
 
 import java.awt.image.BufferedImage;
 import java.io.InputStream;
+import java.util.List;
 
 /**
  * 人脸检测模型
@@ -123,6 +124,24 @@ public interface FaceDetModel extends AutoCloseable{
         throw new UnsupportedOperationException("默认不支持该功能");
     }
 
+    /**
+     * 批量人脸检测
+     * @param images 图片列表（尺寸可以不同）
+     * @return 检测结果，顺序与输入一致
+     */
+    default R<List<DetectionResponse>> batchDetect(List<Image> images){
+        throw new UnsupportedOperationException("默认不支持该功能");
+    }
+
+    /**
+     * 批量人脸检测 核心方法
+     * @param images 图片列表（尺寸可以不同）
+     * @return 检测结果，顺序与输入一致
+     */
+    default List<DetectedObjects> batchDetectCore(List<Image> images){
+        throw new UnsupportedOperationException("默认不支持该功能");
+    }
+
     default GenericObjectPool<Predictor<Image, DetectedObjects>> getPool(){
         throw new UnsupportedOperationException("默认不支持该功能");
     }
@@ -132,6 +151,14 @@ public interface FaceDetModel extends AutoCloseable{
         throw new UnsupportedOperationException("默认不支持该功能");
     }
 
+    /**
+     * 获取模型配置
+     * @return 配置，未加载时为null
+     */
+    default FaceDetConfig getConfig(){
+        return null;
+    }
+
     /**
      * 获取Predictor
      * @return
@@ -284,6 +284,11 @@ public class MtcnnFaceDetModel extends CommonFaceDetModel{
 
     private boolean fromFactory = false;
 
+    @Override
+    public FaceDetConfig getConfig() {
+        return config;
+    }
+
     @Override
     public void setFromFactory(boolean fromFactory) {
         this.fromFactory = fromFactory;
@@ -342,6 +342,11 @@ public class SeetaFace6FaceDetModel implements FaceDetModel{
 
     private boolean fromFactory = false;
 
+    @Override
+    public FaceDetConfig getConfig() {
+        return config;
+    }
+
     @Override
     public void setFromFactory(boolean fromFactory) {
         this.fromFactory = fromFactory;
@@ -2,16 +2,19 @@ package cn.smartjavaai.face.model.facedect.mtcnn;
 
 import ai.djl.inference.Predictor;
 import ai.djl.modality.cv.Image;
-import ai.djl.modality.cv.util.NDImageUtils;
 import ai.djl.ndarray.NDArray;
-import ai.djl.ndarray.NDArrays;
 import ai.djl.ndarray.NDList;
 import ai.djl.ndarray.NDManager;
 import ai.djl.ndarray.types.DataType;
 import ai.djl.ndarray.types.Shape;
 import ai.djl.translate.TranslateException;
 import ai.djl.translate.TranslatorContext;
+import cn.smartjavaai.common.utils.ImageUtils;
 import cn.smartjavaai.common.utils.NMSUtils;
+import org.opencv.core.CvType;
+import org.opencv.core.Mat;
+import org.opencv.core.Rect;
+import org.opencv.imgproc.Imgproc;
 
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -22,6 +25,20 @@ import java.util.List;
  */
 public class PNetModel {
 
+    private static final float STRIDE = 2f;
+
+    private static final float CELL_SIZE = 12f;
+
+    private static final float PNET_THRESHOLD = 0.6f;
+
+    private static final float SCALE_NMS_THRESHOLD = 0.5f;
+
+    private static final float IMAGE_NMS_THRESHOLD = 0.7f;
+
+    /**
+     * 金字塔各层在画布中的间隔（像素）
+     */
+    private static final int PYRAMID_GAP = 2;
 
     /**
      * 生成金字塔缩放比例列表
@@ -64,144 +81,250 @@ public class PNetModel {
     }
 
 
+    /**
+     * 第一阶段：PNet 候选框生成
+     * 所有金字塔层按行（shelf）打包到同一张画布中，只执行一次 PNet 推理；候选框筛选、NMS 及回归均基于原始类型数组完成。
+     * 各层在画布中的坐标对齐到偶数并留有间隔，保证每个输出单元（12x12感受野，步长2）只覆盖单个层
+     * @param manager
+     * @param pnetPredictor
+     * @param image
+     * @return boxes [N,5]、image_inds [N]、原图 NDArray (1,C,H,W)
+     * @throws TranslateException
+     */
     public static NDList firstStage(NDManager manager, Predictor<NDList, NDList> pnetPredictor, Image image) throws TranslateException {
         List<Double> scales = MtcnnProcess.generateScales(image);
         NDArray imgs = pNetPre(image,manager);
         int h = image.getHeight();
         int w = image.getWidth();
-        // 第一阶段
-        NDList boxes_list = new NDList();
-        NDList image_inds_list = new NDList();
-        NDList scale_picks_list = new NDList();
-        int offset = 0;
-        for (double scale : scales) {
-            int newH = (int) (h * scale + 1);
-            int newW = (int) (w * scale + 1);
-            //  (N, H, W, C)
-            NDArray transposed = imgs.transpose(0, 2, 3, 1);
-            transposed = NDImageUtils.resize(transposed, newW, newH, Image.Interpolation.AREA);
-            // (N, C, H, W)
-            transposed = transposed.transpose(0, 3, 1, 2);
-            // 归一化
-            transposed = transposed.sub(127.5).mul(0.0078125f);
-
-
-            NDList outputPnet = pnetPredictor.predict(new NDList(transposed));
-            NDArray reg = outputPnet.get(0);   // [B, 4, H, W]
-            NDArray probs = outputPnet.get(1); // [B, 2, H, W]
-
-            List<NDArray> boundingBox = generateBoundingBox(reg, probs.get(":, 1"), (float)scale, 0.6f);
-
-            NDArray boxes_scale = boundingBox.get(0); // [N,9]
-            NDArray imgIndND = boundingBox.get(1); // [N]
-
-            NDArray pick = NMSUtils.batchedNms(boxes_scale.get(":,:4"), boxes_scale.get(":,4"), imgIndND, 0.5f,manager);
-
-            boxes_list.add(boxes_scale);
-            image_inds_list.add(imgIndND);
-            scale_picks_list.add(pick.add(offset));
-            offset += boxes_scale.getShape().get(0);
+        if (scales.isEmpty()) {
+            return new NDList(manager.zeros(new Shape(0, 5)), manager.zeros(new Shape(0), DataType.INT64), imgs);
         }
-        // 270 9
-        NDArray boxes = NDArrays.concat(boxes_list, 0);
-        NDArray image_inds = NDArrays.concat(image_inds_list, 0);
-        NDArray scale_picks = NDArrays.concat(scale_picks_list, 0);
-
-        // NMS within each scale + image
-        boxes = boxes.get(scale_picks);         // scalePicksAll 是 NDArrays.concat 后的 INT64 NDArray
-        image_inds = image_inds.get(scale_picks); // 同样索引
-
-        // NMS within each image
-        NDArray pick = NMSUtils.batchedNms(
-                boxes.get(":, :4"),       // 坐标
-                boxes.get(":, 4"),        // score
-                image_inds,                // 每个框对应的图片编号
-                0.7f,                      // IoU 阈值
-                manager
-        );
-        // 8 9
-        boxes = boxes.get(pick);
-        image_inds = image_inds.get(pick);
-
-
-        NDArray regw = boxes.get(":, 2").sub(boxes.get(":, 0"));
-        NDArray regh = boxes.get(":, 3").sub(boxes.get(":, 1"));
-
-        NDArray qq1 = boxes.get(":, 0").add(boxes.get(":, 5").mul(regw));
-        NDArray qq2 = boxes.get(":, 1").add(boxes.get(":, 6").mul(regh));
-        NDArray qq3 = boxes.get(":, 2").add(boxes.get(":, 7").mul(regw));
-        NDArray qq4 = boxes.get(":, 3").add(boxes.get(":, 8").mul(regh));
-
-        boxes = NDArrays.stack(new NDList(qq1, qq2, qq3, qq4, boxes.get(":, 4")), 1);
-        boxes = MtcnnUtils.rerec(boxes);
+        PyramidLayout layout = PyramidLayout.pack(scales, w, h);
+
+        // 构建画布 (1, H, W, C)，归一化只在原图上执行一次
+        float[] canvasData = buildCanvas(image, layout);
+        NDArray canvas = manager.create(canvasData, new Shape(1, layout.height, layout.width, 3));
+        NDList outputPnet = pnetPredictor.predict(new NDList(canvas.transpose(0, 3, 1, 2)));
+        NDArray reg = outputPnet.get(0);   // [1, 4, H, W]
+        NDArray probs = outputPnet.get(1); // [1, 2, H, W]
+        int outH = (int) probs.getShape().get(2);
+        int outW = (int) probs.getShape().get(3);
+        float[] regData = reg.toFloatArray();
+        float[] probData = probs.toFloatArray();
+        int plane = outH * outW;
+
+        // 每层筛选候选框并做层内 NMS
+        CandidateBuffer levelBuffer = new CandidateBuffer(64);
+        CandidateBuffer picked = new CandidateBuffer(256);
+        for (int level = 0; level < layout.count; level++) {
+            float scale = layout.scales[level];
+            int cellsX = Math.min(outputSize(layout.widths[level]), outW - layout.xs[level] / 2);
+            int cellsY = Math.min(outputSize(layout.heights[level]), outH - layout.ys[level] / 2);
+            levelBuffer.clear();
+            for (int y = 0; y < cellsY; y++) {
+                int row = (layout.ys[level] / 2 + y) * outW + layout.xs[level] / 2;
+                for (int x = 0; x < cellsX; x++) {
+                    int index = row + x;
+                    float score = probData[plane + index];
+                    if (score < PNET_THRESHOLD) {
+                        continue;
+                    }
+                    levelBuffer.add((float) Math.floor((STRIDE * x + 1) / scale),
+                            (float) Math.floor((STRIDE * y + 1) / scale),
+                            (float) Math.floor((STRIDE * x + CELL_SIZE) / scale),
+                            (float) Math.floor((STRIDE * y + CELL_SIZE) / scale),
+                            score,
+                            regData[index], regData[plane + index], regData[2 * plane + index], regData[3 * plane + index]);
+                }
+            }
+            if (levelBuffer.size == 0) {
+                continue;
+            }
+            int[] keep = NMSUtils.mtcnnNms(levelBuffer.boxes, levelBuffer.scores, levelBuffer.size, SCALE_NMS_THRESHOLD);
+            for (int k : keep) {
+                picked.addFrom(levelBuffer, k);
+            }
+        }
+
+        // 全图 NMS + 回归 + 转正方形
+        int[] keep = NMSUtils.mtcnnNms(picked.boxes, picked.scores, picked.size, IMAGE_NMS_THRESHOLD);
+        float[] result = new float[keep.length * 5];
+        for (int i = 0; i < keep.length; i++) {
+            int k = keep[i];
+            float x1 = picked.boxes[k * 4];
+            float y1 = picked.boxes[k * 4 + 1];
+            float x2 = picked.boxes[k * 4 + 2];
+            float y2 = picked.boxes[k * 4 + 3];
+            float regw = x2 - x1;
+            float regh = y2 - y1;
+            float qq1 = x1 + picked.regs[k * 4] * regw;
+            float qq2 = y1 + picked.regs[k * 4 + 1] * regh;
+            float qq3 = x2 + picked.regs[k * 4 + 2] * regw;
+            float qq4 = y2 + picked.regs[k * 4 + 3] * regh;
+            float bw = qq3 - qq1;
+            float bh = qq4 - qq2;
+            float l = Math.max(bw, bh);
+            float nx1 = qq1 + bw * 0.5f - l * 0.5f;
+            float ny1 = qq2 + bh * 0.5f - l * 0.5f;
+            result[i * 5] = nx1;
+            result[i * 5 + 1] = ny1;
+            result[i * 5 + 2] = nx1 + l;
+            result[i * 5 + 3] = ny1 + l;
+            result[i * 5 + 4] = picked.scores[k];
+        }
+        NDArray boxes = manager.create(result, new Shape(keep.length, 5));
+        NDArray image_inds = manager.zeros(new Shape(keep.length), DataType.INT64);
         return new NDList(boxes, image_inds, imgs);
     }
 
     /**
-     * 生成候选框，等价于 Python 版 generateBoundingBox
-     *
-     * @param reg       NDArray [B,4,H,W]，回归偏移量
-     * @param probs     NDArray [B,H,W]，人脸概率
-     * @param scale     当前金字塔缩放比例
-     * @param threshold 阈值
-     * @return 一个包含两个元素的 List：
-     *         0 -> NDArray bounding boxes [N,9] (x1,y1,x2,y2,score,dx1,dy1,dx2,dy2)
-     *         1 -> NDArray image_inds [N]
+     * PNet 输出尺寸：conv3x3 -> maxpool2x2(ceil) -> conv3x3 -> conv3x3
      */
-    public static List<NDArray> generateBoundingBox(
-            NDArray reg, NDArray probs, float scale, float threshold) {
-
-        float stride = 2f;
-        float cellSize = 12f;
-
-        // mask = probs >= thresh  -> [B,H,W]
-        NDArray mask = probs.gte(threshold);
-
-        // mask_inds = mask.nonzero()  -> [N,3]  每行: (batch, y, x)
-        NDArray maskInds = mask.nonzero();
-
-        // image_inds = mask_inds[:, 0]
-        NDArray imageInds = maskInds.get(":,0");
-
-        // yx = mask_inds[:, 1:]  [N,2] -> (y, x)
-        NDArray yx = maskInds.get(":,1:");
-
-        // bb = mask_inds[:, 1:].flip(1)   Python 是 (y,x) -> (x,y)
-        NDArray bb = yx.flip(1); // [N,2]  (x, y)
-
-        // 左上角 (x1, y1) 坐标 q1 = ((stride * bb + 1) / scale).floor()
-        NDArray q1 = bb.mul(stride).add(1).div(scale).floor();
+    private static int outputSize(int inputSize) {
+        return (inputSize - 2 + 1) / 2 - 4;
+    }
 
-        // 右下角 (x2, y2) 坐标 q2 = ((stride * bb + cellsize) / scale).floor()
-        NDArray q2 = bb.mul(stride).add(cellSize).div(scale).floor();
+    /**
+     * 将归一化后的 RGB 图片按布局缩放写入画布，返回 HWC 数组（仅在本次调用内使用）
+     */
+    private static float[] buildCanvas(Image image, PyramidLayout layout) {
+        Mat src = ImageUtils.toMat(image);
+        Mat rgb = new Mat();
+        Mat normalized = new Mat();
+        Mat canvas = Mat.zeros(layout.height, layout.width, CvType.CV_32FC3);
+        try {
+            if (src.channels() == 1) {
+                Imgproc.cvtColor(src, rgb, Imgproc.COLOR_GRAY2RGB);
+            } else if (src.channels() == 4) {
+                Imgproc.cvtColor(src, rgb, Imgproc.COLOR_BGRA2RGB);
+            } else {
+                Imgproc.cvtColor(src, rgb, Imgproc.COLOR_BGR2RGB);
+            }
+            // (x - 127.5) * 0.0078125
+            rgb.convertTo(normalized, CvType.CV_32FC3, 0.0078125, -127.5 * 0.0078125);
+            for (int level = 0; level < layout.count; level++) {
+                Mat roi = canvas.submat(new Rect(layout.xs[level], layout.ys[level], layout.widths[level], layout.heights[level]));
+                // 目标尺寸、类型一致时 resize 直接写入 ROI
+                Imgproc.resize(normalized, roi, roi.size(), 0, 0, Imgproc.INTER_AREA);
+                roi.release();
+            }
+            float[] data = new float[layout.height * layout.width * 3];
+            canvas.get(0, 0, data);
+            return data;
+        } finally {
+            if (src != image.getWrappedImage()) {
+                src.release();
+            }
+            rgb.release();
+            normalized.release();
+            canvas.release();
+        }
+    }
 
-        Shape probShape = probs.getShape(); // [B,H,W]
-        long H = probShape.get(1);
-        long W = probShape.get(2);
+    /**
+     * 金字塔画布布局
+     */
+    private static class PyramidLayout {
+
+        private int count;
+        private float[] scales;
+        private int[] widths;
+        private int[] heights;
+        private int[] xs;
+        private int[] ys;
+        private int width;
+        private int height;
+
+        /**
+         * 按行贪心打包：画布宽度为第0层宽度，每行从大到小依次放入剩余能放下的层
+         */
+        static PyramidLayout pack(List<Double> scaleList, int w, int h) {
+            PyramidLayout layout = new PyramidLayout();
+            int n = scaleList.size();
+            layout.count = n;
+            layout.scales = new float[n];
+            layout.widths = new int[n];
+            layout.heights = new int[n];
+            layout.xs = new int[n];
+            layout.ys = new int[n];
+            for (int i = 0; i < n; i++) {
+                double scale = scaleList.get(i);
+                layout.scales[i] = (float) scale;
+                layout.widths[i] = (int) (w * scale + 1);
+                layout.heights[i] = (int) (h * scale + 1);
+            }
+            layout.width = alignEven(layout.widths[0]);
+            boolean[] placed = new boolean[n];
+            int remaining = n;
+            int y = 0;
+            while (remaining > 0) {
+                int x = 0;
+                int shelfHeight = 0;
+                for (int i = 0; i < n; i++) {
+                    if (placed[i] || (x > 0 && x + layout.widths[i] > layout.width)) {
+                        continue;
+                    }
+                    layout.xs[i] = x;
+                    layout.ys[i] = y;
+                    placed[i] = true;
+                    remaining--;
+                    x = alignEven(x + layout.widths[i] + PYRAMID_GAP);
+                    shelfHeight = Math.max(shelfHeight, layout.heights[i]);
+                }
+                y = alignEven(y + shelfHeight + PYRAMID_GAP);
+            }
+            layout.height = y;
+            return layout;
+        }
 
-        NDArray linearIndex = maskInds.get(":,0").mul(H * W)
-                .add(maskInds.get(":,1").mul(W))
-                .add(maskInds.get(":,2"));
+        private static int alignEven(int value) {
+            return (value + 1) & ~1;
+        }
+    }
 
-        NDArray scores = probs.reshape(-1).gather(linearIndex, 0);
+    /**
+     * 候选框缓冲区（x1,y1,x2,y2 / score / dx1,dy1,dx2,dy2）
+     */
+    private static class CandidateBuffer {
 
-        NDArray regPerm = reg.transpose(1, 0, 2, 3); // [4,B,H,W]
-        NDArray regFlat = regPerm.reshape(4, -1);    // [4, total]
+        private float[] boxes;
+        private float[] scores;
+        private float[] regs;
+        private int size;
 
-        NDArray linearIndexForGather = linearIndex.expandDims(0).repeat(0, 4); // [4, N]
-        NDArray regPicked = regFlat.gather(linearIndexForGather, 1).transpose(); // [N,4]
+        CandidateBuffer(int capacity) {
+            boxes = new float[capacity * 4];
+            scores = new float[capacity];
+            regs = new float[capacity * 4];
+        }
 
-        NDArray x1 = q1.get(":, 0").expandDims(1);
-        NDArray y1 = q1.get(":, 1").expandDims(1);
-        NDArray x2 = q2.get(":, 0").expandDims(1);
-        NDArray y2 = q2.get(":, 1").expandDims(1);
+        void clear() {
+            size = 0;
+        }
 
-        NDArray boundingBoxes = NDArrays.concat(
-                new NDList(x1, y1, x2, y2, scores.expandDims(1), regPicked), 1
-        );
+        void add(float x1, float y1, float x2, float y2, float score, float dx1, float dy1, float dx2, float dy2) {
+            if (size == scores.length) {
+                int capacity = scores.length * 2;
+                boxes = Arrays.copyOf(boxes, capacity * 4);
+                scores = Arrays.copyOf(scores, capacity);
+                regs = Arrays.copyOf(regs, capacity * 4);
+            }
+            int o = size * 4;
+            boxes[o] = x1;
+            boxes[o + 1] = y1;
+            boxes[o + 2] = x2;
+            boxes[o + 3] = y2;
+            regs[o] = dx1;
+            regs[o + 1] = dy1;
+            regs[o + 2] = dx2;
+            regs[o + 3] = dy2;
+            scores[size++] = score;
+        }
 
-        return Arrays.asList(boundingBoxes, imageInds);
+        void addFrom(CandidateBuffer other, int index) {
+            int o = index * 4;
+            add(other.boxes[o], other.boxes[o + 1], other.boxes[o + 2], other.boxes[o + 3], other.scores[index],
+                    other.regs[o], other.regs[o + 1], other.regs[o + 2], other.regs[o + 3]);
+        }
     }
-
-
 }
@@ -8,6 +8,7 @@ import ai.djl.ndarray.NDManager;
 import ai.djl.repository.zoo.Criteria;
 import ai.djl.repository.zoo.ModelNotFoundException;
 import ai.djl.repository.zoo.ZooModel;
+import cn.smartjavaai.common.cache.EmbeddingCache;
 import cn.smartjavaai.common.cv.SmartImageFactory;
 import cn.smartjavaai.common.entity.*;
 import cn.smartjavaai.common.entity.face.FaceInfo;
@@ -18,12 +19,14 @@ import cn.smartjavaai.common.utils.BufferedImageUtils;
 import cn.smartjavaai.common.utils.FileUtils;
 import cn.smartjavaai.common.utils.ImageUtils;
 import cn.smartjavaai.common.utils.SimilarityUtil;
+import cn.smartjavaai.face.config.FaceDetConfig;
 import cn.smartjavaai.face.config.FaceRecConfig;
 import cn.smartjavaai.face.constant.FaceDetectConstant;
 import cn.smartjavaai.face.entity.FaceRegisterInfo;
 import cn.smartjavaai.face.entity.FaceSearchParams;
 import cn.smartjavaai.face.exception.FaceException;
 import cn.smartjavaai.face.factory.FaceRecModelFactory;
+import cn.smartjavaai.face.model.facedect.FaceDetModel;
 import cn.smartjavaai.face.model.facerec.criteria.FaceRecCriteriaFactory;
 import cn.smartjavaai.face.preprocess.DJLImageFacePreprocessor;
 import cn.smartjavaai.face.utils.*;
@@ -44,8 +47,11 @@ import org.opencv.core.Mat;
 import javax.imageio.ImageIO;
 import java.awt.image.BufferedImage;
 import java.io.*;
+import java.nio.file.Files;
 import java.nio.file.Paths;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Objects;
 
@@ -81,6 +87,11 @@ public class CommonFaceRecModel implements FaceRecModel{
 
     private VectorDBClient vectorDBClient;
 
+    /**
+     * 特征缓存（未启用时为null）
+     */
+    private EmbeddingCache embeddingCache;
+
 
     /**
      * 加载人脸特征提取模型
@@ -95,6 +106,7 @@ public class CommonFaceRecModel implements FaceRecModel{
             throw new FaceException("请指定人脸检测模型");
         }
         this.config = config;
+        this.embeddingCache = EmbeddingCache.create("face-rec", config);
         Criteria<Image, float[]> faceFeatureCriteria = FaceRecCriteriaFactory.createCriteria(config);
         try {
             model = faceFeatureCriteria.loadModel();
@@ -176,6 +188,43 @@ public class CommonFaceRecModel implements FaceRecModel{
     }
 
 
+    /**
+     * 批量提取人脸特征，按 maxBatchSize 分块调用 batchPredict
+     * @param images 已裁剪/对齐的人脸图片
+     * @return 与输入顺序一致的特征列表
+     */
+    public List<float[]> featureExtraction(List<Image> images){
+        if (images.isEmpty()) {
+            return Collections.emptyList();
+        }
+        Predictor<Image, float[]> predictor = null;
+        try {
+            predictor = predictorPool.borrowObject();
+            int batchSize = config.getMaxBatchSize() > 0 ? config.getMaxBatchSize() : images.size();
+            List<float[]> featureList = new ArrayList<>(images.size());
+            for (int start = 0; start < images.size(); start += batchSize) {
+                int end = Math.min(images.size(), start + batchSize);
+                featureList.addAll(predictor.batchPredict(images.subList(start, end)));
+            }
+            return featureList;
+        } catch (Exception e) {
+            throw new FaceException("人脸特征提取错误", e);
+        }finally {
+            if (predictor != null) {
+                try {
+                    predictorPool.returnObject(predictor); //归还
+                } catch (Exception e) {
+                    log.warn("归还Predictor失败", e);
+                    try {
+                        predictor.close(); // 归还失败才销毁
+                    } catch (Exception ex) {
+                        log.error("关闭Predictor失败", ex);
+                    }
+                }
+            }
+        }
+    }
+
     /**
      * 计算相似度，返回归一化结果
      * @param feature1 图1特征
@@ -253,32 +302,8 @@ public class CommonFaceRecModel implements FaceRecModel{
             return R.fail(R.Status.NO_FACE_DETECTED);
         }
         Image djlImage = SmartImageFactory.getInstance().fromBufferedImage(image);
-        try (NDManager manager = model.getNDManager().newSubManager()) {
-            DJLImageFacePreprocessor djlImagePreprocessor = new DJLImageFacePreprocessor(djlImage, manager);
-            for (DetectionInfo detectionInfo : detectedResult.getData().getDetectionInfoList()){
-                DetectionRectangle rectangle = detectionInfo.getDetectionRectangle();
-                FaceInfo faceInfo = detectionInfo.getFaceInfo();
-                float[] features = null;
-                Image subImage = djlImage;
-                //人脸对齐
-                if(config.isAlign()){
-                    //人脸对齐
-                    double[][] pointsArray = FaceUtils.facePoints(faceInfo.getKeyPoints());
-                    djlImagePreprocessor.enableCrop(rectangle).enableAffine(pointsArray, 96, 112);
-                    subImage = djlImagePreprocessor.process();
-                }else{
-                    //裁剪
-                    djlImagePreprocessor.enableCrop(rectangle);
-                    if(config.isCropFace()){
-                        subImage = djlImagePreprocessor.process();
-                    }
-                }
-                features = featureExtraction(subImage);
-                if (subImage != null && subImage.getWrappedImage() instanceof Mat) {
-                    ((Mat)subImage.getWrappedImage()).release();
-                }
-                faceInfo.setFeature(features);
-            }
+        try {
+            extractFeatures(djlImage, detectedResult.getData().getDetectionInfoList());
         }finally {
             if (djlImage != null && djlImage.getWrappedImage() instanceof Mat) {
                 ((Mat)djlImage.getWrappedImage()).release();
@@ -363,6 +388,13 @@ public class CommonFaceRecModel implements FaceRecModel{
         if(!FileUtils.isFileExists(imagePath)){
             return R.fail(R.Status.FILE_NOT_FOUND);
         }
+        if (Objects.nonNull(embeddingCache)) {
+            try {
+                return extractTopFaceFeature(Files.readAllBytes(Paths.get(imagePath)));
+            } catch (IOException e) {
+                throw new FaceException("无效图片路径", e);
+            }
+        }
         // 将图片路径转换为 BufferedImage
         BufferedImage image = null;
         try {
@@ -378,6 +410,15 @@ public class CommonFaceRecModel implements FaceRecModel{
         if(Objects.isNull(imageData)){
             return R.fail(R.Status.INVALID_IMAGE);
         }
+        if (Objects.nonNull(embeddingCache)) {
+            // 相同图片内容直接返回缓存的特征
+            return embeddingCache.get(EmbeddingCache.key(embeddingCacheNamespace(), imageData),
+                    () -> readTopFaceFeature(imageData));
+        }
+        return readTopFaceFeature(imageData);
+    }
+
+    private R<float[]> readTopFaceFeature(byte[] imageData) {
         try {
             return extractTopFaceFeature(ImageIO.read(new ByteArrayInputStream(imageData)));
         } catch (IOException e) {
@@ -385,6 +426,26 @@ public class CommonFaceRecModel implements FaceRecModel{
         }
     }
 
+    /**
+     * 特征缓存命名空间：模型及影响特征结果的预处理配置
+     */
+    private String embeddingCacheNamespace() {
+        StringBuilder namespace = new StringBuilder()
+                .append(config.getModelEnum()).append('|').append(config.getModelPath())
+                .append("|align=").append(config.isAlign()).append("|crop=").append(config.isCropFace());
+        FaceDetModel detectModel = config.getDetectModel();
+        if (Objects.nonNull(detectModel)) {
+            namespace.append("|det=").append(detectModel.getClass().getSimpleName());
+            FaceDetConfig detConfig = detectModel.getConfig();
+            if (Objects.nonNull(detConfig)) {
+                namespace.append('|').append(detConfig.getModelEnum()).append('|').append(detConfig.getModelPath())
+                        .append("|conf=").append(detConfig.getConfidenceThreshold())
+                        .append("|nms=").append(detConfig.getNmsThresh());
+            }
+        }
+        return namespace.toString();
+    }
+
 
 
     @Override
@@ -628,16 +689,7 @@ public class CommonFaceRecModel implements FaceRecModel{
         int topK = Objects.isNull(params.getTopK()) ? 1 : params.getTopK();
         boolean normalize = Objects.isNull(params.getNormalizeSimilarity()) ? NORMALIZE_SIMILARITY : params.getNormalizeSimilarity();
         FaceSearchParams searchParams = new FaceSearchParams(topK, threshold, normalize);
-        for (DetectionInfo detectionInfo : detectionResponse.getData().getDetectionInfoList()){
-            if(Objects.nonNull(detectionInfo.getFaceInfo()) && Objects.nonNull(detectionInfo.getFaceInfo().getFeature())){
-                List<FaceSearchResult> searchResults = vectorDBClient.search(detectionInfo.getFaceInfo().getFeature(), searchParams);
-                if (CollectionUtils.isEmpty(searchResults)){
-                    return R.fail(1000, "未找到匹配结果");
-                }
-                detectionInfo.getFaceInfo().setFaceSearchResults(searchResults);
-            }
-        }
-        return detectionResponse;
+        return searchDetectedFaces(detectionResponse, searchParams);
     }
 
     @Override
@@ -745,15 +797,35 @@ public class CommonFaceRecModel implements FaceRecModel{
         int topK = Objects.isNull(params.getTopK()) ? 1 : params.getTopK();
         boolean normalize = Objects.isNull(params.getNormalizeSimilarity()) ? NORMALIZE_SIMILARITY : params.getNormalizeSimilarity();
         FaceSearchParams searchParams = new FaceSearchParams(topK, threshold, normalize);
+        return searchDetectedFaces(detectionResponse, searchParams);
+    }
+
+    /**
+     * 对检测到的所有人脸一次批量检索，并将结果写回人脸信息
+     * @param detectionResponse 含人脸特征的检测结果
+     * @param searchParams 查询参数
+     * @return
+     */
+    private R<DetectionResponse> searchDetectedFaces(R<DetectionResponse> detectionResponse, FaceSearchParams searchParams) {
+        List<FaceInfo> faceInfoList = new ArrayList<>();
+        List<float[]> features = new ArrayList<>();
         for (DetectionInfo detectionInfo : detectionResponse.getData().getDetectionInfoList()){
             if(Objects.nonNull(detectionInfo.getFaceInfo()) && Objects.nonNull(detectionInfo.getFaceInfo().getFeature())){
-                List<FaceSearchResult> searchResults = vectorDBClient.search(detectionInfo.getFaceInfo().getFeature(), searchParams);
-                if (CollectionUtils.isEmpty(searchResults)){
-                    return R.fail(1000, "未找到匹配结果");
-                }
-                detectionInfo.getFaceInfo().setFaceSearchResults(searchResults);
+                faceInfoList.add(detectionInfo.getFaceInfo());
+                features.add(detectionInfo.getFaceInfo().getFeature());
             }
         }
+        if (features.isEmpty()) {
+            return detectionResponse;
+        }
+        List<List<FaceSearchResult>> batchResults = vectorDBClient.searchBatch(features, searchParams);
+        for (int i = 0; i < faceInfoList.size(); i++) {
+            List<FaceSearchResult> searchResults = batchResults.get(i);
+            if (CollectionUtils.isEmpty(searchResults)){
+                return R.fail(1000, "未找到匹配结果");
+            }
+            faceInfoList.get(i).setFaceSearchResults(searchResults);
+        }
         return detectionResponse;
     }
 
@@ -779,13 +851,23 @@ public class CommonFaceRecModel implements FaceRecModel{
         if(Objects.isNull(detectedResult.getData()) || Objects.isNull(detectedResult.getData().getDetectionInfoList()) || detectedResult.getData().getDetectionInfoList().isEmpty()){
             return R.fail(R.Status.NO_FACE_DETECTED);
         }
+        extractFeatures(image, detectedResult.getData().getDetectionInfoList());
+        return detectedResult;
+    }
+
+    /**
+     * 先裁剪/对齐所有人脸，再按 maxBatchSize 分块批量提取特征，结果写回对应的 DetectionInfo
+     * @param image 原图
+     * @param detectionInfoList 人脸检测结果
+     */
+    private void extractFeatures(Image image, List<DetectionInfo> detectionInfoList) {
+        List<Image> faceImages = new ArrayList<>(detectionInfoList.size());
         try (NDManager manager = model.getNDManager().newSubManager()) {
             DJLImageFacePreprocessor djlImagePreprocessor = new DJLImageFacePreprocessor(image, manager);
-            for (DetectionInfo detectionInfo : detectedResult.getData().getDetectionInfoList()){
+            for (DetectionInfo detectionInfo : detectionInfoList){
                 DetectionRectangle rectangle = detectionInfo.getDetectionRectangle();
                 FaceInfo faceInfo = detectionInfo.getFaceInfo();
-                float[] features = null;
-                Image subImage = null;
+                Image subImage = image;
                 //人脸对齐
                 if(config.isAlign()){
                     //人脸对齐
@@ -799,14 +881,19 @@ public class CommonFaceRecModel implements FaceRecModel{
                         subImage = djlImagePreprocessor.process();
                     }
                 }
-                features = featureExtraction(subImage);
-                if (subImage != null && subImage.getWrappedImage() instanceof Mat) {
-                    ((Mat)subImage.getWrappedImage()).release();
+                faceImages.add(subImage);
+            }
+            List<float[]> featureList = featureExtraction(faceImages);
+            for (int i = 0; i < detectionInfoList.size(); i++) {
+                detectionInfoList.get(i).getFaceInfo().setFeature(featureList.get(i));
+            }
+        } finally {
+            for (Image faceImage : faceImages) {
+                if (faceImage != image) {
+                    ImageUtils.releaseOpenCVMat(faceImage);
                 }
-                faceInfo.setFeature(features);
             }
         }
-        return detectedResult;
     }
 
     @Override
@@ -906,6 +993,9 @@ public class CommonFaceRecModel implements FaceRecModel{
         } catch (Exception e) {
             log.warn("关闭 vectorDBClient 失败", e);
         }
+        if(Objects.nonNull(embeddingCache)){
+            embeddingCache.close();
+        }
 
     }
 
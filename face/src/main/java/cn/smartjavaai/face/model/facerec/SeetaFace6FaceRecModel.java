@@ -3,6 +3,7 @@ package cn.smartjavaai.face.model.facerec;
 import ai.djl.engine.Engine;
 import ai.djl.modality.cv.Image;
 import ai.djl.ndarray.NDManager;
+import cn.smartjavaai.common.cache.EmbeddingCache;
 import cn.smartjavaai.common.cv.SmartImageFactory;
 import cn.smartjavaai.common.entity.DetectionInfo;
 import cn.smartjavaai.common.entity.DetectionRectangle;
@@ -14,6 +15,7 @@ import cn.smartjavaai.common.enums.SimilarityType;
 import cn.smartjavaai.common.utils.BufferedImageUtils;
 import cn.smartjavaai.common.utils.FileUtils;
 import cn.smartjavaai.common.utils.ImageUtils;
+import cn.smartjavaai.face.config.FaceDetConfig;
 import cn.smartjavaai.face.config.FaceRecConfig;
 import cn.smartjavaai.face.constant.FaceDetectConstant;
 import cn.smartjavaai.face.entity.FaceRegisterInfo;
@@ -23,6 +25,7 @@ import cn.smartjavaai.face.enums.FaceRecModelEnum;
 import cn.smartjavaai.face.exception.FaceException;
 import cn.smartjavaai.face.factory.FaceDetModelFactory;
 import cn.smartjavaai.face.factory.FaceRecModelFactory;
+import cn.smartjavaai.face.model.facedect.FaceDetModel;
 import cn.smartjavaai.face.preprocess.DJLImageFacePreprocessor;
 import cn.smartjavaai.face.utils.FaceUtils;
 import cn.smartjavaai.face.utils.Seetaface6Utils;
@@ -46,6 +49,7 @@ import javax.imageio.ImageIO;
 import java.awt.image.BufferedImage;
 import java.io.*;
 import java.nio.file.Path;
+import java.nio.file.Files;
 import java.nio.file.Paths;
 import java.sql.SQLException;
 import java.util.ArrayList;
@@ -77,6 +81,11 @@ public class SeetaFace6FaceRecModel implements FaceRecModel{
 
     private VectorDBClient vectorDBClient = null;
 
+    /**
+     * 特征缓存（未启用时为null）
+     */
+    private EmbeddingCache embeddingCache;
+
     /**
      * 是否加载人脸库完毕
      */
@@ -92,6 +101,7 @@ public class SeetaFace6FaceRecModel implements FaceRecModel{
     @Override
     public void loadModel(FaceRecConfig config) {
         this.config = config;
+        this.embeddingCache = EmbeddingCache.create("face-rec", config);
         if(StringUtils.isBlank(config.getModelPath())){
             throw new FaceException("modelPath is null");
         }
@@ -400,16 +410,7 @@ public class SeetaFace6FaceRecModel implements FaceRecModel{
         int topK = Objects.isNull(params.getTopK()) ? 1 : params.getTopK();
         boolean normalize = Objects.isNull(params.getNormalizeSimilarity()) ? NORMALIZE_SIMILARITY : params.getNormalizeSimilarity();
         FaceSearchParams searchParams = new FaceSearchParams(topK, threshold, normalize);
-        for (DetectionInfo detectionInfo : detectionResponse.getData().getDetectionInfoList()){
-            if(Objects.nonNull(detectionInfo.getFaceInfo()) && Objects.nonNull(detectionInfo.getFaceInfo().getFeature())){
-                List<FaceSearchResult> searchResults = vectorDBClient.search(detectionInfo.getFaceInfo().getFeature(), searchParams);
-                if (CollectionUtils.isEmpty(searchResults)){
-                    return R.fail(1000, "未找到匹配结果");
-                }
-                detectionInfo.getFaceInfo().setFaceSearchResults(searchResults);
-            }
-        }
-        return detectionResponse;
+        return searchDetectedFaces(detectionResponse, searchParams);
     }
 
     @Override
@@ -800,6 +801,13 @@ public class SeetaFace6FaceRecModel implements FaceRecModel{
         if(!FileUtils.isFileExists(imagePath)){
             return R.fail(R.Status.FILE_NOT_FOUND);
         }
+        if (Objects.nonNull(embeddingCache)) {
+            try {
+                return extractTopFaceFeature(Files.readAllBytes(Paths.get(imagePath)));
+            } catch (IOException e) {
+                throw new FaceException("无效图片路径", e);
+            }
+        }
         // 将图片路径转换为 BufferedImage
         BufferedImage image = null;
         try {
@@ -815,6 +823,15 @@ public class SeetaFace6FaceRecModel implements FaceRecModel{
         if(Objects.isNull(imageData)){
             return R.fail(R.Status.INVALID_IMAGE);
         }
+        if (Objects.nonNull(embeddingCache)) {
+            // 相同图片内容直接返回缓存的特征
+            return embeddingCache.get(EmbeddingCache.key(embeddingCacheNamespace(), imageData),
+                    () -> readTopFaceFeature(imageData));
+        }
+        return readTopFaceFeature(imageData);
+    }
+
+    private R<float[]> readTopFaceFeature(byte[] imageData) {
         try {
             return extractTopFaceFeature(ImageIO.read(new ByteArrayInputStream(imageData)));
         } catch (IOException e) {
@@ -822,6 +839,26 @@ public class SeetaFace6FaceRecModel implements FaceRecModel{
         }
     }
 
+    /**
+     * 特征缓存命名空间：模型及影响特征结果的预处理配置
+     */
+    private String embeddingCacheNamespace() {
+        StringBuilder namespace = new StringBuilder()
+                .append(config.getModelEnum()).append('|').append(config.getModelPath())
+                .append("|align=").append(config.isAlign()).append("|crop=").append(config.isCropFace());
+        FaceDetModel detectModel = config.getDetectModel();
+        if (Objects.nonNull(detectModel)) {
+            namespace.append("|det=").append(detectModel.getClass().getSimpleName());
+            FaceDetConfig detConfig = detectModel.getConfig();
+            if (Objects.nonNull(detConfig)) {
+                namespace.append('|').append(detConfig.getModelEnum()).append('|').append(detConfig.getModelPath())
+                        .append("|conf=").append(detConfig.getConfidenceThreshold())
+                        .append("|nms=").append(detConfig.getNmsThresh());
+            }
+        }
+        return namespace.toString();
+    }
+
     @Override
     public void loadFaceFeatures() {
         if(Objects.isNull(vectorDBClient)){
@@ -973,15 +1010,35 @@ public class SeetaFace6FaceRecModel implements FaceRecModel{
         int topK = Objects.isNull(params.getTopK()) ? 1 : params.getTopK();
         boolean normalize = Objects.isNull(params.getNormalizeSimilarity()) ? NORMALIZE_SIMILARITY : params.getNormalizeSimilarity();
         FaceSearchParams searchParams = new FaceSearchParams(topK, threshold, normalize);
+        return searchDetectedFaces(detectionResponse, searchParams);
+    }
+
+    /**
+     * 对检测到的所有人脸一次批量检索，并将结果写回人脸信息
+     * @param detectionResponse 含人脸特征的检测结果
+     * @param searchParams 查询参数
+     * @return
+     */
+    private R<DetectionResponse> searchDetectedFaces(R<DetectionResponse> detectionResponse, FaceSearchParams searchParams) {
+        List<FaceInfo> faceInfoList = new ArrayList<>();
+        List<float[]> features = new ArrayList<>();
         for (DetectionInfo detectionInfo : detectionResponse.getData().getDetectionInfoList()){
             if(Objects.nonNull(detectionInfo.getFaceInfo()) && Objects.nonNull(detectionInfo.getFaceInfo().getFeature())){
-                List<FaceSearchResult> searchResults = vectorDBClient.search(detectionInfo.getFaceInfo().getFeature(), searchParams);
-                if (CollectionUtils.isEmpty(searchResults)){
-                    return R.fail(1000, "未找到匹配结果");
-                }
-                detectionInfo.getFaceInfo().setFaceSearchResults(searchResults);
+                faceInfoList.add(detectionInfo.getFaceInfo());
+                features.add(detectionInfo.getFaceInfo().getFeature());
             }
         }
+        if (features.isEmpty()) {
+            return detectionResponse;
+        }
+        List<List<FaceSearchResult>> batchResults = vectorDBClient.searchBatch(features, searchParams);
+        for (int i = 0; i < faceInfoList.size(); i++) {
+            List<FaceSearchResult> searchResults = batchResults.get(i);
+            if (CollectionUtils.isEmpty(searchResults)){
+                return R.fail(1000, "未找到匹配结果");
+            }
+            faceInfoList.get(i).setFaceSearchResults(searchResults);
+        }
         return detectionResponse;
     }
 
@@ -1227,6 +1284,9 @@ public class SeetaFace6FaceRecModel implements FaceRecModel{
         if(Objects.nonNull(vectorDBClient)){
             vectorDBClient.close();
         }
+        if(Objects.nonNull(embeddingCache)){
+            embeddingCache.close();
+        }
     }
 
 
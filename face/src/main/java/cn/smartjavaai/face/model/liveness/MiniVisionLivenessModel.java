@@ -10,7 +10,8 @@ import ai.djl.repository.zoo.Criteria;
 import ai.djl.repository.zoo.ModelNotFoundException;
 import ai.djl.repository.zoo.ZooModel;
 import ai.djl.training.util.ProgressBar;
-import cn.smartjavaai.common.cv.SmartImageFactory;
+import cn.smartjavaai.common.cv.FrameBufferPool;
+import cn.smartjavaai.common.cv.PooledFrame;
 import cn.smartjavaai.common.entity.*;
 import cn.smartjavaai.common.entity.face.FaceInfo;
 import cn.smartjavaai.common.entity.face.LivenessResult;
@@ -34,8 +35,6 @@ import org.apache.commons.pool2.ObjectPool;
 import org.apache.commons.pool2.impl.GenericObjectPool;
 import org.bytedeco.javacv.FFmpegFrameGrabber;
 import org.bytedeco.javacv.Frame;
-import org.bytedeco.javacv.OpenCVFrameConverter;
-import org.opencv.core.Mat;
 
 import javax.imageio.ImageIO;
 import java.awt.image.BufferedImage;
@@ -65,7 +64,6 @@ public class MiniVisionLivenessModel extends CommonLivenessModel{
 
     private GenericObjectPool<Predictor<Image, float[]>> sePredictorPool;
 
-    private OpenCVFrameConverter.ToOrgOpenCvCoreMat converterToMat = null;
 
 
     /**
@@ -258,13 +256,14 @@ public class MiniVisionLivenessModel extends CommonLivenessModel{
                 // 获取当前帧
                 Frame frame = grabber.grabImage();
                 if (frame != null) {
-                    if(converterToMat == null){
-                        converterToMat = new OpenCVFrameConverter.ToOrgOpenCvCoreMat();
+                    // 同步逐帧处理，直接引用解码帧内存，不复制
+                    R<LivenessResult> livenessScore;
+                    try (PooledFrame pooledFrame = FrameBufferPool.view(frame)) {
+                        if (pooledFrame == null) {
+                            continue;
+                        }
+                        livenessScore = detectVideoFrame(faceDetectManager, pooledFrame.getImage(), predictor, sePredictor);
                     }
-                    Mat mat = converterToMat.convert(frame);
-                    Image image = SmartImageFactory.getInstance().fromMat(mat);
-                    R<LivenessResult> livenessScore = detectVideoFrame(faceDetectManager, image, predictor, sePredictor);
-                    mat.release();
                     if(!livenessScore.isSuccess()){
                         log.debug("第" + frameIndex + "帧处理失败：" + livenessScore.getMessage());
                         continue;
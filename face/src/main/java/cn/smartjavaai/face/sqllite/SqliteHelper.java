@@ -2,6 +2,7 @@ package cn.smartjavaai.face.sqllite;
 
 import cn.hutool.core.io.resource.ResourceUtil;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
 import org.sqlite.SQLiteConfig;
 import org.sqlite.SQLiteDataSource;
 
@@ -37,9 +38,22 @@ public class SqliteHelper {
      * @throws ClassNotFoundException 类未找到异常
      */
     public static SqliteHelper getInstance(String dbFilePath) throws SQLException, ClassNotFoundException {
+        return getInstance(dbFilePath, null, null);
+    }
+
+    /**
+     * 获取SqliteHelper实例（单例模式），日志模式及同步级别仅在首次创建实例时生效
+     * @param dbFilePath sqlite db 文件路径
+     * @param journalMode 日志模式（如 WAL），为空时使用sqlite默认值
+     * @param synchronous 同步级别（如 NORMAL），为空时使用sqlite默认值
+     * @return SqliteHelper实例
+     * @throws SQLException SQL异常
+     * @throws ClassNotFoundException 类未找到异常
+     */
+    public static SqliteHelper getInstance(String dbFilePath, String journalMode, String synchronous) throws SQLException, ClassNotFoundException {
         return INSTANCES.computeIfAbsent(dbFilePath, path -> {
             try {
-                return new SqliteHelper(path);
+                return new SqliteHelper(path, journalMode, synchronous);
             } catch (Exception e) {
                 log.error("创建SqliteHelper实例失败", e);
                 throw new RuntimeException("创建SqliteHelper实例失败", e);
@@ -50,10 +64,12 @@ public class SqliteHelper {
     /**
      * 私有构造函数
      * @param dbFilePath sqlite db 文件路径
+     * @param journalMode 日志模式
+     * @param synchronous 同步级别
      * @throws ClassNotFoundException 类未找到异常
      * @throws SQLException SQL异常
      */
-    private SqliteHelper(String dbFilePath) throws ClassNotFoundException, SQLException {
+    private SqliteHelper(String dbFilePath, String journalMode, String synchronous) throws ClassNotFoundException, SQLException {
         this.dbFilePath = dbFilePath;
         createDatabaseIfNotExists();
 
@@ -63,9 +79,19 @@ public class SqliteHelper {
 
         // 配置SQLite连接
         SQLiteConfig sqLiteConfig = new SQLiteConfig();
-        sqLiteConfig.setSharedCache(true);
+        SQLiteConfig.JournalMode mode = StringUtils.isBlank(journalMode) ? null
+                : SQLiteConfig.JournalMode.valueOf(journalMode.trim().toUpperCase());
+        // 共享缓存使用表级锁，会让读取阻塞在写事务之后，WAL模式下不启用
+        sqLiteConfig.setSharedCache(mode != SQLiteConfig.JournalMode.WAL);
         sqLiteConfig.enableLoadExtension(true);
         sqLiteConfig.setBusyTimeout(5000); // 5秒超时
+        if (mode != null) {
+            sqLiteConfig.setJournalMode(mode);
+        }
+        if (StringUtils.isNotBlank(synchronous)) {
+            sqLiteConfig.setSynchronous(SQLiteConfig.SynchronousMode.valueOf(synchronous.trim().toUpperCase()));
+        }
+        log.debug("SQLite journalMode: {}, synchronous: {}", mode, synchronous);
         sqLiteDataSource.setConfig(sqLiteConfig);
 
         this.dataSource = sqLiteDataSource;
@@ -268,6 +294,56 @@ public class SqliteHelper {
     }
 
 
+    /**
+     * 批量插入或更新：复用同一个预编译语句，按 chunkSize 分批 executeBatch 并提交事务，
+     * 任一批失败时回滚当前事务并抛出异常（已提交的批次不回滚）
+     * @param tableName 表名
+     * @param columns 字段名
+     * @param rows 每行的值，顺序与 columns 一致
+     * @param chunkSize 每个事务的行数
+     * @return 写入行数
+     * @throws SQLException SQL异常
+     */
+    public int executeBatchInsertOrUpdate(String tableName, List<String> columns, List<Object[]> rows, int chunkSize) throws SQLException {
+        if (rows == null || rows.isEmpty()) {
+            return 0;
+        }
+        int batchSize = chunkSize > 0 ? chunkSize : rows.size();
+        String sql = "INSERT OR REPLACE INTO " + tableName + " (" + String.join(",", columns) + ") VALUES (" +
+                columns.stream().map(c -> "?").collect(Collectors.joining(",")) + ")";
+        log.debug("sql: {}, rows: {}", sql, rows.size());
+        try (Connection conn = getConnection()) {
+            boolean autoCommit = conn.getAutoCommit();
+            conn.setAutoCommit(false);
+            int count = 0;
+            try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                for (int start = 0; start < rows.size(); start += batchSize) {
+                    int end = Math.min(rows.size(), start + batchSize);
+                    for (int r = start; r < end; r++) {
+                        Object[] row = rows.get(r);
+                        for (int i = 0; i < row.length; i++) {
+                            if (row[i] instanceof byte[]) {
+                                pstmt.setBytes(i + 1, (byte[]) row[i]);
+                            } else {
+                                pstmt.setObject(i + 1, row[i]);
+                            }
+                        }
+                        pstmt.addBatch();
+                    }
+                    pstmt.executeBatch();
+                    conn.commit();
+                    count = end;
+                }
+                return count;
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(autoCommit);
+            }
+        }
+    }
+
     /**
      * 使用预编译语句执行更新
      * @param sql SQL语句
@@ -0,0 +1,314 @@
+package cn.smartjavaai.face.tracker;
+
+import ai.djl.modality.cv.Image;
+import cn.smartjavaai.common.entity.DetectionInfo;
+import cn.smartjavaai.common.entity.DetectionRectangle;
+import cn.smartjavaai.common.entity.DetectionResponse;
+import cn.smartjavaai.common.entity.R;
+import cn.smartjavaai.common.entity.face.FaceInfo;
+import cn.smartjavaai.common.entity.face.FaceSearchResult;
+import cn.smartjavaai.face.config.FaceTrackerConfig;
+import cn.smartjavaai.face.entity.TrackedFace;
+import cn.smartjavaai.face.exception.FaceException;
+import cn.smartjavaai.face.model.facedect.FaceDetModel;
+import cn.smartjavaai.face.model.facerec.FaceRecModel;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * 人脸跟踪器（单路视频流）
+ * 逐帧检测人脸，通过卡尔曼预测 + IoU 贪心匹配（SORT）关联各帧检测框并分配稳定的跟踪ID。
+ * 只有新出现的目标、人脸质量明显提升或超过重新识别间隔时才调用识别模型提取特征并查询人脸库，其余帧直接复用缓存的识别结果。
+ * 每路视频流使用一个跟踪器实例，检测、识别模型可在多个跟踪器间共享
+ * @author dwj
+ */
+@Slf4j
+public class FaceTracker {
+
+    private final FaceDetModel detModel;
+
+    private final FaceRecModel recModel;
+
+    private final FaceTrackerConfig config;
+
+    private final List<Track> tracks = new ArrayList<>();
+
+    private long nextTrackId = 1;
+
+    private long frameCount;
+
+    private long detectionCount;
+
+    private long recognitionCount;
+
+    /**
+     * @param detModel 人脸检测模型
+     * @param recModel 人脸识别模型
+     * @param config 跟踪配置
+     */
+    public FaceTracker(FaceDetModel detModel, FaceRecModel recModel, FaceTrackerConfig config) {
+        if (Objects.isNull(detModel) || Objects.isNull(recModel)) {
+            throw new FaceException("人脸检测模型及识别模型不能为空");
+        }
+        this.detModel = detModel;
+        this.recModel = recModel;
+        this.config = Objects.isNull(config) ? new FaceTrackerConfig() : config;
+    }
+
+    /**
+     * 处理一帧（以当前系统时间作为帧时间）
+     * @param frame 视频帧
+     * @return 当前帧的跟踪结果
+     */
+    public R<List<TrackedFace>> track(Image frame) {
+        return track(frame, System.currentTimeMillis());
+    }
+
+    /**
+     * 处理一帧
+     * @param frame 视频帧
+     * @param timestampMillis 帧时间（毫秒），用于判断重新识别间隔，处理录像时可传入视频时间戳
+     * @return 当前帧的跟踪结果
+     */
+    public R<List<TrackedFace>> track(Image frame, long timestampMillis) {
+        R<DetectionResponse> detResult = detModel.detect(frame);
+        List<DetectionInfo> detections;
+        if (detResult.isSuccess()) {
+            detections = Objects.isNull(detResult.getData()) || Objects.isNull(detResult.getData().getDetectionInfoList())
+                    ? Collections.emptyList() : detResult.getData().getDetectionInfoList();
+        } else if (Objects.equals(detResult.getCode(), R.Status.NO_FACE_DETECTED.getCode())) {
+            detections = Collections.emptyList();
+        } else {
+            return R.fail(detResult.getCode(), detResult.getMessage());
+        }
+        return R.ok(update(frame, detections, timestampMillis));
+    }
+
+    /**
+     * 使用外部检测结果更新跟踪（调用方已完成人脸检测时使用）
+     * @param frame 视频帧，识别时用于提取特征
+     * @param detections 当前帧检测结果
+     * @param timestampMillis 帧时间（毫秒）
+     * @return 当前帧的跟踪结果，顺序与检测结果一致
+     */
+    public synchronized List<TrackedFace> update(Image frame, List<DetectionInfo> detections, long timestampMillis) {
+        frameCount++;
+        for (Track track : tracks) {
+            track.filter.predict();
+        }
+        int detectionSize = Objects.isNull(detections) ? 0 : detections.size();
+        detectionCount += detectionSize;
+        Track[] assigned = associate(detections, detectionSize);
+
+        List<TrackedFace> results = new ArrayList<>(detectionSize);
+        for (int i = 0; i < detectionSize; i++) {
+            DetectionInfo detection = detections.get(i);
+            DetectionRectangle rectangle = detection.getDetectionRectangle();
+            Track track = assigned[i];
+            if (track == null) {
+                track = new Track(nextTrackId++, rectangle);
+                tracks.add(track);
+            } else {
+                track.filter.update(rectangle);
+                track.hits++;
+                track.missed = 0;
+            }
+            float quality = quality(detection);
+            boolean recognized = needRecognize(track, quality, timestampMillis) && recognize(frame, detection, track, quality, timestampMillis);
+            FaceInfo faceInfo = detection.getFaceInfo();
+            if (Objects.isNull(faceInfo)) {
+                faceInfo = new FaceInfo();
+                detection.setFaceInfo(faceInfo);
+            }
+            faceInfo.setFeature(track.feature);
+            faceInfo.setFaceSearchResults(track.searchResults);
+            results.add(new TrackedFace(track.id, detection, recognized, quality));
+        }
+
+        // 删除长时间丢失的目标
+        Iterator<Track> iterator = tracks.iterator();
+        while (iterator.hasNext()) {
+            Track track = iterator.next();
+            if (track.missed > config.getMaxAge()) {
+                iterator.remove();
+            }
+        }
+        return results;
+    }
+
+    /**
+     * 按 IoU 从大到小贪心匹配检测框与跟踪目标，未匹配的跟踪目标丢失帧数加一并清零连续命中数
+     * @return 每个检测框匹配到的跟踪目标，未匹配为null
+     */
+    private Track[] associate(List<DetectionInfo> detections, int detectionSize) {
+        Track[] assigned = new Track[detectionSize];
+        int trackSize = tracks.size();
+        boolean[] trackMatched = new boolean[trackSize];
+        if (detectionSize > 0 && trackSize > 0) {
+            DetectionRectangle[] predicted = new DetectionRectangle[trackSize];
+            for (int t = 0; t < trackSize; t++) {
+                predicted[t] = tracks.get(t).filter.getRectangle();
+            }
+            // 候选对按 IoU 编码为 long 排序：高32位为 IoU 的浮点位（非负浮点的位序与数值序一致），低32位为下标
+            long[] pairs = new long[detectionSize * trackSize];
+            int pairCount = 0;
+            for (int d = 0; d < detectionSize; d++) {
+                DetectionRectangle rectangle = detections.get(d).getDetectionRectangle();
+                for (int t = 0; t < trackSize; t++) {
+                    float iou = iou(rectangle, predicted[t]);
+                    if (iou >= config.getIouThreshold() && iou > 0) {
+                        pairs[pairCount++] = ((long) Float.floatToIntBits(iou) << 32) | ((long) d * trackSize + t);
+                    }
+                }
+            }
+            Arrays.sort(pairs, 0, pairCount);
+            for (int i = pairCount - 1; i >= 0; i--) {
+                int index = (int) pairs[i];
+                int d = index / trackSize;
+                int t = index % trackSize;
+                if (assigned[d] == null && !trackMatched[t]) {
+                    assigned[d] = tracks.get(t);
+                    trackMatched[t] = true;
+                }
+            }
+        }
+        for (int t = 0; t < trackSize; t++) {
+            if (!trackMatched[t]) {
+                Track track = tracks.get(t);
+                track.missed++;
+                // 丢失一帧即中断连续命中
+                track.hits = 0;
+            }
+        }
+        return assigned;
+    }
+
+    private boolean needRecognize(Track track, float quality, long timestampMillis) {
+        if (track.hits < config.getMinHits()) {
+            return false;
+        }
+        if (track.feature == null) {
+            return true;
+        }
+        if (config.getReverifyIntervalMillis() > 0 && timestampMillis - track.recognizedAt >= config.getReverifyIntervalMillis()) {
+            return true;
+        }
+        return config.getQualityGain() > 0 && quality > track.recognizedQuality * (1 + config.getQualityGain());
+    }
+
+    /**
+     * 提取特征并查询人脸库，失败时保留上次的识别结果，下一帧重试
+     */
+    private boolean recognize(Image frame, DetectionInfo detection, Track track, float quality, long timestampMillis) {
+        recognitionCount++;
+        try {
+            R<float[]> featureResult = recModel.extractFeatures(frame, detection);
+            if (!featureResult.isSuccess()) {
+                log.debug("跟踪目标 {} 特征提取失败: {}", track.id, featureResult.getMessage());
+                return false;
+            }
+            track.feature = featureResult.getData();
+            if (Objects.nonNull(config.getSearchParams())) {
+                track.searchResults = recModel.search(track.feature, config.getSearchParams());
+            }
+            track.recognizedAt = timestampMillis;
+            track.recognizedQuality = quality;
+            return true;
+        } catch (Exception e) {
+            log.warn("跟踪目标 {} 识别失败", track.id, e);
+            return false;
+        }
+    }
+
+    /**
+     * 人脸质量：检测得分 × 人脸框边长几何平均
+     */
+    private static float quality(DetectionInfo detection) {
+        DetectionRectangle rectangle = detection.getDetectionRectangle();
+        return detection.getScore() * (float) Math.sqrt((double) rectangle.getWidth() * rectangle.getHeight());
+    }
+
+    private static float iou(DetectionRectangle a, DetectionRectangle b) {
+        int x1 = Math.max(a.getX(), b.getX());
+        int y1 = Math.max(a.getY(), b.getY());
+        int x2 = Math.min(a.getX() + a.getWidth(), b.getX() + b.getWidth());
+        int y2 = Math.min(a.getY() + a.getHeight(), b.getY() + b.getHeight());
+        if (x2 <= x1 || y2 <= y1) {
+            return 0f;
+        }
+        double inter = (double) (x2 - x1) * (y2 - y1);
+        double union = (double) a.getWidth() * a.getHeight() + (double) b.getWidth() * b.getHeight() - inter;
+        return union <= 0 ? 0f : (float) (inter / union);
+    }
+
+    /**
+     * 清空所有跟踪目标（切换视频源时调用）
+     */
+    public synchronized void reset() {
+        tracks.clear();
+    }
+
+    /**
+     * 当前跟踪目标数
+     */
+    public synchronized int getTrackCount() {
+        return tracks.size();
+    }
+
+    /**
+     * 已处理帧数
+     */
+    public synchronized long getFrameCount() {
+        return frameCount;
+    }
+
+    /**
+     * 已处理检测框数
+     */
+    public synchronized long getDetectionCount() {
+        return detectionCount;
+    }
+
+    /**
+     * 识别模型调用次数
+     */
+    public synchronized long getRecognitionCount() {
+        return recognitionCount;
+    }
+
+    /**
+     * 跟踪目标
+     */
+    private static class Track {
+
+        private final long id;
+
+        private final KalmanBoxFilter filter;
+
+        /**
+         * 连续命中帧数
+         */
+        private int hits = 1;
+
+        private int missed;
+
+        private float[] feature;
+
+        private List<FaceSearchResult> searchResults;
+
+        private long recognizedAt;
+
+        private float recognizedQuality;
+
+        Track(long id, DetectionRectangle rectangle) {
+            this.id = id;
+            this.filter = new KalmanBoxFilter(rectangle);
+        }
+    }
+}
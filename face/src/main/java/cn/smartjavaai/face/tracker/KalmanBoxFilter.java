@@ -0,0 +1,100 @@
+package cn.smartjavaai.face.tracker;
+
+import cn.smartjavaai.common.entity.DetectionRectangle;
+
+/**
+ * 检测框卡尔曼滤波
+ * 状态为中心点 cx、cy 及宽高 w、h 的位置与速度，各维度独立使用匀速模型（每帧一步），
+ * 过程噪声与观测噪声按目标高度缩放（与 DeepSORT 的取值一致）
+ * @author dwj
+ */
+class KalmanBoxFilter {
+
+    private static final double STD_POSITION = 1.0 / 20;
+
+    private static final double STD_VELOCITY = 1.0 / 160;
+
+    private final double[] position = new double[4];
+
+    private final double[] velocity = new double[4];
+
+    /**
+     * 各维度 2x2 协方差矩阵（对称，只存三个元素）
+     */
+    private final double[] p00 = new double[4];
+
+    private final double[] p01 = new double[4];
+
+    private final double[] p11 = new double[4];
+
+    KalmanBoxFilter(DetectionRectangle rectangle) {
+        measure(rectangle, position);
+        double h = scale();
+        for (int i = 0; i < 4; i++) {
+            p00[i] = square(2 * STD_POSITION * h);
+            p11[i] = square(10 * STD_VELOCITY * h);
+        }
+    }
+
+    /**
+     * 预测下一帧
+     */
+    void predict() {
+        double h = scale();
+        double q0 = square(STD_POSITION * h);
+        double q1 = square(STD_VELOCITY * h);
+        for (int i = 0; i < 4; i++) {
+            position[i] += velocity[i];
+            // P = F P F^T + Q，F = [[1, 1], [0, 1]]
+            p00[i] = p00[i] + 2 * p01[i] + p11[i] + q0;
+            p01[i] = p01[i] + p11[i];
+            p11[i] = p11[i] + q1;
+        }
+    }
+
+    /**
+     * 使用检测框更新
+     */
+    void update(DetectionRectangle rectangle) {
+        double[] z = new double[4];
+        measure(rectangle, z);
+        double r = square(STD_POSITION * scale());
+        for (int i = 0; i < 4; i++) {
+            double s = p00[i] + r;
+            double k0 = p00[i] / s;
+            double k1 = p01[i] / s;
+            double residual = z[i] - position[i];
+            position[i] += k0 * residual;
+            velocity[i] += k1 * residual;
+            // P = (I - K H) P，H = [1, 0]
+            p11[i] -= k1 * p01[i];
+            p01[i] -= k0 * p01[i];
+            p00[i] -= k0 * p00[i];
+        }
+    }
+
+    /**
+     * 当前估计的检测框
+     */
+    DetectionRectangle getRectangle() {
+        double w = Math.max(1, position[2]);
+        double h = Math.max(1, position[3]);
+        return new DetectionRectangle((int) Math.round(position[0] - w / 2), (int) Math.round(position[1] - h / 2),
+                (int) Math.round(w), (int) Math.round(h));
+    }
+
+    private double scale() {
+        return Math.max(1, position[3]);
+    }
+
+    private static void measure(DetectionRectangle rectangle, double[] z) {
+        z[0] = rectangle.getX() + rectangle.getWidth() / 2.0;
+        z[1] = rectangle.getY() + rectangle.getHeight() / 2.0;
+        z[2] = rectangle.getWidth();
+        z[3] = rectangle.getHeight();
+    }
+
+    private static double square(double value) {
+        return value * value;
+    }
+}
@@ -9,6 +9,7 @@ import ai.djl.ndarray.types.DataType;
 import ai.djl.ndarray.types.Shape;
 import ai.djl.translate.*;
 import cn.smartjavaai.common.utils.LetterBoxUtils;
+import cn.smartjavaai.common.utils.NMSUtils;
 
 import java.util.*;
 
@@ -193,35 +194,36 @@ public class YoloV5FaceTranslator implements Translator<Image, DetectedObjects>
         List<Double> retProbs = new ArrayList<>();
         List<BoundingBox> retBB = new ArrayList<>();
 
-        for (int classId = 0; classId < classes.size(); classId++) {
-            List<Rectangle> r = new ArrayList<>();
-            List<Double> s = new ArrayList<>();
-            List<Integer> map = new ArrayList<>();
-            for (int j = 0; j < classIds.size(); ++j) {
-                if (classIds.get(j) == classId) {
-                    r.add(boxes.get(j));
-                    s.add(scores.get(j).doubleValue());
-                    map.add(j);
-                }
-            }
-            if (r.isEmpty()) {
+        int count = boxes.size();
+        float[] boxArray = new float[count * 4];
+        float[] scoreArray = new float[count];
+        int[] classArray = new int[count];
+        for (int j = 0; j < count; j++) {
+            Rectangle box = boxes.get(j);
+            boxArray[j * 4] = (float) box.getX();
+            boxArray[j * 4 + 1] = (float) box.getY();
+            boxArray[j * 4 + 2] = (float) (box.getX() + box.getWidth());
+            boxArray[j * 4 + 3] = (float) (box.getY() + box.getHeight());
+            scoreArray[j] = scores.get(j);
+            classArray[j] = classIds.get(j);
+        }
+        int[] keep = NMSUtils.batchedNms(boxArray, scoreArray, classArray, count, nmsThreshold, Integer.MAX_VALUE);
+        for (int pos : keep) {
+            if (classArray[pos] < 0 || classArray[pos] >= classes.size()) {
                 continue;
             }
-            List<Integer> nms = Rectangle.nms(r, s, nmsThreshold);
-            for (int index : nms) {
-                int pos = map.get(index);
-                int id = classIds.get(pos);
-
-                int percent = (int) Math.round(scores.get(pos).doubleValue() * 100);
-                String className = "face " + percent + "%"; // classes.get(classId)
-                retClasses.add(className);
-                retProbs.add(scores.get(pos).doubleValue());
+            int id = classIds.get(pos);
+
+            int percent = (int) Math.round(scores.get(pos).doubleValue() * 100);
+            String className = "face " + percent + "%"; // classes.get(classId)
+            retClasses.add(className);
+            retProbs.add(scores.get(pos).doubleValue());
 //                Rectangle rect = boxes.get(pos);
-                Landmark rect = boxes.get(pos);
-                List<Point> keypoints = new ArrayList<>();
+            Landmark rect = boxes.get(pos);
+            List<Point> keypoints = new ArrayList<>();
 
-                //恢复原图坐标（除回比例，减掉 padding）
-                rect = LetterBoxUtils.restoreBox(rect, scale, imageWidth, imageHeight, width, height, false);
+            //恢复原图坐标（除回比例，减掉 padding）
+            rect = LetterBoxUtils.restoreBox(rect, scale, imageWidth, imageHeight, width, height, false);
 
 //                if (removePadding) {
 //                    int padW = (width - imageWidth) / 2;
@@ -246,8 +248,7 @@ public class YoloV5FaceTranslator implements Translator<Image, DetectedObjects>
 //                                    rect.getWidth() / width,
 //                                    rect.getHeight() / height,keypoints);
 //                }
-                retBB.add(rect);
-            }
+            retBB.add(rect);
         }
         return new DetectedObjects(retClasses, retProbs, retBB);
     }
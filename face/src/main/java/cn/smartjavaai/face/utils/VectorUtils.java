@@ -39,4 +39,20 @@ public class VectorUtils {
         return floats;
     }
 
+    /**
+     * 将 byte 数组解码到指定的 float 数组中，避免逐行分配
+     * @param bytes 从数据库读取的字节数组
+     * @param dest 目标数组，长度需与向量维度一致
+     * @return 解码的元素个数
+     */
+    public static int toFloatArray(byte[] bytes, float[] dest) {
+        if (bytes == null || bytes.length == 0) {
+            return 0;
+        }
+        FloatBuffer floatBuffer = ByteBuffer.wrap(bytes).asFloatBuffer();
+        int length = Math.min(floatBuffer.remaining(), dest.length);
+        floatBuffer.get(dest, 0, length);
+        return length;
+    }
+
 }
@@ -36,6 +36,16 @@ public class MilvusConfig extends VectorDBConfig {
      */
     private int nlist = 1024;
 
+    /**
+     * 检索时查询的聚类数量，用于IVF索引
+     */
+    private int nprobe = 10;
+
+    /**
+     * 自定义检索参数（JSON），不为空时替代 nprobe，如 HNSW 索引可设置 {"ef": 64}
+     */
+    private String searchParams;
+
     /**
      * 向量维度
      */
@@ -2,6 +2,7 @@ package cn.smartjavaai.face.vector.config;
 
 import cn.smartjavaai.common.enums.SimilarityType;
 import cn.smartjavaai.face.enums.VectorDBType;
+import cn.smartjavaai.face.enums.VectorIndexType;
 import lombok.Data;
 import lombok.EqualsAndHashCode;
 
@@ -23,6 +24,51 @@ public class SQLiteConfig extends VectorDBConfig {
      */
     private SimilarityType similarityType;
 
+    /**
+     * 内存检索线程数，小于等于0时使用CPU核心数
+     */
+    private int searchThreads;
+
+    /**
+     * 内存索引类型，默认精确检索
+     */
+    private VectorIndexType indexType = VectorIndexType.FLAT;
+
+    /**
+     * HNSW：每个节点的最大连接数
+     */
+    private int hnswM = 16;
+
+    /**
+     * HNSW：构建时候选集大小
+     */
+    private int hnswEfConstruction = 200;
+
+    /**
+     * HNSW：检索时候选集大小，越大召回率越高
+     */
+    private int hnswEfSearch = 64;
+
+    /**
+     * SQ8：重排倍数，量化检索取 topK * rerankFactor 个候选后使用原始向量精确重排
+     */
+    private int rerankFactor = 4;
+
+    /**
+     * 日志模式：WAL、DELETE、TRUNCATE 等，默认WAL（写入时不阻塞读取）
+     */
+    private String journalMode = "WAL";
+
+    /**
+     * 同步级别：OFF、NORMAL、FULL，WAL模式下NORMAL即可保证数据库一致性
+     */
+    private String synchronous = "NORMAL";
+
+    /**
+     * 批量写入时每个事务提交的行数
+     */
+    private int writeBatchSize = 1000;
+
 
     public SQLiteConfig() {
         setType(VectorDBType.SQLITE);
@@ -457,17 +457,29 @@ public class MilvusClient implements VectorDBClient {
 
     @Override
     public List<FaceSearchResult> search(float[] queryVector, FaceSearchParams faceSearchParams) {
+        return searchBatch(Collections.singletonList(queryVector), faceSearchParams).get(0);
+    }
+
+    /**
+     * 批量搜索：所有查询向量合并到一个 SearchParam 中，一次RPC返回全部结果
+     * @param queryVectors 查询向量列表
+     * @param faceSearchParams 查询参数
+     * @return 与查询向量顺序一致的结果列表
+     */
+    @Override
+    public List<List<FaceSearchResult>> searchBatch(List<float[]> queryVectors, FaceSearchParams faceSearchParams) {
         try {
             if (!isInit){
                 throw new VectorDBException("Milvus未初始化完毕");
             }
-            // 1. 包装查询向量
-            List<List<Float>> vectors = new ArrayList<>();
-            List<Float> floatList = new ArrayList<>();
-            for (float f : queryVector) {
-                floatList.add(f);
+            if (queryVectors == null || queryVectors.isEmpty()) {
+                return Collections.emptyList();
+            }
+            // 1. 包装查询向量（只读视图，不复制数组）
+            List<List<Float>> vectors = new ArrayList<>(queryVectors.size());
+            for (float[] queryVector : queryVectors) {
+                vectors.add(floatListView(queryVector));
             }
-            vectors.add(floatList);
 
             // 2. 构造搜索参数
             SearchParam searchParam = SearchParam.newBuilder()
@@ -477,7 +489,7 @@ public class MilvusClient implements VectorDBClient {
                     .withMetricType(config.getMetricType())
                     .withOutFields(Arrays.asList(VectorDBConstants.FieldNames.ID_FIELD, VectorDBConstants.FieldNames.METADATA_FIELD))
                     .withVectors(vectors)
-                    .withParams("{\"nprobe\": 10}")//和nlist有关
+                    .withParams(getSearchParams())
                     .build();
             R<SearchResults> resp = serviceClient.search(searchParam);
             if (resp.getStatus() != R.Status.Success.getCode()) {
@@ -487,32 +499,70 @@ public class MilvusClient implements VectorDBClient {
             SearchResults results = resp.getData();
             SearchResultsWrapper wrapper = new SearchResultsWrapper(results.getResults());
 
-            // 3. 获取字段数据（FieldData）
-            List<SearchResultsWrapper.IDScore> scores = wrapper.getIDScore(0); // 默认只有一条 query 向量
-
-            List<FaceSearchResult> finalResults = new ArrayList<>();
-            for (int i = 0; i < scores.size(); i++) {
-                SearchResultsWrapper.IDScore score = scores.get(i);
-                float similarity = score.getScore();
-                if (faceSearchParams.getNormalizeSimilarity()) {
-                    // 将分数转换为相似度
-                    similarity = FaceUtils.convertScoreToSimilarity(config.getMetricType().name(), score.getScore());
-                }
-                if (similarity >= faceSearchParams.getThreshold()) {
-                    // 获取 Metadata
-                    String metadata = wrapper.getFieldData(VectorDBConstants.FieldNames.METADATA_FIELD, 0).get(i).toString();
-                    // 获取 ID
-                    String id = wrapper.getFieldData(VectorDBConstants.FieldNames.ID_FIELD, 0).get(i).toString();
-                    finalResults.add(new FaceSearchResult(id, similarity, metadata));
-                }
+            // 3. 按查询向量拆分结果
+            List<List<FaceSearchResult>> batchResults = new ArrayList<>(queryVectors.size());
+            for (int q = 0; q < queryVectors.size(); q++) {
+                batchResults.add(toSearchResults(wrapper, q, faceSearchParams));
             }
-            return finalResults;
+            return batchResults;
 
         } catch (Exception e) {
             throw new VectorDBException("搜索 Milvus 向量失败", e);
         }
     }
 
+    /**
+     * 解析第 index 个查询向量的结果
+     */
+    private List<FaceSearchResult> toSearchResults(SearchResultsWrapper wrapper, int index, FaceSearchParams faceSearchParams) {
+        List<SearchResultsWrapper.IDScore> scores = wrapper.getIDScore(index);
+        List<FaceSearchResult> finalResults = new ArrayList<>();
+        if (scores.isEmpty()) {
+            return finalResults;
+        }
+        List<?> metadataList = wrapper.getFieldData(VectorDBConstants.FieldNames.METADATA_FIELD, index);
+        List<?> idList = wrapper.getFieldData(VectorDBConstants.FieldNames.ID_FIELD, index);
+        for (int i = 0; i < scores.size(); i++) {
+            SearchResultsWrapper.IDScore score = scores.get(i);
+            float similarity = score.getScore();
+            if (faceSearchParams.getNormalizeSimilarity()) {
+                // 将分数转换为相似度
+                similarity = FaceUtils.convertScoreToSimilarity(config.getMetricType().name(), score.getScore());
+            }
+            if (similarity >= faceSearchParams.getThreshold()) {
+                finalResults.add(new FaceSearchResult(idList.get(i).toString(), similarity, metadataList.get(i).toString()));
+            }
+        }
+        return finalResults;
+    }
+
+    /**
+     * 检索参数：优先使用自定义参数，否则使用 nprobe
+     */
+    private String getSearchParams() {
+        if (StringUtils.isNotBlank(config.getSearchParams())) {
+            return config.getSearchParams();
+        }
+        return "{\"nprobe\": " + config.getNprobe() + "}";//和nlist有关
+    }
+
+    /**
+     * float数组的只读 List 视图
+     */
+    private static List<Float> floatListView(float[] vector) {
+        return new AbstractList<Float>() {
+            @Override
+            public Float get(int index) {
+                return vector[index];
+            }
+
+            @Override
+            public int size() {
+                return vector.length;
+            }
+        };
+    }
+
     @Override
     public long count(String collectionName) {
         try {
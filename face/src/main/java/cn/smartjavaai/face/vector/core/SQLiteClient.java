@@ -2,14 +2,19 @@ package cn.smartjavaai.face.vector.core;
 
 import cn.hutool.core.util.IdUtil;
 import cn.smartjavaai.common.config.Config;
-import cn.smartjavaai.common.executor.GlobalExecutor;
-import cn.smartjavaai.common.utils.SimilarityUtil;
 import cn.smartjavaai.face.dao.FaceDao;
 import cn.smartjavaai.face.entity.FaceSearchParams;
+import cn.smartjavaai.face.enums.VectorIndexType;
+import cn.smartjavaai.face.utils.VectorUtils;
 import cn.smartjavaai.face.vector.config.SQLiteConfig;
 import cn.smartjavaai.face.vector.entity.FaceVector;
 import cn.smartjavaai.common.entity.face.FaceSearchResult;
 import cn.smartjavaai.face.vector.exception.VectorDBException;
+import cn.smartjavaai.face.vector.index.FlatVectorIndex;
+import cn.smartjavaai.face.vector.index.HnswVectorIndex;
+import cn.smartjavaai.face.vector.index.PersistentVectorIndex;
+import cn.smartjavaai.face.vector.index.QuantizedVectorIndex;
+import cn.smartjavaai.face.vector.index.VectorIndex;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.collections4.CollectionUtils;
 import org.apache.commons.lang3.StringUtils;
@@ -17,14 +22,22 @@ import org.apache.commons.lang3.StringUtils;
 import java.io.File;
 import java.sql.SQLException;
 import java.util.*;
-import java.util.concurrent.*;
-import java.util.stream.Collectors;
 
 @Slf4j
 public class SQLiteClient implements VectorDBClient {
 
     private final FaceDao faceDao;
-    private final ConcurrentHashMap<String, FaceVector> memoryIndex = new ConcurrentHashMap<>();
+    private final VectorIndex memoryIndex;
+
+    /**
+     * 索引持久化文件（仅HNSW），与数据库文件放在同一目录
+     */
+    private final File indexFile;
+
+    /**
+     * 索引加载后是否有修改，有修改时持久化文件失效
+     */
+    private volatile boolean indexDirty;
     private int featureDimension; // 维度
 
     private SQLiteConfig config;
@@ -32,7 +45,27 @@ public class SQLiteClient implements VectorDBClient {
     /**
      * 是否初始化完毕
      */
-    private boolean isInit;
+    private volatile boolean isInit;
+
+    /**
+     * 是否正在加载，加载期间可检索已加载的部分
+     */
+    private volatile boolean loading;
+
+    /**
+     * 已加载数量
+     */
+    private volatile long loadedCount;
+
+    /**
+     * 待加载总数（加载开始时数据库中的数量）
+     */
+    private volatile long totalCount;
+
+    /**
+     * 启动加载时每批读取的行数
+     */
+    private static final int LOAD_BATCH_SIZE = 10000;
 
     public SQLiteClient(SQLiteConfig config) {
         this.config = config;
@@ -42,7 +75,44 @@ public class SQLiteClient implements VectorDBClient {
             dbPath = Config.getCachePath() + File.separator + "face.db";
             log.debug("使用默认SQLite人脸库路径: {}", dbPath);
         }
-        this.faceDao = FaceDao.getInstance(dbPath);
+        this.faceDao = FaceDao.getInstance(dbPath, config.getJournalMode(), config.getSynchronous());
+        this.memoryIndex = createIndex();
+        this.indexFile = memoryIndex instanceof PersistentVectorIndex ? new File(dbPath + ".hnsw") : null;
+    }
+
+    /**
+     * 根据配置创建内存索引
+     * @return
+     */
+    private VectorIndex createIndex() {
+        if (config.getIndexType() == VectorIndexType.HNSW) {
+            log.debug("使用HNSW索引, M: {}, efConstruction: {}, efSearch: {}",
+                    config.getHnswM(), config.getHnswEfConstruction(), config.getHnswEfSearch());
+            return new HnswVectorIndex(config.getSimilarityType(), config.getHnswM(),
+                    config.getHnswEfConstruction(), config.getHnswEfSearch());
+        }
+        if (config.getIndexType() == VectorIndexType.SQ8) {
+            log.debug("使用SQ8量化索引, rerankFactor: {}", config.getRerankFactor());
+            return new QuantizedVectorIndex(config.getSimilarityType(), config.getSearchThreads(),
+                    config.getRerankFactor(), this::findExactVectors);
+        }
+        return new FlatVectorIndex(config.getSimilarityType(), config.getSearchThreads());
+    }
+
+    /**
+     * 从数据库读取原始向量，供量化索引精确重排
+     * @param ids
+     * @return
+     */
+    private List<FaceVector> findExactVectors(List<String> ids) {
+        if (CollectionUtils.isEmpty(ids)) {
+            return Collections.emptyList();
+        }
+        try {
+            return faceDao.findByIds(ids.toArray(new String[0]));
+        } catch (SQLException | ClassNotFoundException e) {
+            throw new VectorDBException("SQLite查询异常", e);
+        }
     }
 
 
@@ -100,18 +170,24 @@ public class SQLiteClient implements VectorDBClient {
         if (!isInit){
             throw new VectorDBException("人脸库未加载完毕");
         }
-        List<String> ids = new ArrayList<>();
+        List<String> ids = new ArrayList<>(faceVectors.size());
+        markIndexDirty();
         try {
             for (FaceVector faceVector : faceVectors) {
                 String id = faceVector.getId() != null ?
                         faceVector.getId() : IdUtil.simpleUUID();
                 faceVector.setId(id);
-                // 保存到数据库
-                faceDao.insertOrUpdate(faceVector);
-                // 添加到内存索引
-                addToMemoryIndex(faceVector);
                 ids.add(id);
             }
+            // 分批事务提交，每批提交后立即加入内存索引，后续批次失败时已提交的数据仍可检索
+            int batchSize = Math.max(1, config.getWriteBatchSize());
+            for (int start = 0; start < faceVectors.size(); start += batchSize) {
+                List<FaceVector> chunk = faceVectors.subList(start, Math.min(faceVectors.size(), start + batchSize));
+                faceDao.insertOrUpdateBatch(chunk, batchSize);
+                for (FaceVector faceVector : chunk) {
+                    addToMemoryIndex(faceVector);
+                }
+            }
             log.debug("插入了 {} 个人脸向量", faceVectors.size());
             return ids;
         } catch (Exception e) {
@@ -132,6 +208,7 @@ public class SQLiteClient implements VectorDBClient {
         if (!isInit){
             throw new VectorDBException("人脸库未加载完毕");
         }
+        markIndexDirty();
         try {
             // 从数据库中删除
             boolean isSuccess = faceDao.deleteFace(ids.toArray(new String[0]));
@@ -147,33 +224,13 @@ public class SQLiteClient implements VectorDBClient {
 
     @Override
     public List<FaceSearchResult> search(float[] queryVector, FaceSearchParams faceSearchParams) {
-        if (!isInit){
+        // 加载期间基于已加载的部分检索
+        if (!isInit && !loading){
             throw new VectorDBException("人脸库未加载完毕");
         }
-        if (memoryIndex.isEmpty()) {
-            return Collections.emptyList();
-        }
-        // 并行计算相似度
-        List<CompletableFuture<FaceSearchResult>> futures = memoryIndex.values().stream()
-                .map(vector -> CompletableFuture.supplyAsync(() -> {
-                    float similarity = SimilarityUtil.calculate(queryVector, vector.getVector(), config.getSimilarityType(), faceSearchParams.getNormalizeSimilarity());
-                    return similarity >= faceSearchParams.getThreshold() ?
-                            new FaceSearchResult(vector.getId(), similarity, vector.getMetadata()) :
-                            null;
-                }, GlobalExecutor.getExecutor()))
-                .collect(Collectors.toList());
-
-        // 收集结果并过滤null
-        List<FaceSearchResult> allResults = futures.stream()
-                .map(CompletableFuture::join)
-                .filter(Objects::nonNull)
-                .collect(Collectors.toList());
-
-        // 获取TopK结果
-        return allResults.stream()
-                .sorted(Comparator.comparingDouble(FaceSearchResult::getSimilarity).reversed())
-                .limit(faceSearchParams.getTopK())
-                .collect(Collectors.toList());
+        // 分块并行扫描连续特征矩阵，获取TopK结果
+        return memoryIndex.search(queryVector, faceSearchParams.getTopK(),
+                faceSearchParams.getThreshold(), faceSearchParams.getNormalizeSimilarity());
     }
 
     @Override
@@ -183,12 +240,43 @@ public class SQLiteClient implements VectorDBClient {
 
     @Override
     public void close() {
+        if (isInit && indexDirty) {
+            saveIndex();
+        }
+    }
 
+    /**
+     * 将内存索引保存到文件（仅HNSW），下次启动时直接加载无需重建
+     */
+    public void saveIndex() {
+        if (indexFile == null) {
+            return;
+        }
+        ((PersistentVectorIndex) memoryIndex).save(indexFile);
+        indexDirty = false;
+    }
+
+    /**
+     * 评估近似索引相对暴力检索的召回率，精确索引始终返回1
+     * @param sampleSize 抽样查询数量
+     * @param topK TopK
+     * @return 平均召回率 [0,1]
+     */
+    public float evaluateRecall(int sampleSize, int topK) {
+        if (!isInit) {
+            throw new VectorDBException("人脸库未加载完毕");
+        }
+        if (memoryIndex instanceof HnswVectorIndex) {
+            float recall = ((HnswVectorIndex) memoryIndex).evaluateRecall(sampleSize, topK);
+            log.debug("HNSW recall@{}: {}", topK, recall);
+            return recall;
+        }
+        return 1.0f;
     }
 
     @Override
     public FaceVector getFaceInfoById(String id) {
-        if (!isInit) {
+        if (!isInit && !loading) {
             throw new VectorDBException("人脸库未加载完毕");
         }
         // 先从内存缓存中获取
@@ -222,36 +310,126 @@ public class SQLiteClient implements VectorDBClient {
         }
     }
 
+    /**
+     * 是否正在加载人脸库
+     * @return
+     */
+    public boolean isLoading() {
+        return loading;
+    }
+
+    /**
+     * 人脸库加载进度
+     * @return [0,1]，加载完成或无数据时返回1
+     */
+    @Override
+    public float getLoadProgress() {
+        if (isInit) {
+            return 1.0f;
+        }
+        long total = totalCount;
+        return total <= 0 ? (loading ? 0f : 1.0f) : Math.min(1.0f, (float) loadedCount / total);
+    }
+
     // ============= 私有辅助方法 =============
 
     private void loadAllFeaturesToMemory() {
+        loading = true;
         try {
-            int pageSize = 1000;
-            int page = 1;
-            while (true) {
-                List<FaceVector> batch = faceDao.findFace(page, pageSize);
-                if (CollectionUtils.isEmpty(batch)) {
-                    break;
-                }
-                for (FaceVector vector : batch) {
-                    addToMemoryIndex(vector);
-                }
-                page++;
+            if (!loadPersistedIndex()) {
+                loadFromDatabase();
             }
-            log.debug("从数据库加载了 {} 个特征向量到内存", memoryIndex.size());
+            // 先标记初始化完成再结束加载状态，避免检索在两者之间被拒绝
+            isInit = true;
         } catch (Exception e) {
             throw new VectorDBException("加载特征到内存失败", e);
+        } finally {
+            loading = false;
+        }
+    }
+
+    /**
+     * 按rowid游标分批读取数据库，解码后直接写入内存索引
+     */
+    private void loadFromDatabase() throws SQLException, ClassNotFoundException {
+        memoryIndex.clear();
+        totalCount = faceDao.count();
+        loadedCount = 0;
+        long startTime = System.currentTimeMillis();
+        // 各索引实现在 add 时都会复制向量，解码缓冲区可以复用
+        float[][] buffer = new float[1][];
+        long lastRowid = 0;
+        while (true) {
+            long batchStart = lastRowid;
+            lastRowid = faceDao.scanFaces(lastRowid, LOAD_BATCH_SIZE, (id, bytes, metadata) -> {
+                int length = bytes == null ? 0 : bytes.length / 4;
+                if (length == 0) {
+                    return;
+                }
+                float[] vector = buffer[0];
+                if (vector == null || vector.length != length) {
+                    vector = new float[length];
+                    buffer[0] = vector;
+                }
+                VectorUtils.toFloatArray(bytes, vector);
+                memoryIndex.add(id, vector, metadata);
+                loadedCount++;
+            });
+            if (lastRowid == batchStart) {
+                break;
+            }
+            log.debug("人脸库加载进度: {}/{}", loadedCount, totalCount);
+        }
+        log.debug("从数据库加载了 {} 个特征向量到内存, 耗时: {}ms", memoryIndex.size(),
+                System.currentTimeMillis() - startTime);
+        saveIndex();
+    }
+
+    /**
+     * 加载持久化的索引文件，数量与数据库不一致时视为失效
+     * @return 是否加载成功
+     */
+    private boolean loadPersistedIndex() throws SQLException, ClassNotFoundException {
+        if (indexFile == null || !indexFile.isFile()) {
+            return false;
+        }
+        PersistentVectorIndex persistentIndex = (PersistentVectorIndex) memoryIndex;
+        if (persistentIndex.load(indexFile)) {
+            long dbCount = faceDao.count();
+            if (dbCount == persistentIndex.size()) {
+                indexDirty = false;
+                totalCount = dbCount;
+                loadedCount = dbCount;
+                log.debug("从索引文件加载了 {} 个特征向量到内存", persistentIndex.size());
+                return true;
+            }
+            log.warn("索引文件数量({})与数据库({})不一致，重建索引", persistentIndex.size(), dbCount);
+        }
+        return false;
+    }
+
+    /**
+     * 标记索引已修改：删除已失效的持久化文件，避免异常退出后加载到过期索引
+     */
+    private void markIndexDirty() {
+        if (indexFile == null || indexDirty) {
+            return;
+        }
+        indexDirty = true;
+        if (indexFile.exists() && !indexFile.delete()) {
+            log.warn("索引文件删除失败: {}", indexFile.getAbsolutePath());
         }
     }
 
     private void addToMemoryIndex(FaceVector faceVector) {
-        memoryIndex.put(faceVector.getId(), faceVector);
+        memoryIndex.add(faceVector);
     }
 
     private void clearAllData() {
         if (!isInit){
             throw new VectorDBException("人脸库未加载完毕");
         }
+        markIndexDirty();
         try {
             faceDao.deleteAll();
             memoryIndex.clear();
@@ -273,6 +451,9 @@ public class SQLiteClient implements VectorDBClient {
         if (!isInit){
             throw new VectorDBException("人脸库未加载完毕");
         }
+        if (indexDirty) {
+            saveIndex();
+        }
         memoryIndex.clear();
         isInit = false;
     }
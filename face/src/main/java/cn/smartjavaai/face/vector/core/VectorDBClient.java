@@ -6,6 +6,7 @@ import cn.smartjavaai.face.vector.entity.FaceVector;
 import cn.smartjavaai.common.entity.face.FaceSearchResult;
 import cn.smartjavaai.face.vector.exception.VectorDBException;
 
+import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -82,6 +83,20 @@ public interface VectorDBClient extends AutoCloseable {
      */
     List<FaceSearchResult> search(float[] queryVector, FaceSearchParams faceSearchParams);
 
+    /**
+     * 批量搜索相似人脸（多个查询向量），默认逐个调用 {@link #search}
+     * @param queryVectors 查询向量列表
+     * @param faceSearchParams 查询参数
+     * @return 与查询向量顺序一致的结果列表
+     */
+    default List<List<FaceSearchResult>> searchBatch(List<float[]> queryVectors, FaceSearchParams faceSearchParams) {
+        List<List<FaceSearchResult>> results = new ArrayList<>(queryVectors.size());
+        for (float[] queryVector : queryVectors) {
+            results.add(search(queryVector, faceSearchParams));
+        }
+        return results;
+    }
+
     /**
      * 获取集合中的向量数量
      * @param collectionName 集合名称
@@ -121,4 +136,12 @@ public interface VectorDBClient extends AutoCloseable {
      */
     void releaseFaceFeatures();
 
+    /**
+     * 人脸特征加载进度
+     * @return [0,1]，不需要加载到内存的实现始终返回1
+     */
+    default float getLoadProgress() {
+        return 1.0f;
+    }
+
 }
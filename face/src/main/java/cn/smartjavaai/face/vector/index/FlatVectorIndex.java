@@ -0,0 +1,235 @@
+package cn.smartjavaai.face.vector.index;
+
+import cn.smartjavaai.common.entity.face.FaceSearchResult;
+import cn.smartjavaai.common.enums.SimilarityType;
+import cn.smartjavaai.common.index.BlockScanner;
+import cn.smartjavaai.common.index.TopKHeap;
+import cn.smartjavaai.common.utils.SimilarityUtil;
+import cn.smartjavaai.face.vector.entity.FaceVector;
+import cn.smartjavaai.face.vector.exception.VectorDBException;
+
+import java.util.*;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 内存特征矩阵索引（精确检索）
+ * 所有向量按行存放在固定行数的连续 float 块中，并维护平行的ID、元数据、模长数组；
+ * 检索时按块分发给多个线程扫描（见 {@link BlockScanner}），每个线程维护有界小顶堆，最后合并得到TopK
+ * @author dwj
+ */
+public class FlatVectorIndex implements VectorIndex {
+
+    /**
+     * 默认每个块的行数
+     */
+    public static final int DEFAULT_BLOCK_ROWS = 1024;
+
+    private final SimilarityType similarityType;
+
+    private final int blockRows;
+
+    private final int parallelism;
+
+    /**
+     * 特征维度，插入第一个向量时确定
+     */
+    private int dimension;
+
+    private float[][] blocks = new float[0][];
+
+    private float[] norms = new float[0];
+
+    private String[] ids = new String[0];
+
+    private String[] metadata = new String[0];
+
+    private int size;
+
+    private final Map<String, Integer> rowIndex = new HashMap<>();
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    public FlatVectorIndex(SimilarityType similarityType, int parallelism) {
+        this(similarityType, parallelism, DEFAULT_BLOCK_ROWS);
+    }
+
+    /**
+     * @param similarityType 相似度计算方式
+     * @param parallelism 检索线程数，小于等于0时使用CPU核心数
+     * @param blockRows 每个块的行数
+     */
+    public FlatVectorIndex(SimilarityType similarityType, int parallelism, int blockRows) {
+        this.similarityType = Objects.isNull(similarityType) ? SimilarityType.IP : similarityType;
+        this.parallelism = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+        this.blockRows = blockRows > 0 ? blockRows : DEFAULT_BLOCK_ROWS;
+    }
+
+    @Override
+    public void add(String id, float[] vector, String meta) {
+        if (Objects.isNull(id) || Objects.isNull(vector) || vector.length == 0) {
+            throw new VectorDBException("向量ID及特征不能为空");
+        }
+        lock.writeLock().lock();
+        try {
+            if (dimension == 0) {
+                dimension = vector.length;
+            } else if (vector.length != dimension) {
+                throw new VectorDBException("特征向量长度不一致: " + vector.length + " vs " + dimension);
+            }
+            Integer row = rowIndex.get(id);
+            if (row == null) {
+                row = size;
+                ensureCapacity(size + 1);
+                rowIndex.put(id, row);
+                size++;
+            }
+            writeRow(row, id, vector, meta);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 删除向量，使用最后一行填补被删除的位置
+     * @param id 向量ID
+     * @return 是否存在并删除
+     */
+    @Override
+    public boolean remove(String id) {
+        lock.writeLock().lock();
+        try {
+            Integer row = rowIndex.remove(id);
+            if (row == null) {
+                return false;
+            }
+            int last = size - 1;
+            if (row != last) {
+                System.arraycopy(blocks[last / blockRows], (last % blockRows) * dimension,
+                        blocks[row / blockRows], (row % blockRows) * dimension, dimension);
+                norms[row] = norms[last];
+                ids[row] = ids[last];
+                metadata[row] = metadata[last];
+                rowIndex.put(ids[row], row);
+            }
+            ids[last] = null;
+            metadata[last] = null;
+            size--;
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public FaceVector get(String id) {
+        lock.readLock().lock();
+        try {
+            Integer row = rowIndex.get(id);
+            if (row == null) {
+                return null;
+            }
+            float[] vector = new float[dimension];
+            System.arraycopy(blocks[row / blockRows], (row % blockRows) * dimension, vector, 0, dimension);
+            return new FaceVector(ids[row], vector, metadata[row]);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 清空索引并释放内存
+     */
+    @Override
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            blocks = new float[0][];
+            norms = new float[0];
+            ids = new String[0];
+            metadata = new String[0];
+            rowIndex.clear();
+            size = 0;
+            dimension = 0;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public List<FaceSearchResult> search(float[] queryVector, int topK, float threshold, boolean normalize) {
+        lock.readLock().lock();
+        try {
+            if (size == 0 || topK <= 0) {
+                return Collections.emptyList();
+            }
+            if (queryVector == null || queryVector.length != dimension) {
+                throw new VectorDBException("查询向量长度不一致: " +
+                        (queryVector == null ? 0 : queryVector.length) + " vs " + dimension);
+            }
+            float queryNorm = similarityType == SimilarityType.COSINE ? SimilarityUtil.vectorNorm(queryVector) : 0f;
+            int blockCount = (size + blockRows - 1) / blockRows;
+            TopKHeap heap = BlockScanner.scan(blockCount, parallelism, topK,
+                    (b, local) -> scanBlock(b, queryVector, queryNorm, threshold, normalize, local));
+            float[] scores = new float[heap.size()];
+            int[] rows = new int[heap.size()];
+            int n = heap.drain(scores, rows);
+            List<FaceSearchResult> results = new ArrayList<>(n);
+            for (int i = 0; i < n; i++) {
+                results.add(new FaceSearchResult(ids[rows[i]], scores[i], metadata[rows[i]]));
+            }
+            return results;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void scanBlock(int blockIndex, float[] queryVector, float queryNorm, float threshold,
+                           boolean normalize, TopKHeap heap) {
+        float[] block = blocks[blockIndex];
+        int startRow = blockIndex * blockRows;
+        int endRow = Math.min(size, startRow + blockRows);
+        int offset = 0;
+        for (int row = startRow; row < endRow; row++, offset += dimension) {
+            float score = SimilarityUtil.calculate(queryVector, queryNorm, block, offset, norms[row],
+                    similarityType, normalize);
+            if (score >= threshold && score > heap.minScore()) {
+                heap.offer(score, row);
+            }
+        }
+    }
+
+    private void writeRow(int row, String id, float[] vector, String meta) {
+        System.arraycopy(vector, 0, blocks[row / blockRows], (row % blockRows) * dimension, dimension);
+        norms[row] = SimilarityUtil.vectorNorm(vector);
+        ids[row] = id;
+        metadata[row] = meta;
+    }
+
+    private void ensureCapacity(int required) {
+        int blockCount = (required + blockRows - 1) / blockRows;
+        if (blockCount > blocks.length) {
+            blocks = Arrays.copyOf(blocks, Math.max(blockCount, blocks.length + (blocks.length >> 1)));
+        }
+        for (int i = 0; i < blockCount; i++) {
+            if (blocks[i] == null) {
+                blocks[i] = new float[blockRows * dimension];
+            }
+        }
+        if (required > ids.length) {
+            int capacity = Math.max(required, ids.length + (ids.length >> 1));
+            norms = Arrays.copyOf(norms, capacity);
+            ids = Arrays.copyOf(ids, capacity);
+            metadata = Arrays.copyOf(metadata, capacity);
+        }
+    }
+}
@@ -0,0 +1,932 @@
+package cn.smartjavaai.face.vector.index;
+
+import cn.smartjavaai.common.entity.face.FaceSearchResult;
+import cn.smartjavaai.common.enums.SimilarityType;
+import cn.smartjavaai.common.index.TopKHeap;
+import cn.smartjavaai.common.utils.SimilarityUtil;
+import cn.smartjavaai.face.vector.entity.FaceVector;
+import cn.smartjavaai.face.vector.exception.VectorDBException;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * HNSW（Hierarchical Navigable Small World）近似最近邻索引
+ * 纯Java实现，支持增量插入；删除采用标记删除，已删除节点仍参与图路由但不出现在结果中，
+ * 当已删除节点比例过高时在后台线程重建图（也可调用 {@link #compact()} 手动重建），
+ * 重建期间检索与写入照常进行，完成后重放期间的增删并替换
+ * @author dwj
+ */
+@Slf4j
+public class HnswVectorIndex implements PersistentVectorIndex {
+
+    private static final int FILE_MAGIC = 0x484E5357;
+
+    private static final int FILE_VERSION = 1;
+
+    /**
+     * 已删除节点占比超过该值时重建图
+     */
+    private static final float COMPACT_RATIO = 0.3f;
+
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private final SimilarityType similarityType;
+
+    /**
+     * 每个节点在上层的最大连接数
+     */
+    private final int m;
+
+    /**
+     * 每个节点在第0层的最大连接数
+     */
+    private final int maxM0;
+
+    private final int efConstruction;
+
+    private volatile int efSearch;
+
+    private final double levelMultiplier;
+
+    private final Random random = new Random(42);
+
+    private int dimension;
+
+    private float[][] vectors = new float[INITIAL_CAPACITY][];
+
+    private float[] norms = new float[INITIAL_CAPACITY];
+
+    private String[] ids = new String[INITIAL_CAPACITY];
+
+    private String[] metadata = new String[INITIAL_CAPACITY];
+
+    private boolean[] deleted = new boolean[INITIAL_CAPACITY];
+
+    /**
+     * links[node][level]：第0个元素为邻居数量，之后为邻居节点
+     */
+    private int[][][] links = new int[INITIAL_CAPACITY][][];
+
+    private int nodeCount;
+
+    private int deletedCount;
+
+    private int entryPoint = -1;
+
+    private int maxLevel = -1;
+
+    private final Map<String, Integer> nodeIndex = new HashMap<>();
+
+    /**
+     * 是否正在重建
+     */
+    private boolean compacting;
+
+    /**
+     * 重建期间的增删操作，重建完成后在新图上重放
+     */
+    private List<PendingOp> pendingOps;
+
+    /**
+     * clear/load 时递增，重建完成时版本不一致则丢弃重建结果
+     */
+    private long generation;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final ThreadLocal<VisitedSet> visitedSet = ThreadLocal.withInitial(VisitedSet::new);
+
+    /**
+     * @param similarityType 相似度计算方式
+     * @param m 每个节点最大连接数
+     * @param efConstruction 构建时候选集大小
+     * @param efSearch 检索时候选集大小
+     */
+    public HnswVectorIndex(SimilarityType similarityType, int m, int efConstruction, int efSearch) {
+        this.similarityType = Objects.isNull(similarityType) ? SimilarityType.IP : similarityType;
+        this.m = Math.max(2, m);
+        this.maxM0 = this.m * 2;
+        this.efConstruction = Math.max(this.m, efConstruction);
+        this.efSearch = Math.max(1, efSearch);
+        this.levelMultiplier = 1.0 / Math.log(this.m);
+    }
+
+    public int getEfSearch() {
+        return efSearch;
+    }
+
+    /**
+     * 调整检索时候选集大小，越大召回率越高、耗时越长
+     * @param efSearch
+     */
+    public void setEfSearch(int efSearch) {
+        this.efSearch = Math.max(1, efSearch);
+    }
+
+    @Override
+    public void add(String id, float[] vector, String meta) {
+        if (Objects.isNull(id) || Objects.isNull(vector) || vector.length == 0) {
+            throw new VectorDBException("向量ID及特征不能为空");
+        }
+        lock.writeLock().lock();
+        try {
+            if (dimension == 0) {
+                dimension = vector.length;
+            } else if (vector.length != dimension) {
+                throw new VectorDBException("特征向量长度不一致: " + vector.length + " vs " + dimension);
+            }
+            Integer old = nodeIndex.remove(id);
+            if (old != null) {
+                markDeleted(old);
+            }
+            float[] copy = Arrays.copyOf(vector, vector.length);
+            insertNode(id, copy, meta);
+            if (pendingOps != null) {
+                pendingOps.add(new PendingOp(id, copy, meta));
+            }
+            compactIfNecessary();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public boolean remove(String id) {
+        lock.writeLock().lock();
+        try {
+            Integer node = nodeIndex.remove(id);
+            if (node == null) {
+                return false;
+            }
+            markDeleted(node);
+            if (pendingOps != null) {
+                pendingOps.add(new PendingOp(id, null, null));
+            }
+            compactIfNecessary();
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public FaceVector get(String id) {
+        lock.readLock().lock();
+        try {
+            Integer node = nodeIndex.get(id);
+            if (node == null) {
+                return null;
+            }
+            return new FaceVector(ids[node], Arrays.copyOf(vectors[node], dimension), metadata[node]);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return nodeCount - deletedCount;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            reset(INITIAL_CAPACITY);
+            dimension = 0;
+            generation++;
+            pendingOps = null;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public List<FaceSearchResult> search(float[] queryVector, int topK, float threshold, boolean normalize) {
+        lock.readLock().lock();
+        try {
+            if (nodeCount - deletedCount == 0 || topK <= 0) {
+                return Collections.emptyList();
+            }
+            if (queryVector == null || queryVector.length != dimension) {
+                throw new VectorDBException("查询向量长度不一致: " +
+                        (queryVector == null ? 0 : queryVector.length) + " vs " + dimension);
+            }
+            float queryNorm = SimilarityUtil.vectorNorm(queryVector);
+            int cur = greedyDescend(queryVector, queryNorm, entryPoint, maxLevel, 1);
+            TopKHeap heap = searchLayer(queryVector, queryNorm, cur, Math.max(efSearch, topK), 0);
+            int[] nodes = heap.drainRows();
+            // 图检索得到的候选按与 FlatVectorIndex 相同的分数（SimilarityUtil.calculate）过滤、排序并返回
+            TopKHeap topHeap = new TopKHeap(topK);
+            for (int node : nodes) {
+                float score = SimilarityUtil.calculate(queryVector, queryNorm, vectors[node], 0, norms[node],
+                        similarityType, normalize);
+                if (score >= threshold) {
+                    topHeap.offer(score, node);
+                }
+            }
+            float[] scores = new float[topHeap.size()];
+            int[] rows = new int[topHeap.size()];
+            int n = topHeap.drain(scores, rows);
+            List<FaceSearchResult> results = new ArrayList<>(n);
+            for (int i = 0; i < n; i++) {
+                results.add(new FaceSearchResult(ids[rows[i]], scores[i], metadata[rows[i]]));
+            }
+            return results;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 暴力检索，用于评估召回率
+     * @param queryVector 查询向量
+     * @param topK 返回数量
+     * @return 按相似度降序排列的结果
+     */
+    public List<FaceSearchResult> exactSearch(float[] queryVector, int topK) {
+        lock.readLock().lock();
+        try {
+            float queryNorm = SimilarityUtil.vectorNorm(queryVector);
+            TopKHeap heap = new TopKHeap(topK);
+            for (int node = 0; node < nodeCount; node++) {
+                if (!deleted[node]) {
+                    heap.offer(similarity(queryVector, queryNorm, node), node);
+                }
+            }
+            float[] scores = new float[heap.size()];
+            int[] nodes = new int[heap.size()];
+            int n = heap.drain(scores, nodes);
+            List<FaceSearchResult> results = new ArrayList<>(n);
+            for (int i = 0; i < n; i++) {
+                results.add(new FaceSearchResult(ids[nodes[i]], scores[i], metadata[nodes[i]]));
+            }
+            return results;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 评估召回率：随机抽取库中向量作为查询，对比HNSW与暴力检索的TopK结果
+     * @param sampleSize 抽样数量
+     * @param topK TopK
+     * @return 平均召回率 [0,1]
+     */
+    public float evaluateRecall(int sampleSize, int topK) {
+        List<float[]> queries = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            int live = nodeCount - deletedCount;
+            if (live == 0 || sampleSize <= 0 || topK <= 0) {
+                return 1.0f;
+            }
+            Random sampleRandom = new Random();
+            int attempts = 0;
+            while (queries.size() < Math.min(sampleSize, live) && attempts++ < sampleSize * 10) {
+                int node = sampleRandom.nextInt(nodeCount);
+                if (!deleted[node]) {
+                    queries.add(vectors[node]);
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        long hit = 0;
+        long total = 0;
+        for (float[] query : queries) {
+            Set<String> expected = new HashSet<>();
+            for (FaceSearchResult result : exactSearch(query, topK)) {
+                expected.add(result.getId());
+            }
+            for (FaceSearchResult result : search(query, topK, Float.NEGATIVE_INFINITY, false)) {
+                if (expected.contains(result.getId())) {
+                    hit++;
+                }
+            }
+            total += expected.size();
+        }
+        return total == 0 ? 1.0f : (float) hit / total;
+    }
+
+    @Override
+    public void save(File file) {
+        lock.readLock().lock();
+        try {
+            File parent = file.getAbsoluteFile().getParentFile();
+            if (parent != null && !parent.exists()) {
+                parent.mkdirs();
+            }
+            File tmpFile = new File(file.getAbsolutePath() + ".tmp");
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmpFile), 1 << 16))) {
+                out.writeInt(FILE_MAGIC);
+                out.writeInt(FILE_VERSION);
+                out.writeInt(similarityType.ordinal());
+                out.writeInt(m);
+                out.writeInt(dimension);
+                out.writeInt(nodeCount);
+                out.writeInt(entryPoint);
+                out.writeInt(maxLevel);
+                for (int node = 0; node < nodeCount; node++) {
+                    out.writeBoolean(deleted[node]);
+                    writeString(out, deleted[node] ? null : ids[node]);
+                    writeString(out, deleted[node] ? null : metadata[node]);
+                    float[] vector = vectors[node];
+                    for (int i = 0; i < dimension; i++) {
+                        out.writeFloat(vector[i]);
+                    }
+                    int[][] nodeLinks = links[node];
+                    out.writeInt(nodeLinks.length);
+                    for (int[] levelLinks : nodeLinks) {
+                        int count = levelLinks[0];
+                        out.writeInt(count);
+                        for (int i = 1; i <= count; i++) {
+                            out.writeInt(levelLinks[i]);
+                        }
+                    }
+                }
+            }
+            Files.move(tmpFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            log.debug("HNSW索引已保存: {}, 节点数: {}", file.getAbsolutePath(), nodeCount);
+        } catch (IOException e) {
+            throw new VectorDBException("HNSW索引保存失败", e);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public boolean load(File file) {
+        if (file == null || !file.isFile()) {
+            return false;
+        }
+        lock.writeLock().lock();
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file), 1 << 16))) {
+            if (in.readInt() != FILE_MAGIC || in.readInt() != FILE_VERSION) {
+                log.warn("HNSW索引文件格式不匹配: {}", file.getAbsolutePath());
+                return false;
+            }
+            int fileSimilarity = in.readInt();
+            int fileM = in.readInt();
+            if (fileSimilarity != similarityType.ordinal() || fileM != m) {
+                log.warn("HNSW索引参数与当前配置不一致，将重建索引");
+                return false;
+            }
+            int fileDimension = in.readInt();
+            int count = in.readInt();
+            generation++;
+            pendingOps = null;
+            reset(Math.max(INITIAL_CAPACITY, count));
+            dimension = fileDimension;
+            entryPoint = in.readInt();
+            maxLevel = in.readInt();
+            for (int node = 0; node < count; node++) {
+                deleted[node] = in.readBoolean();
+                ids[node] = readString(in);
+                metadata[node] = readString(in);
+                float[] vector = new float[dimension];
+                for (int i = 0; i < dimension; i++) {
+                    vector[i] = in.readFloat();
+                }
+                vectors[node] = vector;
+                norms[node] = SimilarityUtil.vectorNorm(vector);
+                int levels = in.readInt();
+                int[][] nodeLinks = new int[levels][];
+                for (int level = 0; level < levels; level++) {
+                    int linkCount = in.readInt();
+                    int[] levelLinks = new int[maxM(level) + 1];
+                    levelLinks[0] = linkCount;
+                    for (int i = 1; i <= linkCount; i++) {
+                        levelLinks[i] = in.readInt();
+                    }
+                    nodeLinks[level] = levelLinks;
+                }
+                links[node] = nodeLinks;
+                if (deleted[node]) {
+                    deletedCount++;
+                } else {
+                    nodeIndex.put(ids[node], node);
+                }
+            }
+            nodeCount = count;
+            log.debug("HNSW索引加载完成: {}, 节点数: {}", file.getAbsolutePath(), nodeCount);
+            return true;
+        } catch (IOException | RuntimeException e) {
+            log.warn("HNSW索引文件读取失败，将重建索引: {}", file.getAbsolutePath(), e);
+            reset(INITIAL_CAPACITY);
+            dimension = 0;
+            return false;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // ============= 图构建 =============
+
+    private void insertNode(String id, float[] vector, String meta) {
+        int node = nodeCount;
+        ensureCapacity(node + 1);
+        vectors[node] = vector;
+        norms[node] = SimilarityUtil.vectorNorm(vector);
+        ids[node] = id;
+        metadata[node] = meta;
+        deleted[node] = false;
+        int level = randomLevel();
+        int[][] nodeLinks = new int[level + 1][];
+        for (int l = 0; l <= level; l++) {
+            nodeLinks[l] = new int[maxM(l) + 1];
+        }
+        links[node] = nodeLinks;
+        nodeCount++;
+        nodeIndex.put(id, node);
+
+        if (entryPoint < 0) {
+            entryPoint = node;
+            maxLevel = level;
+            return;
+        }
+        float queryNorm = norms[node];
+        int cur = greedyDescend(vector, queryNorm, entryPoint, maxLevel, level + 1);
+        for (int l = Math.min(level, maxLevel); l >= 0; l--) {
+            TopKHeap heap = searchLayer(vector, queryNorm, cur, efConstruction, l);
+            float[] scores = new float[heap.size()];
+            int[] candidates = new int[heap.size()];
+            int n = heap.drain(scores, candidates);
+            if (n == 0) {
+                continue;
+            }
+            int[] selected = selectNeighbors(scores, candidates, n, m);
+            int[] levelLinks = nodeLinks[l];
+            levelLinks[0] = selected.length;
+            System.arraycopy(selected, 0, levelLinks, 1, selected.length);
+            for (int neighbor : selected) {
+                addLink(neighbor, node, l);
+            }
+            cur = candidates[0];
+        }
+        if (level > maxLevel) {
+            entryPoint = node;
+            maxLevel = level;
+        }
+    }
+
+    /**
+     * 在上层逐层贪心搜索，返回进入目标层的入口节点
+     */
+    private int greedyDescend(float[] query, float queryNorm, int start, int fromLevel, int toLevel) {
+        int cur = start;
+        float curSim = similarity(query, queryNorm, cur);
+        for (int l = fromLevel; l >= toLevel; l--) {
+            boolean changed = true;
+            while (changed) {
+                changed = false;
+                int[] levelLinks = links[cur][l];
+                int count = levelLinks[0];
+                for (int i = 1; i <= count; i++) {
+                    int neighbor = levelLinks[i];
+                    float sim = similarity(query, queryNorm, neighbor);
+                    if (sim > curSim) {
+                        curSim = sim;
+                        cur = neighbor;
+                        changed = true;
+                    }
+                }
+            }
+        }
+        return cur;
+    }
+
+    /**
+     * 在指定层进行束搜索，返回最多ef个未删除的最近节点
+     */
+    private TopKHeap searchLayer(float[] query, float queryNorm, int entry, int ef, int level) {
+        VisitedSet visited = visitedSet.get();
+        visited.reset(nodeCount);
+        visited.visit(entry);
+        CandidateQueue candidates = new CandidateQueue(ef * 2);
+        TopKHeap results = new TopKHeap(ef);
+        float entrySim = similarity(query, queryNorm, entry);
+        candidates.push(entrySim, entry);
+        if (!deleted[entry]) {
+            results.offer(entrySim, entry);
+        }
+        while (!candidates.isEmpty()) {
+            float candidateSim = candidates.peekScore();
+            if (candidateSim < results.minScore()) {
+                break;
+            }
+            int candidate = candidates.pop();
+            int[][] candidateLinks = links[candidate];
+            if (level >= candidateLinks.length) {
+                continue;
+            }
+            int[] levelLinks = candidateLinks[level];
+            int count = levelLinks[0];
+            for (int i = 1; i <= count; i++) {
+                int neighbor = levelLinks[i];
+                if (!visited.visit(neighbor)) {
+                    continue;
+                }
+                float sim = similarity(query, queryNorm, neighbor);
+                if (sim > results.minScore()) {
+                    candidates.push(sim, neighbor);
+                    if (!deleted[neighbor]) {
+                        results.offer(sim, neighbor);
+                    }
+                }
+            }
+        }
+        return results;
+    }
+
+    /**
+     * 启发式邻居选择：候选按相似度降序，仅当候选与查询的相似度高于其与所有已选邻居的相似度时才选入，
+     * 不足时用被裁剪的候选补齐
+     */
+    private int[] selectNeighbors(float[] scores, int[] candidates, int n, int maxCount) {
+        if (n <= maxCount) {
+            return Arrays.copyOf(candidates, n);
+        }
+        int[] selected = new int[maxCount];
+        int selectedCount = 0;
+        boolean[] taken = new boolean[n];
+        for (int i = 0; i < n && selectedCount < maxCount; i++) {
+            boolean good = true;
+            for (int j = 0; j < selectedCount; j++) {
+                if (similarity(candidates[i], selected[j]) > scores[i]) {
+                    good = false;
+                    break;
+                }
+            }
+            if (good) {
+                selected[selectedCount++] = candidates[i];
+                taken[i] = true;
+            }
+        }
+        for (int i = 0; i < n && selectedCount < maxCount; i++) {
+            if (!taken[i]) {
+                selected[selectedCount++] = candidates[i];
+            }
+        }
+        return selected;
+    }
+
+    private void addLink(int node, int neighbor, int level) {
+        int[] levelLinks = links[node][level];
+        int count = levelLinks[0];
+        int maxCount = maxM(level);
+        if (count < maxCount) {
+            levelLinks[count + 1] = neighbor;
+            levelLinks[0] = count + 1;
+            return;
+        }
+        // 连接已满，在原邻居和新邻居中重新选择
+        TopKHeap heap = new TopKHeap(count + 1);
+        for (int i = 1; i <= count; i++) {
+            heap.offer(similarity(node, levelLinks[i]), levelLinks[i]);
+        }
+        heap.offer(similarity(node, neighbor), neighbor);
+        float[] scores = new float[heap.size()];
+        int[] candidates = new int[heap.size()];
+        int n = heap.drain(scores, candidates);
+        int[] selected = selectNeighbors(scores, candidates, n, maxCount);
+        levelLinks[0] = selected.length;
+        System.arraycopy(selected, 0, levelLinks, 1, selected.length);
+    }
+
+    private void markDeleted(int node) {
+        if (!deleted[node]) {
+            deleted[node] = true;
+            metadata[node] = null;
+            deletedCount++;
+        }
+    }
+
+    /**
+     * 已删除节点比例过高时，在后台线程重建图
+     */
+    private void compactIfNecessary() {
+        if (compacting || deletedCount < INITIAL_CAPACITY || deletedCount < nodeCount * COMPACT_RATIO) {
+            return;
+        }
+        compacting = true;
+        Thread thread = new Thread(this::rebuild, "hnsw-compact");
+        thread.setDaemon(true); // 守护线程
+        thread.start();
+    }
+
+    /**
+     * 使用存活节点重建图，清除已删除节点
+     * 构建在调用线程执行且不持有写锁，完成后短暂持有写锁重放构建期间的增删并替换；已在重建时直接返回
+     */
+    public void compact() {
+        lock.writeLock().lock();
+        try {
+            if (compacting) {
+                return;
+            }
+            compacting = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        rebuild();
+    }
+
+    private void rebuild() {
+        String[] liveIds;
+        float[][] liveVectors;
+        String[] liveMetadata;
+        int graphDimension;
+        long startGeneration;
+        lock.writeLock().lock();
+        try {
+            int live = nodeCount - deletedCount;
+            liveIds = new String[live];
+            liveVectors = new float[live][];
+            liveMetadata = new String[live];
+            int index = 0;
+            for (int node = 0; node < nodeCount; node++) {
+                if (!deleted[node]) {
+                    liveIds[index] = ids[node];
+                    // 节点向量插入后不再修改，可直接共享
+                    liveVectors[index] = vectors[node];
+                    liveMetadata[index] = metadata[node];
+                    index++;
+                }
+            }
+            graphDimension = dimension;
+            startGeneration = generation;
+            pendingOps = new ArrayList<>();
+            log.debug("HNSW索引已删除节点 {} 个，开始后台重建", deletedCount);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        HnswVectorIndex rebuilt = null;
+        try {
+            rebuilt = new HnswVectorIndex(similarityType, m, efConstruction, efSearch);
+            rebuilt.dimension = graphDimension;
+            rebuilt.reset(Math.max(INITIAL_CAPACITY, liveIds.length));
+            for (int i = 0; i < liveIds.length; i++) {
+                rebuilt.insertNode(liveIds[i], liveVectors[i], liveMetadata[i]);
+            }
+        } catch (RuntimeException e) {
+            log.warn("HNSW索引重建失败", e);
+            rebuilt = null;
+        }
+        lock.writeLock().lock();
+        try {
+            if (rebuilt != null && generation == startGeneration) {
+                for (PendingOp op : pendingOps) {
+                    Integer old = rebuilt.nodeIndex.remove(op.id);
+                    if (old != null) {
+                        rebuilt.markDeleted(old);
+                    }
+                    if (op.vector != null) {
+                        rebuilt.insertNode(op.id, op.vector, op.meta);
+                    }
+                }
+                adopt(rebuilt);
+                log.debug("HNSW索引重建完成，节点数: {}，重放操作: {}", nodeCount, pendingOps.size());
+            }
+        } finally {
+            pendingOps = null;
+            compacting = false;
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 替换为重建后的图
+     */
+    private void adopt(HnswVectorIndex rebuilt) {
+        vectors = rebuilt.vectors;
+        norms = rebuilt.norms;
+        ids = rebuilt.ids;
+        metadata = rebuilt.metadata;
+        deleted = rebuilt.deleted;
+        links = rebuilt.links;
+        nodeCount = rebuilt.nodeCount;
+        deletedCount = rebuilt.deletedCount;
+        entryPoint = rebuilt.entryPoint;
+        maxLevel = rebuilt.maxLevel;
+        nodeIndex.clear();
+        nodeIndex.putAll(rebuilt.nodeIndex);
+    }
+
+    private void reset(int capacity) {
+        vectors = new float[capacity][];
+        norms = new float[capacity];
+        ids = new String[capacity];
+        metadata = new String[capacity];
+        deleted = new boolean[capacity];
+        links = new int[capacity][][];
+        nodeIndex.clear();
+        nodeCount = 0;
+        deletedCount = 0;
+        entryPoint = -1;
+        maxLevel = -1;
+    }
+
+    private void ensureCapacity(int required) {
+        if (required <= ids.length) {
+            return;
+        }
+        int capacity = Math.max(required, ids.length + (ids.length >> 1));
+        vectors = Arrays.copyOf(vectors, capacity);
+        norms = Arrays.copyOf(norms, capacity);
+        ids = Arrays.copyOf(ids, capacity);
+        metadata = Arrays.copyOf(metadata, capacity);
+        deleted = Arrays.copyOf(deleted, capacity);
+        links = Arrays.copyOf(links, capacity);
+    }
+
+    private int randomLevel() {
+        double r = random.nextDouble();
+        if (r <= 0) {
+            r = Double.MIN_VALUE;
+        }
+        return (int) (-Math.log(r) * levelMultiplier);
+    }
+
+    private int maxM(int level) {
+        return level == 0 ? maxM0 : m;
+    }
+
+    // ============= 相似度 =============
+
+    /**
+     * 图内部使用的相似度，值越大越相近（L2取负距离）
+     */
+    private float similarity(float[] query, float queryNorm, int node) {
+        float[] vector = vectors[node];
+        switch (similarityType) {
+            case L2:
+                return -SimilarityUtil.euclideanDistance(query, vector, 0, dimension);
+            case COSINE:
+                if (queryNorm <= 0 || norms[node] <= 0) {
+                    return 0.0f;
+                }
+                return SimilarityUtil.dotProduct(query, vector, 0, dimension) / (queryNorm * norms[node]);
+            case IP:
+            default:
+                return SimilarityUtil.dotProduct(query, vector, 0, dimension);
+        }
+    }
+
+    private float similarity(int node1, int node2) {
+        return similarity(vectors[node1], norms[node1], node2);
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 重建期间的增删操作，vector为null表示删除
+     */
+    private static class PendingOp {
+
+        private final String id;
+
+        private final float[] vector;
+
+        private final String meta;
+
+        PendingOp(String id, float[] vector, String meta) {
+            this.id = id;
+            this.vector = vector;
+            this.meta = meta;
+        }
+    }
+
+    /**
+     * 检索候选队列（大顶堆），按相似度从高到低出队
+     */
+    private static class CandidateQueue {
+
+        private float[] scores;
+
+        private int[] nodes;
+
+        private int size;
+
+        CandidateQueue(int capacity) {
+            scores = new float[Math.max(16, capacity)];
+            nodes = new int[scores.length];
+        }
+
+        boolean isEmpty() {
+            return size == 0;
+        }
+
+        float peekScore() {
+            return scores[0];
+        }
+
+        void push(float score, int node) {
+            if (size == scores.length) {
+                scores = Arrays.copyOf(scores, size * 2);
+                nodes = Arrays.copyOf(nodes, size * 2);
+            }
+            int i = size++;
+            while (i > 0) {
+                int parent = (i - 1) >>> 1;
+                if (scores[parent] >= score) {
+                    break;
+                }
+                scores[i] = scores[parent];
+                nodes[i] = nodes[parent];
+                i = parent;
+            }
+            scores[i] = score;
+            nodes[i] = node;
+        }
+
+        int pop() {
+            int top = nodes[0];
+            size--;
+            if (size > 0) {
+                float score = scores[size];
+                int node = nodes[size];
+                int i = 0;
+                int half = size >>> 1;
+                while (i < half) {
+                    int child = 2 * i + 1;
+                    int right = child + 1;
+                    if (right < size && scores[right] > scores[child]) {
+                        child = right;
+                    }
+                    if (score >= scores[child]) {
+                        break;
+                    }
+                    scores[i] = scores[child];
+                    nodes[i] = nodes[child];
+                    i = child;
+                }
+                scores[i] = score;
+                nodes[i] = node;
+            }
+            return top;
+        }
+    }
+
+    /**
+     * 线程私有的访问标记，使用版本号避免每次检索清空数组
+     */
+    private static class VisitedSet {
+
+        private int[] marks = new int[0];
+
+        private int epoch;
+
+        void reset(int capacity) {
+            if (marks.length < capacity) {
+                marks = new int[Math.max(capacity, marks.length + (marks.length >> 1))];
+                epoch = 0;
+            }
+            epoch++;
+            if (epoch == Integer.MAX_VALUE) {
+                Arrays.fill(marks, 0);
+                epoch = 1;
+            }
+        }
+
+        /**
+         * @return 首次访问返回true
+         */
+        boolean visit(int node) {
+            if (marks[node] == epoch) {
+                return false;
+            }
+            marks[node] = epoch;
+            return true;
+        }
+    }
+}
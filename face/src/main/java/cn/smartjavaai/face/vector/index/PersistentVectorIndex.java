@@ -0,0 +1,24 @@
+package cn.smartjavaai.face.vector.index;
+
+import java.io.File;
+
+/**
+ * 支持持久化到文件的内存向量索引，重启时可直接加载，无需重建
+ * @author dwj
+ */
+public interface PersistentVectorIndex extends VectorIndex {
+
+    /**
+     * 保存索引到文件
+     * @param file 索引文件
+     */
+    void save(File file);
+
+    /**
+     * 从文件加载索引
+     * @param file 索引文件
+     * @return 文件不存在、格式或参数不匹配时返回false
+     */
+    boolean load(File file);
+
+}
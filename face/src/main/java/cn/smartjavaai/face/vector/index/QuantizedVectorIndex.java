@@ -0,0 +1,308 @@
+package cn.smartjavaai.face.vector.index;
+
+import cn.smartjavaai.common.entity.face.FaceSearchResult;
+import cn.smartjavaai.common.enums.SimilarityType;
+import cn.smartjavaai.common.index.BlockScanner;
+import cn.smartjavaai.common.index.TopKHeap;
+import cn.smartjavaai.common.utils.SimilarityUtil;
+import cn.smartjavaai.face.vector.entity.FaceVector;
+import cn.smartjavaai.face.vector.exception.VectorDBException;
+
+import java.util.*;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+
+/**
+ * int8 标量量化索引
+ * 内存中每个向量仅保存 int8 编码及一个缩放系数（逐向量对称量化），内存占用约为 float 的 1/4；
+ * 检索时先在量化编码上计算近似相似度得到候选集，再从数据库读取原始向量及元数据精确重排
+ * @author dwj
+ */
+public class QuantizedVectorIndex implements VectorIndex {
+
+    /**
+     * 默认重排倍数：候选数量 = topK * rerankFactor
+     */
+    public static final int DEFAULT_RERANK_FACTOR = 4;
+
+    private static final int MIN_RERANK_CANDIDATES = 16;
+
+    private final SimilarityType similarityType;
+
+    private final int parallelism;
+
+    private final int blockRows;
+
+    private final int rerankFactor;
+
+    /**
+     * 按ID批量读取原始向量，用于精确重排
+     */
+    private final Function<List<String>, List<FaceVector>> exactVectorLoader;
+
+    private int dimension;
+
+    private byte[][] blocks = new byte[0][];
+
+    /**
+     * 逐向量缩放系数
+     */
+    private float[] scales = new float[0];
+
+    /**
+     * 反量化后向量的模长
+     */
+    private float[] norms = new float[0];
+
+    private String[] ids = new String[0];
+
+    private int size;
+
+    private final Map<String, Integer> rowIndex = new HashMap<>();
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * @param similarityType 相似度计算方式
+     * @param parallelism 检索线程数，小于等于0时使用CPU核心数
+     * @param rerankFactor 重排倍数，小于等于0时使用默认值
+     * @param exactVectorLoader 按ID批量读取原始向量
+     */
+    public QuantizedVectorIndex(SimilarityType similarityType, int parallelism, int rerankFactor,
+                                Function<List<String>, List<FaceVector>> exactVectorLoader) {
+        this.similarityType = Objects.isNull(similarityType) ? SimilarityType.IP : similarityType;
+        this.parallelism = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+        this.blockRows = FlatVectorIndex.DEFAULT_BLOCK_ROWS;
+        this.rerankFactor = rerankFactor > 0 ? rerankFactor : DEFAULT_RERANK_FACTOR;
+        this.exactVectorLoader = Objects.requireNonNull(exactVectorLoader, "exactVectorLoader");
+    }
+
+    @Override
+    public void add(String id, float[] vector, String meta) {
+        if (Objects.isNull(id) || Objects.isNull(vector) || vector.length == 0) {
+            throw new VectorDBException("向量ID及特征不能为空");
+        }
+        lock.writeLock().lock();
+        try {
+            if (dimension == 0) {
+                dimension = vector.length;
+            } else if (vector.length != dimension) {
+                throw new VectorDBException("特征向量长度不一致: " + vector.length + " vs " + dimension);
+            }
+            Integer row = rowIndex.get(id);
+            if (row == null) {
+                row = size;
+                ensureCapacity(size + 1);
+                rowIndex.put(id, row);
+                size++;
+            }
+            writeRow(row, id, vector, meta);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public boolean remove(String id) {
+        lock.writeLock().lock();
+        try {
+            Integer row = rowIndex.remove(id);
+            if (row == null) {
+                return false;
+            }
+            int last = size - 1;
+            if (row != last) {
+                System.arraycopy(blocks[last / blockRows], (last % blockRows) * dimension,
+                        blocks[row / blockRows], (row % blockRows) * dimension, dimension);
+                scales[row] = scales[last];
+                norms[row] = norms[last];
+                ids[row] = ids[last];
+                rowIndex.put(ids[row], row);
+            }
+            ids[last] = null;
+            size--;
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 根据ID获取原始向量（从数据库读取）
+     */
+    @Override
+    public FaceVector get(String id) {
+        lock.readLock().lock();
+        try {
+            if (!rowIndex.containsKey(id)) {
+                return null;
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        List<FaceVector> faceVectors = exactVectorLoader.apply(Collections.singletonList(id));
+        return faceVectors == null || faceVectors.isEmpty() ? null : faceVectors.get(0);
+    }
+
+    @Override
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            blocks = new byte[0][];
+            scales = new float[0];
+            norms = new float[0];
+            ids = new String[0];
+            rowIndex.clear();
+            size = 0;
+            dimension = 0;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public List<FaceSearchResult> search(float[] queryVector, int topK, float threshold, boolean normalize) {
+        // 1. 在量化编码上近似检索候选集
+        List<String> candidateIds;
+        lock.readLock().lock();
+        try {
+            if (size == 0 || topK <= 0) {
+                return Collections.emptyList();
+            }
+            if (queryVector == null || queryVector.length != dimension) {
+                throw new VectorDBException("查询向量长度不一致: " +
+                        (queryVector == null ? 0 : queryVector.length) + " vs " + dimension);
+            }
+            float queryNorm = SimilarityUtil.vectorNorm(queryVector);
+            int candidates = Math.max(topK * rerankFactor, Math.max(topK, MIN_RERANK_CANDIDATES));
+            int blockCount = (size + blockRows - 1) / blockRows;
+            TopKHeap heap = BlockScanner.scan(blockCount, parallelism, candidates,
+                    (b, local) -> scanBlock(b, queryVector, queryNorm, local));
+            int[] rows = heap.drainRows();
+            candidateIds = new ArrayList<>(rows.length);
+            for (int row : rows) {
+                candidateIds.add(ids[row]);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        // 2. 读取原始向量精确重排
+        List<FaceVector> exactVectors = exactVectorLoader.apply(candidateIds);
+        if (exactVectors == null || exactVectors.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<FaceSearchResult> results = new ArrayList<>(exactVectors.size());
+        for (FaceVector faceVector : exactVectors) {
+            if (faceVector.getVector() == null || faceVector.getVector().length != queryVector.length) {
+                continue;
+            }
+            float similarity = SimilarityUtil.calculate(queryVector, faceVector.getVector(), similarityType, normalize);
+            if (similarity >= threshold) {
+                results.add(new FaceSearchResult(faceVector.getId(), similarity, faceVector.getMetadata()));
+            }
+        }
+        results.sort(Comparator.comparingDouble(FaceSearchResult::getSimilarity).reversed());
+        return results.size() > topK ? new ArrayList<>(results.subList(0, topK)) : results;
+    }
+
+    /**
+     * 在量化编码上计算近似相似度（值越大越相近，L2取负的平方距离）
+     */
+    private void scanBlock(int blockIndex, float[] queryVector, float queryNorm, TopKHeap heap) {
+        byte[] block = blocks[blockIndex];
+        int startRow = blockIndex * blockRows;
+        int endRow = Math.min(size, startRow + blockRows);
+        float queryNormSq = queryNorm * queryNorm;
+        int offset = 0;
+        for (int row = startRow; row < endRow; row++, offset += dimension) {
+            float dot = scales[row] * dotProduct(queryVector, block, offset, dimension);
+            float score;
+            switch (similarityType) {
+                case L2:
+                    score = 2 * dot - queryNormSq - norms[row] * norms[row];
+                    break;
+                case COSINE:
+                    score = queryNorm <= 0 || norms[row] <= 0 ? 0f : dot / (queryNorm * norms[row]);
+                    break;
+                case IP:
+                default:
+                    score = dot;
+                    break;
+            }
+            if (score > heap.minScore()) {
+                heap.offer(score, row);
+            }
+        }
+    }
+
+    /**
+     * float 查询向量与 int8 编码的点积
+     */
+    private static float dotProduct(float[] query, byte[] codes, int offset, int length) {
+        float s0 = 0.0f, s1 = 0.0f, s2 = 0.0f, s3 = 0.0f;
+        int i = 0;
+        int bound = length & ~3;
+        for (; i < bound; i += 4) {
+            s0 += query[i] * codes[offset + i];
+            s1 += query[i + 1] * codes[offset + i + 1];
+            s2 += query[i + 2] * codes[offset + i + 2];
+            s3 += query[i + 3] * codes[offset + i + 3];
+        }
+        for (; i < length; i++) {
+            s0 += query[i] * codes[offset + i];
+        }
+        return (s0 + s1) + (s2 + s3);
+    }
+
+    /**
+     * 逐向量对称量化：code = round(v / scale)，scale = max|v| / 127
+     */
+    private void writeRow(int row, String id, float[] vector, String meta) {
+        float maxAbs = 0f;
+        for (float v : vector) {
+            maxAbs = Math.max(maxAbs, Math.abs(v));
+        }
+        float scale = maxAbs > 0 ? maxAbs / 127f : 1f;
+        byte[] block = blocks[row / blockRows];
+        int offset = (row % blockRows) * dimension;
+        float normSq = 0f;
+        for (int i = 0; i < dimension; i++) {
+            int code = Math.round(vector[i] / scale);
+            code = Math.max(-127, Math.min(127, code));
+            block[offset + i] = (byte) code;
+            float restored = code * scale;
+            normSq += restored * restored;
+        }
+        scales[row] = scale;
+        norms[row] = (float) Math.sqrt(normSq);
+        ids[row] = id;
+    }
+
+    private void ensureCapacity(int required) {
+        int blockCount = (required + blockRows - 1) / blockRows;
+        if (blockCount > blocks.length) {
+            blocks = Arrays.copyOf(blocks, Math.max(blockCount, blocks.length + (blocks.length >> 1)));
+        }
+        for (int i = 0; i < blockCount; i++) {
+            if (blocks[i] == null) {
+                blocks[i] = new byte[blockRows * dimension];
+            }
+        }
+        if (required > ids.length) {
+            int capacity = Math.max(required, ids.length + (ids.length >> 1));
+            scales = Arrays.copyOf(scales, capacity);
+            norms = Arrays.copyOf(norms, capacity);
+            ids = Arrays.copyOf(ids, capacity);
+        }
+    }
+}
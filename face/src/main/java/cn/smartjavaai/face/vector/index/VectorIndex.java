@@ -0,0 +1,69 @@
+package cn.smartjavaai.face.vector.index;
+
+import cn.smartjavaai.common.entity.face.FaceSearchResult;
+import cn.smartjavaai.face.vector.entity.FaceVector;
+
+import java.util.List;
+
+/**
+ * 内存向量索引接口
+ * @author dwj
+ */
+public interface VectorIndex {
+
+    /**
+     * 新增或更新向量，实现需复制向量数据，调用方可复用传入的数组
+     * @param id 向量ID
+     * @param vector 特征向量
+     * @param metadata 元数据
+     */
+    void add(String id, float[] vector, String metadata);
+
+    /**
+     * 新增或更新向量
+     * @param faceVector
+     */
+    default void add(FaceVector faceVector) {
+        add(faceVector.getId(), faceVector.getVector(), faceVector.getMetadata());
+    }
+
+    /**
+     * 删除向量
+     * @param id 向量ID
+     * @return 是否存在并删除
+     */
+    boolean remove(String id);
+
+    /**
+     * 根据ID获取向量（返回副本）
+     * @param id 向量ID
+     * @return 不存在时返回null
+     */
+    FaceVector get(String id);
+
+    /**
+     * 向量数量
+     * @return
+     */
+    int size();
+
+    default boolean isEmpty() {
+        return size() == 0;
+    }
+
+    /**
+     * 清空索引
+     */
+    void clear();
+
+    /**
+     * 检索相似度最高的TopK个向量
+     * @param queryVector 查询向量
+     * @param topK 返回数量
+     * @param threshold 相似度阈值
+     * @param normalize 是否归一化相似度
+     * @return 按相似度降序排列的结果
+     */
+    List<FaceSearchResult> search(float[] queryVector, int topK, float threshold, boolean normalize);
+
+}
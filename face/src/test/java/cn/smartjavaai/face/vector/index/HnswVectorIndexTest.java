@@ -0,0 +1,138 @@
+package cn.smartjavaai.face.vector.index;
+
+import cn.smartjavaai.common.entity.face.FaceSearchResult;
+import cn.smartjavaai.common.enums.SimilarityType;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.testng.Assert.*;
+
+/**
+ * HnswVectorIndex 测试：召回率、分数与阈值约定与 FlatVectorIndex 一致、删除及持久化
+ * @author dwj
+ */
+public class HnswVectorIndexTest {
+
+    private static final int DIMENSION = 32;
+
+    private static final int COUNT = 3000;
+
+    @Test
+    public void testRecall() {
+        Random random = new Random(1);
+        HnswVectorIndex index = build(SimilarityType.COSINE, random);
+        FlatVectorIndex flat = new FlatVectorIndex(SimilarityType.COSINE, 1);
+        for (int i = 0; i < COUNT; i++) {
+            flat.add(index.get("v" + i));
+        }
+        int topK = 10;
+        long hit = 0;
+        long total = 0;
+        for (int q = 0; q < 100; q++) {
+            float[] query = randomVector(random);
+            Set<String> expected = new HashSet<>();
+            for (FaceSearchResult result : flat.search(query, topK, Float.NEGATIVE_INFINITY, false)) {
+                expected.add(result.getId());
+            }
+            for (FaceSearchResult result : index.search(query, topK, Float.NEGATIVE_INFINITY, false)) {
+                hit += expected.contains(result.getId()) ? 1 : 0;
+            }
+            total += expected.size();
+        }
+        float recall = (float) hit / total;
+        assertTrue(recall >= 0.9f, "recall: " + recall);
+        assertTrue(index.evaluateRecall(50, topK) >= 0.9f);
+    }
+
+    @Test
+    public void testScoresMatchFlatIndex() {
+        Random random = new Random(2);
+        for (SimilarityType type : new SimilarityType[]{SimilarityType.IP, SimilarityType.L2, SimilarityType.COSINE}) {
+            HnswVectorIndex index = build(type, random);
+            FlatVectorIndex flat = new FlatVectorIndex(type, 1);
+            for (int i = 0; i < COUNT; i++) {
+                flat.add(index.get("v" + i));
+            }
+            // L2 未归一化时分数为距离，只比较归一化分数
+            boolean[] normalizeOptions = type == SimilarityType.L2 ? new boolean[]{true} : new boolean[]{false, true};
+            for (boolean normalize : normalizeOptions) {
+                float[] query = randomVector(random);
+                List<FaceSearchResult> exact = flat.search(query, 20, Float.NEGATIVE_INFINITY, normalize);
+                // 阈值取精确结果中第10名的分数，结果中的分数均不低于阈值且按降序排列
+                float threshold = exact.get(9).getSimilarity();
+                List<FaceSearchResult> results = index.search(query, 20, threshold, normalize);
+                assertFalse(results.isEmpty(), type + " " + normalize);
+                assertTrue(results.size() <= 10, type + " " + normalize);
+                float previous = Float.POSITIVE_INFINITY;
+                for (FaceSearchResult result : results) {
+                    assertTrue(result.getSimilarity() >= threshold, type + " " + normalize);
+                    assertTrue(result.getSimilarity() <= previous, type + " " + normalize);
+                    previous = result.getSimilarity();
+                }
+                assertEquals(results.get(0).getId(), exact.get(0).getId(), type + " " + normalize);
+                assertEquals(results.get(0).getSimilarity(), exact.get(0).getSimilarity(), 1e-5f, type + " " + normalize);
+            }
+        }
+    }
+
+    @Test
+    public void testRemove() {
+        Random random = new Random(3);
+        HnswVectorIndex index = build(SimilarityType.COSINE, random);
+        float[] target = index.get("v7").getVector();
+        assertEquals(index.search(target, 1, Float.NEGATIVE_INFINITY, false).get(0).getId(), "v7");
+        assertTrue(index.remove("v7"));
+        assertFalse(index.remove("v7"));
+        assertNull(index.get("v7"));
+        assertEquals(index.size(), COUNT - 1);
+        for (FaceSearchResult result : index.search(target, 10, Float.NEGATIVE_INFINITY, false)) {
+            assertNotEquals(result.getId(), "v7");
+        }
+    }
+
+    @Test
+    public void testSaveAndLoad() throws Exception {
+        Random random = new Random(4);
+        HnswVectorIndex index = build(SimilarityType.IP, random);
+        File file = File.createTempFile("hnsw", ".index");
+        try {
+            index.save(file);
+            HnswVectorIndex loaded = new HnswVectorIndex(SimilarityType.IP, 16, 100, 64);
+            assertTrue(loaded.load(file));
+            assertEquals(loaded.size(), index.size());
+            for (int q = 0; q < 10; q++) {
+                float[] query = randomVector(random);
+                List<FaceSearchResult> expected = index.search(query, 5, Float.NEGATIVE_INFINITY, false);
+                List<FaceSearchResult> actual = loaded.search(query, 5, Float.NEGATIVE_INFINITY, false);
+                assertEquals(actual.size(), expected.size());
+                for (int i = 0; i < expected.size(); i++) {
+                    assertEquals(actual.get(i).getId(), expected.get(i).getId());
+                }
+            }
+            assertFalse(new HnswVectorIndex(SimilarityType.IP, 8, 100, 64).load(file));
+        } finally {
+            file.delete();
+        }
+    }
+
+    private static HnswVectorIndex build(SimilarityType type, Random random) {
+        HnswVectorIndex index = new HnswVectorIndex(type, 16, 100, 64);
+        for (int i = 0; i < COUNT; i++) {
+            index.add("v" + i, randomVector(random), "m" + i);
+        }
+        return index;
+    }
+
+    private static float[] randomVector(Random random) {
+        float[] vector = new float[DIMENSION];
+        for (int i = 0; i < DIMENSION; i++) {
+            vector[i] = (float) random.nextGaussian();
+        }
+        return vector;
+    }
+}
@@ -28,6 +28,11 @@ public class PlateRecModelConfig extends ModelConfig {
      */
     private PlateDetModel plateDetModel;
 
+    /**
+     * 车牌识别批大小：一次推理识别的车牌数量
+     */
+    private int batchSize = 32;
+
 
 
 }
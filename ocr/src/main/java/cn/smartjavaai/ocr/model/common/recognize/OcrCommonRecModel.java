@@ -12,6 +12,7 @@ import cn.smartjavaai.ocr.model.common.direction.OcrDirectionModel;
 import org.apache.commons.pool2.impl.GenericObjectPool;
 
 import java.awt.image.BufferedImage;
+import java.util.Iterator;
 import java.util.List;
 
 /**
@@ -166,6 +167,17 @@ public interface OcrCommonRecModel extends AutoCloseable{
         throw new UnsupportedOperationException("默认不支持该功能");
     }
 
+    /**
+     * 流水线识别：检测、方向分类、识别三个阶段并行执行，按页顺序逐页返回结果
+     * 适用于多页文档（如扫描版PDF），使用完毕需调用 close 释放资源
+     * @param images 原图迭代器（可按需懒加载页面）
+     * @param options 识别选项
+     * @return 逐页结果迭代器
+     */
+    default OcrPipeline recognizePipeline(Iterator<Image> images, OcrRecOptions options) {
+        throw new UnsupportedOperationException("默认不支持该功能");
+    }
+
     default GenericObjectPool<Predictor<Image, String>> getPool() {
         throw new UnsupportedOperationException("默认不支持该功能");
     }
@@ -49,6 +49,21 @@ public class OcrCommonRecModelImpl implements OcrCommonRecModel {
 
     private static final int REC_CHUNK_SIZE = 64;
 
+    /**
+     * 排序窗口：累积该数量的文本块后统一按宽高比排序分桶识别
+     */
+    private static final int REC_SORT_WINDOW = REC_CHUNK_SIZE * 8;
+
+    /**
+     * 识别模型输入的最小宽高比（imgW / imgH = 320 / 48），低于该值的文本块补齐到相同宽度
+     */
+    private static final float REC_MIN_WH_RATIO = 320f / 48f;
+
+    /**
+     * 同一桶内最大宽高比与最小宽高比的比值上限
+     */
+    private static final float REC_BUCKET_WIDTH_RATIO = 1.5f;
+
     private GenericObjectPool<Predictor<Image, String>> recPredictorPool;
 
     private OcrRecModelConfig config;
@@ -414,15 +429,15 @@ public class OcrCommonRecModelImpl implements OcrCommonRecModel {
                         List<Image> imageAlignList = batchAlignWithDirection(ocrItemList.get(i), srcMat, manager);
                         for (Image alignImage : imageAlignList) {
                             chunkImages.add(alignImage);
-                            if (chunkImages.size() >= REC_CHUNK_SIZE) {
-                                textList.addAll(batchRecognizeChunk(predictor, chunkImages));
+                            if (chunkImages.size() >= REC_SORT_WINDOW) {
+                                textList.addAll(batchRecognizeBucketed(predictor, chunkImages));
                             }
                         }
                     }
                     log.debug("OCR流程-方向矫正裁剪耗时={}ms, textBlocks={}", elapsedMillis(alignStart), textList.size() + chunkImages.size());
                     long recStart = System.nanoTime();
                     if (!chunkImages.isEmpty()) {
-                        textList.addAll(batchRecognizeChunk(predictor, chunkImages));
+                        textList.addAll(batchRecognizeBucketed(predictor, chunkImages));
                     }
                     log.debug("OCR流程-识别模型调用耗时={}ms, textBlocks={}", elapsedMillis(recStart), textList.size());
                     return buildOcrInfoList(effectiveBoxList, ocrRecOptions, manager, textList, imageList.size(), totalStart);
@@ -439,8 +454,8 @@ public class OcrCommonRecModelImpl implements OcrCommonRecModel {
                         List<Image> imageAlignList = batchAlign(effectiveBoxList.get(i), srcMat, manager);
                         for (Image alignImage : imageAlignList) {
                             chunkImages.add(alignImage);
-                            if (chunkImages.size() >= REC_CHUNK_SIZE) {
-                                textList.addAll(batchRecognizeChunk(predictor, chunkImages));
+                            if (chunkImages.size() >= REC_SORT_WINDOW) {
+                                textList.addAll(batchRecognizeBucketed(predictor, chunkImages));
                             }
                         }
                     } finally {
@@ -449,7 +464,7 @@ public class OcrCommonRecModelImpl implements OcrCommonRecModel {
                 }
                 long recStart = System.nanoTime();
                 if (!chunkImages.isEmpty()) {
-                    textList.addAll(batchRecognizeChunk(predictor, chunkImages));
+                    textList.addAll(batchRecognizeBucketed(predictor, chunkImages));
                 }
                 log.debug("OCR流程-识别模型调用耗时={}ms, textBlocks={}", elapsedMillis(recStart), textList.size());
                 return buildOcrInfoList(effectiveBoxList, ocrRecOptions, manager, textList, imageList.size(), totalStart);
@@ -472,6 +487,82 @@ public class OcrCommonRecModelImpl implements OcrCommonRecModel {
         }
     }
 
+    @Override
+    public OcrPipeline recognizePipeline(Iterator<Image> images, OcrRecOptions options) {
+        if (Objects.isNull(textDetModel)) {
+            throw new OcrException("textDetModel is null");
+        }
+        if (Objects.isNull(images)) {
+            throw new OcrException("images is null");
+        }
+        OcrRecOptions ocrRecOptions = Objects.isNull(options) ? new OcrRecOptions() : options;
+        if (ocrRecOptions.isEnableDirectionCorrect() && Objects.isNull(directionModel)) {
+            throw new OcrException("请配置方向模型");
+        }
+        return new OcrPipeline(this, images, ocrRecOptions, OcrPipeline.DEFAULT_QUEUE_CAPACITY);
+    }
+
+    /**
+     * 单页方向分类及裁剪（流水线第二阶段）
+     * @param image 原图
+     * @param boxList 文本检测框
+     * @param options 识别选项
+     * @param manager
+     * @return 对齐后的文本块
+     */
+    List<Image> alignPage(Image image, List<OcrBox> boxList, OcrRecOptions options, NDManager manager) {
+        Mat srcMat = null;
+        try {
+            srcMat = ImageUtils.toMat(image);
+            if (options.isEnableDirectionCorrect()) {
+                List<List<OcrItem>> ocrItemList = directionModel.batchDetect(
+                        Collections.singletonList(boxList), Collections.singletonList(srcMat));
+                if (CollectionUtils.isEmpty(ocrItemList)) {
+                    throw new OcrException("方向检测失败");
+                }
+                return batchAlignWithDirection(ocrItemList.get(0), srcMat, manager);
+            }
+            return batchAlign(boxList, srcMat, manager);
+        } finally {
+            releaseTemporaryMat(image, srcMat);
+        }
+    }
+
+    /**
+     * 单页文本识别及后处理（流水线第三阶段）
+     * @param boxList 文本检测框
+     * @param imageAlignList 对齐后的文本块（识别后释放）
+     * @param options 识别选项
+     * @param manager
+     * @return OCR 结果
+     */
+    OcrInfo recognizePage(List<OcrBox> boxList, List<Image> imageAlignList, OcrRecOptions options, NDManager manager) {
+        long start = System.nanoTime();
+        Predictor<Image, String> predictor = null;
+        try {
+            predictor = recPredictorPool.borrowObject();
+            List<String> textList = batchRecognizeBucketed(predictor, imageAlignList);
+            return buildOcrInfoList(Collections.singletonList(boxList), options, manager, textList, 1, start).get(0);
+        } catch (OcrException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new OcrException("OCR检测错误", e);
+        } finally {
+            if (predictor != null) {
+                try {
+                    recPredictorPool.returnObject(predictor); //归还
+                } catch (Exception e) {
+                    log.warn("归还Predictor失败", e);
+                    try {
+                        predictor.close(); // 归还失败才销毁
+                    } catch (Exception ex) {
+                        log.error("关闭Predictor失败", ex);
+                    }
+                }
+            }
+        }
+    }
+
     private List<OcrInfo> buildOcrInfoList(List<List<OcrBox>> effectiveBoxList,
                                            OcrRecOptions ocrRecOptions,
                                            NDManager manager,
@@ -498,6 +589,56 @@ public class OcrCommonRecModelImpl implements OcrCommonRecModel {
         return ocrInfoList;
     }
 
+    /**
+     * 按宽高比排序后分桶识别，结果按输入顺序返回
+     * 桶内文本块宽度接近，padding 只需补齐到桶内最大宽度，避免一个长文本行拖宽整批短文本
+     * @param predictor
+     * @param imageAlignList 对齐后的文本块（识别后释放并清空）
+     * @return 识别文本
+     */
+    private List<String> batchRecognizeBucketed(Predictor<Image, String> predictor, List<Image> imageAlignList) {
+        int count = imageAlignList.size();
+        float[] ratios = new float[count];
+        Integer[] order = new Integer[count];
+        for (int i = 0; i < count; i++) {
+            Image image = imageAlignList.get(i);
+            float ratio = image.getHeight() > 0 ? (float) image.getWidth() / image.getHeight() : 0f;
+            ratios[i] = Math.max(ratio, REC_MIN_WH_RATIO);
+            order[i] = i;
+        }
+        Arrays.sort(order, Comparator.comparingDouble(i -> ratios[i]));
+        String[] texts = new String[count];
+        List<Image> bucket = new ArrayList<>(REC_CHUNK_SIZE);
+        int[] bucketIndex = new int[REC_CHUNK_SIZE];
+        float bucketStartRatio = 0f;
+        try {
+            for (int k = 0; k <= count; k++) {
+                boolean flush = !bucket.isEmpty() && (k == count || bucket.size() >= REC_CHUNK_SIZE
+                        || ratios[order[k]] > bucketStartRatio * REC_BUCKET_WIDTH_RATIO);
+                if (flush) {
+                    int bucketSize = bucket.size();
+                    List<String> bucketTexts = batchRecognizeChunk(predictor, bucket);
+                    for (int j = 0; j < bucketSize; j++) {
+                        texts[bucketIndex[j]] = bucketTexts.get(j);
+                    }
+                }
+                if (k == count) {
+                    break;
+                }
+                if (bucket.isEmpty()) {
+                    bucketStartRatio = ratios[order[k]];
+                }
+                bucketIndex[bucket.size()] = order[k];
+                bucket.add(imageAlignList.get(order[k]));
+            }
+        } finally {
+            // 异常时释放尚未识别的文本块
+            imageAlignList.forEach(ImageUtils::releaseOpenCVMat);
+            imageAlignList.clear();
+        }
+        return Arrays.asList(texts);
+    }
+
     private List<String> batchRecognizeChunk(Predictor<Image, String> predictor, List<Image> imageAlignList) {
         try {
             List<String> textList = predictor.batchPredict(imageAlignList);
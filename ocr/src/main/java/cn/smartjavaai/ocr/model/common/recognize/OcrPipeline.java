@@ -0,0 +1,289 @@
+package cn.smartjavaai.ocr.model.common.recognize;
+
+import ai.djl.modality.cv.Image;
+import ai.djl.ndarray.NDManager;
+import cn.smartjavaai.common.utils.ImageUtils;
+import cn.smartjavaai.ocr.config.OcrRecOptions;
+import cn.smartjavaai.ocr.entity.OcrBox;
+import cn.smartjavaai.ocr.entity.OcrInfo;
+import cn.smartjavaai.ocr.exception.OcrException;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.collections.CollectionUtils;
+
+import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * 流水线OCR
+ * 文本检测、方向分类+裁剪、文本识别三个阶段分别由独立线程执行（各自使用对应模型的预测器池），
+ * 阶段之间通过有界队列连接，第N+1页的检测与第N页的识别并行执行；结果按页顺序逐页输出。
+ * 输入图片由调用方负责释放，输入迭代器会在检测线程中被消费
+ * @author dwj
+ */
+@Slf4j
+public class OcrPipeline implements Iterator<OcrInfo>, AutoCloseable {
+
+    /**
+     * 默认阶段间队列容量（页数）
+     */
+    public static final int DEFAULT_QUEUE_CAPACITY = 4;
+
+    private static final PageTask END = new PageTask(-1, null);
+
+    private final OcrCommonRecModelImpl recModel;
+
+    private final Iterator<Image> images;
+
+    private final OcrRecOptions options;
+
+    private final BlockingQueue<PageTask> detectedQueue;
+
+    private final BlockingQueue<PageTask> alignedQueue;
+
+    private final BlockingQueue<PageTask> outputQueue;
+
+    private final List<Thread> stages = new ArrayList<>(3);
+
+    private volatile boolean running = true;
+
+    private PageTask nextTask;
+
+    private boolean finished;
+
+    OcrPipeline(OcrCommonRecModelImpl recModel, Iterator<Image> images, OcrRecOptions options, int queueCapacity) {
+        this.recModel = recModel;
+        this.images = images;
+        this.options = options;
+        int capacity = Math.max(1, queueCapacity);
+        this.detectedQueue = new ArrayBlockingQueue<>(capacity);
+        this.alignedQueue = new ArrayBlockingQueue<>(capacity);
+        this.outputQueue = new ArrayBlockingQueue<>(capacity);
+        startStage("ocr-pipeline-detect", this::detectStage);
+        startStage("ocr-pipeline-align", this::alignStage);
+        startStage("ocr-pipeline-rec", this::recognizeStage);
+    }
+
+    private void startStage(String name, Runnable runnable) {
+        Thread thread = new Thread(runnable, name);
+        thread.setDaemon(true);
+        stages.add(thread);
+        thread.start();
+    }
+
+    /**
+     * 阶段1：文本检测
+     */
+    private void detectStage() {
+        int index = 0;
+        try {
+            while (running && images.hasNext()) {
+                PageTask task = new PageTask(index++, images.next());
+                try {
+                    List<List<OcrBox>> boxList = recModel.getTextDetModel()
+                            .batchDetectDJLImage(Collections.singletonList(task.image));
+                    task.boxes = CollectionUtils.isEmpty(boxList) ? Collections.emptyList() : boxList.get(0);
+                } catch (Exception e) {
+                    task.error = e;
+                }
+                if (!offer(detectedQueue, task)) {
+                    return;
+                }
+            }
+        } catch (Exception e) {
+            // 输入迭代器异常
+            PageTask task = new PageTask(index, null);
+            task.error = e;
+            offer(detectedQueue, task);
+        }
+        offer(detectedQueue, END);
+    }
+
+    /**
+     * 阶段2：方向分类 + 透视变换裁剪
+     */
+    private void alignStage() {
+        while (running) {
+            PageTask task = take(detectedQueue);
+            if (task == null) {
+                return;
+            }
+            if (task != END && task.error == null && CollectionUtils.isNotEmpty(task.boxes)) {
+                task.manager = NDManager.newBaseManager();
+                try {
+                    task.crops = recModel.alignPage(task.image, task.boxes, options, task.manager);
+                } catch (Exception e) {
+                    task.error = e;
+                    release(task);
+                }
+            }
+            if (!offer(alignedQueue, task)) {
+                release(task);
+                return;
+            }
+            if (task == END) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * 阶段3：文本识别 + 后处理
+     */
+    private void recognizeStage() {
+        while (running) {
+            PageTask task = take(alignedQueue);
+            if (task == null) {
+                return;
+            }
+            if (task != END && task.error == null) {
+                try {
+                    task.result = CollectionUtils.isEmpty(task.boxes) ? new OcrInfo()
+                            : recModel.recognizePage(task.boxes, task.crops, options, task.manager);
+                } catch (Exception e) {
+                    task.error = e;
+                } finally {
+                    release(task);
+                }
+            }
+            if (!offer(outputQueue, task) || task == END) {
+                return;
+            }
+        }
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (nextTask != null) {
+            return true;
+        }
+        if (finished) {
+            return false;
+        }
+        PageTask task = take(outputQueue);
+        if (task == null) {
+            throw new OcrException("OCR流水线已中断");
+        }
+        if (task == END) {
+            finished = true;
+            return false;
+        }
+        nextTask = task;
+        return true;
+    }
+
+    @Override
+    public OcrInfo next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        PageTask task = nextTask;
+        nextTask = null;
+        if (task.error != null) {
+            close();
+            throw new OcrException("OCR检测错误: 第" + task.index + "页", task.error);
+        }
+        return task.result;
+    }
+
+    /**
+     * 停止流水线并释放未处理页面的资源
+     */
+    @Override
+    public void close() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        finished = true;
+        for (Thread stage : stages) {
+            stage.interrupt();
+        }
+        for (Thread stage : stages) {
+            try {
+                stage.join(1000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        drainAndRelease(detectedQueue);
+        drainAndRelease(alignedQueue);
+        drainAndRelease(outputQueue);
+    }
+
+    /**
+     * 放入下一阶段的队列
+     * 推理不响应中断，阶段线程可能在 close 等待超时、清空队列之后才放入页面，此时由阶段线程自己清空该队列并释放资源
+     * @return 是否放入且流水线仍在运行
+     */
+    private boolean offer(BlockingQueue<PageTask> queue, PageTask task) {
+        if (!running) {
+            release(task);
+            return false;
+        }
+        try {
+            queue.put(task);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+        if (!running) {
+            drainAndRelease(queue);
+            return false;
+        }
+        return true;
+    }
+
+    private void drainAndRelease(BlockingQueue<PageTask> queue) {
+        List<PageTask> pending = new ArrayList<>();
+        queue.drainTo(pending);
+        pending.forEach(this::release);
+    }
+
+    private PageTask take(BlockingQueue<PageTask> queue) {
+        try {
+            return queue.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+    }
+
+    private void release(PageTask task) {
+        if (task.crops != null) {
+            task.crops.forEach(ImageUtils::releaseOpenCVMat);
+            task.crops = null;
+        }
+        if (task.manager != null) {
+            try {
+                task.manager.close();
+            } catch (Exception e) {
+                log.warn("关闭 NDManager 失败", e);
+            }
+            task.manager = null;
+        }
+    }
+
+    private static class PageTask {
+
+        private final int index;
+
+        private final Image image;
+
+        private List<OcrBox> boxes;
+
+        private List<Image> crops;
+
+        private NDManager manager;
+
+        private OcrInfo result;
+
+        private Exception error;
+
+        PageTask(int index, Image image) {
+            this.index = index;
+            this.image = image;
+        }
+    }
+}
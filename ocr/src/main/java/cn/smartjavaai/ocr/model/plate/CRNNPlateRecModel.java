@@ -10,8 +10,10 @@ import ai.djl.repository.zoo.Criteria;
 import ai.djl.repository.zoo.ModelNotFoundException;
 import ai.djl.repository.zoo.ModelZoo;
 import ai.djl.repository.zoo.ZooModel;
+import ai.djl.translate.TranslateException;
 import cn.hutool.core.lang.UUID;
 import cn.hutool.core.lang.generator.UUIDGenerator;
+import cn.smartjavaai.common.batch.BatchInference;
 import cn.smartjavaai.common.cv.SmartImageFactory;
 import cn.smartjavaai.common.entity.DetectionRectangle;
 import cn.smartjavaai.common.entity.R;
@@ -46,6 +48,7 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Objects;
@@ -63,6 +66,11 @@ public class CRNNPlateRecModel implements PlateRecModel{
 
     private PlateRecModelConfig config;
 
+    /**
+     * 模型不支持动态batch时（如导出时固定batch=1）退化为逐个识别
+     */
+    private volatile boolean batchUnsupported = false;
+
     @Override
     public void loadModel(PlateRecModelConfig config) {
         if(StringUtils.isBlank(config.getModelPath())){
@@ -143,45 +151,135 @@ public class CRNNPlateRecModel implements PlateRecModel{
             return R.fail(R.Status.NO_OBJECT_DETECTED);
         }
         List<PlateInfo> plateInfoList = OcrUtils.convertToPlateInfo(detectedObjects, image);
-        Predictor<Image, PlateResult> predictor = null;
         try {
-            predictor = recPredictorPool.borrowObject();
-            for (PlateInfo plateInfo : plateInfoList){
-                DetectionRectangle detectionRectangle = plateInfo.getDetectionRectangle();
-//                Image subImage = image.getSubImage(detectionRectangle.getX(), detectionRectangle.getY(), detectionRectangle.getWidth(), detectionRectangle.getHeight());
-                Mat imageMat = ImageUtils.toMat(image);
-                //透视变换
-                Mat subMat = OcrUtils.transformAndCropToMat(imageMat, plateInfo.getBox());
-                //双层车牌
-                if(plateInfo.getPlateType() == PlateType.DOUBLE){
-                    subMat = getSplitMerge(subMat);
-                }
-                Image subImage = SmartImageFactory.getInstance().fromMat(subMat);
-                PlateResult plateResult = predictor.predict(subImage);
-                if(Objects.nonNull(plateResult)){
-                    plateInfo.setPlateNumber(plateResult.getPlateNo());
-                    plateInfo.setPlateColor(plateResult.getPlateColor());
-                }
-                ImageUtils.releaseOpenCVMat(subImage);
+            recognizePlates(Collections.singletonList(image), Collections.singletonList(plateInfoList));
+            return R.ok(plateInfoList);
+        } catch (Exception e) {
+            throw new OcrException("车牌识别错误", e);
+        }
+    }
+
+    @Override
+    public R<List<List<PlateInfo>>> recognize(List<Image> images) {
+        if(CollectionUtils.isEmpty(images)){
+            return R.fail(R.Status.INVALID_IMAGE);
+        }
+        if(Objects.isNull(config.getPlateDetModel())){
+            return R.fail(R.Status.PARAM_ERROR.getCode(), "未指定车牌检测模型");
+        }
+        List<List<PlateInfo>> plateInfoLists = new ArrayList<>(images.size());
+        for (Image image : images) {
+            DetectedObjects detectedObjects = config.getPlateDetModel().detectCore(image);
+            if(Objects.isNull(detectedObjects) || detectedObjects.getNumberOfObjects() == 0){
+                plateInfoLists.add(new ArrayList<>());
+            }else{
+                plateInfoLists.add(OcrUtils.convertToPlateInfo(detectedObjects, image));
             }
-           return R.ok(plateInfoList);
+        }
+        try {
+            recognizePlates(images, plateInfoLists);
+            return R.ok(plateInfoLists);
         } catch (Exception e) {
             throw new OcrException("车牌识别错误", e);
-        }finally {
+        }
+    }
 
-            if (predictor != null) {
+    /**
+     * 裁剪所有车牌后批量识别，识别结果写回 PlateInfo
+     * 每张原图只转换一次 Mat，所有图片的车牌合并后按 batchSize 分批推理
+     * @param images 原图
+     * @param plateInfoLists 与原图一一对应的车牌列表
+     */
+    private void recognizePlates(List<Image> images, List<List<PlateInfo>> plateInfoLists) throws Exception {
+        List<PlateInfo> plates = new ArrayList<>();
+        List<Image> crops = new ArrayList<>();
+        try {
+            for (int i = 0; i < images.size(); i++) {
+                List<PlateInfo> plateInfoList = plateInfoLists.get(i);
+                if (CollectionUtils.isEmpty(plateInfoList)) {
+                    continue;
+                }
+                Image image = images.get(i);
+                Mat imageMat = ImageUtils.toMat(image);
                 try {
-                    recPredictorPool.returnObject(predictor); //归还
-                } catch (Exception e) {
-                    log.warn("归还Predictor失败", e);
+                    for (PlateInfo plateInfo : plateInfoList) {
+                        //透视变换
+                        Mat subMat = OcrUtils.transformAndCropToMat(imageMat, plateInfo.getBox());
+                        //双层车牌
+                        if(plateInfo.getPlateType() == PlateType.DOUBLE){
+                            Mat merged = getSplitMerge(subMat);
+                            subMat.release();
+                            subMat = merged;
+                        }
+                        crops.add(SmartImageFactory.getInstance().fromMat(subMat));
+                        plates.add(plateInfo);
+                    }
+                } finally {
+                    // BufferedImage 转换得到的 Mat 需要释放
+                    if (imageMat != image.getWrappedImage()) {
+                        imageMat.release();
+                    }
+                }
+            }
+            if (crops.isEmpty()) {
+                return;
+            }
+            int batchSize = config.getBatchSize() > 0 ? config.getBatchSize() : crops.size();
+            Predictor<Image, PlateResult> predictor = null;
+            try {
+                predictor = recPredictorPool.borrowObject();
+                for (int start = 0; start < crops.size(); start += batchSize) {
+                    int end = Math.min(crops.size(), start + batchSize);
+                    List<PlateResult> plateResults = batchPredict(predictor, crops.subList(start, end));
+                    for (int j = start; j < end; j++) {
+                        PlateResult plateResult = plateResults.get(j - start);
+                        if(Objects.nonNull(plateResult)){
+                            plates.get(j).setPlateNumber(plateResult.getPlateNo());
+                            plates.get(j).setPlateColor(plateResult.getPlateColor());
+                        }
+                    }
+                }
+            } finally {
+                if (predictor != null) {
                     try {
-                        predictor.close(); // 归还失败才销毁
-                    } catch (Exception ex) {
-                        log.error("关闭Predictor失败", ex);
+                        recPredictorPool.returnObject(predictor); //归还
+                    } catch (Exception e) {
+                        log.warn("归还Predictor失败", e);
+                        try {
+                            predictor.close(); // 归还失败才销毁
+                        } catch (Exception ex) {
+                            log.error("关闭Predictor失败", ex);
+                        }
                     }
                 }
             }
+        } finally {
+            crops.forEach(ImageUtils::releaseOpenCVMat);
+        }
+    }
+
+    private List<PlateResult> batchPredict(Predictor<Image, PlateResult> predictor, List<Image> crops) throws TranslateException {
+        if (!batchUnsupported || crops.size() == 1) {
+            try {
+                return predictor.batchPredict(crops);
+            } catch (TranslateException | RuntimeException e) {
+                if (crops.size() == 1) {
+                    throw e;
+                }
+                if (BatchInference.isBatchShapeError(e)) {
+                    // 导出时固定了batch维度，之后不再尝试批量推理
+                    batchUnsupported = true;
+                    log.warn("车牌识别模型不支持批量推理（batch维度固定），之后改为逐个识别", e);
+                } else {
+                    log.warn("车牌批量识别失败，本批改为逐个识别", e);
+                }
+            }
+        }
+        List<PlateResult> plateResults = new ArrayList<>(crops.size());
+        for (Image crop : crops) {
+            plateResults.add(predictor.predict(crop));
         }
+        return plateResults;
     }
 
     /**
@@ -213,6 +311,9 @@ public class CRNNPlateRecModel implements PlateRecModel{
 
         Mat merged = new Mat();
         Core.hconcat(mergeList, merged);
+        resizedUpper.release();
+        imgUpper.release();
+        imgLower.release();
         return merged;
     }
 
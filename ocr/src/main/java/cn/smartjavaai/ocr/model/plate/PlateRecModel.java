@@ -89,6 +89,15 @@ public interface PlateRecModel extends AutoCloseable{
         throw new UnsupportedOperationException("默认不支持该功能");
     }
 
+    /**
+     * 批量车牌识别（如多路摄像头同一时刻的画面），所有图片的车牌合并批量识别
+     * @param images DJL Image 列表
+     * @return 与输入顺序一致的车牌列表，未检测到车牌的图片对应空列表
+     */
+    default R<List<List<PlateInfo>>> recognize(List<Image> images){
+        throw new UnsupportedOperationException("默认不支持该功能");
+    }
+
     /**
      * 识别裁剪后的图片
      * @return
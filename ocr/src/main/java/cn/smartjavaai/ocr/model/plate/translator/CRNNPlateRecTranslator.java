@@ -38,22 +38,21 @@ public class CRNNPlateRecTranslator implements Translator<Image, PlateResult> {
                 .sub(MEAN)
                 .div(STD);
 
-        // HWC to CHW
+        // HWC to CHW，batch维度由 Batchifier 添加
         array = array.transpose(2, 0, 1);
-        array = array.expandDims(0); // batch dimension
 
         return new NDList(array);
     }
 
     @Override
     public PlateResult processOutput(TranslatorContext ctx, NDList list) {
-        NDArray plateOutput = list.get(0);  // shape: [1, T, num_classes]
-        NDArray colorOutput = list.get(1);  // shape: [1, num_colors]
+        NDArray plateOutput = list.get(0);  // shape: [T, num_classes]
+        NDArray colorOutput = list.get(1);  // shape: [num_colors]
 
         int[] plateIdx = plateOutput.argMax(-1)
                 .toType(DataType.INT32, false)
                 .toIntArray();
-        int colorIdx = colorOutput.argMax(1).toType(DataType.INT32, false).toIntArray()[0];
+        int colorIdx = colorOutput.argMax(-1).toType(DataType.INT32, false).toIntArray()[0];
 
         String plateNo = decodePlate(plateIdx);
         String plateColor = plateColors[colorIdx];
@@ -82,7 +81,8 @@ public class CRNNPlateRecTranslator implements Translator<Image, PlateResult> {
 
     @Override
     public Batchifier getBatchifier() {
-        return null; // 非批量任务
+        // 输入统一缩放到 168x48，支持批量推理
+        return Batchifier.STACK;
     }
 }
 
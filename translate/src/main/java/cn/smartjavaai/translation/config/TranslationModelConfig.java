@@ -23,6 +23,11 @@ public class TranslationModelConfig extends ModelConfig {
      */
     private String modelPath;
 
+    /**
+     * 批量翻译时单次推理的最大句子数
+     */
+    private int batchSize = 16;
+
 
 
 
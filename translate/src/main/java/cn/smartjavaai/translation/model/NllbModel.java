@@ -11,11 +11,13 @@ import ai.djl.ndarray.NDArray;
 import ai.djl.ndarray.NDList;
 import ai.djl.ndarray.NDManager;
 import ai.djl.ndarray.index.NDIndex;
+import ai.djl.ndarray.types.Shape;
 import ai.djl.repository.zoo.Criteria;
 import ai.djl.repository.zoo.ModelNotFoundException;
 import ai.djl.repository.zoo.ModelZoo;
 import ai.djl.repository.zoo.ZooModel;
 import ai.djl.translate.NoopTranslator;
+import ai.djl.translate.TranslateException;
 import cn.smartjavaai.common.entity.R;
 import cn.smartjavaai.common.enums.DeviceEnum;
 import cn.smartjavaai.common.pool.CommonPredictorFactory;
@@ -25,6 +27,7 @@ import cn.smartjavaai.translation.entity.GreedyBatchTensorList;
 import cn.smartjavaai.translation.entity.TranslateParam;
 import cn.smartjavaai.translation.exception.TranslationException;
 import cn.smartjavaai.translation.factory.TranslationModelFactory;
+import cn.smartjavaai.translation.model.translator.NllbBatchEncoderTranslator;
 import cn.smartjavaai.translation.model.translator.NllbDecoder2Translator;
 import cn.smartjavaai.translation.model.translator.NllbDecoderTranslator;
 import cn.smartjavaai.translation.model.translator.NllbEncoderTranslator;
@@ -38,6 +41,9 @@ import java.io.File;
 import java.io.IOException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
 import java.util.Objects;
 
 /**
@@ -55,6 +61,8 @@ public class NllbModel implements TranslationModel{
 
     private GenericObjectPool<Predictor<?, ?>> decode2PredictorPool;
 
+    private GenericObjectPool<Predictor<?, ?>> batchEncodePredictorPool;
+
     private ZooModel<NDList, NDList> nllbModel;
     private HuggingFaceTokenizer tokenizer;
 
@@ -88,6 +96,7 @@ public class NllbModel implements TranslationModel{
             encodePredictorPool = new GenericObjectPool<>(new CommonPredictorFactory(nllbModel,new NllbEncoderTranslator()));
             decodePredictorPool = new GenericObjectPool<>(new CommonPredictorFactory(nllbModel,new NllbDecoderTranslator()));
             decode2PredictorPool = new GenericObjectPool<>(new CommonPredictorFactory(nllbModel,new NllbDecoder2Translator()));
+            batchEncodePredictorPool = new GenericObjectPool<>(new CommonPredictorFactory(nllbModel,new NllbBatchEncoderTranslator()));
             Path tokenizerPath = modelPath.getParent().resolve("tokenizer.json");
             tokenizer = HuggingFaceTokenizer.newInstance(tokenizerPath);
             //初始化searchConfig
@@ -99,6 +108,7 @@ public class NllbModel implements TranslationModel{
             encodePredictorPool.setMaxTotal(predictorPoolSize);
             decodePredictorPool.setMaxTotal(predictorPoolSize);
             decode2PredictorPool.setMaxTotal(predictorPoolSize);
+            batchEncodePredictorPool.setMaxTotal(predictorPoolSize);
             log.debug("当前设备: " + nllbModel.getNDManager().getDevice());
             log.debug("当前引擎: " + Engine.getInstance().getEngineName());
             log.debug("模型推理器线程池最大数量: " + predictorPoolSize);
@@ -133,14 +143,8 @@ public class NllbModel implements TranslationModel{
             decoder2Predictor = (Predictor<NDList, CausalLMOutput>)decode2PredictorPool.borrowObject();
 
             Encoding encoding = tokenizer.encode(translateParam.getInput());
-            long[] ids = encoding.getIds();
             // 1. Encoder
-            long[] inputIds = new long[ids.length];
-            // 设置源语言编码
-            inputIds[0] = searchConfig.getSrcLangId();
-            for (int i = 0; i < ids.length - 1; i++) {
-                inputIds[i + 1] = ids[i];
-            }
+            long[] inputIds = buildInputIds(encoding, searchConfig.getSrcLangId());
 
             long[] attentionMask = encoding.getAttentionMask();
             NDArray attentionMaskArray = manager.create(attentionMask).expandDims(0);
@@ -236,6 +240,233 @@ public class NllbModel implements TranslationModel{
         }
     }
 
+    /**
+     * 构建编码器输入：首位为源语言编码
+     */
+    private long[] buildInputIds(Encoding encoding, long srcLangId) {
+        long[] ids = encoding.getIds();
+        long[] inputIds = new long[ids.length];
+        // 设置源语言编码
+        inputIds[0] = srcLangId;
+        for (int i = 0; i < ids.length - 1; i++) {
+            inputIds[i + 1] = ids[i];
+        }
+        return inputIds;
+    }
+
+    /**
+     * 批量翻译
+     * 句子按长度排序后分批，每批右侧补齐后执行一次编码器，解码时所有句子一起逐步贪婪解码，
+     * 生成结束符的句子从 past_key_values、编码器输出及 attention_mask 中移除，不再参与后续解码
+     * @param translateParams 翻译参数列表（各句的源语言、目标语言可以不同）
+     * @return 翻译结果，顺序与输入一致
+     */
+    @Override
+    public R<List<String>> translateBatch(List<TranslateParam> translateParams) {
+        if (translateParams == null) {
+            return R.fail(R.Status.PARAM_ERROR);
+        }
+        int size = translateParams.size();
+        for (int i = 0; i < size; i++) {
+            TranslateParam translateParam = translateParams.get(i);
+            if (translateParam == null) {
+                return R.fail(R.Status.PARAM_ERROR.getCode(), "第" + (i + 1) + "条翻译参数为空");
+            }
+            R<String> validateResult = translateParam.validate();
+            if (!validateResult.isSuccess()) {
+                return R.fail(validateResult.getCode(), "第" + (i + 1) + "条" + validateResult.getMessage());
+            }
+        }
+        if (size == 0) {
+            return R.ok(Collections.emptyList());
+        }
+        long[][] inputIds = new long[size][];
+        long[] srcLangIds = new long[size];
+        long[] tgtLangIds = new long[size];
+        for (int i = 0; i < size; i++) {
+            TranslateParam translateParam = translateParams.get(i);
+            srcLangIds[i] = translateParam.getSourceLanguage().getId();
+            tgtLangIds[i] = translateParam.getTargetLanguage().getId();
+            inputIds[i] = buildInputIds(tokenizer.encode(translateParam.getInput()), srcLangIds[i]);
+        }
+        // 按长度降序排序，减少补齐
+        Integer[] order = new Integer[size];
+        for (int i = 0; i < size; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> Integer.compare(inputIds[b].length, inputIds[a].length));
+        int batchSize = config.getBatchSize() > 0 ? config.getBatchSize() : size;
+
+        String[] results = new String[size];
+        Predictor<NDList, NDArray> encoderPredictor = null;
+        Predictor<NDList, CausalLMOutput> decoderPredictor = null;
+        Predictor<NDList, CausalLMOutput> decoder2Predictor = null;
+        try {
+            encoderPredictor = (Predictor<NDList, NDArray>)batchEncodePredictorPool.borrowObject();
+            decoderPredictor = (Predictor<NDList, CausalLMOutput>)decodePredictorPool.borrowObject();
+            decoder2Predictor = (Predictor<NDList, CausalLMOutput>)decode2PredictorPool.borrowObject();
+            for (int start = 0; start < size; start += batchSize) {
+                int end = Math.min(size, start + batchSize);
+                int count = end - start;
+                long[][] chunkIds = new long[count][];
+                long[] chunkSrc = new long[count];
+                long[] chunkTgt = new long[count];
+                for (int i = 0; i < count; i++) {
+                    int index = order[start + i];
+                    chunkIds[i] = inputIds[index];
+                    chunkSrc[i] = srcLangIds[index];
+                    chunkTgt[i] = tgtLangIds[index];
+                }
+                String[] chunkResults = translateChunk(encoderPredictor, decoderPredictor, decoder2Predictor, chunkIds, chunkSrc, chunkTgt);
+                for (int i = 0; i < count; i++) {
+                    results[order[start + i]] = chunkResults[i];
+                }
+            }
+            return R.ok(Arrays.asList(results));
+        } catch (Exception e) {
+            throw new TranslationException("翻译错误", e);
+        } finally {
+            returnPredictor(batchEncodePredictorPool, encoderPredictor);
+            returnPredictor(decodePredictorPool, decoderPredictor);
+            returnPredictor(decode2PredictorPool, decoder2Predictor);
+        }
+    }
+
+    /**
+     * 翻译一批句子
+     */
+    private String[] translateChunk(Predictor<NDList, NDArray> encoderPredictor,
+                                    Predictor<NDList, CausalLMOutput> decoderPredictor,
+                                    Predictor<NDList, CausalLMOutput> decoder2Predictor,
+                                    long[][] inputIds, long[] srcLangIds, long[] tgtLangIds) throws TranslateException {
+        int batch = inputIds.length;
+        int maxLength = 0;
+        for (long[] ids : inputIds) {
+            maxLength = Math.max(maxLength, ids.length);
+        }
+        // 右侧补齐
+        long[] paddedIds = new long[batch * maxLength];
+        long[] mask = new long[batch * maxLength];
+        Arrays.fill(paddedIds, searchConfig.getPadTokenId());
+        for (int b = 0; b < batch; b++) {
+            System.arraycopy(inputIds[b], 0, paddedIds, b * maxLength, inputIds[b].length);
+            Arrays.fill(mask, b * maxLength, b * maxLength + inputIds[b].length, 1);
+        }
+        int maxSeqLength = searchConfig.getMaxSeqLength();
+        long eosTokenId = searchConfig.getEosTokenId();
+        try (NDManager manager = NDManager.newBaseManager()) {
+            NDArray attentionMask = manager.create(mask, new Shape(batch, maxLength));
+            // 1. Encoder
+            NDArray encoderHiddenStates = encoderPredictor.predict(new NDList(manager.create(paddedIds, new Shape(batch, maxLength)), attentionMask));
+            encoderHiddenStates.attach(manager);
+
+            // 每句已生成的 token，首个为 decoderStartTokenId
+            long[][] outputIds = new long[batch][maxSeqLength];
+            int[] outputLengths = new int[batch];
+            // 仍在解码的句子 -> 批内原始行号
+            int[] active = new int[batch];
+            long[] startIds = new long[batch];
+            for (int b = 0; b < batch; b++) {
+                outputIds[b][0] = searchConfig.getDecoderStartTokenId();
+                outputLengths[b] = 1;
+                active[b] = b;
+                startIds[b] = searchConfig.getDecoderStartTokenId();
+            }
+            int activeCount = batch;
+
+            // 2. Initial Decoder
+            NDArray decoderInputIds = manager.create(startIds, new Shape(batch, 1));
+            CausalLMOutput modelOutput = decoderPredictor.predict(new NDList(decoderInputIds, encoderHiddenStates, attentionMask));
+            modelOutput.getLogits().attach(manager);
+            modelOutput.getPastKeyValuesList().attach(manager);
+            NDList pastKeyValues = modelOutput.getPastKeyValuesList();
+            boolean firstStep = true;
+            while (true) {
+                long[] nextTokens;
+                if (firstStep) {
+                    // ForcedBOSTokenLogitsProcessor：第一个生成的 token 为目标语言
+                    nextTokens = new long[activeCount];
+                    for (int i = 0; i < activeCount; i++) {
+                        nextTokens[i] = tgtLangIds[active[i]];
+                    }
+                    firstStep = false;
+                } else {
+                    nextTokens = modelOutput.getLogits().get(":, -1, :").argMax(-1).toLongArray();
+                }
+                modelOutput.getLogits().close();
+
+                int keepCount = 0;
+                long[] keep = new long[activeCount];
+                for (int i = 0; i < activeCount; i++) {
+                    int row = active[i];
+                    outputIds[row][outputLengths[row]++] = nextTokens[i];
+                    if (nextTokens[i] != eosTokenId && outputLengths[row] + 1 < maxSeqLength) {
+                        keep[keepCount] = i;
+                        nextTokens[keepCount] = nextTokens[i];
+                        active[keepCount] = row;
+                        keepCount++;
+                    }
+                }
+                if (keepCount == 0) {
+                    break;
+                }
+                // 移除已结束的句子
+                if (keepCount < activeCount) {
+                    NDArray index = manager.create(Arrays.copyOf(keep, keepCount));
+                    encoderHiddenStates = selectRows(encoderHiddenStates, index);
+                    attentionMask = selectRows(attentionMask, index);
+                    NDList keptKeyValues = new NDList(pastKeyValues.size());
+                    for (NDArray keyValue : pastKeyValues) {
+                        keptKeyValues.add(selectRows(keyValue, index));
+                    }
+                    pastKeyValues = keptKeyValues;
+                    index.close();
+                    activeCount = keepCount;
+                }
+                NDList decoderInput = new NDList(manager.create(Arrays.copyOf(nextTokens, activeCount), new Shape(activeCount, 1)),
+                        encoderHiddenStates, attentionMask);
+                decoderInput.addAll(pastKeyValues);
+                // 3. Decoder loop
+                modelOutput = decoder2Predictor.predict(decoderInput);
+                modelOutput.getLogits().attach(manager);
+                modelOutput.getPastKeyValuesList().attach(manager);
+                // 上一步的 past_key_values 已不再使用
+                pastKeyValues.close();
+                pastKeyValues = modelOutput.getPastKeyValuesList();
+            }
+            String[] results = new String[batch];
+            for (int b = 0; b < batch; b++) {
+                results[b] = TokenUtils.decode(searchConfig, tokenizer, Arrays.copyOf(outputIds[b], outputLengths[b]), srcLangIds[b], tgtLangIds[b]);
+            }
+            return results;
+        }
+    }
+
+    /**
+     * 按行号选取并释放原数组，保留名称（past_key_values 依赖名称组装输入）
+     */
+    private NDArray selectRows(NDArray array, NDArray index) {
+        NDArray selected = array.get(index);
+        selected.setName(array.getName());
+        array.close();
+        return selected;
+    }
+
+    private void returnPredictor(GenericObjectPool<Predictor<?, ?>> pool, Predictor<?, ?> predictor) {
+        if (predictor != null) {
+            try {
+                pool.returnObject(predictor); //归还
+            } catch (Exception e) {
+                log.warn("归还Predictor失败", e);
+                try {
+                    predictor.close(); // 归还失败才销毁
+                } catch (Exception ex) {
+                    log.error("关闭Predictor失败", ex);
+                }
+            }
+        }
+    }
+
     public NDArray greedyStepGen(NllbSearchConfig config, NDArray pastOutputIds, NDArray next_token_scores, NDManager manager) {
         next_token_scores = next_token_scores.get(":, -1, :");
 
@@ -313,6 +544,13 @@ public class NllbModel implements TranslationModel{
         } catch (Exception e) {
             log.warn("关闭 decode2PredictorPool 失败", e);
         }
+        try {
+            if (batchEncodePredictorPool != null) {
+                batchEncodePredictorPool.close();
+            }
+        } catch (Exception e) {
+            log.warn("关闭 batchEncodePredictorPool 失败", e);
+        }
     }
 
     private boolean fromFactory = false;
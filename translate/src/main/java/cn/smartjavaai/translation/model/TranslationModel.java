@@ -4,6 +4,9 @@ import cn.smartjavaai.common.entity.R;
 import cn.smartjavaai.translation.config.TranslationModelConfig;
 import cn.smartjavaai.translation.entity.TranslateParam;
 
+import java.util.ArrayList;
+import java.util.List;
+
 /**
  * 机器翻译通用检测模型
  * @author lwx
@@ -38,6 +41,27 @@ public interface TranslationModel extends AutoCloseable{
     }
 
 
+    /**
+     * 批量机器翻译
+     * @param translateParams 翻译参数列表
+     * @return 翻译结果，顺序与输入一致
+     */
+    default R<List<String>> translateBatch(List<TranslateParam> translateParams) {
+        if (translateParams == null) {
+            return R.fail(R.Status.PARAM_ERROR);
+        }
+        List<String> results = new ArrayList<>(translateParams.size());
+        for (TranslateParam translateParam : translateParams) {
+            R<String> result = translate(translateParam);
+            if (!result.isSuccess()) {
+                return R.fail(result.getCode(), result.getMessage());
+            }
+            results.add(result.getData());
+        }
+        return R.ok(results);
+    }
+
+
     default void setFromFactory(boolean fromFactory){
         throw new UnsupportedOperationException("默认不支持该功能");
     }
@@ -0,0 +1,40 @@
+package cn.smartjavaai.translation.model.translator;
+
+import ai.djl.ndarray.NDArray;
+import ai.djl.ndarray.NDList;
+import ai.djl.translate.NoBatchifyTranslator;
+import ai.djl.translate.TranslatorContext;
+
+/**
+ * 批量编码器前后处理
+ * 输入为右侧补齐后的 input_ids [batch, seq] 及 attention_mask [batch, seq]
+ *
+ * @author lwx
+ */
+public class NllbBatchEncoderTranslator implements NoBatchifyTranslator<NDList, NDArray> {
+
+    public NllbBatchEncoderTranslator() {
+    }
+
+    @Override
+    public NDList processInput(TranslatorContext ctx, NDList input) throws Exception {
+        NDArray inputIdArray = input.get(0);
+        inputIdArray.setName("input_ids");
+
+        NDArray attentionMaskArray = input.get(1);
+        attentionMaskArray.setName("attention_mask");
+
+        NDArray placeholder = ctx.getNDManager().create(0);
+        placeholder.setName("module_method:encoder");
+
+        return new NDList(inputIdArray, attentionMaskArray, placeholder);
+    }
+
+    @Override
+    public NDArray processOutput(TranslatorContext ctx, NDList list) {
+        NDArray encoderHiddenStates = list.get(0);
+        encoderHiddenStates.detach();
+        return encoderHiddenStates;
+    }
+
+}
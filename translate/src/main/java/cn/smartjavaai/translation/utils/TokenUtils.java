@@ -5,7 +5,6 @@ import ai.djl.ndarray.NDArray;
 import cn.smartjavaai.translation.config.NllbSearchConfig;
 
 
-import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Map;
 
@@ -28,23 +27,28 @@ public final class TokenUtils {
      * @return
      */
     public static String decode(NllbSearchConfig config, HuggingFaceTokenizer tokenizer, NDArray output) {
-        long[] outputIds = output.toLongArray();
-        ArrayList<Long> outputIdsList = new ArrayList<>();
+        return decode(config, tokenizer, output.toLongArray(), config.getSrcLangId(), config.getForcedBosTokenId());
+    }
 
+    /**
+     * 语言解码（批量翻译时各句的源语言、目标语言可能不同）
+     *
+     * @param tokenizer
+     * @param outputIds 输出 token
+     * @param srcLangId 源语言编码
+     * @param tgtLangId 目标语言编码
+     * @return
+     */
+    public static String decode(NllbSearchConfig config, HuggingFaceTokenizer tokenizer, long[] outputIds, long srcLangId, long tgtLangId) {
+        long[] ids = new long[outputIds.length];
+        int count = 0;
         for (long id : outputIds) {
-            if (id == config.getEosTokenId() || id==config.getSrcLangId() || id==config.getForcedBosTokenId()) {
+            if (id == config.getEosTokenId() || id == srcLangId || id == tgtLangId) {
                 continue;
             }
-            outputIdsList.add(id);
-        }
-
-        Long[] objArr =  outputIdsList.toArray(new Long[0]);
-        long[] ids = new long[objArr.length];
-        for (int i = 0; i < objArr.length; i++) {
-            ids[i] = objArr[i];
+            ids[count++] = id;
         }
-        String text = tokenizer.decode(ids);
-        return text;
+        return tokenizer.decode(Arrays.copyOf(ids, count));
     }
 
     /**
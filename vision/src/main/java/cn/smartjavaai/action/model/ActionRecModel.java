@@ -9,6 +9,7 @@ import cn.smartjavaai.objectdetection.config.DetectorModelConfig;
 
 import java.awt.image.BufferedImage;
 import java.io.InputStream;
+import java.util.List;
 
 /**
  * 人类动作识别模型
@@ -34,6 +35,15 @@ public interface ActionRecModel extends AutoCloseable{
     }
 
 
+    /**
+     * 批量动作识别
+     * @param images 图片列表（尺寸可以不同）
+     * @return 识别结果，顺序与输入一致
+     */
+    default R<List<Classifications>> batchDetect(List<Image> images){
+        throw new UnsupportedOperationException("默认不支持该功能");
+    }
+
     default void setFromFactory(boolean fromFactory){
         throw new UnsupportedOperationException("默认不支持该功能");
     }
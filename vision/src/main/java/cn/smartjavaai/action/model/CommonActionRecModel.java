@@ -13,6 +13,8 @@ import ai.djl.repository.zoo.ZooModel;
 import cn.hutool.core.img.ImgUtil;
 import cn.smartjavaai.action.config.ActionRecModelConfig;
 import cn.smartjavaai.action.criteria.ActionRecCriteriaFactory;
+import cn.smartjavaai.common.batch.BatchInference;
+import cn.smartjavaai.common.batch.DynamicBatcher;
 import cn.smartjavaai.common.entity.DetectionResponse;
 import cn.smartjavaai.common.entity.R;
 import cn.smartjavaai.common.pool.PredictorFactory;
@@ -27,7 +29,9 @@ import org.apache.commons.pool2.impl.GenericObjectPool;
 
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.List;
 import java.util.Objects;
 
 /**
@@ -44,6 +48,8 @@ public class CommonActionRecModel implements ActionRecModel{
 
     private GenericObjectPool<Predictor<Image, Classifications>> predictorPool;
 
+    private BatchInference<Image, Classifications> batchInference;
+
     @Override
     public void loadModel(ActionRecModelConfig config) {
         if(Objects.isNull(config.getModelEnum())){
@@ -60,6 +66,8 @@ public class CommonActionRecModel implements ActionRecModel{
                 predictorPoolSize = Runtime.getRuntime().availableProcessors(); // 默认等于CPU核心数
             }
             predictorPool.setMaxTotal(predictorPoolSize);
+            DynamicBatcher.warnUnsupported("动作识别", config);
+            this.batchInference = new BatchInference<>("动作识别", predictorPool, null, config);
             log.debug("当前设备: " + model.getNDManager().getDevice());
             log.debug("当前引擎: " + Engine.getInstance().getEngineName());
             log.debug("模型推理器线程池最大数量: " + predictorPoolSize);
@@ -71,12 +79,30 @@ public class CommonActionRecModel implements ActionRecModel{
 
     @Override
     public R<Classifications> detect(Image image) {
-        Classifications classifications = detectCore(image);
-        // 过滤
+        return R.ok(filter(detectCore(image)));
+    }
+
+    @Override
+    public R<List<Classifications>> batchDetect(List<Image> images) {
+        if(images == null){
+            return R.fail(R.Status.PARAM_ERROR);
+        }
+        List<Classifications> results = batchDetectCore(images);
+        List<Classifications> filtered = new ArrayList<>(results.size());
+        for (Classifications result : results) {
+            filtered.add(filter(result));
+        }
+        return R.ok(filtered);
+    }
+
+    /**
+     * 按配置的类别及阈值过滤识别结果
+     */
+    private Classifications filter(Classifications classifications) {
         if(Objects.nonNull(classifications) && !classifications.items().isEmpty()){
-            classifications = new ClassificationFilter(config.getAllowedClasses(), config.getThreshold()).filter(classifications);
+            return new ClassificationFilter(config.getAllowedClasses(), config.getThreshold()).filter(classifications);
         }
-        return R.ok(classifications);
+        return classifications;
     }
 
     /**
@@ -108,6 +134,19 @@ public class CommonActionRecModel implements ActionRecModel{
         }
     }
 
+    /**
+     * 批量动作识别：共用一个 Predictor 逐张推理（Translator 自行添加batch维度且未提供 Batchifier，不会合并为一次前向推理）
+     * @param images 图片列表（尺寸可以不同）
+     * @return 结果，顺序与输入一致
+     */
+    public List<Classifications> batchDetectCore(List<Image> images) {
+        try {
+            return batchInference.predict(images);
+        } catch (Exception e) {
+            throw new DetectionException("动作识别错误", e);
+        }
+    }
+
     @Override
     public void close() throws Exception {
         if (fromFactory) {
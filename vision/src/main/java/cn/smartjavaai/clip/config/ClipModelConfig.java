@@ -27,6 +27,16 @@ public class ClipModelConfig extends ModelConfig {
      */
     private String modelPath;
 
+    /**
+     * 文本特征缓存容量（条数，不含注册的词表）
+     */
+    private int promptCacheSize = 10000;
+
+    /**
+     * logit_scale，为null时读取模型参数 logit_scale，读取失败时使用 100
+     */
+    private Float logitScale;
+
 
 
     public ClipModelConfig() {
@@ -0,0 +1,58 @@
+package cn.smartjavaai.clip.entity;
+
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 特征矩阵：多条特征按行连续存储在 float[rows*dimension] 中，避免逐行分配数组
+ * @author dwj
+ */
+@Getter
+public class FeatureMatrix {
+
+    /**
+     * 特征数据，第 i 行位于 [i*dimension, (i+1)*dimension)
+     */
+    private final float[] data;
+
+    /**
+     * 行数
+     */
+    private final int rows;
+
+    /**
+     * 特征维度
+     */
+    private final int dimension;
+
+    public FeatureMatrix(float[] data, int rows, int dimension) {
+        if (data.length != rows * dimension) {
+            throw new IllegalArgumentException("特征数据长度与行数、维度不一致");
+        }
+        this.data = data;
+        this.rows = rows;
+        this.dimension = dimension;
+    }
+
+    /**
+     * 复制第 index 行
+     */
+    public float[] row(int index) {
+        float[] row = new float[dimension];
+        System.arraycopy(data, index * dimension, row, 0, dimension);
+        return row;
+    }
+
+    /**
+     * 拆分为逐行数组
+     */
+    public List<float[]> toList() {
+        List<float[]> list = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            list.add(row(i));
+        }
+        return list;
+    }
+}
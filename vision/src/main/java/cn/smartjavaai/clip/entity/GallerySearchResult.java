@@ -0,0 +1,26 @@
+package cn.smartjavaai.clip.entity;
+
+import lombok.Data;
+
+/**
+ * 图库检索结果
+ * @author dwj
+ */
+@Data
+public class GallerySearchResult {
+
+    /**
+     * 图片ID
+     */
+    private String id;
+
+    /**
+     * 余弦相似度
+     */
+    private float similarity;
+
+    public GallerySearchResult(String id, float similarity) {
+        this.id = id;
+        this.similarity = similarity;
+    }
+}
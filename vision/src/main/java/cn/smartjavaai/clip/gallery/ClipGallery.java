@@ -0,0 +1,372 @@
+package cn.smartjavaai.clip.gallery;
+
+import ai.djl.modality.cv.Image;
+import cn.smartjavaai.clip.entity.FeatureMatrix;
+import cn.smartjavaai.clip.entity.GallerySearchResult;
+import cn.smartjavaai.clip.exception.ClipException;
+import cn.smartjavaai.clip.model.ClipModel;
+import cn.smartjavaai.common.config.Config;
+import cn.smartjavaai.common.entity.R;
+import cn.smartjavaai.common.index.BlockScanner;
+import cn.smartjavaai.common.index.TopKHeap;
+import cn.smartjavaai.common.utils.SimilarityUtil;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.File;
+import java.util.*;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * CLIP 图库：以图搜图、以文搜图
+ * 图片特征L2归一化后按行存放在固定行数的连续 float 块中，检索时按块并行扫描（见 {@link BlockScanner}）取TopK；
+ * 同时写入 {@link Config#getCachePath()} 下的内存映射文件（见 {@link MappedGalleryStore}），重启后直接加载，无需重新提取特征
+ * @author dwj
+ */
+@Slf4j
+public class ClipGallery implements AutoCloseable {
+
+    private static final String GALLERY_DIR = "clip_gallery";
+
+    /**
+     * 每个块的行数
+     */
+    private static final int BLOCK_ROWS = 1024;
+
+    private final ClipModel model;
+
+    private final MappedGalleryStore store;
+
+    private final int parallelism = Runtime.getRuntime().availableProcessors();
+
+    private int dimension;
+
+    private float[][] blocks = new float[0][];
+
+    private String[] ids = new String[0];
+
+    private int size;
+
+    private final Map<String, Integer> rowIndex = new HashMap<>();
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * @param model CLIP 模型
+     * @param name 图库名称，文件保存在缓存目录下的 clip_gallery/{name}.gallery
+     */
+    public ClipGallery(ClipModel model, String name) {
+        this(model, new File(Config.getCachePath() + File.separator + GALLERY_DIR, name + ".gallery"));
+    }
+
+    /**
+     * @param model CLIP 模型
+     * @param file 图库文件
+     */
+    public ClipGallery(ClipModel model, File file) {
+        if (Objects.isNull(model)) {
+            throw new ClipException("模型不能为空");
+        }
+        this.model = model;
+        this.store = new MappedGalleryStore(file);
+        load();
+    }
+
+    private void load() {
+        dimension = store.getDimension();
+        int count = store.getCount();
+        if (dimension == 0 || count == 0) {
+            return;
+        }
+        ensureCapacity(count);
+        for (int row = 0; row < count; row++) {
+            String id = store.readId(row);
+            if (row == count - 1 && rowIndex.containsKey(id)) {
+                // 删除时已把最后一行复制到被删除位置但未来得及更新行数，丢弃重复的最后一行
+                count--;
+                store.setCount(count);
+                break;
+            }
+            store.readVector(row, blocks[row / BLOCK_ROWS], (row % BLOCK_ROWS) * dimension);
+            ids[row] = id;
+            rowIndex.put(id, row);
+        }
+        size = count;
+        log.debug("图库加载完成: {}, 图片数: {}", store.getFile().getAbsolutePath(), size);
+    }
+
+    /**
+     * 添加图片，ID已存在时覆盖
+     * @param id 图片ID
+     * @param image 图片
+     */
+    public void add(String id, Image image) {
+        add(id, unwrap(model.extractImageFeatures(image)));
+    }
+
+    /**
+     * 批量添加图片（批量提取特征）
+     * @param ids 图片ID
+     * @param images 图片
+     */
+    public void addAll(List<String> ids, List<Image> images) {
+        if (Objects.isNull(ids) || Objects.isNull(images) || ids.size() != images.size()) {
+            throw new ClipException("图片ID与图片数量不一致");
+        }
+        if (ids.isEmpty()) {
+            return;
+        }
+        FeatureMatrix matrix = unwrap(model.extractImageFeatureMatrix(images));
+        lock.writeLock().lock();
+        try {
+            for (int i = 0; i < matrix.getRows(); i++) {
+                put(ids.get(i), matrix.getData(), i * matrix.getDimension(), matrix.getDimension());
+            }
+        } finally {
+            store.setCount(size);
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 添加特征，ID已存在时覆盖
+     * @param id 图片ID
+     * @param embedding 图片特征
+     */
+    public void add(String id, float[] embedding) {
+        if (Objects.isNull(embedding) || embedding.length == 0) {
+            throw new ClipException("特征不能为空");
+        }
+        lock.writeLock().lock();
+        try {
+            put(id, embedding, 0, embedding.length);
+        } finally {
+            store.setCount(size);
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void put(String id, float[] data, int offset, int length) {
+        if (Objects.isNull(id)) {
+            throw new ClipException("图片ID不能为空");
+        }
+        MappedGalleryStore.encodeId(id);
+        if (dimension == 0) {
+            store.initDimension(length);
+            dimension = length;
+        } else if (length != dimension) {
+            throw new ClipException("特征向量长度不一致: " + length + " vs " + dimension);
+        }
+        Integer row = rowIndex.get(id);
+        if (row == null) {
+            row = size;
+            ensureCapacity(size + 1);
+            rowIndex.put(id, row);
+            size++;
+        }
+        float[] block = blocks[row / BLOCK_ROWS];
+        int blockOffset = (row % BLOCK_ROWS) * dimension;
+        System.arraycopy(data, offset, block, blockOffset, dimension);
+        normalize(block, blockOffset, dimension);
+        ids[row] = id;
+        store.write(row, id, block, blockOffset);
+    }
+
+    /**
+     * 删除图片，使用最后一行填补被删除的位置
+     * 先复制最后一行再更新行数：中途退出时文件末行与填补行重复，加载时丢弃重复的末行，不会丢失或复活数据
+     * @param id 图片ID
+     * @return 是否存在并删除
+     */
+    public boolean remove(String id) {
+        lock.writeLock().lock();
+        try {
+            Integer row = rowIndex.remove(id);
+            if (row == null) {
+                return false;
+            }
+            int last = size - 1;
+            if (row != last) {
+                System.arraycopy(blocks[last / BLOCK_ROWS], (last % BLOCK_ROWS) * dimension,
+                        blocks[row / BLOCK_ROWS], (row % BLOCK_ROWS) * dimension, dimension);
+                ids[row] = ids[last];
+                rowIndex.put(ids[row], row);
+                store.copy(last, row);
+            }
+            ids[last] = null;
+            size--;
+            store.setCount(size);
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public boolean contains(String id) {
+        lock.readLock().lock();
+        try {
+            return rowIndex.containsKey(id);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 以文搜图
+     * @param text 文本
+     * @param topK 返回数量
+     * @return 按相似度降序排列的结果
+     */
+    public List<GallerySearchResult> searchByText(String text, int topK) {
+        return search(unwrap(model.extractTextFeatures(text)), topK, -1f);
+    }
+
+    /**
+     * 以图搜图
+     * @param image 图片
+     * @param topK 返回数量
+     * @return 按相似度降序排列的结果
+     */
+    public List<GallerySearchResult> searchByImage(Image image, int topK) {
+        return search(unwrap(model.extractImageFeatures(image)), topK, -1f);
+    }
+
+    /**
+     * 查找与图库中指定图片重复（相似度不低于阈值）的图片，不包含其自身
+     * @param id 图片ID
+     * @param threshold 相似度阈值
+     * @param topK 最多返回数量
+     * @return 按相似度降序排列的结果
+     */
+    public List<GallerySearchResult> findDuplicates(String id, float threshold, int topK) {
+        float[] query;
+        lock.readLock().lock();
+        try {
+            Integer row = rowIndex.get(id);
+            if (row == null) {
+                return Collections.emptyList();
+            }
+            query = Arrays.copyOfRange(blocks[row / BLOCK_ROWS], (row % BLOCK_ROWS) * dimension,
+                    (row % BLOCK_ROWS + 1) * dimension);
+        } finally {
+            lock.readLock().unlock();
+        }
+        List<GallerySearchResult> results = search(query, topK + 1, threshold);
+        results.removeIf(result -> result.getId().equals(id));
+        return results.size() > topK ? new ArrayList<>(results.subList(0, topK)) : results;
+    }
+
+    /**
+     * 按特征检索
+     * @param queryVector 查询特征（无需归一化）
+     * @param topK 返回数量
+     * @param threshold 相似度阈值
+     * @return 按相似度降序排列的结果
+     */
+    public List<GallerySearchResult> search(float[] queryVector, int topK, float threshold) {
+        lock.readLock().lock();
+        try {
+            if (size == 0 || topK <= 0) {
+                return new ArrayList<>();
+            }
+            if (queryVector == null || queryVector.length != dimension) {
+                throw new ClipException("查询向量长度不一致: " +
+                        (queryVector == null ? 0 : queryVector.length) + " vs " + dimension);
+            }
+            float[] query = queryVector.clone();
+            normalize(query, 0, dimension);
+            int blockCount = (size + BLOCK_ROWS - 1) / BLOCK_ROWS;
+            TopKHeap heap = BlockScanner.scan(blockCount, parallelism, topK,
+                    (b, local) -> scanBlock(b, query, threshold, local));
+            float[] scores = new float[heap.size()];
+            int[] rows = new int[heap.size()];
+            int n = heap.drain(scores, rows);
+            List<GallerySearchResult> results = new ArrayList<>(n);
+            for (int i = 0; i < n; i++) {
+                results.add(new GallerySearchResult(ids[rows[i]], scores[i]));
+            }
+            return results;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void scanBlock(int blockIndex, float[] query, float threshold, TopKHeap heap) {
+        float[] block = blocks[blockIndex];
+        int startRow = blockIndex * BLOCK_ROWS;
+        int endRow = Math.min(size, startRow + BLOCK_ROWS);
+        int offset = 0;
+        for (int row = startRow; row < endRow; row++, offset += dimension) {
+            // 特征均已归一化，点积即余弦相似度
+            float score = SimilarityUtil.dotProduct(query, block, offset, dimension);
+            if (score >= threshold && score > heap.minScore()) {
+                heap.offer(score, row);
+            }
+        }
+    }
+
+    private static void normalize(float[] data, int offset, int length) {
+        float sum = 0f;
+        for (int i = offset; i < offset + length; i++) {
+            sum += data[i] * data[i];
+        }
+        if (sum > 0) {
+            float inv = (float) (1.0 / Math.sqrt(sum));
+            for (int i = offset; i < offset + length; i++) {
+                data[i] *= inv;
+            }
+        }
+    }
+
+    private void ensureCapacity(int required) {
+        int blockCount = (required + BLOCK_ROWS - 1) / BLOCK_ROWS;
+        if (blockCount > blocks.length) {
+            blocks = Arrays.copyOf(blocks, Math.max(blockCount, blocks.length + (blocks.length >> 1)));
+        }
+        for (int i = 0; i < blockCount; i++) {
+            if (blocks[i] == null) {
+                blocks[i] = new float[BLOCK_ROWS * dimension];
+            }
+        }
+        if (required > ids.length) {
+            ids = Arrays.copyOf(ids, Math.max(required, ids.length + (ids.length >> 1)));
+        }
+    }
+
+    private static <T> T unwrap(R<T> result) {
+        if (!result.isSuccess()) {
+            throw new ClipException(result.getMessage());
+        }
+        return result.getData();
+    }
+
+    /**
+     * 刷盘
+     */
+    public void flush() {
+        lock.writeLock().lock();
+        try {
+            store.flush();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void close() {
+        lock.writeLock().lock();
+        try {
+            store.close();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+}
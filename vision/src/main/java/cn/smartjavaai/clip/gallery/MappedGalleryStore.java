@@ -0,0 +1,259 @@
+package cn.smartjavaai.clip.gallery;
+
+import cn.smartjavaai.clip.exception.ClipException;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * 图库特征文件：定长槽位的内存映射文件
+ * 文件头记录维度及行数，第 i 行槽位格式为 [ID长度(2) ID(UTF-8，补齐到126字节) float*维度]；
+ * 按段映射（单个映射不超过2GB），每段按写入位置倍增映射长度并扩展文件，避免一次映射整段
+ * @author dwj
+ */
+@Slf4j
+public class MappedGalleryStore implements AutoCloseable {
+
+    private static final int MAGIC = 0x534A4347;
+
+    private static final int VERSION = 1;
+
+    private static final int HEADER_SIZE = 64;
+
+    private static final int DIMENSION_OFFSET = 8;
+
+    private static final int COUNT_OFFSET = 12;
+
+    /**
+     * ID 区字节数（含2字节长度）
+     */
+    public static final int ID_BYTES = 128;
+
+    /**
+     * 每段最多映射的行数
+     */
+    private static final int SEGMENT_ROWS = 1 << 16;
+
+    /**
+     * 段首次映射的行数，之后按需倍增至段上限
+     */
+    private static final int INITIAL_SEGMENT_ROWS = 1 << 10;
+
+    private final File file;
+
+    private final RandomAccessFile raf;
+
+    private final FileChannel channel;
+
+    private final MappedByteBuffer header;
+
+    private MappedByteBuffer[] segments = new MappedByteBuffer[0];
+
+    /**
+     * 各段当前已映射的行数
+     */
+    private int[] segmentCapacity = new int[0];
+
+    private int dimension;
+
+    private int slotSize;
+
+    /**
+     * 每段行数，保证单段映射长度不超过 Integer.MAX_VALUE
+     */
+    private int segmentRows;
+
+    public MappedGalleryStore(File file) {
+        this.file = file;
+        File parent = file.getParentFile();
+        if (parent != null && !parent.exists() && !parent.mkdirs()) {
+            throw new ClipException("创建图库目录失败: " + parent.getAbsolutePath());
+        }
+        try {
+            this.raf = new RandomAccessFile(file, "rw");
+            this.channel = raf.getChannel();
+            this.header = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE);
+        } catch (IOException e) {
+            throw new ClipException("图库文件映射失败: " + file.getAbsolutePath(), e);
+        }
+        if (header.getInt(0) != MAGIC || header.getInt(4) != VERSION) {
+            header.putInt(0, MAGIC);
+            header.putInt(4, VERSION);
+            header.putInt(DIMENSION_OFFSET, 0);
+            header.putInt(COUNT_OFFSET, 0);
+        } else {
+            setDimension(header.getInt(DIMENSION_OFFSET));
+        }
+    }
+
+    /**
+     * 特征维度，空文件返回0
+     */
+    public int getDimension() {
+        return dimension;
+    }
+
+    /**
+     * 确定特征维度（仅首次写入前调用）
+     */
+    public void initDimension(int dimension) {
+        if (this.dimension != 0) {
+            throw new ClipException("图库维度已确定: " + this.dimension);
+        }
+        setDimension(dimension);
+        header.putInt(DIMENSION_OFFSET, dimension);
+    }
+
+    private void setDimension(int dimension) {
+        this.dimension = dimension;
+        this.slotSize = ID_BYTES + dimension * 4;
+        this.segmentRows = (int) Math.max(1, Math.min(SEGMENT_ROWS, Integer.MAX_VALUE / slotSize));
+    }
+
+    /**
+     * 已提交的行数
+     */
+    public int getCount() {
+        return dimension == 0 ? 0 : header.getInt(COUNT_OFFSET);
+    }
+
+    /**
+     * 更新行数，行数据写完后调用，异常退出时最多丢失未提交的行
+     */
+    public void setCount(int count) {
+        header.putInt(COUNT_OFFSET, count);
+    }
+
+    public String readId(int row) {
+        MappedByteBuffer segment = segment(row);
+        int base = slotOffset(row);
+        int length = segment.getShort(base);
+        byte[] bytes = new byte[length];
+        for (int i = 0; i < length; i++) {
+            bytes[i] = segment.get(base + 2 + i);
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 读取特征
+     * @param row 行号
+     * @param target 目标数组
+     * @param targetOffset 目标偏移
+     */
+    public void readVector(int row, float[] target, int targetOffset) {
+        MappedByteBuffer segment = segment(row);
+        int base = slotOffset(row) + ID_BYTES;
+        for (int i = 0; i < dimension; i++) {
+            target[targetOffset + i] = segment.getFloat(base + i * 4);
+        }
+    }
+
+    /**
+     * 写入一行
+     * @param row 行号
+     * @param id ID
+     * @param vector 特征数据
+     * @param vectorOffset 特征在数组中的偏移
+     */
+    public void write(int row, String id, float[] vector, int vectorOffset) {
+        byte[] bytes = encodeId(id);
+        MappedByteBuffer segment = segment(row);
+        int base = slotOffset(row);
+        segment.putShort(base, (short) bytes.length);
+        for (int i = 0; i < bytes.length; i++) {
+            segment.put(base + 2 + i, bytes[i]);
+        }
+        base += ID_BYTES;
+        for (int i = 0; i < dimension; i++) {
+            segment.putFloat(base + i * 4, vector[vectorOffset + i]);
+        }
+    }
+
+    /**
+     * 复制一行（删除时用最后一行填补）
+     */
+    public void copy(int from, int to) {
+        MappedByteBuffer source = segment(from);
+        MappedByteBuffer target = segment(to);
+        int sourceBase = slotOffset(from);
+        int targetBase = slotOffset(to);
+        for (int i = 0; i < slotSize; i++) {
+            target.put(targetBase + i, source.get(sourceBase + i));
+        }
+    }
+
+    /**
+     * 校验ID长度
+     * @return UTF-8 编码
+     */
+    public static byte[] encodeId(String id) {
+        byte[] bytes = id.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > ID_BYTES - 2) {
+            throw new ClipException("ID过长（UTF-8 不超过" + (ID_BYTES - 2) + "字节）: " + id);
+        }
+        return bytes;
+    }
+
+    private int slotOffset(int row) {
+        return Math.toIntExact((long) (row % segmentRows) * slotSize);
+    }
+
+    private synchronized MappedByteBuffer segment(int row) {
+        int index = row / segmentRows;
+        if (index >= segments.length) {
+            segments = Arrays.copyOf(segments, index + 1);
+            segmentCapacity = Arrays.copyOf(segmentCapacity, index + 1);
+        }
+        int needed = row % segmentRows + 1;
+        MappedByteBuffer segment = segments[index];
+        if (segment == null || needed > segmentCapacity[index]) {
+            int capacity = Math.max(segmentCapacity[index], Math.min(INITIAL_SEGMENT_ROWS, segmentRows));
+            while (capacity < needed) {
+                capacity = (int) Math.min((long) capacity * 2, segmentRows);
+            }
+            long position = HEADER_SIZE + (long) index * segmentRows * slotSize;
+            try {
+                segment = channel.map(FileChannel.MapMode.READ_WRITE, position, (long) capacity * slotSize);
+            } catch (IOException e) {
+                throw new ClipException("图库文件映射失败: " + file.getAbsolutePath(), e);
+            }
+            segments[index] = segment;
+            segmentCapacity[index] = capacity;
+        }
+        return segment;
+    }
+
+    /**
+     * 刷盘
+     */
+    public synchronized void flush() {
+        header.force();
+        for (MappedByteBuffer segment : segments) {
+            if (segment != null) {
+                segment.force();
+            }
+        }
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    @Override
+    public void close() {
+        flush();
+        try {
+            channel.close();
+            raf.close();
+        } catch (IOException e) {
+            log.warn("关闭图库文件失败", e);
+        }
+    }
+}
@@ -1,9 +1,13 @@
 package cn.smartjavaai.clip.model;
 
+import ai.djl.modality.Classifications;
 import ai.djl.modality.cv.Image;
 import cn.smartjavaai.clip.config.ClipModelConfig;
+import cn.smartjavaai.clip.entity.FeatureMatrix;
 import cn.smartjavaai.common.entity.R;
 
+import java.util.List;
+
 /**
  * @author dwj
  * @date 2025/10/20
@@ -34,6 +38,15 @@ public interface ClipModel extends AutoCloseable{
         throw new UnsupportedOperationException("默认不支持该功能");
     }
 
+    /**
+     * 图片特征提取
+     * @param imageData 图片编码字节
+     * @return
+     */
+    default R<float[]> extractImageFeatures(byte[] imageData){
+        throw new UnsupportedOperationException("默认不支持该功能");
+    }
+
     /**
      * 文本特征提取
      * @param inputs
@@ -43,6 +56,42 @@ public interface ClipModel extends AutoCloseable{
         throw new UnsupportedOperationException("默认不支持该功能");
     }
 
+    /**
+     * 批量图片特征提取，按 maxBatchSize 分批推理
+     * @param images 图片
+     * @return 特征，顺序与图片一致
+     */
+    default R<List<float[]>> extractImageFeatures(List<Image> images){
+        throw new UnsupportedOperationException("默认不支持该功能");
+    }
+
+    /**
+     * 批量图片特征提取，结果按行连续存储
+     * @param images 图片
+     * @return 特征矩阵，第 i 行对应第 i 张图片
+     */
+    default R<FeatureMatrix> extractImageFeatureMatrix(List<Image> images){
+        throw new UnsupportedOperationException("默认不支持该功能");
+    }
+
+    /**
+     * 批量文本特征提取，批内按最长序列动态填充
+     * @param texts 文本
+     * @return 特征，顺序与文本一致
+     */
+    default R<List<float[]>> extractTextFeatures(List<String> texts){
+        throw new UnsupportedOperationException("默认不支持该功能");
+    }
+
+    /**
+     * 批量文本特征提取，结果按行连续存储
+     * @param texts 文本
+     * @return 特征矩阵，第 i 行对应第 i 条文本
+     */
+    default R<FeatureMatrix> extractTextFeatureMatrix(List<String> texts){
+        throw new UnsupportedOperationException("默认不支持该功能");
+    }
+
     /**
      * 文本和图片特征比较
      * @param image
@@ -53,6 +102,34 @@ public interface ClipModel extends AutoCloseable{
         throw new UnsupportedOperationException("默认不支持该功能");
     }
 
+    /**
+     * 图片与多个文本比较，文本特征按（模型，规范化文本）缓存，每次只运行图像编码器
+     * @param image 图片
+     * @param texts 文本
+     * @return 每个文本的 logits（logit_scale * 余弦相似度），顺序与文本一致
+     */
+    default R<float[]> compareTextAndImage(Image image, String[] texts){
+        throw new UnsupportedOperationException("默认不支持该功能");
+    }
+
+    /**
+     * 零样本图片分类
+     * @param image 图片
+     * @param labels 候选标签
+     * @return 各标签概率（softmax）
+     */
+    default R<Classifications> classify(Image image, String[] labels){
+        throw new UnsupportedOperationException("默认不支持该功能");
+    }
+
+    /**
+     * 注册文本词表：预先计算文本特征并常驻缓存（如启动时预热固定标签）
+     * @param texts 文本
+     */
+    default void registerVocabulary(String[] texts){
+        throw new UnsupportedOperationException("默认不支持该功能");
+    }
+
     /**
      * 图片特征比较
      * @param image1 图1
@@ -5,21 +5,26 @@ import ai.djl.MalformedModelException;
 import ai.djl.engine.Engine;
 import ai.djl.huggingface.tokenizers.HuggingFaceTokenizer;
 import ai.djl.inference.Predictor;
+import ai.djl.modality.Classifications;
 import ai.djl.modality.cv.Image;
 import ai.djl.ndarray.NDList;
+import ai.djl.nn.Parameter;
 import ai.djl.repository.zoo.Criteria;
 import ai.djl.repository.zoo.ModelNotFoundException;
 import ai.djl.repository.zoo.ZooModel;
 import ai.djl.translate.NoopTranslator;
-import ai.djl.util.Pair;
 import cn.smartjavaai.clip.config.ClipModelConfig;
+import cn.smartjavaai.clip.entity.FeatureMatrix;
 import cn.smartjavaai.clip.exception.ClipException;
+import cn.smartjavaai.clip.pool.ClipBatchImagePredictorFactory;
+import cn.smartjavaai.clip.pool.ClipBatchTextPredictorFactory;
 import cn.smartjavaai.clip.pool.ClipImagePredictorFactory;
-import cn.smartjavaai.clip.pool.ClipImageTextPredictorFactory;
 import cn.smartjavaai.clip.pool.ClipTextPredictorFactory;
-import cn.smartjavaai.clip.translator.ImageTextTranslator;
 import cn.smartjavaai.clip.translator.ImageTranslator;
 import cn.smartjavaai.clip.translator.TextTranslator;
+import cn.smartjavaai.common.batch.DynamicBatcher;
+import cn.smartjavaai.common.cache.EmbeddingCache;
+import cn.smartjavaai.common.cache.PromptEmbeddingCache;
 import cn.smartjavaai.common.cv.SmartImageFactory;
 import cn.smartjavaai.common.entity.R;
 import cn.smartjavaai.common.enums.DeviceEnum;
@@ -33,9 +38,15 @@ import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.pool2.impl.GenericObjectPool;
 
 import javax.sound.sampled.Clip;
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
 import java.util.Objects;
 
 /**
@@ -55,7 +66,36 @@ public class OpenAIClipModel implements ClipModel{
 
     private GenericObjectPool<Predictor<String, float[]>> textFeaturePredictorPool;
 
-    private GenericObjectPool<Predictor<Pair<Image, String>, float[]>> imgTextPredictorPool;
+    private GenericObjectPool<Predictor<List<Image>, float[]>> batchImagePredictorPool;
+
+    private GenericObjectPool<Predictor<List<String>, float[]>> batchTextPredictorPool;
+
+    /**
+     * 图片、文本特征动态批处理器，未启用时为null
+     */
+    private DynamicBatcher<Image, float[]> imageBatcher;
+
+    private DynamicBatcher<String, float[]> textBatcher;
+
+    /**
+     * CLIP 训练时 logit_scale 的上限，模型中读取不到时使用
+     */
+    private static final float DEFAULT_LOGIT_SCALE = 100f;
+
+    /**
+     * logits = logitScale * 余弦相似度
+     */
+    private float logitScale = DEFAULT_LOGIT_SCALE;
+
+    /**
+     * 图片特征缓存（未启用时为null）
+     */
+    private EmbeddingCache embeddingCache;
+
+    /**
+     * 文本特征缓存
+     */
+    private PromptEmbeddingCache promptCache;
 
     @Override
     public void loadModel(ClipModelConfig config) {
@@ -66,6 +106,8 @@ public class OpenAIClipModel implements ClipModel{
             throw new ClipException("modelPath为空");
         }
         this.config = config;
+        this.embeddingCache = EmbeddingCache.create("clip", config);
+        this.promptCache = new PromptEmbeddingCache("clip|" + config.getModelEnum() + "|" + config.getModelPath(), config.getPromptCacheSize());
         try {
 //            Device device = null;
 //            if(!Objects.isNull(config.getDevice())){
@@ -88,17 +130,25 @@ public class OpenAIClipModel implements ClipModel{
             Path modelCachePath = model.getWrappedModel().getModelPath();
             Path tokenizerPath = modelCachePath.resolve("tokenizer.json");
             tokenizer = HuggingFaceTokenizer.newInstance(tokenizerPath);
+            logitScale = resolveLogitScale();
             // 创建池子：每个线程独享 Predictor
             imageFeaturePredictorPool = new GenericObjectPool<>(new ClipImagePredictorFactory(model));
             textFeaturePredictorPool = new GenericObjectPool<>(new ClipTextPredictorFactory(model, tokenizer));
-            imgTextPredictorPool = new GenericObjectPool<>(new ClipImageTextPredictorFactory(model, tokenizer));
+            batchImagePredictorPool = new GenericObjectPool<>(new ClipBatchImagePredictorFactory(model));
+            batchTextPredictorPool = new GenericObjectPool<>(new ClipBatchTextPredictorFactory(model, tokenizer));
             int predictorPoolSize = config.getPredictorPoolSize();
             if(config.getPredictorPoolSize() <= 0){
                 predictorPoolSize = Runtime.getRuntime().availableProcessors(); // 默认等于CPU核心数
             }
             imageFeaturePredictorPool.setMaxTotal(predictorPoolSize);
             textFeaturePredictorPool.setMaxTotal(predictorPoolSize);
-            imgTextPredictorPool.setMaxTotal(predictorPoolSize);
+            batchImagePredictorPool.setMaxTotal(predictorPoolSize);
+            batchTextPredictorPool.setMaxTotal(predictorPoolSize);
+            // 并发的单张请求合并后交给批量 Predictor 执行
+            imageBatcher = DynamicBatcher.create("clip-image", predictorPoolSize, config,
+                    images -> batchExtract(batchImagePredictorPool, images, null).toList());
+            textBatcher = DynamicBatcher.create("clip-text", predictorPoolSize, config,
+                    texts -> batchExtract(batchTextPredictorPool, texts, null).toList());
             log.debug("当前设备: " + model.getNDManager().getDevice());
             log.debug("当前引擎: " + Engine.getInstance().getEngineName());
             log.debug("模型推理器线程池最大数量: " + predictorPoolSize);
@@ -112,6 +162,9 @@ public class OpenAIClipModel implements ClipModel{
     public R<float[]> extractImageFeatures(Image image) {
         Predictor<Image, float[]> predictor = null;
         try {
+            if (imageBatcher != null) {
+                return R.ok(imageBatcher.predict(image));
+            }
             predictor = imageFeaturePredictorPool.borrowObject();
             return R.ok(predictor.predict(image));
         } catch (Exception e) {
@@ -134,6 +187,13 @@ public class OpenAIClipModel implements ClipModel{
 
     @Override
     public R<float[]> extractImageFeatures(String imagePath) {
+        if (Objects.nonNull(embeddingCache)) {
+            try {
+                return extractImageFeatures(Files.readAllBytes(Paths.get(imagePath)));
+            } catch (IOException e) {
+                throw new ClipException(e);
+            }
+        }
         Image image = null;
         try {
             image = SmartImageFactory.getInstance().fromFile(imagePath);
@@ -145,10 +205,38 @@ public class OpenAIClipModel implements ClipModel{
         }
     }
 
+    @Override
+    public R<float[]> extractImageFeatures(byte[] imageData) {
+        if (Objects.isNull(imageData)) {
+            return R.fail(R.Status.INVALID_IMAGE);
+        }
+        if (Objects.nonNull(embeddingCache)) {
+            // 相同图片内容直接返回缓存的特征
+            String namespace = config.getModelEnum() + "|" + config.getModelPath();
+            return embeddingCache.get(EmbeddingCache.key(namespace, imageData), () -> decodeAndExtract(imageData));
+        }
+        return decodeAndExtract(imageData);
+    }
+
+    private R<float[]> decodeAndExtract(byte[] imageData) {
+        Image image = null;
+        try {
+            image = SmartImageFactory.getInstance().fromInputStream(new ByteArrayInputStream(imageData));
+            return extractImageFeatures(image);
+        } catch (IOException e) {
+            throw new ClipException(e);
+        } finally {
+            ImageUtils.releaseOpenCVMat(image);
+        }
+    }
+
     @Override
     public R<float[]> extractTextFeatures(String inputs) {
         Predictor<String, float[]> predictor = null;
         try {
+            if (textBatcher != null) {
+                return R.ok(textBatcher.predict(inputs));
+            }
             predictor = textFeaturePredictorPool.borrowObject();
             return R.ok(predictor.predict(inputs));
         } catch (Exception e) {
@@ -170,21 +258,87 @@ public class OpenAIClipModel implements ClipModel{
     }
 
     @Override
-    public R<Float> compareTextAndImage(Image image, String text) {
-        Predictor<Pair<Image, String>, float[]> predictor = null;
+    public R<List<float[]>> extractImageFeatures(List<Image> images) {
+        R<FeatureMatrix> matrix = extractImageFeatureMatrix(images);
+        if (!matrix.isSuccess()) {
+            return R.fail(matrix.getCode(), matrix.getMessage());
+        }
+        return R.ok(matrix.getData().toList());
+    }
+
+    @Override
+    public R<FeatureMatrix> extractImageFeatureMatrix(List<Image> images) {
+        if (Objects.isNull(images) || images.isEmpty()) {
+            return R.fail(R.Status.PARAM_ERROR.getCode(), "图片不能为空");
+        }
+        for (Image image : images) {
+            if (Objects.isNull(image)) {
+                return R.fail(R.Status.INVALID_IMAGE);
+            }
+        }
+        return R.ok(batchExtract(batchImagePredictorPool, images, null));
+    }
+
+    @Override
+    public R<List<float[]>> extractTextFeatures(List<String> texts) {
+        R<FeatureMatrix> matrix = extractTextFeatureMatrix(texts);
+        if (!matrix.isSuccess()) {
+            return R.fail(matrix.getCode(), matrix.getMessage());
+        }
+        return R.ok(matrix.getData().toList());
+    }
+
+    @Override
+    public R<FeatureMatrix> extractTextFeatureMatrix(List<String> texts) {
+        if (Objects.isNull(texts) || texts.isEmpty()) {
+            return R.fail(R.Status.PARAM_ERROR.getCode(), "文本不能为空");
+        }
+        // 按文本长度排序后分批，同一批长度相近，减少填充
+        Integer[] order = new Integer[texts.size()];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, Comparator.comparingInt(i -> texts.get(i) == null ? 0 : texts.get(i).length()));
+        List<String> sorted = new ArrayList<>(texts.size());
+        for (Integer index : order) {
+            sorted.add(texts.get(index) == null ? "" : texts.get(index));
+        }
+        return R.ok(batchExtract(batchTextPredictorPool, sorted, order));
+    }
+
+    /**
+     * 按 maxBatchSize 分批推理，结果写入连续数组
+     * @param pool 批量推理 Predictor 池
+     * @param inputs 输入
+     * @param order inputs[i] 在原始输入中的位置，为null时与原始顺序一致
+     * @return 特征矩阵（原始顺序）
+     */
+    private <T> FeatureMatrix batchExtract(GenericObjectPool<Predictor<List<T>, float[]>> pool, List<T> inputs, Integer[] order) {
+        int batchSize = Math.max(1, config.getMaxBatchSize());
+        Predictor<List<T>, float[]> predictor = null;
         try {
-            predictor = imgTextPredictorPool.borrowObject();
-            float[] imageFeatures = predictor.predict(new Pair<>(image, text));
-            if (imageFeatures == null || imageFeatures.length == 0){
-                return R.fail(R.Status.Unknown.getCode(), "特征为空");
+            predictor = pool.borrowObject();
+            float[] data = null;
+            int dimension = 0;
+            for (int start = 0; start < inputs.size(); start += batchSize) {
+                int end = Math.min(start + batchSize, inputs.size());
+                float[] features = predictor.predict(inputs.subList(start, end));
+                if (data == null) {
+                    dimension = features.length / (end - start);
+                    data = new float[inputs.size() * dimension];
+                }
+                for (int i = start; i < end; i++) {
+                    int row = order == null ? i : order[i];
+                    System.arraycopy(features, (i - start) * dimension, data, row * dimension, dimension);
+                }
             }
-            return R.ok(imageFeatures[0]);
+            return new FeatureMatrix(data, inputs.size(), dimension);
         } catch (Exception e) {
             throw new ClipException("特征提取错误", e);
-        }finally {
+        } finally {
             if (predictor != null) {
                 try {
-                    imgTextPredictorPool.returnObject(predictor); //归还
+                    pool.returnObject(predictor); //归还
                 } catch (Exception e) {
                     log.warn("归还Predictor失败", e);
                     try {
@@ -197,6 +351,95 @@ public class OpenAIClipModel implements ClipModel{
         }
     }
 
+    @Override
+    public R<Float> compareTextAndImage(Image image, String text) {
+        R<float[]> scores = compareTextAndImage(image, new String[]{text});
+        if (!scores.isSuccess()) {
+            return R.fail(scores.getCode(), scores.getMessage());
+        }
+        return R.ok(scores.getData()[0]);
+    }
+
+    @Override
+    public R<float[]> compareTextAndImage(Image image, String[] texts) {
+        if (Objects.isNull(texts) || texts.length == 0) {
+            return R.fail(R.Status.PARAM_ERROR.getCode(), "文本不能为空");
+        }
+        // 只运行图像编码器，文本特征来自缓存
+        R<float[]> imageFeatures = extractImageFeatures(image);
+        if (!imageFeatures.isSuccess()) {
+            return R.fail(imageFeatures.getCode(), imageFeatures.getMessage());
+        }
+        if (imageFeatures.getData() == null || imageFeatures.getData().length == 0) {
+            return R.fail(R.Status.Unknown.getCode(), "特征为空");
+        }
+        float[] scores = promptCache.matrix(texts, this::encodeText).cosine(imageFeatures.getData());
+        for (int i = 0; i < scores.length; i++) {
+            scores[i] *= logitScale;
+        }
+        return R.ok(scores);
+    }
+
+    @Override
+    public R<Classifications> classify(Image image, String[] labels) {
+        R<float[]> logits = compareTextAndImage(image, labels);
+        if (!logits.isSuccess()) {
+            return R.fail(logits.getCode(), logits.getMessage());
+        }
+        float[] scores = logits.getData();
+        float max = Float.NEGATIVE_INFINITY;
+        for (float score : scores) {
+            max = Math.max(max, score);
+        }
+        double sum = 0;
+        double[] exp = new double[scores.length];
+        for (int i = 0; i < scores.length; i++) {
+            exp[i] = Math.exp(scores[i] - max);
+            sum += exp[i];
+        }
+        List<Double> probabilities = new ArrayList<>(scores.length);
+        for (double value : exp) {
+            probabilities.add(value / sum);
+        }
+        return R.ok(new Classifications(Arrays.asList(labels), probabilities));
+    }
+
+    @Override
+    public void registerVocabulary(String[] texts) {
+        if (Objects.isNull(texts)) {
+            return;
+        }
+        promptCache.register(texts, this::encodeText);
+    }
+
+    /**
+     * 读取 logit_scale：优先使用配置，其次读取模型参数 logit_scale（存储为对数值，取指数并截断到 100），都没有时使用 100
+     */
+    private float resolveLogitScale() {
+        if (config.getLogitScale() != null) {
+            return config.getLogitScale();
+        }
+        try {
+            Parameter parameter = model.getBlock().getParameters().get("logit_scale");
+            if (parameter != null && parameter.getArray() != null) {
+                float scale = (float) Math.exp(parameter.getArray().toFloatArray()[0]);
+                log.debug("模型 logit_scale: {}", scale);
+                return Math.min(scale, DEFAULT_LOGIT_SCALE);
+            }
+        } catch (Exception e) {
+            log.debug("读取模型 logit_scale 失败，使用默认值 {}", DEFAULT_LOGIT_SCALE, e);
+        }
+        return DEFAULT_LOGIT_SCALE;
+    }
+
+    private float[] encodeText(String text) {
+        R<float[]> features = extractTextFeatures(text);
+        if (!features.isSuccess()) {
+            throw new ClipException(features.getMessage());
+        }
+        return features.getData();
+    }
+
     @Override
     public R<Float> compareFeatures(float[] feature1, float[] feature2, float scale) {
         float similarity = SimilarityUtil.calculate(feature1, feature2, SimilarityType.COSINE, false);
@@ -262,6 +505,12 @@ public class OpenAIClipModel implements ClipModel{
 
     @Override
     public void close() throws Exception {
+        if (imageBatcher != null) {
+            imageBatcher.close();
+        }
+        if (textBatcher != null) {
+            textBatcher.close();
+        }
         try {
             if (imageFeaturePredictorPool != null) {
                 imageFeaturePredictorPool.close();
@@ -277,8 +526,15 @@ public class OpenAIClipModel implements ClipModel{
             log.warn("关闭 predictorPool 失败", e);
         }
         try {
-            if (imgTextPredictorPool != null) {
-                imgTextPredictorPool.close();
+            if (batchImagePredictorPool != null) {
+                batchImagePredictorPool.close();
+            }
+        } catch (Exception e) {
+            log.warn("关闭 predictorPool 失败", e);
+        }
+        try {
+            if (batchTextPredictorPool != null) {
+                batchTextPredictorPool.close();
             }
         } catch (Exception e) {
             log.warn("关闭 predictorPool 失败", e);
@@ -297,6 +553,12 @@ public class OpenAIClipModel implements ClipModel{
         } catch (Exception e) {
             log.warn("关闭 tokenizer 失败", e);
         }
+        if (embeddingCache != null) {
+            embeddingCache.close();
+        }
+        if (promptCache != null) {
+            promptCache.clear();
+        }
     }
 
     private boolean fromFactory = false;
@@ -0,0 +1,37 @@
+package cn.smartjavaai.clip.pool;
+
+import ai.djl.Model;
+import ai.djl.inference.Predictor;
+import ai.djl.modality.cv.Image;
+import cn.smartjavaai.clip.translator.BatchImageTranslator;
+import org.apache.commons.pool2.BasePooledObjectFactory;
+import org.apache.commons.pool2.PooledObject;
+import org.apache.commons.pool2.impl.DefaultPooledObject;
+
+import java.util.List;
+
+/**
+ * @author dwj
+ */
+public class ClipBatchImagePredictorFactory extends BasePooledObjectFactory<Predictor<List<Image>, float[]>> {
+    private final Model model;
+
+    public ClipBatchImagePredictorFactory(Model model) {
+        this.model = model;
+    }
+
+    @Override
+    public Predictor<List<Image>, float[]> create() {
+        return model.newPredictor(new BatchImageTranslator());
+    }
+
+    @Override
+    public PooledObject<Predictor<List<Image>, float[]>> wrap(Predictor<List<Image>, float[]> predictor) {
+        return new DefaultPooledObject<>(predictor);
+    }
+
+    @Override
+    public void destroyObject(PooledObject<Predictor<List<Image>, float[]>> p) {
+        p.getObject().close();
+    }
+}
@@ -0,0 +1,36 @@
+package cn.smartjavaai.clip.translator;
+
+import ai.djl.modality.cv.Image;
+import ai.djl.ndarray.NDArray;
+import ai.djl.ndarray.NDArrays;
+import ai.djl.ndarray.NDList;
+import ai.djl.ndarray.NDManager;
+import ai.djl.translate.NoBatchifyTranslator;
+import ai.djl.translate.TranslatorContext;
+
+import java.util.List;
+
+/**
+ * 批量图片特征提取，一次前向推理，输出按行连续存储的 float[n*dim]
+ * @author dwj
+ */
+public class BatchImageTranslator implements NoBatchifyTranslator<List<Image>, float[]> {
+
+    @Override
+    public float[] processOutput(TranslatorContext ctx, NDList list) {
+        return list.singletonOrThrow().toFloatArray();
+    }
+
+    @Override
+    public NDList processInput(TranslatorContext ctx, List<Image> input) {
+        NDManager manager = ctx.getNDManager();
+        NDList images = new NDList(input.size());
+        for (Image image : input) {
+            images.add(ImageTranslator.preprocess(manager, image));
+        }
+        NDArray array = NDArrays.stack(images);
+        NDArray placeholder = manager.create("");
+        placeholder.setName("module_method:get_image_features");
+        return new NDList(array, placeholder);
+    }
+}
@@ -0,0 +1,65 @@
+package cn.smartjavaai.clip.translator;
+
+import ai.djl.huggingface.tokenizers.Encoding;
+import ai.djl.huggingface.tokenizers.HuggingFaceTokenizer;
+import ai.djl.ndarray.NDArray;
+import ai.djl.ndarray.NDList;
+import ai.djl.ndarray.NDManager;
+import ai.djl.ndarray.types.Shape;
+import ai.djl.translate.NoBatchifyTranslator;
+import ai.djl.translate.TranslatorContext;
+
+import java.util.List;
+
+/**
+ * 批量文本特征提取，按批内最长序列动态填充，输出按行连续存储的 float[n*dim]
+ * @author dwj
+ */
+public class BatchTextTranslator implements NoBatchifyTranslator<List<String>, float[]> {
+
+    /**
+     * 填充位置的 token，attention_mask 为0，不参与计算；
+     * 取0而不是 eos，避免 argmax(input_ids) 取句末特征时落到填充位置
+     */
+    private static final long PAD_ID = 0;
+
+    private final HuggingFaceTokenizer tokenizer;
+
+    public BatchTextTranslator(HuggingFaceTokenizer tokenizer) {
+        this.tokenizer = tokenizer;
+    }
+
+    @Override
+    public float[] processOutput(TranslatorContext ctx, NDList list) {
+        return list.singletonOrThrow().toFloatArray();
+    }
+
+    @Override
+    public NDList processInput(TranslatorContext ctx, List<String> input) {
+        Encoding[] encodings = new Encoding[input.size()];
+        int maxLength = 0;
+        for (int i = 0; i < encodings.length; i++) {
+            encodings[i] = tokenizer.encode(input.get(i));
+            maxLength = Math.max(maxLength, encodings[i].getIds().length);
+        }
+        long[] ids = new long[encodings.length * maxLength];
+        long[] mask = new long[encodings.length * maxLength];
+        for (int i = 0; i < encodings.length; i++) {
+            long[] rowIds = encodings[i].getIds();
+            long[] rowMask = encodings[i].getAttentionMask();
+            int offset = i * maxLength;
+            System.arraycopy(rowIds, 0, ids, offset, rowIds.length);
+            System.arraycopy(rowMask, 0, mask, offset, rowMask.length);
+            for (int j = rowIds.length; j < maxLength; j++) {
+                ids[offset + j] = PAD_ID;
+            }
+        }
+        NDManager manager = ctx.getNDManager();
+        Shape shape = new Shape(encodings.length, maxLength);
+        NDArray inputIds = manager.create(ids, shape);
+        NDArray attention = manager.create(mask, shape);
+        NDArray placeholder = manager.create("");
+        placeholder.setName("module_method:get_text_features");
+        return new NDList(inputIds, attention, placeholder);
+    }
+}
@@ -16,6 +16,7 @@ import ai.djl.modality.cv.Image;
 import ai.djl.modality.cv.util.NDImageUtils;
 import ai.djl.ndarray.NDArray;
 import ai.djl.ndarray.NDList;
+import ai.djl.ndarray.NDManager;
 import ai.djl.translate.NoBatchifyTranslator;
 import ai.djl.translate.TranslatorContext;
 
@@ -31,7 +32,17 @@ public class ImageTranslator implements NoBatchifyTranslator<Image, float[]> {
     /** {@inheritDoc} */
     @Override
     public NDList processInput(TranslatorContext ctx, Image input) {
-        NDArray array = input.toNDArray(ctx.getNDManager(), Image.Flag.COLOR);
+        NDArray array = preprocess(ctx.getNDManager(), input);
+        NDArray placeholder = ctx.getNDManager().create("");
+        placeholder.setName("module_method:get_image_features");
+        return new NDList(array.expandDims(0), placeholder);
+    }
+
+    /**
+     * 短边缩放到224后中心裁剪，输出 CHW
+     */
+    static NDArray preprocess(NDManager manager, Image input) {
+        NDArray array = input.toNDArray(manager, Image.Flag.COLOR);
 
         float percent = 224f / Math.min(input.getWidth(), input.getHeight());
         int resizedWidth = Math.round(input.getWidth() * percent);
@@ -41,9 +52,6 @@ public class ImageTranslator implements NoBatchifyTranslator<Image, float[]> {
                 NDImageUtils.resize(
                         array, resizedWidth, resizedHeight, Image.Interpolation.BICUBIC);
         array = NDImageUtils.centerCrop(array, 224, 224);
-        array = NDImageUtils.toTensor(array);
-        NDArray placeholder = ctx.getNDManager().create("");
-        placeholder.setName("module_method:get_image_features");
-        return new NDList(array.expandDims(0), placeholder);
+        return NDImageUtils.toTensor(array);
     }
 }
@@ -6,6 +6,8 @@ import cn.smartjavaai.action.config.ActionRecModelConfig;
 import cn.smartjavaai.cls.config.ClsModelConfig;
 import cn.smartjavaai.common.entity.R;
 
+import java.util.List;
+
 /**
  * 图像分类模型
  * @author dwj
@@ -38,6 +40,15 @@ public interface ClsModel extends AutoCloseable{
     }
 
 
+    /**
+     * 批量分类
+     * @param images 图片列表（尺寸可以不同）
+     * @return 分类结果，顺序与输入一致
+     */
+    default R<List<Classifications>> batchDetect(List<Image> images){
+        throw new UnsupportedOperationException("默认不支持该功能");
+    }
+
     default void setFromFactory(boolean fromFactory){
         throw new UnsupportedOperationException("默认不支持该功能");
     }
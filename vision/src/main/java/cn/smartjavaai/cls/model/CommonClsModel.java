@@ -15,6 +15,8 @@ import cn.smartjavaai.action.model.ActionRecModelFactory;
 import cn.smartjavaai.cls.config.ClsModelConfig;
 import cn.smartjavaai.cls.criteria.ClsCriteriaFactory;
 import cn.smartjavaai.cls.exception.ClsException;
+import cn.smartjavaai.common.batch.BatchInference;
+import cn.smartjavaai.common.batch.DynamicBatcher;
 import cn.smartjavaai.common.cv.SmartImageFactory;
 import cn.smartjavaai.common.entity.DetectionResponse;
 import cn.smartjavaai.common.entity.R;
@@ -30,6 +32,8 @@ import org.opencv.core.Mat;
 
 import java.io.IOException;
 import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Objects;
 
 /**
@@ -46,6 +50,13 @@ public class CommonClsModel implements ClsModel {
 
     private GenericObjectPool<Predictor<Image, Classifications>> predictorPool;
 
+    private BatchInference<Image, Classifications> batchInference;
+
+    /**
+     * 动态批处理器，未启用时为null
+     */
+    private DynamicBatcher<Image, Classifications> batcher;
+
     @Override
     public void loadModel(ClsModelConfig config) {
         if(Objects.isNull(config.getModelEnum())){
@@ -62,6 +73,8 @@ public class CommonClsModel implements ClsModel {
                 predictorPoolSize = Runtime.getRuntime().availableProcessors(); // 默认等于CPU核心数
             }
             predictorPool.setMaxTotal(predictorPoolSize);
+            this.batcher = DynamicBatcher.create("cls", predictorPool, config);
+            this.batchInference = new BatchInference<>("图像分类", predictorPool, batcher, config);
             log.debug("当前设备: " + model.getNDManager().getDevice());
             log.debug("当前引擎: " + Engine.getInstance().getEngineName());
             log.debug("模型推理器线程池最大数量: " + predictorPoolSize);
@@ -73,12 +86,30 @@ public class CommonClsModel implements ClsModel {
 
     @Override
     public R<Classifications> detect(Image image) {
-        Classifications classifications = detectCore(image);
-        // 过滤
+        return R.ok(filter(detectCore(image)));
+    }
+
+    @Override
+    public R<List<Classifications>> batchDetect(List<Image> images) {
+        if(images == null){
+            return R.fail(R.Status.PARAM_ERROR);
+        }
+        List<Classifications> results = batchDetectCore(images);
+        List<Classifications> filtered = new ArrayList<>(results.size());
+        for (Classifications result : results) {
+            filtered.add(filter(result));
+        }
+        return R.ok(filtered);
+    }
+
+    /**
+     * 按配置的类别及阈值过滤分类结果
+     */
+    private Classifications filter(Classifications classifications) {
         if(Objects.nonNull(classifications) && !classifications.items().isEmpty()){
-            classifications = new ClassificationFilter(config.getAllowedClasses(), config.getThreshold()).filter(classifications);
+            return new ClassificationFilter(config.getAllowedClasses(), config.getThreshold()).filter(classifications);
         }
-        return R.ok(classifications);
+        return classifications;
     }
 
 
@@ -106,6 +137,9 @@ public class CommonClsModel implements ClsModel {
     public Classifications detectCore(Image image) {
         Predictor<Image, Classifications> predictor = null;
         try {
+            if (batcher != null) {
+                return batcher.predict(image);
+            }
             predictor = predictorPool.borrowObject();
             return predictor.predict(image);
         } catch (Exception e) {
@@ -127,11 +161,27 @@ public class CommonClsModel implements ClsModel {
         }
     }
 
+    /**
+     * 批量分类：图片各自缩放到模型输入尺寸后整批合并为一次前向推理，分类结果与原图尺寸无关，无需还原
+     * @param images 图片列表（尺寸可以不同）
+     * @return 结果，顺序与输入一致
+     */
+    public List<Classifications> batchDetectCore(List<Image> images) {
+        try {
+            return batchInference.predict(images);
+        } catch (Exception e) {
+            throw new DetectionException("图像分类错误", e);
+        }
+    }
+
     @Override
     public void close() throws Exception {
         if (fromFactory) {
 //            ActionRecModelFactory.removeFromCache(config.getModelEnum());
         }
+        if (batcher != null) {
+            batcher.close();
+        }
         try {
             if (predictorPool != null) {
                 predictorPool.close();
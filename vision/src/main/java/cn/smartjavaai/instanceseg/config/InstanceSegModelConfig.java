@@ -38,6 +38,13 @@ public class InstanceSegModelConfig extends ModelConfig {
      */
     private float threshold = 0.25f;
 
+    /**
+     * 是否输出行程编码遮罩（仅 YOLO 模型），默认 false 输出 DJL Mask
+     * 启用后 detectCore 返回的遮罩为 {@link cn.smartjavaai.instanceseg.entity.CompactMask}，
+     * 需经 DetectorUtils.toDrawable 转换后才能用 Image.drawBoundingBoxes 绘制遮罩
+     */
+    private boolean rleMask = false;
+
 
     public InstanceSegModelConfig() {
     }
@@ -60,6 +60,7 @@ public class InstanceSegCriteriaFactory {
                             .optArgument("height", config.getModelEnum().getInputHeight())
                             .optArgument("resize", "true")
                             .optArgument("threshold", config.getThreshold())
+                            .optArgument("rleMask", config.isRleMask())
                             .optEngine(config.getModelEnum().getEngine())
                             .optTranslatorFactory(new YoloSegmentationTranslatorFactory2())
                             .optProgress(new ProgressBar())
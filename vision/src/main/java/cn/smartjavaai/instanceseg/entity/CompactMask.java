@@ -0,0 +1,33 @@
+package cn.smartjavaai.instanceseg.entity;
+
+import ai.djl.modality.cv.output.Mask;
+import ai.djl.modality.cv.output.Rectangle;
+import cn.smartjavaai.common.entity.RleMask;
+
+/**
+ * 实例分割结果框：矩形框（归一化坐标）+ 行程编码遮罩
+ * 遮罩网格覆盖整张图片，只保存目标框内的前景区间；绘制时才通过 {@link #toMask()} 展开为 DJL 的 {@link Mask}
+ * @author dwj
+ */
+public class CompactMask extends Rectangle {
+
+    private static final long serialVersionUID = 1L;
+
+    private final RleMask rleMask;
+
+    public CompactMask(double x, double y, double width, double height, RleMask rleMask) {
+        super(x, y, width, height);
+        this.rleMask = rleMask;
+    }
+
+    public RleMask getRleMask() {
+        return rleMask;
+    }
+
+    /**
+     * 展开为整图遮罩（用于绘制）
+     */
+    public Mask toMask() {
+        return new Mask(getX(), getY(), getWidth(), getHeight(), rleMask.toDenseArray(), true);
+    }
+}
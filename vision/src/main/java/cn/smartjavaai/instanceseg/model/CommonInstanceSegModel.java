@@ -9,6 +9,8 @@ import ai.djl.repository.zoo.Criteria;
 import ai.djl.repository.zoo.ModelNotFoundException;
 import ai.djl.repository.zoo.ZooModel;
 import cn.smartjavaai.action.model.ActionRecModelFactory;
+import cn.smartjavaai.common.batch.BatchInference;
+import cn.smartjavaai.common.batch.DynamicBatcher;
 import cn.smartjavaai.common.cv.SmartImageFactory;
 import cn.smartjavaai.common.entity.DetectionResponse;
 import cn.smartjavaai.common.entity.R;
@@ -29,6 +31,8 @@ import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Objects;
 
 /**
@@ -45,6 +49,8 @@ public class CommonInstanceSegModel implements InstanceSegModel {
 
     private GenericObjectPool<Predictor<Image, DetectedObjects>> predictorPool;
 
+    private BatchInference<Image, DetectedObjects> batchInference;
+
     @Override
     public void loadModel(InstanceSegModelConfig config) {
         if(Objects.isNull(config.getModelEnum())){
@@ -61,6 +67,8 @@ public class CommonInstanceSegModel implements InstanceSegModel {
                 predictorPoolSize = Runtime.getRuntime().availableProcessors(); // 默认等于CPU核心数
             }
             predictorPool.setMaxTotal(predictorPoolSize);
+            DynamicBatcher.warnUnsupported("实例分割", config);
+            this.batchInference = new BatchInference<>("实例分割", predictorPool, null, config, BatchInference.imageSize());
             log.debug("当前设备: " + model.getNDManager().getDevice());
             log.debug("当前引擎: " + Engine.getInstance().getEngineName());
             log.debug("模型推理器线程池最大数量: " + predictorPoolSize);
@@ -86,13 +94,7 @@ public class CommonInstanceSegModel implements InstanceSegModel {
         Predictor<Image, DetectedObjects> predictor = null;
         try {
             predictor = predictorPool.borrowObject();
-            DetectedObjects detectedObjects = predictor.predict(image);
-            //过滤
-            if(Objects.nonNull(detectedObjects) && detectedObjects.getNumberOfObjects() > 0){
-                DetectedObjectsFilter detectedObjectsFilter = new DetectedObjectsFilter(config.getAllowedClasses(), config.getThreshold());
-                detectedObjects = detectedObjectsFilter.filter(detectedObjects);
-            }
-            return detectedObjects;
+            return filter(predictor.predict(image));
         } catch (Exception e) {
             throw new DetectionException("实例分割错误", e);
         }finally {
@@ -118,7 +120,7 @@ public class CommonInstanceSegModel implements InstanceSegModel {
         if(Objects.isNull(detectedObjects) || detectedObjects.getNumberOfObjects() == 0){
             return R.fail(R.Status.NO_OBJECT_DETECTED);
         }
-        image.drawBoundingBoxes(detectedObjects);
+        image.drawBoundingBoxes(DetectorUtils.toDrawable(detectedObjects));
         DetectionResponse detectionResponse = DetectorUtils.convertToDetectionResponse(detectedObjects, image);
         detectionResponse.setDrawnImage(image);
         return R.ok(detectionResponse);
@@ -133,7 +135,7 @@ public class CommonInstanceSegModel implements InstanceSegModel {
             if(Objects.isNull(detectedObjects) || detectedObjects.getNumberOfObjects() == 0){
                 return R.fail(R.Status.NO_OBJECT_DETECTED);
             }
-            img.drawBoundingBoxes(detectedObjects);
+            img.drawBoundingBoxes(DetectorUtils.toDrawable(detectedObjects));
             img.save(Files.newOutputStream(Paths.get(outputPath)), "png");
             DetectionResponse detectionResponse = DetectorUtils.convertToDetectionResponse(detectedObjects, img);
             return R.ok(detectionResponse);
@@ -144,6 +146,49 @@ public class CommonInstanceSegModel implements InstanceSegModel {
         }
     }
 
+    @Override
+    public R<List<DetectionResponse>> batchDetect(List<Image> images) {
+        if(images == null){
+            return R.fail(R.Status.PARAM_ERROR);
+        }
+        List<DetectedObjects> results = batchDetectCore(images);
+        List<DetectionResponse> responses = new ArrayList<>(results.size());
+        for (int i = 0; i < results.size(); i++) {
+            responses.add(DetectorUtils.convertToDetectionResponse(results.get(i), images.get(i)));
+        }
+        return R.ok(responses);
+    }
+
+    /**
+     * 批量实例分割：尺寸相同的图片合并为一次前向推理，不同尺寸分组执行（Translator 的缩放参数按整批共用，掩码需按原图尺寸还原）
+     * @param images 图片列表（尺寸可以不同）
+     * @return 结果，顺序与输入一致
+     */
+    @Override
+    public List<DetectedObjects> batchDetectCore(List<Image> images) {
+        try {
+            List<DetectedObjects> results = batchInference.predict(images);
+            List<DetectedObjects> filtered = new ArrayList<>(results.size());
+            for (DetectedObjects result : results) {
+                filtered.add(filter(result));
+            }
+            return filtered;
+        } catch (Exception e) {
+            throw new DetectionException("实例分割错误", e);
+        }
+    }
+
+    /**
+     * 按配置的类别及阈值过滤分割结果
+     */
+    private DetectedObjects filter(DetectedObjects detectedObjects) {
+        if(Objects.nonNull(detectedObjects) && detectedObjects.getNumberOfObjects() > 0){
+            DetectedObjectsFilter detectedObjectsFilter = new DetectedObjectsFilter(config.getAllowedClasses(), config.getThreshold());
+            return detectedObjectsFilter.filter(detectedObjects);
+        }
+        return detectedObjects;
+    }
+
     @Override
     public void close() throws Exception {
         if (fromFactory) {
@@ -8,6 +8,7 @@ import cn.smartjavaai.common.entity.R;
 import cn.smartjavaai.instanceseg.config.InstanceSegModelConfig;
 
 import java.awt.image.BufferedImage;
+import java.util.List;
 
 /**
  * 实例分割模型
@@ -31,6 +32,12 @@ public interface InstanceSegModel extends AutoCloseable{
         throw new UnsupportedOperationException("默认不支持该功能");
     }
 
+    /**
+     * 实例分割核心推理，遮罩默认为 DJL 的 Mask，可直接用 Image.drawBoundingBoxes 绘制；
+     * 配置 rleMask=true 时遮罩为行程编码的 CompactMask，绘制前需经 DetectorUtils.toDrawable 转换
+     * @param image
+     * @return
+     */
     default DetectedObjects detectCore(Image image){
         throw new UnsupportedOperationException("默认不支持该功能");
     }
@@ -43,6 +50,24 @@ public interface InstanceSegModel extends AutoCloseable{
         throw new UnsupportedOperationException("默认不支持该功能");
     }
 
+    /**
+     * 批量实例分割
+     * @param images 图片列表（尺寸可以不同）
+     * @return 分割结果，顺序与输入一致
+     */
+    default R<List<DetectionResponse>> batchDetect(List<Image> images){
+        throw new UnsupportedOperationException("默认不支持该功能");
+    }
+
+    /**
+     * 批量实例分割 核心方法
+     * @param images 图片列表（尺寸可以不同）
+     * @return 分割结果，顺序与输入一致
+     */
+    default List<DetectedObjects> batchDetectCore(List<Image> images){
+        throw new UnsupportedOperationException("默认不支持该功能");
+    }
+
     default void setFromFactory(boolean fromFactory){
         throw new UnsupportedOperationException("默认不支持该功能");
     }
@@ -21,10 +21,11 @@ import ai.djl.modality.cv.transform.ToTensor;
 import ai.djl.modality.cv.translator.YoloV5Translator;
 import ai.djl.ndarray.NDArray;
 import ai.djl.ndarray.NDList;
-import ai.djl.ndarray.types.DataType;
 import ai.djl.translate.ArgumentsUtil;
 import ai.djl.translate.Pipeline;
 import ai.djl.translate.TranslatorContext;
+import cn.smartjavaai.common.entity.RleMask;
+import cn.smartjavaai.instanceseg.entity.CompactMask;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -39,6 +40,11 @@ public class YoloSegmentationTranslator2 extends YoloV5Translator {
     private float threshold;
     private float nmsThreshold;
 
+    /**
+     * 是否输出行程编码遮罩 {@link CompactMask}，默认输出 DJL 的 {@link Mask}
+     */
+    private boolean rleMask;
+
     /**
      * Creates the instance segmentation translator from the given builder.
      *
@@ -48,6 +54,7 @@ public class YoloSegmentationTranslator2 extends YoloV5Translator {
         super(builder);
         this.threshold = 0.25f;
         this.nmsThreshold = 0.4F;
+        this.rleMask = builder.rleMask;
     }
 
     /** {@inheritDoc} */
@@ -92,15 +99,12 @@ public class YoloSegmentationTranslator2 extends YoloV5Translator {
         int maskH = Math.toIntExact(protos.getShape().get(1));
 
         protos = protos.reshape(32, (long) maskH * maskW);
-        masks =
-                masks.matMul(protos)
-                        .reshape(nms.size(), maskH, maskW)
-                        .gt(0f)
-                        .toType(DataType.FLOAT32, true);
-
-        float[] maskArray = masks.toFloatArray();
+        // 遮罩系数 x 原型，logit > 0 即前景，直接按目标框编码为 RLE；未启用 rleMask 时再展开为 DJL Mask
+        float[] maskArray = masks.matMul(protos).toFloatArray();
         box = box.get(selected);
         buf = box.toFloatArray();
+        float scaleX = (float) maskW / width;
+        float scaleY = (float) maskH / height;
 
         List<String> retClasses = new ArrayList<>();
         List<Double> retProbs = new ArrayList<>();
@@ -109,18 +113,16 @@ public class YoloSegmentationTranslator2 extends YoloV5Translator {
             float x = buf[i * 4] / width;
             float y = buf[i * 4 + 1] / height;
             float w = buf[i * 4 + 2] / width - x;
-            float h = buf[i * 4 + 3] / width - y;
+            float h = buf[i * 4 + 3] / height - y;
             int id = nms.get(i);
             retClasses.add(classes.get((int) ids[id]));
             retProbs.add((double) confidences[id]);
 
-            float[][] maskFloat = new float[maskH][maskW];
-            int pos = i * maskH * maskW;
-            for (int j = 0; j < maskH; j++) {
-                System.arraycopy(maskArray, pos + j * maskW, maskFloat[j], 0, maskW);
-            }
-            Mask bb = new Mask(x, y, w, h, maskFloat, true);
-            retBB.add(bb);
+            RleMask rleMask = RleMask.encode(maskArray, i * maskH * maskW, maskW, maskH,
+                    (int) Math.floor(buf[i * 4] * scaleX), (int) Math.floor(buf[i * 4 + 1] * scaleY),
+                    (int) Math.ceil(buf[i * 4 + 2] * scaleX), (int) Math.ceil(buf[i * 4 + 3] * scaleY), 0f);
+            CompactMask compactMask = new CompactMask(x, y, w, h, rleMask);
+            retBB.add(this.rleMask ? compactMask : compactMask.toMask());
         }
         return new DetectedObjects(retClasses, retProbs, retBB);
     }
@@ -150,14 +152,28 @@ public class YoloSegmentationTranslator2 extends YoloV5Translator {
         Builder builder = new Builder();
         builder.optSynsetArtifactName("synset.txt");
         builder.setImageSize(640, 640);
+        builder.rleMask = ArgumentsUtil.booleanValue(arguments, "rleMask");
         return builder;
     }
 
     /** The builder for instance segmentation translator. */
     public static class Builder extends YoloV5Translator.Builder {
 
+        private boolean rleMask;
+
         Builder() {}
 
+        /**
+         * 输出行程编码遮罩 {@link CompactMask}，代替 DJL 的 {@link Mask}
+         *
+         * @param rleMask 是否输出行程编码遮罩
+         * @return this builder
+         */
+        public Builder optRleMask(boolean rleMask) {
+            this.rleMask = rleMask;
+            return this;
+        }
+
         /** {@inheritDoc} */
         @Override
         protected Builder self() {
@@ -8,15 +8,20 @@ import ai.djl.modality.cv.output.DetectedObjects;
 import ai.djl.repository.zoo.Criteria;
 import ai.djl.repository.zoo.ModelNotFoundException;
 import ai.djl.repository.zoo.ZooModel;
+import cn.smartjavaai.common.batch.BatchInference;
+import cn.smartjavaai.common.batch.DynamicBatcher;
+import cn.smartjavaai.common.batch.LetterboxBatchInference;
 import cn.smartjavaai.common.cv.SmartImageFactory;
 import cn.smartjavaai.common.entity.DetectionResponse;
 import cn.smartjavaai.common.entity.R;
 import cn.smartjavaai.common.pool.PredictorFactory;
 import cn.smartjavaai.common.utils.ImageUtils;
+import cn.smartjavaai.common.utils.LetterBoxUtils;
 import cn.smartjavaai.instanceseg.model.InstanceSegModelFactory;
 import cn.smartjavaai.obb.config.ObbDetModelConfig;
 import cn.smartjavaai.obb.criteria.ObbDetCriteriaFactory;
 import cn.smartjavaai.obb.entity.ObbResult;
+import cn.smartjavaai.obb.entity.YoloRotatedBox;
 import cn.smartjavaai.obb.exception.ObbDetException;
 import cn.smartjavaai.objectdetection.exception.DetectionException;
 import cn.smartjavaai.vision.utils.DetectedObjectsFilter;
@@ -30,6 +35,8 @@ import org.opencv.core.Mat;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Objects;
 
 /**
@@ -46,6 +53,8 @@ public class CommonObbDetModel implements ObbDetModel {
 
     private GenericObjectPool<Predictor<Image, ObbResult>> predictorPool;
 
+    private BatchInference<Image, ObbResult> batchInference;
+
     @Override
     public void loadModel(ObbDetModelConfig config) {
         if(Objects.isNull(config.getModelEnum())){
@@ -62,6 +71,9 @@ public class CommonObbDetModel implements ObbDetModel {
                 predictorPoolSize = Runtime.getRuntime().availableProcessors(); // 默认等于CPU核心数
             }
             predictorPool.setMaxTotal(predictorPoolSize);
+            DynamicBatcher.warnUnsupported("旋转框检测", config);
+            this.batchInference = new LetterboxBatchInference<>("旋转框检测", predictorPool, null, config,
+                    config.getModelEnum().getInputWidth(), config.getModelEnum().getInputHeight(), CommonObbDetModel::restore);
             log.debug("当前设备: " + model.getNDManager().getDevice());
             log.debug("当前引擎: " + Engine.getInstance().getEngineName());
             log.debug("模型推理器线程池最大数量: " + predictorPoolSize);
@@ -87,13 +99,7 @@ public class CommonObbDetModel implements ObbDetModel {
         Predictor<Image, ObbResult> predictor = null;
         try {
             predictor = predictorPool.borrowObject();
-            ObbResult obbResult = predictor.predict(image);
-            //过滤
-            if(Objects.nonNull(obbResult) && CollectionUtils.isNotEmpty(obbResult.getRotatedBoxeList())){
-                ObbResultFilter obbResultFilter = new ObbResultFilter(config.getAllowedClasses(), config.getTopK());
-                obbResult = obbResultFilter.filter(obbResult);
-            }
-            return obbResult;
+            return filter(predictor.predict(image));
         } catch (Exception e) {
             throw new DetectionException("旋转框错误", e);
         }finally {
@@ -145,6 +151,64 @@ public class CommonObbDetModel implements ObbDetModel {
         }
     }
 
+    @Override
+    public R<List<DetectionResponse>> batchDetect(List<Image> images) {
+        if(images == null){
+            return R.fail(R.Status.PARAM_ERROR);
+        }
+        List<ObbResult> results = batchDetectCore(images);
+        List<DetectionResponse> responses = new ArrayList<>(results.size());
+        for (int i = 0; i < results.size(); i++) {
+            responses.add(DetectorUtils.obbToToDetectionResponse(results.get(i)));
+        }
+        return R.ok(responses);
+    }
+
+    /**
+     * 批量旋转框检测：每张图片先按比例缩放并填充到模型输入尺寸，整批合并为一次前向推理，结果按各自缩放比例还原到原图坐标
+     * @param images 图片列表（尺寸可以不同）
+     * @return 结果，顺序与输入一致
+     */
+    @Override
+    public List<ObbResult> batchDetectCore(List<Image> images) {
+        try {
+            List<ObbResult> results = batchInference.predict(images);
+            List<ObbResult> filtered = new ArrayList<>(results.size());
+            for (ObbResult result : results) {
+                filtered.add(filter(result));
+            }
+            return filtered;
+        } catch (Exception e) {
+            throw new DetectionException("旋转框错误", e);
+        }
+    }
+
+    /**
+     * 缩放图上的旋转框还原到原图像素坐标
+     */
+    private static ObbResult restore(ObbResult obbResult, LetterBoxUtils.LetterboxImage letterbox) {
+        if (Objects.isNull(obbResult) || CollectionUtils.isEmpty(obbResult.getRotatedBoxeList())) {
+            return obbResult;
+        }
+        List<YoloRotatedBox> boxes = new ArrayList<>(obbResult.getRotatedBoxeList().size());
+        for (YoloRotatedBox box : obbResult.getRotatedBoxeList()) {
+            boxes.add(new YoloRotatedBox((float) letterbox.restoreX(box.cx), (float) letterbox.restoreY(box.cy),
+                    box.w / letterbox.getScale(), box.h / letterbox.getScale(), box.angle, box.className, box.score));
+        }
+        return new ObbResult(boxes);
+    }
+
+    /**
+     * 按配置的类别及topK过滤检测结果
+     */
+    private ObbResult filter(ObbResult obbResult) {
+        if(Objects.nonNull(obbResult) && CollectionUtils.isNotEmpty(obbResult.getRotatedBoxeList())){
+            ObbResultFilter obbResultFilter = new ObbResultFilter(config.getAllowedClasses(), config.getTopK());
+            return obbResultFilter.filter(obbResult);
+        }
+        return obbResult;
+    }
+
     @Override
     public void close() throws Exception {
         if (fromFactory) {
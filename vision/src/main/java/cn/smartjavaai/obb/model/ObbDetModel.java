@@ -6,6 +6,8 @@ import cn.smartjavaai.common.entity.R;
 import cn.smartjavaai.obb.config.ObbDetModelConfig;
 import cn.smartjavaai.obb.entity.ObbResult;
 
+import java.util.List;
+
 /**
  * 旋转框检测模型
  * @author dwj
@@ -57,6 +59,24 @@ public interface ObbDetModel extends AutoCloseable{
     }
 
 
+    /**
+     * 批量旋转框检测
+     * @param images 图片列表（尺寸可以不同）
+     * @return 检测结果，顺序与输入一致
+     */
+    default R<List<DetectionResponse>> batchDetect(List<Image> images){
+        throw new UnsupportedOperationException("默认不支持该功能");
+    }
+
+    /**
+     * 批量旋转框检测 核心方法
+     * @param images 图片列表（尺寸可以不同）
+     * @return 检测结果，顺序与输入一致
+     */
+    default List<ObbResult> batchDetectCore(List<Image> images){
+        throw new UnsupportedOperationException("默认不支持该功能");
+    }
+
     default void setFromFactory(boolean fromFactory){
         throw new UnsupportedOperationException("默认不支持该功能");
     }
@@ -11,6 +11,7 @@ import ai.djl.ndarray.types.Shape;
 import ai.djl.translate.*;
 import ai.djl.util.Utils;
 import cn.smartjavaai.common.utils.LetterBoxUtils;
+import cn.smartjavaai.common.utils.NMSUtils;
 import cn.smartjavaai.obb.entity.ObbResult;
 import cn.smartjavaai.obb.entity.YoloRotatedBox;
 
@@ -175,28 +176,31 @@ public class YoloV11OddTranslator implements Translator<Image, ObbResult> {
 
 
     public static List<YoloRotatedBox> rotatedNMS(List<YoloRotatedBox> boxes, double iouThreshold) {
-        List<YoloRotatedBox> keep = new ArrayList<>();
-        boolean[] removed = new boolean[boxes.size()];
-
-        // 按 score 降序
-//        boxes.sort((b1, b2) -> Float.compare(b2.score, b1.score));
-
-        for (int i = 0; i < boxes.size(); i++) {
-            if (removed[i]) continue;
-            YoloRotatedBox ibox = boxes.get(i);
-            keep.add(ibox);
-
-            for (int j = i + 1; j < boxes.size(); j++) {
-                if (removed[j]) continue;
-                YoloRotatedBox jbox = boxes.get(j);
-
-                if (!ibox.className.equals(jbox.className)) continue;
-
-                double iou = YoloRotatedBox.probiou(ibox, jbox, 1e-7);
-                if (iou > iouThreshold - 1e-7) {
-                    removed[j] = true;
-                }
+        int count = boxes.size();
+        float[] boxArray = new float[count * 5];
+        float[] scoreArray = new float[count];
+        int[] classArray = new int[count];
+        Map<String, Integer> classIndex = new HashMap<>();
+        for (int i = 0; i < count; i++) {
+            YoloRotatedBox box = boxes.get(i);
+            boxArray[i * 5] = box.cx;
+            boxArray[i * 5 + 1] = box.cy;
+            boxArray[i * 5 + 2] = box.w;
+            boxArray[i * 5 + 3] = box.h;
+            boxArray[i * 5 + 4] = box.angle;
+            scoreArray[i] = box.score;
+            Integer classId = classIndex.get(box.className);
+            if (classId == null) {
+                classId = classIndex.size();
+                classIndex.put(box.className, classId);
             }
+            classArray[i] = classId;
+        }
+        // 按 score 降序，同类别之间抑制
+        int[] keepIndices = NMSUtils.rotatedNms(boxArray, scoreArray, classArray, count, iouThreshold);
+        List<YoloRotatedBox> keep = new ArrayList<>(keepIndices.length);
+        for (int index : keepIndices) {
+            keep.add(boxes.get(index));
         }
         return keep;
     }
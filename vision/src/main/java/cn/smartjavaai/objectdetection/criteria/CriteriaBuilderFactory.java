@@ -47,4 +47,23 @@ public class CriteriaBuilderFactory {
         }
     }
 
+    /**
+     * 获取模型固定输入尺寸，仅 YOLO 模型会将输入缩放到固定尺寸，其他模型返回null
+     * @param config
+     * @return {宽, 高} 或 null
+     */
+    public static int[] getInputSize(DetectorModelConfig config) {
+        switch (config.getModelEnum()) {
+            case YOLOV8_OFFICIAL_ONNX:
+            case YOLOV11_OFFICIAL_ONNX:
+            case YOLOV12_OFFICIAL_ONNX:
+            case YOLOV8_CUSTOM_ONNX:
+            case YOLOV11_CUSTOM_ONNX:
+            case YOLOV12_CUSTOM_ONNX:
+                return new YoloCriteriaBuilder().getInputSize(config);
+            default:
+                return null;
+        }
+    }
+
 }
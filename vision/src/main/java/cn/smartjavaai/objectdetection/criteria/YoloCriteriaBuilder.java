@@ -5,6 +5,7 @@ import ai.djl.modality.cv.Image;
 import ai.djl.modality.cv.output.DetectedObjects;
 import ai.djl.modality.cv.translator.YoloV8TranslatorFactory;
 import ai.djl.repository.zoo.Criteria;
+import ai.djl.translate.ArgumentsUtil;
 import ai.djl.training.util.ProgressBar;
 import cn.smartjavaai.common.enums.DeviceEnum;
 import cn.smartjavaai.objectdetection.constant.DetectorConstant;
@@ -52,6 +53,19 @@ public class YoloCriteriaBuilder implements CriteriaBuilderStrategy {
         return criteria;
     }
 
+    /**
+     * 获取模型输入尺寸（合并用户自定义参数后的 width、height）
+     * @param config
+     * @return {宽, 高}
+     */
+    public int[] getInputSize(DetectorModelConfig config){
+        Map<String, Object> customParams = getDefaultConfig();
+        if (config.getCustomParams() != null) {
+            customParams.putAll(config.getCustomParams());
+        }
+        return new int[]{ArgumentsUtil.intValue(customParams, "width", 640), ArgumentsUtil.intValue(customParams, "height", 640)};
+    }
+
     public Map<String, Object> getDefaultConfig(){
         Map<String, Object> arguments = new HashMap<>();
         // 添加默认参数
@@ -8,12 +8,16 @@ import ai.djl.modality.cv.output.DetectedObjects;
 import ai.djl.repository.zoo.Criteria;
 import ai.djl.repository.zoo.ModelNotFoundException;
 import ai.djl.repository.zoo.ZooModel;
+import cn.smartjavaai.common.batch.BatchInference;
+import cn.smartjavaai.common.batch.DynamicBatcher;
+import cn.smartjavaai.common.batch.LetterboxBatchInference;
 import cn.smartjavaai.common.cv.SmartImageFactory;
 import cn.smartjavaai.common.entity.DetectionResponse;
 import cn.smartjavaai.common.pool.PredictorFactory;
 import cn.smartjavaai.common.utils.BufferedImageUtils;
 import cn.smartjavaai.common.utils.FileUtils;
 import cn.smartjavaai.common.utils.ImageUtils;
+import cn.smartjavaai.common.utils.LetterBoxUtils;
 import cn.smartjavaai.common.utils.OpenCVUtils;
 import cn.smartjavaai.objectdetection.config.DetectorModelConfig;
 import cn.smartjavaai.objectdetection.criteria.CriteriaBuilderFactory;
@@ -29,6 +33,9 @@ import javax.imageio.ImageIO;
 import java.awt.image.BufferedImage;
 import java.io.*;
 import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.Objects;
 
 /**
@@ -44,6 +51,13 @@ public class DetectorModel implements AutoCloseable{
 
     private DetectorModelConfig config;
 
+    /**
+     * 动态批处理器，未启用时为null
+     */
+    private DynamicBatcher<Image, DetectedObjects> batcher;
+
+    private BatchInference<Image, DetectedObjects> batchInference;
+
     private boolean fromFactory = false;
 
     public void setFromFactory(boolean fromFactory) {
@@ -68,6 +82,16 @@ public class DetectorModel implements AutoCloseable{
                 predictorPoolSize = Runtime.getRuntime().availableProcessors(); // 默认等于CPU核心数
             }
             predictorPool.setMaxTotal(predictorPoolSize);
+            int[] inputSize = CriteriaBuilderFactory.getInputSize(config);
+            if (inputSize != null) {
+                // 输入尺寸固定：先统一缩放，不同尺寸的图片也能合并为一批
+                this.batcher = DynamicBatcher.create("detector", predictorPool, config);
+                this.batchInference = new LetterboxBatchInference<>("目标检测", predictorPool, batcher, config,
+                        inputSize[0], inputSize[1], LetterBoxUtils::restore);
+            } else {
+                this.batcher = DynamicBatcher.create("detector", predictorPool, config, BatchInference.imageSize());
+                this.batchInference = new BatchInference<>("目标检测", predictorPool, batcher, config, BatchInference.imageSize());
+            }
             log.debug("当前设备: " + model.getNDManager().getDevice());
             log.debug("当前引擎: " + Engine.getInstance().getEngineName());
             log.debug("模型推理器线程池最大数量: " + predictorPoolSize);
@@ -227,14 +251,14 @@ public class DetectorModel implements AutoCloseable{
     public DetectedObjects detectCore(Image image){
         Predictor<Image, DetectedObjects> predictor = null;
         try {
-            predictor = predictorPool.borrowObject();
-            DetectedObjects detectedObjects = predictor.predict(image);
-            if(CollectionUtils.isNotEmpty(config.getAllowedClasses())
-                    && Objects.nonNull(detectedObjects) && detectedObjects.getNumberOfObjects() > 0){
-                DetectedObjectsFilter detectedObjectsFilter = new DetectedObjectsFilter(config.getAllowedClasses(), config.getThreshold(),config.getTopK());
-                detectedObjects = detectedObjectsFilter.filter(detectedObjects);
+            DetectedObjects detectedObjects;
+            if (batcher != null) {
+                detectedObjects = batchInference.predict(Collections.singletonList(image)).get(0);
+            } else {
+                predictor = predictorPool.borrowObject();
+                detectedObjects = predictor.predict(image);
             }
-            return detectedObjects;
+            return filter(detectedObjects);
         } catch (Exception e) {
             throw new DetectionException("目标检测错误", e);
         }finally {
@@ -254,6 +278,55 @@ public class DetectorModel implements AutoCloseable{
     }
 
 
+    /**
+     * 批量目标检测
+     * @param images 图片列表（尺寸可以不同，见 {@link #batchDetectCore(List)}）
+     * @return 检测结果，顺序与输入一致
+     */
+    public List<DetectionResponse> batchDetect(List<Image> images){
+        List<DetectedObjects> detectedObjectsList = batchDetectCore(images);
+        List<DetectionResponse> responses = new ArrayList<>(detectedObjectsList.size());
+        for (int i = 0; i < detectedObjectsList.size(); i++) {
+            responses.add(DetectorUtils.convertToDetectionResponse(detectedObjectsList.get(i), images.get(i)));
+        }
+        return responses;
+    }
+
+    /**
+     * 批量目标检测（如多路视频流的帧）
+     * YOLO 模型：每张图片先按比例缩放并填充到模型输入尺寸，整批合并为一次前向推理，结果按各自缩放比例还原到原图坐标；
+     * 其他模型输入尺寸不固定，只有尺寸相同的图片合并为一次前向推理，不同尺寸分组执行
+     * @param images
+     * @return 检测结果，顺序与输入一致
+     */
+    public List<DetectedObjects> batchDetectCore(List<Image> images){
+        if (images.size() == 1) {
+            return Collections.singletonList(detectCore(images.get(0)));
+        }
+        try {
+            List<DetectedObjects> results = batchInference.predict(images);
+            List<DetectedObjects> filtered = new ArrayList<>(results.size());
+            for (DetectedObjects detectedObjects : results) {
+                filtered.add(filter(detectedObjects));
+            }
+            return filtered;
+        } catch (Exception e) {
+            throw new DetectionException("目标检测错误", e);
+        }
+    }
+
+    /**
+     * 按配置的类别、阈值及topK过滤检测结果
+     */
+    private DetectedObjects filter(DetectedObjects detectedObjects) {
+        if(CollectionUtils.isNotEmpty(config.getAllowedClasses())
+                && Objects.nonNull(detectedObjects) && detectedObjects.getNumberOfObjects() > 0){
+            DetectedObjectsFilter detectedObjectsFilter = new DetectedObjectsFilter(config.getAllowedClasses(), config.getThreshold(),config.getTopK());
+            return detectedObjectsFilter.filter(detectedObjects);
+        }
+        return detectedObjects;
+    }
+
     public GenericObjectPool<Predictor<Image, DetectedObjects>> getPool() {
         return predictorPool;
     }
@@ -267,6 +340,9 @@ public class DetectorModel implements AutoCloseable{
         if (fromFactory) {
             ObjectDetectionModelFactory.removeFromCache(config.getModelEnum());
         }
+        if (batcher != null) {
+            batcher.close();
+        }
         try {
             if (predictorPool != null) {
                 predictorPool.close();
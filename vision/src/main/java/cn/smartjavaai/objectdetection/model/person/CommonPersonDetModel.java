@@ -9,11 +9,15 @@ import ai.djl.repository.zoo.Criteria;
 import ai.djl.repository.zoo.ModelNotFoundException;
 import ai.djl.repository.zoo.ZooModel;
 import cn.hutool.core.img.ImgUtil;
+import cn.smartjavaai.common.batch.BatchInference;
+import cn.smartjavaai.common.batch.DynamicBatcher;
+import cn.smartjavaai.common.batch.LetterboxBatchInference;
 import cn.smartjavaai.common.cv.SmartImageFactory;
 import cn.smartjavaai.common.entity.DetectionResponse;
 import cn.smartjavaai.common.entity.R;
 import cn.smartjavaai.common.pool.PredictorFactory;
 import cn.smartjavaai.common.utils.ImageUtils;
+import cn.smartjavaai.common.utils.LetterBoxUtils;
 import cn.smartjavaai.obb.config.ObbDetModelConfig;
 import cn.smartjavaai.obb.criteria.ObbDetCriteriaFactory;
 import cn.smartjavaai.obb.entity.ObbResult;
@@ -35,6 +39,8 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Objects;
 
 /**
@@ -51,6 +57,8 @@ public class CommonPersonDetModel implements PersonDetModel {
 
     private GenericObjectPool<Predictor<Image, DetectedObjects>> predictorPool;
 
+    private BatchInference<Image, DetectedObjects> batchInference;
+
     @Override
     public void loadModel(PersonDetModelConfig config) {
         if(Objects.isNull(config.getModelEnum())){
@@ -67,6 +75,10 @@ public class CommonPersonDetModel implements PersonDetModel {
                 predictorPoolSize = Runtime.getRuntime().availableProcessors(); // 默认等于CPU核心数
             }
             predictorPool.setMaxTotal(predictorPoolSize);
+            DynamicBatcher.warnUnsupported("行人检测", config);
+            int inputSize = config.getModelEnum().getInputSize();
+            this.batchInference = new LetterboxBatchInference<>("行人检测", predictorPool, null, config,
+                    inputSize, inputSize, LetterBoxUtils::restore);
             log.debug("当前设备: " + model.getNDManager().getDevice());
             log.debug("当前引擎: " + Engine.getInstance().getEngineName());
             log.debug("模型推理器线程池最大数量: " + predictorPoolSize);
@@ -92,13 +104,7 @@ public class CommonPersonDetModel implements PersonDetModel {
         Predictor<Image, DetectedObjects> predictor = null;
         try {
             predictor = predictorPool.borrowObject();
-            DetectedObjects detectedObjects = predictor.predict(image);
-            //过滤
-            if(Objects.nonNull(detectedObjects) && detectedObjects.getNumberOfObjects() > 0){
-                DetectedObjectsFilter detectedObjectsFilter = new DetectedObjectsFilter(null, config.getTopK());
-                detectedObjects = detectedObjectsFilter.filter(detectedObjects);
-            }
-            return detectedObjects;
+            return filter(predictor.predict(image));
         } catch (Exception e) {
             throw new DetectionException("行人检测错误", e);
         }finally {
@@ -150,6 +156,49 @@ public class CommonPersonDetModel implements PersonDetModel {
         }
     }
 
+    @Override
+    public R<List<DetectionResponse>> batchDetect(List<Image> images) {
+        if(images == null){
+            return R.fail(R.Status.PARAM_ERROR);
+        }
+        List<DetectedObjects> results = batchDetectCore(images);
+        List<DetectionResponse> responses = new ArrayList<>(results.size());
+        for (int i = 0; i < results.size(); i++) {
+            responses.add(DetectorUtils.convertToDetectionResponse(results.get(i), images.get(i)));
+        }
+        return R.ok(responses);
+    }
+
+    /**
+     * 批量行人检测：每张图片先按比例缩放并填充到模型输入尺寸，整批合并为一次前向推理，结果按各自缩放比例还原到原图坐标
+     * @param images 图片列表（尺寸可以不同）
+     * @return 结果，顺序与输入一致
+     */
+    @Override
+    public List<DetectedObjects> batchDetectCore(List<Image> images) {
+        try {
+            List<DetectedObjects> results = batchInference.predict(images);
+            List<DetectedObjects> filtered = new ArrayList<>(results.size());
+            for (DetectedObjects result : results) {
+                filtered.add(filter(result));
+            }
+            return filtered;
+        } catch (Exception e) {
+            throw new DetectionException("行人检测错误", e);
+        }
+    }
+
+    /**
+     * 按topK过滤检测结果
+     */
+    private DetectedObjects filter(DetectedObjects detectedObjects) {
+        if(Objects.nonNull(detectedObjects) && detectedObjects.getNumberOfObjects() > 0){
+            DetectedObjectsFilter detectedObjectsFilter = new DetectedObjectsFilter(null, config.getTopK());
+            return detectedObjectsFilter.filter(detectedObjects);
+        }
+        return detectedObjects;
+    }
+
     @Override
     public void close() throws Exception {
         try {
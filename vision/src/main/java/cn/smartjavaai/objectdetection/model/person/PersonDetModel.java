@@ -8,6 +8,8 @@ import cn.smartjavaai.obb.config.ObbDetModelConfig;
 import cn.smartjavaai.obb.entity.ObbResult;
 import cn.smartjavaai.objectdetection.config.PersonDetModelConfig;
 
+import java.util.List;
+
 /**
  * 行人检测模型
  * @author dwj
@@ -58,6 +60,24 @@ public interface PersonDetModel extends AutoCloseable{
         throw new UnsupportedOperationException("默认不支持该功能");
     }
 
+    /**
+     * 批量行人检测
+     * @param images 图片列表（尺寸可以不同）
+     * @return 检测结果，顺序与输入一致
+     */
+    default R<List<DetectionResponse>> batchDetect(List<Image> images){
+        throw new UnsupportedOperationException("默认不支持该功能");
+    }
+
+    /**
+     * 批量行人检测 核心方法
+     * @param images 图片列表（尺寸可以不同）
+     * @return 检测结果，顺序与输入一致
+     */
+    default List<DetectedObjects> batchDetectCore(List<Image> images){
+        throw new UnsupportedOperationException("默认不支持该功能");
+    }
+
     default void setFromFactory(boolean fromFactory){
         throw new UnsupportedOperationException("默认不支持该功能");
     }
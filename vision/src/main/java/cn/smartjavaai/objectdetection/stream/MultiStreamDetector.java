@@ -0,0 +1,626 @@
+package cn.smartjavaai.objectdetection.stream;
+
+import ai.djl.modality.cv.Image;
+import ai.djl.modality.cv.output.DetectedObjects;
+import cn.smartjavaai.common.cv.FrameBufferPool;
+import cn.smartjavaai.common.cv.PooledFrame;
+import cn.smartjavaai.common.entity.DetectionInfo;
+import cn.smartjavaai.common.entity.DetectionResponse;
+import cn.smartjavaai.common.enums.VideoSourceType;
+import cn.smartjavaai.objectdetection.exception.DetectionException;
+import cn.smartjavaai.objectdetection.model.DetectorModel;
+import cn.smartjavaai.vision.utils.DetectorUtils;
+import lombok.extern.slf4j.Slf4j;
+import nu.pattern.OpenCV;
+import org.apache.commons.lang3.StringUtils;
+import org.bytedeco.ffmpeg.global.avutil;
+import org.bytedeco.javacv.*;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 多路视频流目标检测引擎
+ * 所有视频流共享固定数量的抓帧、检测及回调线程：
+ * 抓帧任务每次为一路视频流抓取一帧后重新排队，多路视频流轮流使用抓帧线程；
+ * 每路视频流只保留最新一帧（新帧覆盖未检测的旧帧并计入丢帧，视频文件不丢帧），
+ * 检测线程将多路视频流的最新帧合并执行一次 {@link DetectorModel#batchDetectCore(List)}；
+ * 同一视频流的回调按帧顺序在共享回调线程池中执行。
+ * @author dwj
+ */
+@Slf4j
+public class MultiStreamDetector implements AutoCloseable {
+
+    static {
+        OpenCV.loadLocally();
+    }
+
+    // 连续多少次空帧认为断联
+    private static final int MAX_NULL_FRAMES = 10;
+
+    /**
+     * 视频文件上一帧未检测完时，抓帧任务的重试间隔（毫秒）
+     */
+    private static final long FILE_RETRY_MILLIS = 5;
+
+    private final DetectorModel detectorModel;
+
+    private final int maxBatchSize;
+
+    private final long batchWaitNanos;
+
+    private final ScheduledExecutorService grabberExecutor;
+
+    private final ExecutorService detectorExecutor;
+
+    private final ExecutorService callbackExecutor;
+
+    /**
+     * 有待检测帧的视频流
+     */
+    private final BlockingQueue<StreamContext> readyStreams = new LinkedBlockingQueue<>();
+
+    private final Map<String, StreamContext> streams = new ConcurrentHashMap<>();
+
+    /**
+     * 帧缓冲池，所有视频流共享
+     */
+    private final FrameBufferPool framePool = new FrameBufferPool();
+
+    private volatile boolean running = true;
+
+    public static Builder builder() { return new Builder(); }
+
+    private MultiStreamDetector(Builder builder) {
+        this.detectorModel = builder.detectorModel;
+        this.maxBatchSize = builder.maxBatchSize;
+        this.batchWaitNanos = TimeUnit.MICROSECONDS.toNanos(builder.batchWaitMicros);
+        this.grabberExecutor = Executors.newScheduledThreadPool(builder.grabberThreads, daemonFactory("smartjavaai-stream-grabber"));
+        this.detectorExecutor = Executors.newFixedThreadPool(builder.detectorThreads, daemonFactory("smartjavaai-stream-detector"));
+        this.callbackExecutor = Executors.newFixedThreadPool(builder.callbackThreads, daemonFactory("smartjavaai-stream-callback"));
+        for (int i = 0; i < builder.detectorThreads; i++) {
+            detectorExecutor.execute(this::detectLoop);
+        }
+        //日志级别
+        avutil.av_log_set_level(avutil.AV_LOG_ERROR);
+    }
+
+    private static ThreadFactory daemonFactory(String name) {
+        return runnable -> {
+            Thread t = new Thread(runnable, name);
+            t.setDaemon(true); // 守护线程
+            return t;
+        };
+    }
+
+    /**
+     * 添加视频流并开始检测
+     * @param streamId 视频流ID
+     * @param source 视频源
+     * @param listener 检测结果监听器
+     */
+    public void addStream(String streamId, StreamSource source, StreamDetectionListener listener) {
+        if (!running) {
+            throw new DetectionException("检测引擎已关闭");
+        }
+        if (StringUtils.isBlank(streamId)) {
+            throw new DetectionException("streamId 不能为空");
+        }
+        if (Objects.isNull(source) || Objects.isNull(source.getSourceType())) {
+            throw new DetectionException("sourceType 不能为空");
+        }
+        if (source.getSourceType() == VideoSourceType.CAMERA ? source.getCameraIndex() < 0 : StringUtils.isBlank(source.getStreamUrl())) {
+            throw new DetectionException(source.getSourceType() == VideoSourceType.CAMERA ? "cameraIndex 必须 >= 0" : "streamUrl 不能为空");
+        }
+        if (source.getFrameDetectionInterval() < 1) {
+            throw new DetectionException("frameDetectionInterval >= 1");
+        }
+        StreamContext context = new StreamContext(streamId, source, listener);
+        if (streams.putIfAbsent(streamId, context) != null) {
+            throw new DetectionException("视频流已存在: " + streamId);
+        }
+        submitGrab(context, 0);
+        log.debug("添加视频流: {}", streamId);
+    }
+
+    /**
+     * 停止并移除视频流
+     * @param streamId 视频流ID
+     */
+    public void removeStream(String streamId) {
+        StreamContext context = streams.remove(streamId);
+        if (context != null) {
+            context.stopped = true;
+            context.releasePending();
+            log.debug("移除视频流: {}", streamId);
+        }
+    }
+
+    /**
+     * 当前视频流ID
+     */
+    public Set<String> getStreamIds() {
+        return Collections.unmodifiableSet(streams.keySet());
+    }
+
+    /**
+     * 获取视频流运行指标
+     * @param streamId 视频流ID
+     * @return 指标，视频流不存在时返回null
+     */
+    public StreamMetrics getMetrics(String streamId) {
+        StreamContext context = streams.get(streamId);
+        return context == null ? null : context.metrics();
+    }
+
+    /**
+     * 获取所有视频流运行指标
+     */
+    public List<StreamMetrics> getAllMetrics() {
+        List<StreamMetrics> metrics = new ArrayList<>(streams.size());
+        for (StreamContext context : streams.values()) {
+            metrics.add(context.metrics());
+        }
+        return metrics;
+    }
+
+    private void submitGrab(StreamContext context, long delayMillis) {
+        try {
+            grabberExecutor.schedule(() -> grab(context), delayMillis, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            context.releaseGrabber();
+        }
+    }
+
+    /**
+     * 抓取一帧后重新排队，让出抓帧线程给其他视频流
+     */
+    private void grab(StreamContext context) {
+        if (!running || context.stopped) {
+            context.releaseGrabber();
+            return;
+        }
+        if (context.grabber == null) {
+            try {
+                context.startGrabber();
+            } catch (FrameGrabber.Exception e) {
+                log.error("视频流启动失败: {}", context.streamId, e);
+                disconnect(context);
+                return;
+            }
+        }
+        // 视频文件不丢帧：上一帧未检测完时稍后重试
+        if (context.source.getSourceType() == VideoSourceType.FILE && context.latest.get() != null) {
+            submitGrab(context, FILE_RETRY_MILLIS);
+            return;
+        }
+        try {
+            Frame frame = context.grabber.grabFrame();
+            //空帧
+            if (frame == null) {
+                if (context.source.getSourceType() == VideoSourceType.FILE) {
+                    log.debug("视频检测结束: {}", context.streamId);
+                    context.ended = true;
+                    context.releaseGrabber();
+                    finishIfDrained(context);
+                    return;
+                }
+                if (++context.nullFrameCount > MAX_NULL_FRAMES) {
+                    log.warn("检测到视频断开，已超过最大空帧次数: {}", context.streamId);
+                    disconnect(context);
+                    return;
+                }
+            } else {
+                context.nullFrameCount = 0; // 只要拿到正常帧就清零
+                if (frame.type == Frame.Type.VIDEO && ++context.detectCounter >= context.source.getFrameDetectionInterval()) {
+                    context.detectCounter = 0;
+                    // 抓帧器会复用 Frame 内存，复制到帧缓冲池
+                    PooledFrame pooledFrame = framePool.acquire(frame);
+                    if (pooledFrame != null) {
+                        offerFrame(context, pooledFrame);
+                    }
+                }
+            }
+        } catch (Exception e) {
+            log.error("抓取视频帧异常: {}", context.streamId, e);
+        }
+        submitGrab(context, 0);
+    }
+
+    /**
+     * 最新帧覆盖未检测的旧帧
+     */
+    private void offerFrame(StreamContext context, PooledFrame frame) {
+        context.grabbedFrames.increment();
+        PooledFrame old = context.latest.getAndSet(frame);
+        if (old != null) {
+            old.release();
+            context.droppedFrames.increment();
+        }
+        if (context.stopped) {
+            context.releasePending();
+            return;
+        }
+        schedule(context);
+    }
+
+    private void schedule(StreamContext context) {
+        if (context.scheduled.compareAndSet(false, true)) {
+            readyStreams.add(context);
+        }
+    }
+
+    /**
+     * 检测线程：凑批（达到 maxBatchSize 或等待超过 batchWaitMicros）后执行一次批量检测
+     */
+    private void detectLoop() {
+        List<StreamContext> batch = new ArrayList<>(maxBatchSize);
+        while (running) {
+            batch.clear();
+            try {
+                StreamContext first = readyStreams.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                long deadline = System.nanoTime() + batchWaitNanos;
+                while (batch.size() < maxBatchSize) {
+                    readyStreams.drainTo(batch, maxBatchSize - batch.size());
+                    long remaining = deadline - System.nanoTime();
+                    if (batch.size() >= maxBatchSize || remaining <= 0) {
+                        break;
+                    }
+                    StreamContext next = readyStreams.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+            } catch (InterruptedException e) {
+                batch.forEach(this::complete);
+                Thread.currentThread().interrupt();
+                break;
+            }
+            detectBatch(batch);
+        }
+        log.debug("帧处理线程退出");
+    }
+
+    private void detectBatch(List<StreamContext> batch) {
+        List<StreamContext> contexts = new ArrayList<>(batch.size());
+        List<PooledFrame> frames = new ArrayList<>(batch.size());
+        List<Image> images = new ArrayList<>(batch.size());
+        try {
+            for (StreamContext context : batch) {
+                PooledFrame frame = context.latest.getAndSet(null);
+                if (frame == null) {
+                    continue;
+                }
+                if (context.stopped) {
+                    frame.release();
+                    continue;
+                }
+                contexts.add(context);
+                frames.add(frame);
+                images.add(frame.getImage());
+            }
+            if (images.isEmpty()) {
+                return;
+            }
+            // 不同分辨率的帧由 batchDetectCore 统一缩放（YOLO）或按尺寸分组，可直接合并提交
+            DetectedObjects[] results = new DetectedObjects[images.size()];
+            try {
+                List<DetectedObjects> batchResults = detectorModel.batchDetectCore(images);
+                for (int i = 0; i < batchResults.size(); i++) {
+                    results[i] = batchResults.get(i);
+                }
+            } catch (Exception e) {
+                log.error("帧检测异常", e);
+            }
+            long now = System.currentTimeMillis();
+            for (int i = 0; i < contexts.size(); i++) {
+                if (results[i] == null) {
+                    continue;
+                }
+                StreamContext context = contexts.get(i);
+                PooledFrame frame = frames.get(i);
+                context.recordDetected(now - frame.getTimestamp(), now);
+                DetectionResponse detectionResponse = DetectorUtils.convertToDetectionResponse(results[i], images.get(i));
+                if (Objects.isNull(detectionResponse) || context.listener == null) {
+                    continue;
+                }
+                List<DetectionInfo> detectionInfoList = detectionResponse.getDetectionInfoList();
+                // 回调与检测共享同一帧，回调结束后释放
+                frame.retain();
+                context.dispatch(() -> context.listener.onFrameDetected(detectionInfoList, frame), frame::release);
+            }
+        } catch (Exception e) {
+            log.error("帧检测异常", e);
+        } finally {
+            frames.forEach(PooledFrame::release);
+            batch.forEach(this::complete);
+        }
+    }
+
+    /**
+     * 当前帧处理完成：有新帧时重新排队，视频文件结束时通知
+     */
+    private void complete(StreamContext context) {
+        context.scheduled.set(false);
+        if (context.latest.get() != null) {
+            schedule(context);
+        } else {
+            finishIfDrained(context);
+        }
+    }
+
+    private void finishIfDrained(StreamContext context) {
+        if (context.ended && !context.scheduled.get() && context.latest.get() == null
+                && context.notified.compareAndSet(false, true)) {
+            streams.remove(context.streamId, context);
+            if (context.listener != null) {
+                context.dispatch(context.listener::onStreamEnded, null);
+            }
+        }
+    }
+
+    private void disconnect(StreamContext context) {
+        context.stopped = true;
+        context.releaseGrabber();
+        context.releasePending();
+        streams.remove(context.streamId, context);
+        if (context.listener != null && context.notified.compareAndSet(false, true)) {
+            context.dispatch(context.listener::onStreamDisconnected, null);
+        }
+    }
+
+    /**
+     * 停止所有视频流并释放线程
+     */
+    @Override
+    public void close() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        for (StreamContext context : streams.values()) {
+            context.stopped = true;
+        }
+        // 已排队的抓帧任务执行时会释放抓帧器
+        grabberExecutor.shutdown();
+        detectorExecutor.shutdownNow();
+        try {
+            if (!grabberExecutor.awaitTermination(5, TimeUnit.SECONDS)) {
+                grabberExecutor.shutdownNow();
+            }
+            detectorExecutor.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        for (StreamContext context : streams.values()) {
+            context.releaseGrabber();
+            context.releasePending();
+        }
+        streams.clear();
+        readyStreams.clear();
+        callbackExecutor.shutdown();
+        framePool.close();
+    }
+
+    /**
+     * 单路视频流状态
+     */
+    private class StreamContext {
+
+        private final String streamId;
+
+        private final StreamSource source;
+
+        private final StreamDetectionListener listener;
+
+        /**
+         * 最新待检测帧
+         */
+        private final AtomicReference<PooledFrame> latest = new AtomicReference<>();
+
+        /**
+         * 是否已在待检测队列中或正在检测，保证同一视频流同时只有一帧在检测
+         */
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+
+        /**
+         * 是否已通知结束或断开
+         */
+        private final AtomicBoolean notified = new AtomicBoolean();
+
+        private final LongAdder grabbedFrames = new LongAdder();
+
+        private final LongAdder detectedFrames = new LongAdder();
+
+        private final LongAdder droppedFrames = new LongAdder();
+
+        /**
+         * 回调链，保证同一视频流的回调按顺序执行
+         */
+        private CompletableFuture<Void> callbackChain = CompletableFuture.completedFuture(null);
+
+        // 以下字段只在抓帧任务中访问（同一视频流的抓帧任务串行执行）
+        private FrameGrabber grabber;
+
+        private int nullFrameCount;
+
+        private long detectCounter;
+
+        private volatile boolean stopped;
+
+        private volatile boolean ended;
+
+        private volatile double fps;
+
+        private volatile double lagMillis;
+
+        private volatile long lastDetectTime;
+
+        private long windowStart = System.currentTimeMillis();
+
+        private int windowCount;
+
+        StreamContext(String streamId, StreamSource source, StreamDetectionListener listener) {
+            this.streamId = streamId;
+            this.source = source;
+            this.listener = listener;
+        }
+
+        void startGrabber() throws FrameGrabber.Exception {
+            FrameGrabber frameGrabber;
+            if (source.getSourceType() == VideoSourceType.CAMERA) {
+                frameGrabber = new OpenCVFrameGrabber(source.getCameraIndex());
+            } else {
+                frameGrabber = new FFmpegFrameGrabber(source.getStreamUrl());
+                if (source.getSourceType() == VideoSourceType.STREAM) {
+                    frameGrabber.setOption("rtsp_transport", "tcp");
+                    frameGrabber.setOption("buffer_size", "1024000");
+                    frameGrabber.setOption("stimeout", "2000000");  // 超时：单位微秒，这里是2秒
+                    frameGrabber.setOption("rw_timeout", "2000000"); // 读超时
+                    frameGrabber.setOption("max_delay", "5000000");
+                    frameGrabber.setOption("timeout", "2000000");    // 总超时
+                }
+            }
+            frameGrabber.start();
+            this.grabber = frameGrabber;
+        }
+
+        void releaseGrabber() {
+            if (grabber != null) {
+                try {
+                    grabber.stop();
+                    grabber.release();
+                } catch (FrameGrabber.Exception e) {
+                    log.error("释放Grabber失败", e);
+                }
+                grabber = null;
+            }
+        }
+
+        void releasePending() {
+            PooledFrame frame = latest.getAndSet(null);
+            if (frame != null) {
+                frame.release();
+            }
+        }
+
+        /**
+         * 记录检测完成（同一视频流同时只有一个检测线程调用）
+         */
+        void recordDetected(long lag, long now) {
+            detectedFrames.increment();
+            lagMillis = lastDetectTime == 0 ? lag : lagMillis * 0.8 + lag * 0.2;
+            lastDetectTime = now;
+            windowCount++;
+            long elapsed = now - windowStart;
+            if (elapsed >= 1000) {
+                fps = windowCount * 1000.0 / elapsed;
+                windowStart = now;
+                windowCount = 0;
+            }
+        }
+
+        /**
+         * 按顺序执行回调，onComplete 在回调结束（或无法提交）后执行
+         */
+        synchronized void dispatch(Runnable callback, Runnable onComplete) {
+            try {
+                callbackChain = callbackChain.thenRunAsync(() -> {
+                    try {
+                        callback.run();
+                    } catch (Throwable e) {
+                        log.error("视频流回调异常: {}", streamId, e);
+                    } finally {
+                        if (onComplete != null) {
+                            onComplete.run();
+                        }
+                    }
+                }, callbackExecutor);
+            } catch (RejectedExecutionException e) {
+                if (onComplete != null) {
+                    onComplete.run();
+                }
+            }
+        }
+
+        StreamMetrics metrics() {
+            StreamMetrics metrics = new StreamMetrics();
+            metrics.setStreamId(streamId);
+            metrics.setGrabbedFrames(grabbedFrames.sum());
+            metrics.setDetectedFrames(detectedFrames.sum());
+            metrics.setDroppedFrames(droppedFrames.sum());
+            metrics.setFps(fps);
+            metrics.setLagMillis(lagMillis);
+            metrics.setLastDetectTime(lastDetectTime);
+            return metrics;
+        }
+    }
+
+    public static class Builder {
+        private DetectorModel detectorModel;
+        private int grabberThreads = Runtime.getRuntime().availableProcessors();
+        private int detectorThreads = 2;
+        private int callbackThreads = 4;
+        private int maxBatchSize = 8;
+        private long batchWaitMicros = 5000;
+
+        public Builder detectorModel(DetectorModel m) { this.detectorModel = m; return this; }
+
+        /**
+         * 抓帧（解码）线程数，所有视频流共享
+         */
+        public Builder grabberThreads(int grabberThreads) {
+            if (grabberThreads < 1) throw new IllegalArgumentException("grabberThreads >= 1");
+            this.grabberThreads = grabberThreads;
+            return this;
+        }
+
+        /**
+         * 检测线程数（同时执行的批次数），不宜超过模型预测器池大小
+         */
+        public Builder detectorThreads(int detectorThreads) {
+            if (detectorThreads < 1) throw new IllegalArgumentException("detectorThreads >= 1");
+            this.detectorThreads = detectorThreads;
+            return this;
+        }
+
+        public Builder callbackThreads(int callbackThreads) {
+            if (callbackThreads < 1) throw new IllegalArgumentException("callbackThreads >= 1");
+            this.callbackThreads = callbackThreads;
+            return this;
+        }
+
+        /**
+         * 单批最多合并的视频流数
+         */
+        public Builder maxBatchSize(int maxBatchSize) {
+            if (maxBatchSize < 1) throw new IllegalArgumentException("maxBatchSize >= 1");
+            this.maxBatchSize = maxBatchSize;
+            return this;
+        }
+
+        /**
+         * 凑批最长等待时间（微秒）
+         */
+        public Builder batchWaitMicros(long batchWaitMicros) {
+            if (batchWaitMicros < 0) throw new IllegalArgumentException("batchWaitMicros >= 0");
+            this.batchWaitMicros = batchWaitMicros;
+            return this;
+        }
+
+        public MultiStreamDetector build() {
+            if (detectorModel == null) {
+                throw new DetectionException("detectorModel 不能为空");
+            }
+            return new MultiStreamDetector(this);
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package cn.smartjavaai.objectdetection.stream;
 
 import ai.djl.modality.cv.Image;
+import cn.smartjavaai.common.cv.PooledFrame;
 import cn.smartjavaai.common.entity.DetectionInfo;
 
 import java.util.List;
@@ -16,10 +17,21 @@ public interface StreamDetectionListener {
     /**
      * 当检测到目标时回调
      * @param detectionInfoList 目标信息列表
-     * @param image 检测到的图片
+     * @param image 检测到的图片（与检测共享帧缓冲，只读且仅在回调期间有效，不得绘制或释放；需绘制或保留时请使用 ImageUtils.copy(image)）
      */
     void onObjectDetected(List<DetectionInfo> detectionInfoList, Image image);
 
+    /**
+     * 当检测到目标时回调，默认转调 {@link #onObjectDetected(List, Image)}
+     * 帧仅在回调期间有效：回调结束后仍需使用时先调用 {@link PooledFrame#retain()}，用完后调用 {@link PooledFrame#release()}；
+     * 需要绘制或修改时使用 {@link PooledFrame#copyImage()} 获取副本
+     * @param detectionInfoList 目标信息列表
+     * @param frame 检测到的帧（与检测共享帧缓冲，只读）
+     */
+    default void onFrameDetected(List<DetectionInfo> detectionInfoList, PooledFrame frame) {
+        onObjectDetected(detectionInfoList, frame.getImage());
+    }
+
     /**
      * 当视频文件读取完毕时回调
      */
@@ -9,7 +9,8 @@ import ai.djl.modality.cv.output.Mask;
 import ai.djl.modality.cv.output.Rectangle;
 import cn.hutool.core.date.LocalDateTimeUtil;
 import cn.hutool.core.lang.UUID;
-import cn.smartjavaai.common.cv.SmartImageFactory;
+import cn.smartjavaai.common.cv.FrameBufferPool;
+import cn.smartjavaai.common.cv.PooledFrame;
 import cn.smartjavaai.common.entity.*;
 import cn.smartjavaai.common.enums.VideoSourceType;
 import cn.smartjavaai.common.utils.ImageUtils;
@@ -23,13 +24,13 @@ import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.pool2.impl.GenericObjectPool;
 import org.bytedeco.ffmpeg.global.avutil;
 import org.bytedeco.javacv.*;
-import org.opencv.core.Mat;
 
 import java.util.*;
 import java.util.concurrent.*;
 
 /**
  * 视频流目标检测器
+ * 每路视频流独占抓帧、处理及回调线程，多路视频流请使用 {@link MultiStreamDetector}
  * @author dwj
  */
 @Slf4j
@@ -52,14 +53,15 @@ public class StreamDetector implements AutoCloseable{
     private volatile boolean isRunning;
     private FrameGrabber grabber;
     private StreamDetectionListener listener;
-    private OpenCVFrameConverter.ToOrgOpenCvCoreMat converterToMat;
+    //帧缓冲池：解码帧只复制一次，检测与回调共享
+    private final FrameBufferPool framePool = new FrameBufferPool();
     private VideoSourceType sourceType = VideoSourceType.STREAM; // 默认流
     private int cameraIndex = 0; // 默认第一个摄像头
 
     private boolean enableDebugLog; //是否开启debug log
 
     private Map<String, Long> lastDetectTime = new ConcurrentHashMap<>();
-    private BlockingQueue<Frame> frameQueue = new LinkedBlockingQueue<>(100);
+    private BlockingQueue<PooledFrame> frameQueue = new LinkedBlockingQueue<>(100);
 
     private GenericObjectPool<Predictor<Image, DetectedObjects>> predictorPool;
 
@@ -87,7 +89,6 @@ public class StreamDetector implements AutoCloseable{
         this.cameraIndex = builder.cameraIndex;
 //        this.repeatGap = builder.repeatGap;
         this.enableDebugLog = builder.enableDebugLog;
-        this.converterToMat = new OpenCVFrameConverter.ToOrgOpenCvCoreMat();
     }
 
     private void initializeGrabber() throws FrameGrabber.Exception {
@@ -199,8 +200,10 @@ public class StreamDetector implements AutoCloseable{
                     continue;
                 }
                 detectCounter = 0;
-                Frame currentFrame = frame.clone();
-                frameQueue.offer(currentFrame);
+                PooledFrame currentFrame = framePool.acquire(frame);
+                if (currentFrame != null && !frameQueue.offer(currentFrame)) {
+                    currentFrame.release();
+                }
                 if (enableDebugLog){
                     log.debug("当前未处理帧数：{}", frameQueue.size());
                 }
@@ -219,7 +222,7 @@ public class StreamDetector implements AutoCloseable{
             log.debug("帧处理线程已启动");
             while ((!grabberFinished || !frameQueue.isEmpty()) && isRunning) {
                 try {
-                    Frame frame = frameQueue.poll(100, TimeUnit.MILLISECONDS);
+                    PooledFrame frame = frameQueue.poll(100, TimeUnit.MILLISECONDS);
                     if (frame != null) {
                         processFrame(frame);
                     }
@@ -241,13 +244,9 @@ public class StreamDetector implements AutoCloseable{
 
     }
 
-    private void processFrame(Frame frame) {
-        Mat mat = null;
+    private void processFrame(PooledFrame frame) {
         try {
-            mat = converterToMat.convert(frame);
-            if (mat == null) return;
-
-            Image image = SmartImageFactory.getInstance().fromMat(mat);
+            Image image = frame.getImage();
             DetectedObjects detectedObjects = predictor.predict(image);
             if (enableDebugLog){
                 log.debug("帧检测结果：{}", detectedObjects.toString());
@@ -256,13 +255,24 @@ public class StreamDetector implements AutoCloseable{
             if(Objects.isNull(detectionResponse)){
                 return;
             }
-            Image copyImage = image.duplicate();
-            callbackExecutor.submit(() -> listener.onObjectDetected(detectionResponse.getDetectionInfoList(), copyImage));
+            // 回调与检测共享同一帧，回调结束后释放
+            frame.retain();
+            try {
+                callbackExecutor.submit(() -> {
+                    try {
+                        listener.onFrameDetected(detectionResponse.getDetectionInfoList(), frame);
+                    } finally {
+                        frame.release();
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                frame.release();
+                throw e;
+            }
         } catch (Throwable e) {
-            e.printStackTrace();
             log.error("单帧处理异常", e);
         }  finally {
-            if (mat != null) mat.release();
+            frame.release();
         }
     }
 
@@ -322,6 +332,11 @@ public class StreamDetector implements AutoCloseable{
         if (callbackExecutor != null) {
             callbackExecutor.shutdownNow();
         }
+        PooledFrame frame;
+        while ((frame = frameQueue.poll()) != null) {
+            frame.release();
+        }
+        framePool.close();
     }
 
     public static class Builder {
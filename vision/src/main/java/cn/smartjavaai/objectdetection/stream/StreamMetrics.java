@@ -0,0 +1,47 @@
+package cn.smartjavaai.objectdetection.stream;
+
+import lombok.Data;
+
+/**
+ * 单路视频流运行指标（快照）
+ * @author dwj
+ */
+@Data
+public class StreamMetrics {
+
+    /**
+     * 视频流ID
+     */
+    private String streamId;
+
+    /**
+     * 已抓取（参与检测采样）的帧数
+     */
+    private long grabbedFrames;
+
+    /**
+     * 已检测的帧数
+     */
+    private long detectedFrames;
+
+    /**
+     * 被更新的帧覆盖而丢弃的帧数
+     */
+    private long droppedFrames;
+
+    /**
+     * 最近一秒的检测帧率
+     */
+    private double fps;
+
+    /**
+     * 抓帧到检测完成的延迟（毫秒，指数滑动平均）
+     */
+    private double lagMillis;
+
+    /**
+     * 最近一次检测完成的时间戳（毫秒）
+     */
+    private long lastDetectTime;
+
+}
@@ -0,0 +1,62 @@
+package cn.smartjavaai.objectdetection.stream;
+
+import cn.smartjavaai.common.enums.VideoSourceType;
+import lombok.Data;
+
+/**
+ * 视频源配置
+ * @author dwj
+ */
+@Data
+public class StreamSource {
+
+    /**
+     * 视频源类型
+     */
+    private VideoSourceType sourceType = VideoSourceType.STREAM;
+
+    /**
+     * 流地址或视频文件路径
+     */
+    private String streamUrl;
+
+    /**
+     * 摄像头索引
+     */
+    private int cameraIndex = 0;
+
+    /**
+     * 每隔多少帧检测一次
+     */
+    private int frameDetectionInterval = 1;
+
+    public StreamSource() {
+    }
+
+    public StreamSource(VideoSourceType sourceType, String streamUrl, int cameraIndex) {
+        this.sourceType = sourceType;
+        this.streamUrl = streamUrl;
+        this.cameraIndex = cameraIndex;
+    }
+
+    /**
+     * RTSP/HTTP 视频流
+     */
+    public static StreamSource stream(String streamUrl) {
+        return new StreamSource(VideoSourceType.STREAM, streamUrl, 0);
+    }
+
+    /**
+     * 本地视频文件（逐帧检测，不丢帧）
+     */
+    public static StreamSource file(String videoPath) {
+        return new StreamSource(VideoSourceType.FILE, videoPath, 0);
+    }
+
+    /**
+     * 本地摄像头
+     */
+    public static StreamSource camera(int cameraIndex) {
+        return new StreamSource(VideoSourceType.CAMERA, null, cameraIndex);
+    }
+}
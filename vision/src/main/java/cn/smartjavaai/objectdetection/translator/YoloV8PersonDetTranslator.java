@@ -13,6 +13,7 @@ import ai.djl.ndarray.types.DataType;
 import ai.djl.ndarray.types.Shape;
 import ai.djl.translate.*;
 import cn.smartjavaai.common.utils.LetterBoxUtils;
+import cn.smartjavaai.common.utils.NMSUtils;
 
 import java.nio.file.Files;
 import java.nio.file.Paths;
@@ -185,31 +186,31 @@ public class YoloV8PersonDetTranslator implements Translator<Image, DetectedObje
         List<Double> retProbs = new ArrayList<>();
         List<BoundingBox> retBB = new ArrayList<>();
 
-        for (int classId = 0; classId < classes.size(); classId++) {
-            List<Rectangle> r = new ArrayList<>();
-            List<Double> s = new ArrayList<>();
-            List<Integer> map = new ArrayList<>();
-            for (int j = 0; j < classIds.size(); ++j) {
-                if (classIds.get(j) == classId) {
-                    r.add(boxes.get(j));
-                    s.add(scores.get(j).doubleValue());
-                    map.add(j);
-                }
-            }
-            if (r.isEmpty()) {
+        int count = boxes.size();
+        float[] boxArray = new float[count * 4];
+        float[] scoreArray = new float[count];
+        int[] classArray = new int[count];
+        for (int j = 0; j < count; j++) {
+            Rectangle box = boxes.get(j);
+            boxArray[j * 4] = (float) box.getX();
+            boxArray[j * 4 + 1] = (float) box.getY();
+            boxArray[j * 4 + 2] = (float) (box.getX() + box.getWidth());
+            boxArray[j * 4 + 3] = (float) (box.getY() + box.getHeight());
+            scoreArray[j] = scores.get(j);
+            classArray[j] = classIds.get(j);
+        }
+        int[] keep = NMSUtils.batchedNms(boxArray, scoreArray, classArray, count, nmsThreshold, Integer.MAX_VALUE);
+        for (int pos : keep) {
+            if (classArray[pos] < 0 || classArray[pos] >= classes.size()) {
                 continue;
             }
-            List<Integer> nms = Rectangle.nms(r, s, nmsThreshold);
-            for (int index : nms) {
-                int pos = map.get(index);
-                int id = classIds.get(pos);
-                retClasses.add(classes.get(id));
-                retProbs.add(scores.get(pos).doubleValue());
+            int id = classIds.get(pos);
+            retClasses.add(classes.get(id));
+            retProbs.add(scores.get(pos).doubleValue());
 //                Rectangle rect = boxes.get(pos);
-                Rectangle rect = boxes.get(pos);
-                rect = LetterBoxUtils.restoreBox(rect, scale, origImageWidth, origImageHeight, width, height);
-                retBB.add(rect);
-            }
+            Rectangle rect = boxes.get(pos);
+            rect = LetterBoxUtils.restoreBox(rect, scale, origImageWidth, origImageHeight, width, height);
+            retBB.add(rect);
         }
         return new DetectedObjects(retClasses, retProbs, retBB);
     }
@@ -8,6 +8,8 @@ import ai.djl.modality.cv.output.Joints;
 import ai.djl.repository.zoo.Criteria;
 import ai.djl.repository.zoo.ModelNotFoundException;
 import ai.djl.repository.zoo.ZooModel;
+import cn.smartjavaai.common.batch.BatchInference;
+import cn.smartjavaai.common.batch.DynamicBatcher;
 import cn.smartjavaai.common.cv.SmartImageFactory;
 import cn.smartjavaai.common.entity.DetectionResponse;
 import cn.smartjavaai.common.entity.R;
@@ -30,6 +32,8 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Objects;
 
 /**
@@ -46,6 +50,8 @@ public class CommonPoseModel implements PoseModel {
 
     private GenericObjectPool<Predictor<Image, Joints[]>> predictorPool;
 
+    private BatchInference<Image, Joints[]> batchInference;
+
     @Override
     public void loadModel(PoseModelConfig config) {
         if(Objects.isNull(config.getModelEnum())){
@@ -62,6 +68,8 @@ public class CommonPoseModel implements PoseModel {
                 predictorPoolSize = Runtime.getRuntime().availableProcessors(); // 默认等于CPU核心数
             }
             predictorPool.setMaxTotal(predictorPoolSize);
+            DynamicBatcher.warnUnsupported("姿态估计", config);
+            this.batchInference = new BatchInference<>("姿态估计", predictorPool, null, config, BatchInference.imageSize());
             log.debug("当前设备: " + model.getNDManager().getDevice());
             log.debug("当前引擎: " + Engine.getInstance().getEngineName());
             log.debug("模型推理器线程池最大数量: " + predictorPoolSize);
@@ -129,6 +137,27 @@ public class CommonPoseModel implements PoseModel {
         }
     }
 
+    @Override
+    public R<List<Joints[]>> batchDetect(List<Image> images) {
+        if(images == null){
+            return R.fail(R.Status.PARAM_ERROR);
+        }
+        return R.ok(batchDetectCore(images));
+    }
+
+    /**
+     * 批量姿态估计：尺寸相同的图片合并为一次前向推理，不同尺寸分组执行（Translator 的缩放参数按整批共用）
+     * @param images 图片列表（尺寸可以不同）
+     * @return 结果，顺序与输入一致
+     */
+    public List<Joints[]> batchDetectCore(List<Image> images) {
+        try {
+            return batchInference.predict(images);
+        } catch (Exception e) {
+            throw new DetectionException("姿态估计错误", e);
+        }
+    }
+
     @Override
     public void close() throws Exception {
         if (fromFactory) {
@@ -8,6 +8,8 @@ import cn.smartjavaai.common.entity.R;
 import cn.smartjavaai.objectdetection.config.PersonDetModelConfig;
 import cn.smartjavaai.pose.config.PoseModelConfig;
 
+import java.util.List;
+
 /**
  * 姿态估计模型
  * @author dwj
@@ -49,6 +51,15 @@ public interface PoseModel extends AutoCloseable{
         throw new UnsupportedOperationException("默认不支持该功能");
     }
 
+    /**
+     * 批量姿态估计
+     * @param images 图片列表（尺寸可以不同）
+     * @return 姿态估计结果，顺序与输入一致
+     */
+    default R<List<Joints[]>> batchDetect(List<Image> images){
+        throw new UnsupportedOperationException("默认不支持该功能");
+    }
+
     default void setFromFactory(boolean fromFactory){
         throw new UnsupportedOperationException("默认不支持该功能");
     }
@@ -10,9 +10,12 @@ import ai.djl.modality.cv.output.DetectedObjects;
 import ai.djl.repository.zoo.Criteria;
 import ai.djl.repository.zoo.ModelNotFoundException;
 import ai.djl.repository.zoo.ZooModel;
+import cn.smartjavaai.common.batch.BatchInference;
+import cn.smartjavaai.common.batch.DynamicBatcher;
 import cn.smartjavaai.common.cv.SmartImageFactory;
 import cn.smartjavaai.common.entity.DetectionResponse;
 import cn.smartjavaai.common.entity.R;
+import cn.smartjavaai.common.entity.RleMask;
 import cn.smartjavaai.common.pool.PredictorFactory;
 import cn.smartjavaai.common.utils.Base64ImageUtils;
 import cn.smartjavaai.common.utils.ImageUtils;
@@ -33,6 +36,10 @@ import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 
 /**
@@ -49,6 +56,8 @@ public class CommonSemSegModel implements SemSegModel {
 
     private GenericObjectPool<Predictor<Image, CategoryMask>> predictorPool;
 
+    private BatchInference<Image, CategoryMask> batchInference;
+
     @Override
     public void loadModel(SemSegModelConfig config) {
         if(Objects.isNull(config.getModelEnum())){
@@ -65,6 +74,8 @@ public class CommonSemSegModel implements SemSegModel {
                 predictorPoolSize = Runtime.getRuntime().availableProcessors(); // 默认等于CPU核心数
             }
             predictorPool.setMaxTotal(predictorPoolSize);
+            DynamicBatcher.warnUnsupported("语义分割", config);
+            this.batchInference = new BatchInference<>("语义分割", predictorPool, null, config, BatchInference.imageSize());
             log.debug("当前设备: " + model.getNDManager().getDevice());
             log.debug("当前引擎: " + Engine.getInstance().getEngineName());
             log.debug("模型推理器线程池最大数量: " + predictorPoolSize);
@@ -75,13 +86,63 @@ public class CommonSemSegModel implements SemSegModel {
 
     @Override
     public R<CategoryMask> detect(Image image) {
-        CategoryMask categoryMask = detectCore(image);
-        // 过滤
+        return R.ok(filter(detectCore(image)));
+    }
+
+    @Override
+    public R<List<CategoryMask>> batchDetect(List<Image> images) {
+        if(images == null){
+            return R.fail(R.Status.PARAM_ERROR);
+        }
+        List<CategoryMask> results = batchDetectCore(images);
+        List<CategoryMask> filtered = new ArrayList<>(results.size());
+        for (CategoryMask result : results) {
+            filtered.add(filter(result));
+        }
+        return R.ok(filtered);
+    }
+
+    @Override
+    public R<Map<String, RleMask>> detectRle(Image image) {
+        return R.ok(toRleMasks(detectCore(image)));
+    }
+
+    @Override
+    public R<List<Map<String, RleMask>>> batchDetectRle(List<Image> images) {
+        if(images == null){
+            return R.fail(R.Status.PARAM_ERROR);
+        }
+        List<CategoryMask> results = batchDetectCore(images);
+        List<Map<String, RleMask>> masks = new ArrayList<>(results.size());
+        for (CategoryMask result : results) {
+            masks.add(toRleMasks(result));
+        }
+        return R.ok(masks);
+    }
+
+    /**
+     * 编码为行程编码遮罩，按配置的类别过滤时直接丢弃其他类别，不复制类别图
+     */
+    private Map<String, RleMask> toRleMasks(CategoryMask categoryMask) {
+        if(Objects.isNull(categoryMask) || CollectionUtils.isEmpty(categoryMask.getClasses())){
+            return Collections.emptyMap();
+        }
+        Map<String, RleMask> masks = DetectorUtils.toRleMasks(categoryMask);
+        if(CollectionUtils.isNotEmpty(config.getAllowedClasses())){
+            masks.keySet().retainAll(config.getAllowedClasses());
+        }
+        return masks;
+    }
+
+    /**
+     * 按配置的类别过滤分割结果
+     */
+    private CategoryMask filter(CategoryMask categoryMask) {
         if(CollectionUtils.isNotEmpty(config.getAllowedClasses())
                 && Objects.nonNull(categoryMask) && CollectionUtils.isNotEmpty(categoryMask.getClasses())){
-            categoryMask = new CategoryMaskFilter(config.getAllowedClasses()).filter(categoryMask);
+            return new CategoryMaskFilter(config.getAllowedClasses()).filter(categoryMask);
         }
-        return R.ok(categoryMask);
+        return categoryMask;
     }
 
     /**
@@ -141,6 +202,19 @@ public class CommonSemSegModel implements SemSegModel {
         return drawnImage;
     }
 
+    /**
+     * 批量语义分割：尺寸相同的图片合并为一次前向推理，不同尺寸分组执行（Translator 的缩放参数按整批共用，掩码需按原图尺寸还原）
+     * @param images 图片列表（尺寸可以不同）
+     * @return 结果，顺序与输入一致
+     */
+    public List<CategoryMask> batchDetectCore(List<Image> images) {
+        try {
+            return batchInference.predict(images);
+        } catch (Exception e) {
+            throw new DetectionException("语义分割错误", e);
+        }
+    }
+
     @Override
     public void close() throws Exception {
         if (fromFactory) {
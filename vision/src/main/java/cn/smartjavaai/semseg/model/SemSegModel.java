@@ -5,8 +5,12 @@ import ai.djl.modality.cv.Image;
 import ai.djl.modality.cv.output.CategoryMask;
 import cn.smartjavaai.common.entity.DetectionResponse;
 import cn.smartjavaai.common.entity.R;
+import cn.smartjavaai.common.entity.RleMask;
 import cn.smartjavaai.semseg.config.SemSegModelConfig;
 
+import java.util.List;
+import java.util.Map;
+
 /**
  * 语义分割模型
  * @author dwj
@@ -38,6 +42,33 @@ public interface SemSegModel extends AutoCloseable{
     }
 
 
+    /**
+     * 批量语义分割
+     * @param images 图片列表（尺寸可以不同）
+     * @return 分割结果，顺序与输入一致
+     */
+    default R<List<CategoryMask>> batchDetect(List<Image> images){
+        throw new UnsupportedOperationException("默认不支持该功能");
+    }
+
+    /**
+     * 语义分割，结果按类别编码为行程编码遮罩，不保留稠密的 int[height][width] 类别图
+     * @param image
+     * @return 类别名称 -> 遮罩，不包含没有像素的类别
+     */
+    default R<Map<String, RleMask>> detectRle(Image image){
+        throw new UnsupportedOperationException("默认不支持该功能");
+    }
+
+    /**
+     * 批量语义分割，结果按类别编码为行程编码遮罩
+     * @param images 图片列表（尺寸可以不同）
+     * @return 分割结果，顺序与输入一致
+     */
+    default R<List<Map<String, RleMask>>> batchDetectRle(List<Image> images){
+        throw new UnsupportedOperationException("默认不支持该功能");
+    }
+
     default void setFromFactory(boolean fromFactory){
         throw new UnsupportedOperationException("默认不支持该功能");
     }
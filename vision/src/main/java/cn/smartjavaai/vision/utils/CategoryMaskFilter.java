@@ -51,13 +51,13 @@ public class CategoryMaskFilter {
         // Create a new class names list for allowed classes
         List<String> filteredClassNames = new ArrayList<>();
 
-        // Map original indices to new indices for allowed classes
-        List<Integer> allowedOriginalIndices = new ArrayList<>();
+        // 原类别下标 -> 新下标的查找表，不允许的类别映射为背景 0
+        int[] remap = new int[originalClassNames.size()];
         for (int i = 0; i < originalClassNames.size(); i++) {
             String className = originalClassNames.get(i);
             if (allowedClasses.contains(className)) {
+                remap[i] = filteredClassNames.size();
                 filteredClassNames.add(className);
-                allowedOriginalIndices.add(i);
             }
         }
 
@@ -68,14 +68,11 @@ public class CategoryMaskFilter {
 
         // Update mask: remap pixels of allowed classes to new indices, others to 0
         for (int h = 0; h < height; h++) {
+            int[] originalRow = originalMask[h];
+            int[] filteredRow = filteredMask[h];
             for (int w = 0; w < width; w++) {
-                int originalIndex = originalMask[h][w];
-                int newIndex = allowedOriginalIndices.indexOf(originalIndex);
-                if (newIndex != -1) {
-                    filteredMask[h][w] = newIndex;
-                } else {
-                    filteredMask[h][w] = 0; // Background
-                }
+                int originalIndex = originalRow[w];
+                filteredRow[w] = originalIndex >= 0 && originalIndex < remap.length ? remap[originalIndex] : 0;
             }
         }
 
@@ -2,12 +2,14 @@ package cn.smartjavaai.vision.utils;
 
 import ai.djl.modality.cv.Image;
 import ai.djl.modality.cv.output.BoundingBox;
+import ai.djl.modality.cv.output.CategoryMask;
 import ai.djl.modality.cv.output.DetectedObjects;
 import ai.djl.modality.cv.output.Mask;
 import ai.djl.modality.cv.output.Rectangle;
 import cn.smartjavaai.common.entity.*;
 import cn.smartjavaai.common.entity.Point;
 import cn.smartjavaai.common.utils.ImageUtils;
+import cn.smartjavaai.instanceseg.entity.CompactMask;
 import cn.smartjavaai.obb.entity.ObbResult;
 import cn.smartjavaai.obb.entity.YoloRotatedBox;
 import org.apache.commons.collections.CollectionUtils;
@@ -22,7 +24,9 @@ import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 
 /**
@@ -60,7 +64,10 @@ public class DetectorUtils {
             DetectionRectangle rectangle = new DetectionRectangle(x, y, width, height);
             DetectionInfo detectionInfo = new DetectionInfo(rectangle, detection.getProbabilities().get(index).floatValue());
             //目标检测
-            if(box instanceof Mask){
+            if(box instanceof CompactMask){
+                InstanceSegInfo instanceSegInfo = new InstanceSegInfo(className, ((CompactMask)box).getRleMask());
+                detectionInfo.setInstanceSegInfo(instanceSegInfo);
+            }else if(box instanceof Mask){
                 Mask mask = (Mask)box;
                 InstanceSegInfo instanceSegInfo = new InstanceSegInfo(className, mask.getProbDist());
                 detectionInfo.setInstanceSegInfo(instanceSegInfo);
@@ -75,6 +82,46 @@ public class DetectorUtils {
         return detectionResponse;
     }
 
+    /**
+     * 将行程编码遮罩展开为 DJL Mask，用于 {@link Image#drawBoundingBoxes(DetectedObjects)} 绘制遮罩
+     * @param detection 检测结果
+     * @return 可绘制的检测结果
+     */
+    public static DetectedObjects toDrawable(DetectedObjects detection){
+        List<String> classNames = new ArrayList<>(detection.getNumberOfObjects());
+        List<Double> probabilities = new ArrayList<>(detection.getNumberOfObjects());
+        List<BoundingBox> boxes = new ArrayList<>(detection.getNumberOfObjects());
+        boolean converted = false;
+        for (DetectedObjects.DetectedObject item : detection.<DetectedObjects.DetectedObject>items()) {
+            BoundingBox box = item.getBoundingBox();
+            if (box instanceof CompactMask) {
+                box = ((CompactMask) box).toMask();
+                converted = true;
+            }
+            classNames.add(item.getClassName());
+            probabilities.add(item.getProbability());
+            boxes.add(box);
+        }
+        return converted ? new DetectedObjects(classNames, probabilities, boxes) : detection;
+    }
+
+    /**
+     * 语义分割结果按类别编码为行程编码遮罩
+     * @param categoryMask 语义分割结果
+     * @return 类别名称 -> 遮罩，不包含没有像素的类别
+     */
+    public static Map<String, RleMask> toRleMasks(CategoryMask categoryMask){
+        List<String> classes = categoryMask.getClasses();
+        RleMask[] masks = RleMask.encodeCategories(categoryMask.getMask(), classes.size());
+        Map<String, RleMask> result = new LinkedHashMap<>();
+        for (int i = 0; i < masks.length; i++) {
+            if (!masks[i].isEmpty()) {
+                result.put(classes.get(i), masks[i]);
+            }
+        }
+        return result;
+    }
+
     public static DetectionResponse obbToToDetectionResponse(ObbResult obbResult){
         if(Objects.isNull(obbResult) || CollectionUtils.isEmpty(obbResult.getRotatedBoxeList())){
             return null;
@@ -9,6 +9,8 @@ import ai.djl.modality.cv.output.DetectedObjects;
 import ai.djl.repository.zoo.Criteria;
 import ai.djl.repository.zoo.ModelNotFoundException;
 import ai.djl.repository.zoo.ZooModel;
+import cn.smartjavaai.common.batch.DynamicBatcher;
+import cn.smartjavaai.common.cache.PromptEmbeddingCache;
 import cn.smartjavaai.common.cv.SmartImageFactory;
 import cn.smartjavaai.common.entity.DetectionResponse;
 import cn.smartjavaai.common.entity.R;
@@ -25,7 +27,9 @@ import org.apache.commons.pool2.impl.GenericObjectPool;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Paths;
+import java.util.LinkedHashSet;
 import java.util.Objects;
+import java.util.Set;
 
 /**
  * 零样本目标检测模型
@@ -57,6 +61,7 @@ public class CommonZeroDetModel implements ZeroDetModel {
                 predictorPoolSize = Runtime.getRuntime().availableProcessors(); // 默认等于CPU核心数
             }
             predictorPool.setMaxTotal(predictorPoolSize);
+            DynamicBatcher.warnUnsupported("零样本检测", config);
             log.debug("当前设备: " + model.getNDManager().getDevice());
             log.debug("当前引擎: " + Engine.getInstance().getEngineName());
             log.debug("模型推理器线程池最大数量: " + predictorPoolSize);
@@ -67,11 +72,28 @@ public class CommonZeroDetModel implements ZeroDetModel {
 
     @Override
     public R<DetectionResponse> detect(Image image, String[] candidates) {
-        DetectedObjects detectedObjects = detectCore(new VisionLanguageInput(image, candidates));
+        if (Objects.isNull(candidates) || candidates.length == 0) {
+            return R.fail(R.Status.PARAM_ERROR.getCode(), "候选类别不能为空");
+        }
+        DetectedObjects detectedObjects = detectCore(new VisionLanguageInput(image, normalize(candidates)));
         DetectionResponse detectionResponse = DetectorUtils.convertToDetectionResponse(detectedObjects, image);
         return R.ok(detectionResponse);
     }
 
+    /**
+     * 规范化候选类别并去重，避免同一文本提示在一次推理中重复编码
+     * 文本编码在 DJL 的 Translator/模型内部完成，每次推理都会重新编码候选类别，此处不缓存文本特征
+     */
+    private String[] normalize(String[] candidates) {
+        Set<String> texts = new LinkedHashSet<>();
+        for (String candidate : candidates) {
+            String text = PromptEmbeddingCache.normalize(candidate);
+            if (!text.isEmpty()) {
+                texts.add(text);
+            }
+        }
+        return texts.toArray(new String[0]);
+    }
 
     /**
      * 模型核心推理方法
@@ -9,6 +9,8 @@ import cn.smartjavaai.zeroshot.config.ZeroDetConfig;
 
 /**
  * 零样本目标检测模型
+ * 注意：文本编码器与图像编码器导出在同一个模型中，候选类别在每次推理时都会重新编码，文本特征无法跨调用缓存；
+ * 固定类别、高频调用的场景请尽量减少候选类别数量，或改用导出了独立文本编码器的模型
  * @author dwj
  */
 
@@ -22,8 +24,9 @@ public interface ZeroDetModel extends AutoCloseable{
     void loadModel(ZeroDetConfig config);
 
     /**
-     * 零样本目标检测
+     * 零样本目标检测（每次调用都会重新编码 candidates）
      * @param image
+     * @param candidates 候选类别
      * @return
      */
     default R<DetectionResponse> detect(Image image, String[] candidates){
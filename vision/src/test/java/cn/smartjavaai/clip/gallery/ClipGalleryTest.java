@@ -0,0 +1,98 @@
+package cn.smartjavaai.clip.gallery;
+
+import cn.smartjavaai.clip.config.ClipModelConfig;
+import cn.smartjavaai.clip.entity.GallerySearchResult;
+import cn.smartjavaai.clip.model.ClipModel;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.List;
+
+import static org.testng.Assert.*;
+
+/**
+ * ClipGallery 测试：增删后重新加载图库文件，以及删除中途退出后的恢复
+ * @author dwj
+ */
+public class ClipGalleryTest {
+
+    /**
+     * 只使用特征接口，不加载模型
+     */
+    private static final ClipModel MODEL = new ClipModel() {
+        @Override
+        public void loadModel(ClipModelConfig config) {
+        }
+
+        @Override
+        public void close() {
+        }
+    };
+
+    @Test
+    public void testReloadAfterAddAndRemove() throws Exception {
+        File file = tempFile();
+        try {
+            try (ClipGallery gallery = new ClipGallery(MODEL, file)) {
+                for (int i = 0; i < 1500; i++) {
+                    gallery.add("img" + i, vector(i));
+                }
+                assertTrue(gallery.remove("img3"));
+                assertFalse(gallery.remove("img3"));
+                gallery.add("img10", vector(2000));
+            }
+            try (ClipGallery gallery = new ClipGallery(MODEL, file)) {
+                assertEquals(gallery.size(), 1499);
+                assertFalse(gallery.contains("img3"));
+                assertTrue(gallery.contains("img1499"));
+                List<GallerySearchResult> results = gallery.search(vector(2000), 1, 0f);
+                assertEquals(results.get(0).getId(), "img10");
+                assertEquals(results.get(0).getSimilarity(), 1f, 1e-5f);
+            }
+        } finally {
+            Files.deleteIfExists(file.toPath());
+        }
+    }
+
+    @Test
+    public void testInterruptedRemove() throws Exception {
+        File file = tempFile();
+        try {
+            try (ClipGallery gallery = new ClipGallery(MODEL, file)) {
+                gallery.add("a", vector(1));
+                gallery.add("b", vector(2));
+                gallery.add("c", vector(3));
+            }
+            // 模拟删除 a 时最后一行已复制到第0行、行数尚未更新
+            try (MappedGalleryStore store = new MappedGalleryStore(file)) {
+                store.copy(2, 0);
+            }
+            try (ClipGallery gallery = new ClipGallery(MODEL, file)) {
+                assertEquals(gallery.size(), 2);
+                assertFalse(gallery.contains("a"));
+                assertEquals(gallery.search(vector(3), 1, 0f).get(0).getId(), "c");
+                assertEquals(gallery.search(vector(2), 1, 0f).get(0).getId(), "b");
+            }
+            try (MappedGalleryStore store = new MappedGalleryStore(file)) {
+                assertEquals(store.getCount(), 2);
+            }
+        } finally {
+            Files.deleteIfExists(file.toPath());
+        }
+    }
+
+    private static File tempFile() throws Exception {
+        File file = File.createTempFile("clip", ".gallery");
+        Files.delete(file.toPath());
+        return file;
+    }
+
+    private static float[] vector(int seed) {
+        float[] vector = new float[8];
+        for (int i = 0; i < vector.length; i++) {
+            vector[i] = (float) Math.sin(seed * 7.1 + i * 1.3);
+        }
+        return vector;
+    }
+}
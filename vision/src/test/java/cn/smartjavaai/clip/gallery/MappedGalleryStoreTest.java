@@ -0,0 +1,117 @@
+package cn.smartjavaai.clip.gallery;
+
+import cn.smartjavaai.clip.exception.ClipException;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.nio.file.Files;
+
+import static org.testng.Assert.*;
+
+/**
+ * MappedGalleryStore 测试：写入后重新打开文件，维度、行数、ID 与特征保持不变
+ * @author dwj
+ */
+public class MappedGalleryStoreTest {
+
+    private static final int DIMENSION = 16;
+
+    @Test
+    public void testReload() throws Exception {
+        File file = tempFile();
+        try {
+            // 行数跨过段的多次扩展映射
+            int count = 2500;
+            try (MappedGalleryStore store = new MappedGalleryStore(file)) {
+                assertEquals(store.getDimension(), 0);
+                assertEquals(store.getCount(), 0);
+                store.initDimension(DIMENSION);
+                for (int row = 0; row < count; row++) {
+                    store.write(row, "图片-" + row, vector(row), 0);
+                }
+                store.setCount(count);
+            }
+            try (MappedGalleryStore store = new MappedGalleryStore(file)) {
+                assertEquals(store.getDimension(), DIMENSION);
+                assertEquals(store.getCount(), count);
+                float[] target = new float[DIMENSION + 3];
+                for (int row = 0; row < count; row++) {
+                    assertEquals(store.readId(row), "图片-" + row);
+                    store.readVector(row, target, 3);
+                    for (int i = 0; i < DIMENSION; i++) {
+                        assertEquals(target[3 + i], vector(row)[i], 0f);
+                    }
+                }
+            }
+        } finally {
+            Files.deleteIfExists(file.toPath());
+        }
+    }
+
+    @Test
+    public void testUncommittedRowsIgnored() throws Exception {
+        File file = tempFile();
+        try {
+            try (MappedGalleryStore store = new MappedGalleryStore(file)) {
+                store.initDimension(DIMENSION);
+                for (int row = 0; row < 10; row++) {
+                    store.write(row, "id" + row, vector(row), 0);
+                }
+                store.setCount(6);
+            }
+            try (MappedGalleryStore store = new MappedGalleryStore(file)) {
+                assertEquals(store.getCount(), 6);
+                assertEquals(store.readId(5), "id5");
+            }
+        } finally {
+            Files.deleteIfExists(file.toPath());
+        }
+    }
+
+    @Test
+    public void testCopy() throws Exception {
+        File file = tempFile();
+        try (MappedGalleryStore store = new MappedGalleryStore(file)) {
+            store.initDimension(DIMENSION);
+            store.write(0, "a", vector(0), 0);
+            store.write(1500, "b", vector(1), 0);
+            store.copy(1500, 0);
+            assertEquals(store.readId(0), "b");
+            float[] target = new float[DIMENSION];
+            store.readVector(0, target, 0);
+            assertEquals(target, vector(1), 0f);
+        } finally {
+            Files.deleteIfExists(file.toPath());
+        }
+    }
+
+    @Test
+    public void testDimensionAndIdChecks() throws Exception {
+        File file = tempFile();
+        try (MappedGalleryStore store = new MappedGalleryStore(file)) {
+            store.initDimension(DIMENSION);
+            expectThrows(ClipException.class, () -> store.initDimension(DIMENSION));
+            StringBuilder id = new StringBuilder();
+            for (int i = 0; i < MappedGalleryStore.ID_BYTES; i++) {
+                id.append('x');
+            }
+            expectThrows(ClipException.class, () -> MappedGalleryStore.encodeId(id.toString()));
+        } finally {
+            Files.deleteIfExists(file.toPath());
+        }
+    }
+
+    private static File tempFile() throws Exception {
+        File file = File.createTempFile("gallery", ".gallery");
+        Files.delete(file.toPath());
+        return file;
+    }
+
+    private static float[] vector(int row) {
+        float[] vector = new float[DIMENSION];
+        for (int i = 0; i < DIMENSION; i++) {
+            vector[i] = row * 0.5f + i;
+        }
+        return vector;
+    }
+}